@@ -0,0 +1,86 @@
+package com.btcautotrader.upbit;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signing cost per request for the shapes the clients send: an order body, an order-chance query and the
+ * query-less accounts call. {@code auth0*} re-creates the previous per-call setup (new Algorithm, new digest, new
+ * builder) as the baseline. Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(4)
+public class UpbitJwtSignerBenchmark {
+    private static final String ACCESS_KEY = "benchmark-access-key-0123456789abcdef";
+    private static final String SECRET_KEY = "benchmark-secret-key-0123456789abcdef0123456789";
+
+    private final UpbitJwtSigner signer = new UpbitJwtSigner(ACCESS_KEY, SECRET_KEY);
+    private final String orderQuery = orderQuery();
+    private final String chanceQuery = "market=KRW-BTC";
+
+    @Benchmark
+    public String createOrder() {
+        return signer.authorization(orderQuery);
+    }
+
+    @Benchmark
+    public String fetchOrderChance() {
+        return signer.authorization(chanceQuery);
+    }
+
+    @Benchmark
+    public String fetchAccounts() {
+        return signer.authorization(null);
+    }
+
+    @Benchmark
+    public String auth0CreateOrder() throws Exception {
+        return auth0Authorization(orderQuery);
+    }
+
+    @Benchmark
+    public String auth0FetchAccounts() throws Exception {
+        return auth0Authorization(null);
+    }
+
+    private static String auth0Authorization(String queryString) throws Exception {
+        com.auth0.jwt.JWTCreator.Builder builder = JWT.create()
+                .withClaim("access_key", ACCESS_KEY)
+                .withClaim("nonce", UUID.randomUUID().toString());
+        if (queryString != null) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-512");
+            builder.withClaim("query_hash", HexFormat.of().formatHex(digest.digest(
+                    queryString.getBytes(StandardCharsets.UTF_8)
+            )));
+            builder.withClaim("query_hash_alg", "SHA512");
+        }
+        return "Bearer " + builder.sign(Algorithm.HMAC512(SECRET_KEY));
+    }
+
+    private static String orderQuery() {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("market", "KRW-BTC");
+        params.put("side", "bid");
+        params.put("ord_type", "price");
+        params.put("identifier", UUID.randomUUID().toString());
+        params.put("price", "150000");
+        return UpbitJwtSigner.queryString(params);
+    }
+}
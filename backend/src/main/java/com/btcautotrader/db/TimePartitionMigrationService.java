@@ -0,0 +1,364 @@
+package com.btcautotrader.db;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Moves trade_decisions onto monthly range partitions by executed_at so range scans prune to the months they touch
+ * and vacuum works per partition. It is never converted while a unique key leaves out the partition column, since
+ * Postgres cannot enforce that key across partitions.
+ * Partitions are kept {@code premake-months} ahead, and SKIP decisions past the retention window are deleted or
+ * archived in bounded batches.
+ * <p>
+ * The conversion copies the whole table under an exclusive lock, so it is off by default and, when enabled, runs
+ * once during startup before the decision writer and the engine start.
+ * <p>
+ * Startup also creates the expression index behind the decision listing, which JPA schema generation cannot declare.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class TimePartitionMigrationService {
+    private static final Logger log = LoggerFactory.getLogger(TimePartitionMigrationService.class);
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final PartitionedTable TRADE_DECISIONS = new PartitionedTable("trade_decisions", "executed_at");
+    // Recent decisions are listed by their latest occurrence, which for a compacted SKIP run is last_seen.
+    private static final String SEEN_AT_INDEX_DDL = "create index if not exists idx_trade_decisions_seen_at "
+            + "on trade_decisions ((coalesce(last_seen, executed_at)) desc, id desc)";
+    private static final String SKIP_ARCHIVE_TABLE = "trade_decisions_skip_archive";
+    private static final String SKIP_BATCH_PREDICATE = """
+            executed_at < ?
+              and id in (
+                select id
+                from trade_decisions
+                where action = 'SKIP'
+                  and executed_at < ?
+                limit ?
+              )
+            """;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean tradeDecisionsEnabled;
+    private final int premakeMonths;
+    private final int skipRetentionDays;
+    private final boolean archiveSkips;
+    private final int retentionBatchSize;
+    private final int retentionMaxBatches;
+
+    public TimePartitionMigrationService(
+            DataSource dataSource,
+            JdbcTemplate jdbcTemplate,
+            @Value("${db.partitioning.trade-decisions.enabled:false}") boolean tradeDecisionsEnabled,
+            @Value("${db.partitioning.premake-months:3}") int premakeMonths,
+            @Value("${db.retention.skip-decisions-days:0}") int skipRetentionDays,
+            @Value("${db.retention.skip-decisions-archive:false}") boolean archiveSkips,
+            @Value("${db.retention.batch-size:5000}") int retentionBatchSize,
+            @Value("${db.retention.max-batches:200}") int retentionMaxBatches
+    ) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.tradeDecisionsEnabled = tradeDecisionsEnabled;
+        this.premakeMonths = Math.max(1, premakeMonths);
+        this.skipRetentionDays = Math.max(0, skipRetentionDays);
+        this.archiveSkips = archiveSkips;
+        this.retentionBatchSize = Math.max(1, retentionBatchSize);
+        this.retentionMaxBatches = Math.max(1, retentionMaxBatches);
+    }
+
+    /**
+     * Runs while the context is still starting: the schema exists (this bean depends on the entity manager factory),
+     * but {@link com.btcautotrader.engine.TradeDecisionWriter} depends on this bean, so no decision is written and no
+     * engine tick is scheduled until the copy has committed.
+     */
+    @PostConstruct
+    public void migrateToPartitionedTables() {
+        if (!isPostgres()) {
+            return;
+        }
+        partitionTradeDecisions();
+        try {
+            jdbcTemplate.execute(SEEN_AT_INDEX_DDL);
+        } catch (RuntimeException ex) {
+            log.warn("Failed to create the trade decision listing index: {}", ex.getMessage());
+        }
+    }
+
+    private void partitionTradeDecisions() {
+        if (!tradeDecisionsEnabled || !"r".equals(relationKind(TRADE_DECISIONS.name()))) {
+            return;
+        }
+        List<String> blocking = uniqueIndexesWithoutColumn(TRADE_DECISIONS.name(), TRADE_DECISIONS.column());
+        if (!blocking.isEmpty()) {
+            log.warn("Not partitioning {}: unique indexes {} do not include {}",
+                    TRADE_DECISIONS.name(), blocking, TRADE_DECISIONS.column());
+            return;
+        }
+        try {
+            convert(TRADE_DECISIONS);
+        } catch (RuntimeException ex) {
+            log.warn("Failed to convert {} to partitions; keeping the plain table: {}",
+                    TRADE_DECISIONS.name(), ex.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void maintainOnStartup() {
+        if (isPostgres()) {
+            maintain();
+        }
+    }
+
+    @Scheduled(cron = "${db.partitioning.maintenance-cron:0 17 3 * * *}")
+    public void maintainPartitions() {
+        if (isPostgres()) {
+            maintain();
+        }
+    }
+
+    private void maintain() {
+        YearMonth last = YearMonth.now(ZoneOffset.UTC).plusMonths(premakeMonths);
+        if ("p".equals(relationKind(TRADE_DECISIONS.name()))) {
+            for (String ddl : partitionDdl(TRADE_DECISIONS, YearMonth.now(ZoneOffset.UTC), last)) {
+                try {
+                    jdbcTemplate.execute(ddl);
+                } catch (RuntimeException ex) {
+                    // Usually rows for that month already sit in the default partition.
+                    log.warn("Failed to create partition for {}: {}", TRADE_DECISIONS.name(), ex.getMessage());
+                }
+            }
+        }
+        try {
+            purgeSkipDecisions();
+        } catch (RuntimeException ex) {
+            log.warn("Failed to apply SKIP decision retention: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Swaps the plain table for a partitioned copy in one transaction. The primary key becomes (id, partition column)
+     * and the secondary indexes are recreated as they were.
+     */
+    private void convert(PartitionedTable table) {
+        String name = table.name();
+        String legacy = name + "_legacy";
+        List<String> indexDefinitions = secondaryIndexDefinitions(name);
+        String serialSequence = jdbcTemplate.queryForObject(
+                "select pg_get_serial_sequence(?, 'id')",
+                String.class,
+                name
+        );
+        boolean identity = isIdentityColumn(name);
+
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("lock table " + name + " in access exclusive mode");
+                statement.execute("alter table " + name + " rename to " + legacy);
+                statement.execute("create table " + name + " (like " + legacy
+                        + " including defaults including identity including constraints including storage)"
+                        + " partition by range (" + table.column() + ")");
+                statement.execute("alter table " + name + " add primary key (id, " + table.column() + ")");
+                if (serialSequence != null && !identity) {
+                    statement.execute("alter sequence " + serialSequence + " owned by " + name + ".id");
+                }
+                YearMonth first = oldestMonth(statement, legacy, table.column());
+                for (String ddl : partitionDdl(table, first, YearMonth.now(ZoneOffset.UTC).plusMonths(premakeMonths))) {
+                    statement.execute(ddl);
+                }
+                statement.execute("create table if not exists " + name + "_default partition of " + name + " default");
+                int copied = statement.executeUpdate("insert into " + name
+                        + (identity ? " overriding system value" : "")
+                        + " select * from " + legacy);
+                statement.execute("drop table " + legacy);
+                for (String definition : indexDefinitions) {
+                    statement.execute(definition);
+                }
+                statement.execute("select setval(pg_get_serial_sequence('" + name + "', 'id'), "
+                        + "coalesce((select max(id) from " + name + "), 0) + 1, false)");
+                connection.commit();
+                log.warn("Converted {} to monthly partitions by {} ({} rows copied)", name, table.column(), copied);
+            } catch (SQLException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+            return null;
+        });
+    }
+
+    private void purgeSkipDecisions() {
+        if (skipRetentionDays <= 0 || relationKind(TRADE_DECISIONS.name()) == null) {
+            return;
+        }
+        OffsetDateTime cutoff = OffsetDateTime.now(ZoneOffset.UTC).minusDays(skipRetentionDays);
+        String sql = archiveSkips ? archiveSkipsSql() : "delete from trade_decisions where " + SKIP_BATCH_PREDICATE;
+        long total = 0;
+        // Small batches keep each transaction's dead tuples, and so autovacuum's work, bounded.
+        for (int batch = 0; batch < retentionMaxBatches; batch++) {
+            int affected = jdbcTemplate.update(sql, cutoff, cutoff, retentionBatchSize);
+            total += affected;
+            if (affected < retentionBatchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("{} {} SKIP decisions older than {}", archiveSkips ? "Archived" : "Deleted", total, cutoff);
+        }
+    }
+
+    private String archiveSkipsSql() {
+        jdbcTemplate.execute("create table if not exists " + SKIP_ARCHIVE_TABLE + " (like trade_decisions)");
+        List<String> archiveColumns = columnNames(SKIP_ARCHIVE_TABLE);
+        List<String> columns = columnNames(TRADE_DECISIONS.name())
+                .stream()
+                .filter(archiveColumns::contains)
+                .toList();
+        String columnList = String.join(", ", columns);
+        return "with moved as (delete from trade_decisions where " + SKIP_BATCH_PREDICATE + " returning *) "
+                + "insert into " + SKIP_ARCHIVE_TABLE + " (" + columnList + ") select " + columnList + " from moved";
+    }
+
+    private List<String> partitionDdl(PartitionedTable table, YearMonth from, YearMonth to) {
+        List<String> ddl = new ArrayList<>();
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            ddl.add("create table if not exists " + table.name() + "_p" + month.format(PARTITION_SUFFIX)
+                    + " partition of " + table.name()
+                    + " for values from ('" + month.atDay(1) + " 00:00:00+00')"
+                    + " to ('" + month.plusMonths(1).atDay(1) + " 00:00:00+00')");
+        }
+        return ddl;
+    }
+
+    private static YearMonth oldestMonth(Statement statement, String table, String column) throws SQLException {
+        try (ResultSet rs = statement.executeQuery("select min(" + column + ") from " + table)) {
+            Timestamp oldest = rs.next() ? rs.getTimestamp(1) : null;
+            if (oldest == null) {
+                return YearMonth.now(ZoneOffset.UTC);
+            }
+            return YearMonth.from(oldest.toInstant().atOffset(ZoneOffset.UTC));
+        }
+    }
+
+    private boolean isPostgres() {
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metadata = connection.getMetaData();
+            String product = metadata == null ? null : metadata.getDatabaseProductName();
+            return product != null && product.toLowerCase(Locale.ROOT).contains("postgresql");
+        } catch (SQLException ex) {
+            log.warn("Failed to detect database product for partition migration: {}", ex.getMessage());
+            return false;
+        }
+    }
+
+    private String relationKind(String table) {
+        List<String> kinds = jdbcTemplate.query(
+                """
+                select c.relkind::text
+                from pg_class c
+                join pg_namespace n on c.relnamespace = n.oid
+                where n.nspname = current_schema()
+                  and c.relname = ?
+                """,
+                (rs, rowNum) -> rs.getString(1),
+                table
+        );
+        return kinds.isEmpty() ? null : kinds.get(0);
+    }
+
+    private boolean isIdentityColumn(String table) {
+        List<String> identity = jdbcTemplate.query(
+                """
+                select a.attidentity::text
+                from pg_attribute a
+                join pg_class c on a.attrelid = c.oid
+                join pg_namespace n on c.relnamespace = n.oid
+                where n.nspname = current_schema()
+                  and c.relname = ?
+                  and a.attname = 'id'
+                """,
+                (rs, rowNum) -> rs.getString(1),
+                table
+        );
+        return !identity.isEmpty() && identity.get(0) != null && !identity.get(0).isBlank();
+    }
+
+    private List<String> secondaryIndexDefinitions(String table) {
+        return jdbcTemplate.query(
+                """
+                select pg_get_indexdef(i.indexrelid)
+                from pg_index i
+                join pg_class t on i.indrelid = t.oid
+                join pg_namespace n on t.relnamespace = n.oid
+                where n.nspname = current_schema()
+                  and t.relname = ?
+                  and not i.indisprimary
+                """,
+                (rs, rowNum) -> rs.getString(1),
+                table
+        );
+    }
+
+    private List<String> uniqueIndexesWithoutColumn(String table, String column) {
+        return jdbcTemplate.query(
+                """
+                select ic.relname
+                from pg_index i
+                join pg_class t on i.indrelid = t.oid
+                join pg_class ic on i.indexrelid = ic.oid
+                join pg_namespace n on t.relnamespace = n.oid
+                join pg_attribute a on a.attrelid = t.oid and a.attname = ?
+                where n.nspname = current_schema()
+                  and t.relname = ?
+                  and i.indisunique
+                  and not i.indisprimary
+                  and not (a.attnum = any(i.indkey))
+                """,
+                (rs, rowNum) -> rs.getString(1),
+                column,
+                table
+        );
+    }
+
+    private List<String> columnNames(String table) {
+        return jdbcTemplate.query(
+                """
+                select column_name
+                from information_schema.columns
+                where table_schema = current_schema()
+                  and table_name = ?
+                order by ordinal_position
+                """,
+                (rs, rowNum) -> rs.getString(1),
+                table
+        );
+    }
+
+    private record PartitionedTable(String name, String column) {
+    }
+}
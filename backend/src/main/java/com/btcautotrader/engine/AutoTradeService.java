@@ -1,6 +1,12 @@
 package com.btcautotrader.engine;
 
-import com.btcautotrader.order.OrderRepository;
+import com.btcautotrader.indicator.CandleColumns;
+import com.btcautotrader.indicator.IncrementalIndicatorSet;
+import com.btcautotrader.indicator.IndicatorKernels;
+import com.btcautotrader.market.Candle;
+import com.btcautotrader.market.CandleStore;
+import com.btcautotrader.market.MarketDataFeed;
+import com.btcautotrader.order.OrderGuardIndex;
 import com.btcautotrader.order.OrderRequest;
 import com.btcautotrader.order.OrderResponse;
 import com.btcautotrader.order.OrderService;
@@ -8,9 +14,13 @@ import com.btcautotrader.strategy.StrategyConfig;
 import com.btcautotrader.strategy.StrategyMarketOverrides;
 import com.btcautotrader.strategy.StrategyMarketRatios;
 import com.btcautotrader.strategy.StrategyProfile;
-import com.btcautotrader.strategy.StrategyService;
+import com.btcautotrader.strategy.StrategySnapshot;
+import com.btcautotrader.strategy.StrategySnapshotCache;
+import com.btcautotrader.upbit.UpbitAccount;
 import com.btcautotrader.upbit.UpbitService;
+import com.btcautotrader.upbit.UpbitTicker;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -22,27 +32,45 @@ import java.time.OffsetDateTime;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Deque;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 @Service
 public class AutoTradeService {
     private static final BigDecimal HUNDRED = new BigDecimal("100");
-    private static final BigDecimal RELATIVE_MOMENTUM_LONG_WEIGHT = new BigDecimal("0.6");
-    private static final BigDecimal RELATIVE_MOMENTUM_SHORT_WEIGHT = new BigDecimal("0.4");
+    private static final double RELATIVE_MOMENTUM_LONG_WEIGHT = 0.6;
+    private static final double RELATIVE_MOMENTUM_SHORT_WEIGHT = 0.4;
+    private static final int DECIMAL_SCALE = 8;
+    private static final ThreadLocal<CandleColumns> CANDLE_COLUMNS = ThreadLocal.withInitial(CandleColumns::new);
     private static final String SYSTEM_KEY = "SYSTEM";
+    private static final int TICKER_BATCH_SIZE = 100;
 
     private final UpbitService upbitService;
+    private final CandleStore candleStore;
+    private final MarketDataFeed marketDataFeed;
     private final OrderService orderService;
-    private final StrategyService strategyService;
+    private final StrategySnapshotCache strategySnapshotCache;
     private final EngineService engineService;
-    private final OrderRepository orderRepository;
+    private final OrderGuardIndex orderGuardIndex;
     private final TradeDecisionRepository tradeDecisionRepository;
     private final TradeDecisionService tradeDecisionService;
 
@@ -109,9 +137,25 @@ public class AutoTradeService {
     private final long relativeMomentumCacheMinutes;
     private final long orderChanceCacheMinutes;
     private final int stateRestoreLimit;
+    private final boolean incrementalIndicators;
+    private final IncrementalIndicatorSet.Spec signalIndicatorSpec;
+    private final int signalCandleCount;
+    private final IncrementalIndicatorSet.Spec regimeIndicatorSpec;
+    private final ExecutorService evaluationExecutor;
+    private final boolean eventMode;
+    private final long candleCloseDelayMs;
+    private final long candlePriceMaxAgeMs;
+    private final ScheduledExecutorService candleCloseScheduler;
+    private final long parallelEvaluationTimeoutMs;
 
     private final AtomicBoolean running = new AtomicBoolean(false);
     private final AtomicInteger marketCursor = new AtomicInteger(0);
+    private final AtomicLong closedCandleDue = new AtomicLong(-1);
+    private final AtomicLong closedCandleEvaluated = new AtomicLong(-1);
+    private volatile Map<String, AccountSnapshot> lastAccounts = Map.of();
+    // Set when an evaluation placed a BUY: lastAccounts predates that position until it is reloaded.
+    private volatile boolean accountsRefreshPending;
+    private volatile Map<String, BigDecimal> tickPrices = Map.of();
     private final Map<String, BackoffState> backoffStates = new ConcurrentHashMap<>();
     private final Map<String, OffsetDateTime> lastPartialTakeProfitAt = new ConcurrentHashMap<>();
     private final Map<String, OffsetDateTime> lastStopLossAt = new ConcurrentHashMap<>();
@@ -121,13 +165,17 @@ public class AutoTradeService {
     private final Map<String, BigDecimal> trailingHighByMarket = new ConcurrentHashMap<>();
     private final Map<String, OrderChanceSnapshot> orderChanceCache = new ConcurrentHashMap<>();
     private final Map<String, MomentumSnapshot> relativeMomentumCache = new ConcurrentHashMap<>();
+    private final Map<String, IncrementalIndicatorSet> incrementalIndicatorsByKey = new ConcurrentHashMap<>();
+    private volatile MarketPlans marketPlans;
 
     public AutoTradeService(
             UpbitService upbitService,
+            CandleStore candleStore,
+            MarketDataFeed marketDataFeed,
             OrderService orderService,
-            StrategyService strategyService,
+            StrategySnapshotCache strategySnapshotCache,
             EngineService engineService,
-            OrderRepository orderRepository,
+            OrderGuardIndex orderGuardIndex,
             TradeDecisionRepository tradeDecisionRepository,
             TradeDecisionService tradeDecisionService,
             @Value("${trading.market-max-order-krw:}") String marketMaxOrderKrwConfig,
@@ -191,13 +239,22 @@ public class AutoTradeService {
             @Value("${signal.relative-momentum.min-score-pct:0.0}") double relativeMomentumMinScorePct,
             @Value("${signal.relative-momentum.cache-minutes:5}") long relativeMomentumCacheMinutes,
             @Value("${orders.chance-cache-minutes:5}") long orderChanceCacheMinutes,
-            @Value("${engine.state-restore-limit:500}") int stateRestoreLimit
+            @Value("${engine.state-restore-limit:500}") int stateRestoreLimit,
+            @Value("${signal.incremental.enabled:true}") boolean incrementalIndicatorsEnabled,
+            @Value("${engine.parallel-evaluation.enabled:true}") boolean parallelEvaluationEnabled,
+            @Value("${engine.parallel-evaluation.threads:4}") int parallelEvaluationThreads,
+            @Value("${engine.parallel-evaluation.timeout-ms:15000}") long parallelEvaluationTimeoutMs,
+            @Value("${engine.mode:POLL}") String engineMode,
+            @Value("${engine.event.close-delay-ms:1500}") long candleCloseDelayMs,
+            @Value("${engine.candle-price-max-age-ms:10000}") long candlePriceMaxAgeMs
     ) {
         this.upbitService = upbitService;
+        this.candleStore = candleStore;
+        this.marketDataFeed = marketDataFeed;
         this.orderService = orderService;
-        this.strategyService = strategyService;
+        this.strategySnapshotCache = strategySnapshotCache;
         this.engineService = engineService;
-        this.orderRepository = orderRepository;
+        this.orderGuardIndex = orderGuardIndex;
         this.tradeDecisionRepository = tradeDecisionRepository;
         this.tradeDecisionService = tradeDecisionService;
         this.propertyMarketMaxOrderKrwOverrides = Map.copyOf(parseMarketMaxOrderKrwOverrides(marketMaxOrderKrwConfig));
@@ -226,7 +283,9 @@ public class AutoTradeService {
         this.minAdx = minAdx;
         this.volumeLookback = volumeLookback;
         this.minVolumeRatio = minVolumeRatio;
-        this.bollingerWindow = Math.max(0, Math.min(bollingerWindow, 200));
+        // Windows are bounded by how deep the candle store keeps history, not by the exchange's 200-per-call limit.
+        int historyLimit = candleStore.capacity();
+        this.bollingerWindow = Math.max(0, Math.min(bollingerWindow, historyLimit));
         this.bollingerStdDev = Math.max(0.1, Math.min(bollingerStdDev, 6.0));
         this.bollingerMinBandwidthPct = Math.max(0.0, bollingerMinBandwidthPct);
         this.bollingerMaxPercentB = bollingerMaxPercentB;
@@ -249,15 +308,15 @@ public class AutoTradeService {
         this.regimeFilterPerMarket = regimeFilterPerMarket;
         this.regimeMarket = normalizeMarket(regimeMarket, "KRW-BTC");
         this.regimeTimeframeUnit = Math.max(1, regimeTimeframeUnit);
-        this.regimeMaShort = Math.max(2, Math.min(regimeMaShort, 199));
-        this.regimeMaLong = Math.max(this.regimeMaShort + 1, Math.min(regimeMaLong, 200));
+        this.regimeMaShort = Math.max(2, Math.min(regimeMaShort, historyLimit - 1));
+        this.regimeMaLong = Math.max(this.regimeMaShort + 1, Math.min(regimeMaLong, historyLimit));
         this.regimeSlopeLookback = Math.max(0, Math.min(regimeSlopeLookback, 60));
         this.regimeMinMaLongSlopePct = regimeMinMaLongSlopePct;
-        this.regimeVolatilityWindow = Math.max(2, Math.min(regimeVolatilityWindow, 200));
+        this.regimeVolatilityWindow = Math.max(2, Math.min(regimeVolatilityWindow, historyLimit));
         this.regimeMaxVolatilityPct = regimeMaxVolatilityPct;
         this.relativeMomentumEnabled = relativeMomentumEnabled;
         this.relativeMomentumTimeframeUnit = Math.max(1, relativeMomentumTimeframeUnit);
-        int maxMomentumLookback = useClosedCandle ? 198 : 199;
+        int maxMomentumLookback = useClosedCandle ? historyLimit - 2 : historyLimit - 1;
         this.relativeMomentumShortLookback = Math.max(1, Math.min(relativeMomentumShortLookback, maxMomentumLookback - 1));
         this.relativeMomentumLongLookback = Math.max(
                 this.relativeMomentumShortLookback + 1,
@@ -268,6 +327,68 @@ public class AutoTradeService {
         this.relativeMomentumCacheMinutes = Math.max(0, relativeMomentumCacheMinutes);
         this.orderChanceCacheMinutes = Math.max(0, orderChanceCacheMinutes);
         this.stateRestoreLimit = Math.max(0, stateRestoreLimit);
+        // Incremental state only advances on closed candles, so it cannot serve the forming-candle mode.
+        this.incrementalIndicators = incrementalIndicatorsEnabled && useClosedCandle;
+        int macdFastWindow = Math.max(2, macdFast);
+        IncrementalIndicatorSet.Spec signalWindows = new IncrementalIndicatorSet.Spec(
+                maShort,
+                maLong,
+                Math.max(0, maLongSlopeLookback),
+                Math.max(2, rsiPeriod),
+                macdFastWindow,
+                Math.max(macdFastWindow + 1, macdSlow),
+                Math.max(2, macdSignal),
+                Math.max(2, adxPeriod),
+                Math.max(1, volumeLookback),
+                this.bollingerWindow > 1 ? this.bollingerWindow : 0,
+                volatilityWindow > 1 ? volatilityWindow : 0,
+                breakoutLookback > 1 ? breakoutLookback : 0,
+                trailingWindow > 1 ? trailingWindow : 0,
+                0
+        );
+        this.signalCandleCount = signalCandleCount(signalWindows, targetVolPct, useClosedCandle);
+        // The batch path seeds MACD/ADX at the first closed candle of the fetched window; seed the incremental state
+        // over the same number of candles so both paths report the same values.
+        this.signalIndicatorSpec = signalWindows.withSeedWindow(
+                useClosedCandle ? signalCandleCount - 1 : signalCandleCount
+        );
+        this.regimeIndicatorSpec = IncrementalIndicatorSet.Spec.trendOnly(
+                this.regimeMaShort,
+                this.regimeMaLong,
+                this.regimeSlopeLookback,
+                this.regimeVolatilityWindow > 1 ? this.regimeVolatilityWindow : 0
+        );
+        this.evaluationExecutor = parallelEvaluationEnabled && parallelEvaluationThreads > 1
+                ? Executors.newFixedThreadPool(Math.min(parallelEvaluationThreads, 32), evaluationThreadFactory())
+                : null;
+        this.parallelEvaluationTimeoutMs = Math.max(1000, parallelEvaluationTimeoutMs);
+        this.eventMode = "EVENT".equalsIgnoreCase(engineMode == null ? "" : engineMode.trim());
+        this.candleCloseDelayMs = Math.max(0, candleCloseDelayMs);
+        this.candlePriceMaxAgeMs = Math.max(0, candlePriceMaxAgeMs);
+        this.candleCloseScheduler = eventMode
+                ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "auto-trade-candle-close");
+                    thread.setDaemon(true);
+                    return thread;
+                })
+                : null;
+    }
+
+    @PreDestroy
+    void shutdownEvaluationExecutor() {
+        if (evaluationExecutor != null) {
+            evaluationExecutor.shutdownNow();
+        }
+        if (candleCloseScheduler != null) {
+            candleCloseScheduler.shutdownNow();
+        }
+    }
+
+    @PostConstruct
+    void startCandleCloseTrigger() {
+        if (candleCloseScheduler != null) {
+            scheduleNextCandleClose();
+        }
     }
 
     @PostConstruct
@@ -331,14 +452,184 @@ public class AutoTradeService {
         if (!engineService.isRunning()) {
             return;
         }
-        runOnce();
+        if (!eventMode) {
+            runOnce();
+            return;
+        }
+        // Event mode: full evaluation only once per closed candle, otherwise just price-based exits.
+        if (!runClosedCandleEvaluation()) {
+            runPriceExitChecks();
+        }
     }
 
     public AutoTradeResult runOnce() {
         if (!running.compareAndSet(false, true)) {
             return new AutoTradeResult(OffsetDateTime.now().toString(), List.of());
         }
+        try {
+            return evaluateMarkets();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void scheduleNextCandleClose() {
+        long unitMs = Math.max(1, candleUnitMinutes) * 60_000L;
+        long now = System.currentTimeMillis();
+        long nextCloseMs = (Math.floorDiv(now - candleCloseDelayMs, unitMs) + 1) * unitMs + candleCloseDelayMs;
+        try {
+            candleCloseScheduler.schedule(this::onCandleClose, nextCloseMs - now, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ex) {
+            // Shutting down.
+        }
+    }
 
+    private void onCandleClose() {
+        try {
+            long unitMs = Math.max(1, candleUnitMinutes) * 60_000L;
+            closedCandleDue.accumulateAndGet(
+                    Math.floorDiv(System.currentTimeMillis() - candleCloseDelayMs, unitMs),
+                    Math::max
+            );
+            if (engineService.isRunning()) {
+                runClosedCandleEvaluation();
+            }
+        } finally {
+            scheduleNextCandleClose();
+        }
+    }
+
+    /**
+     * Runs the full evaluation if a candle has closed since the last one. A close that arrives while another
+     * evaluation holds the engine stays due and is picked up by the next tick.
+     */
+    private boolean runClosedCandleEvaluation() {
+        long due = closedCandleDue.get();
+        if (due <= closedCandleEvaluated.get()) {
+            return false;
+        }
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            closedCandleEvaluated.accumulateAndGet(due, Math::max);
+            evaluateMarkets();
+            return true;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void runPriceExitChecks() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Map<String, AccountSnapshot> accounts = accountsForPriceExits();
+            if (accounts.isEmpty()) {
+                return;
+            }
+            StrategySnapshot strategy = strategySnapshotCache.get();
+            StrategyConfig config = strategy.config();
+            if (!config.enabled()) {
+                return;
+            }
+            OffsetDateTime now = OffsetDateTime.now();
+            MarketPlans plans = marketPlans(strategy);
+            List<String> heldMarkets = new ArrayList<>();
+            for (String market : strategy.markets()) {
+                String currency = extractCurrency(market);
+                if (currency == null || isBackoffActive(market, now)) {
+                    continue;
+                }
+                AccountSnapshot position = accounts.get(currency);
+                if (position != null
+                        && position.balance().compareTo(BigDecimal.ZERO) > 0
+                        && position.avgBuyPrice().compareTo(BigDecimal.ZERO) > 0) {
+                    heldMarkets.add(market);
+                }
+            }
+            tickPrices = loadPriceSnapshot(heldMarkets);
+            for (String market : heldMarkets) {
+                String currency = extractCurrency(market);
+                AccountSnapshot position = accounts.get(currency);
+                MarketPlan plan = plans.plan(market);
+                try {
+                    BigDecimal currentPrice = fetchCurrentPrice(market);
+                    if (!isPriceExitTriggered(market, position.avgBuyPrice(), currentPrice, plan.config())) {
+                        continue;
+                    }
+                    evaluatePriceExit(currency, plan);
+                    resetFailure(market);
+                } catch (RuntimeException ex) {
+                    recordFailure(market, now);
+                }
+            }
+        } finally {
+            tickPrices = Map.of();
+            running.set(false);
+        }
+    }
+
+    /**
+     * Balances the price path scans. After a BUY they are reloaded once (on the next tick, by when the market order
+     * has filled), so a fresh position gets stop-loss/trailing checks before the next candle close.
+     */
+    private Map<String, AccountSnapshot> accountsForPriceExits() {
+        if (accountsRefreshPending) {
+            try {
+                lastAccounts = loadAccounts();
+                accountsRefreshPending = false;
+            } catch (RuntimeException ex) {
+                // Keep the previous balances and retry on the next tick.
+            }
+        }
+        return lastAccounts;
+    }
+
+    private boolean isPriceExitTriggered(
+            String market,
+            BigDecimal avgBuyPrice,
+            BigDecimal currentPrice,
+            StrategyConfig config
+    ) {
+        if (currentPrice == null || currentPrice.compareTo(BigDecimal.ZERO) <= 0) {
+            return false;
+        }
+        if (currentPrice.compareTo(avgBuyPrice.multiply(percentFactor(-config.stopLossPct()))) <= 0) {
+            return true;
+        }
+        BigDecimal trailingHigh = updateTrailingHigh(market, avgBuyPrice, currentPrice, null);
+        return config.trailingStopPct() > 0
+                && trailingHigh != null
+                && currentPrice.compareTo(trailingHigh.multiply(percentFactor(-config.trailingStopPct()))) <= 0;
+    }
+
+    private void evaluatePriceExit(String currency, MarketPlan plan) {
+        // Positions may have changed since the last full evaluation; sell against fresh balances only.
+        Map<String, AccountSnapshot> accounts = loadAccounts();
+        lastAccounts = accounts;
+        AccountSnapshot position = accounts.getOrDefault(currency, AccountSnapshot.empty());
+        if (position.total().compareTo(BigDecimal.ZERO) <= 0) {
+            return;
+        }
+        String market = plan.market();
+        AutoTradeAction action = handleSell(market, position, plan.config(), null, plan.tuning());
+        recordDecision(
+                market,
+                action,
+                plan.config(),
+                plan.profile(),
+                null,
+                plan.tuning(),
+                null,
+                null,
+                plan.maxOrderKrw()
+        );
+    }
+
+    private AutoTradeResult evaluateMarkets() {
+        Map<String, Future<MarketIndicators>> prefetched = Map.of();
         try {
             OffsetDateTime now = OffsetDateTime.now();
             if (isBackoffActive(SYSTEM_KEY, now)) {
@@ -347,20 +638,13 @@ public class AutoTradeService {
                 return new AutoTradeResult(now.toString(), List.of(action));
             }
 
-            StrategyConfig config = strategyService.getConfig();
+            StrategySnapshot strategy = strategySnapshotCache.get();
+            StrategyConfig config = strategy.config();
             if (!config.enabled()) {
                 return new AutoTradeResult(now.toString(), List.of());
             }
-            StrategyMarketOverrides runtimeOverrides = strategyService.getMarketOverridesSnapshot();
-            Map<String, BigDecimal> marketMaxOrderKrwByMarket = mergeMarketMaxOrderKrwOverrides(
-                    propertyMarketMaxOrderKrwOverrides,
-                    runtimeOverrides
-            );
-            Map<String, StrategyProfile> marketProfileByMarket = mergeMarketProfileOverrides(
-                    propertyMarketProfileOverrides,
-                    runtimeOverrides
-            );
-            List<String> markets = strategyService.configuredMarkets();
+            MarketPlans plans = marketPlans(strategy);
+            List<String> markets = strategy.markets();
             if (markets.isEmpty()) {
                 return new AutoTradeResult(now.toString(), List.of());
             }
@@ -368,6 +652,8 @@ public class AutoTradeService {
             Map<String, AccountSnapshot> accounts;
             try {
                 accounts = loadAccounts();
+                lastAccounts = accounts;
+                accountsRefreshPending = false;
                 resetFailure(SYSTEM_KEY);
             } catch (RuntimeException ex) {
                 recordFailure(SYSTEM_KEY, now);
@@ -391,16 +677,28 @@ public class AutoTradeService {
             }
             MarketSelection selection = selectMarketsForTick(markets, accounts);
             BigDecimal remainingCash = accounts.getOrDefault("KRW", AccountSnapshot.empty()).balance();
+            if (regimeFilterPerMarket) {
+                prefetchRegimes(selection, regimeByMarket);
+            }
+            prefetched = prefetchIndicators(
+                    selection.selected(),
+                    accounts,
+                    now,
+                    globalRegime,
+                    regimeByMarket,
+                    plans
+            );
 
             List<AutoTradeAction> actions = new ArrayList<>();
             for (String market : selection.selected()) {
                 RegimeSnapshot regime = regimeFilterPerMarket
                         ? regimeByMarket.computeIfAbsent(normalizeMarket(market, regimeMarket), this::evaluateRegime)
                         : globalRegime;
-                StrategyConfig marketConfig = resolveConfigForMarket(market, config, runtimeOverrides);
-                StrategyProfile profile = resolveProfileForMarket(market, marketConfig, marketProfileByMarket);
-                SignalTuning tuning = resolveSignalTuning(profile);
-                BigDecimal marketMaxOrderKrw = resolveMarketMaxOrderKrw(market, marketConfig, marketMaxOrderKrwByMarket);
+                MarketPlan plan = plans.plan(market);
+                StrategyConfig marketConfig = plan.config();
+                StrategyProfile profile = plan.profile();
+                SignalTuning tuning = plan.tuning();
+                BigDecimal marketMaxOrderKrw = plan.maxOrderKrw();
                 BigDecimal momentumScorePct = selection.momentumScorePctByMarket().get(market);
 
                 if (isBackoffActive(market, now)) {
@@ -455,7 +753,7 @@ public class AutoTradeService {
                         }
                     }
 
-                    indicators = fetchIndicators(market, tuning);
+                    indicators = awaitIndicators(plan, prefetched.get(market));
 
                     if (total.compareTo(BigDecimal.ZERO) > 0) {
                         AutoTradeAction sellAction = handleSell(market, position, marketConfig, indicators, tuning);
@@ -553,10 +851,11 @@ public class AutoTradeService {
                 RegimeSnapshot regime = regimeFilterPerMarket
                         ? regimeByMarket.computeIfAbsent(normalizeMarket(market, regimeMarket), this::evaluateRegime)
                         : globalRegime;
-                StrategyConfig marketConfig = resolveConfigForMarket(market, config, runtimeOverrides);
-                StrategyProfile profile = resolveProfileForMarket(market, marketConfig, marketProfileByMarket);
-                SignalTuning tuning = resolveSignalTuning(profile);
-                BigDecimal marketMaxOrderKrw = resolveMarketMaxOrderKrw(market, marketConfig, marketMaxOrderKrwByMarket);
+                MarketPlan plan = plans.plan(market);
+                StrategyConfig marketConfig = plan.config();
+                StrategyProfile profile = plan.profile();
+                SignalTuning tuning = plan.tuning();
+                BigDecimal marketMaxOrderKrw = plan.maxOrderKrw();
                 BigDecimal momentumScorePct = selection.momentumScorePctByMarket().get(market);
                 AutoTradeAction action = new AutoTradeAction(
                         market,
@@ -581,10 +880,115 @@ public class AutoTradeService {
                         marketMaxOrderKrw
                 );
             }
+            for (AutoTradeAction action : actions) {
+                if ("BUY".equalsIgnoreCase(action.action())) {
+                    accountsRefreshPending = true;
+                    break;
+                }
+            }
             return new AutoTradeResult(now.toString(), actions);
         } finally {
-            running.set(false);
+            for (Future<MarketIndicators> pending : prefetched.values()) {
+                pending.cancel(true);
+            }
+        }
+    }
+
+    private void prefetchRegimes(MarketSelection selection, Map<String, RegimeSnapshot> regimeByMarket) {
+        if (evaluationExecutor == null) {
+            return;
+        }
+        Map<String, CompletableFuture<RegimeSnapshot>> futures = new LinkedHashMap<>();
+        List<String> targets = new ArrayList<>(selection.selected());
+        targets.addAll(selection.deferredReasonsByMarket().keySet());
+        for (String market : targets) {
+            String target = normalizeMarket(market, regimeMarket);
+            futures.computeIfAbsent(
+                    target,
+                    key -> CompletableFuture.supplyAsync(() -> evaluateRegime(key), evaluationExecutor)
+            );
+        }
+        for (Map.Entry<String, CompletableFuture<RegimeSnapshot>> entry : futures.entrySet()) {
+            try {
+                regimeByMarket.put(
+                        entry.getKey(),
+                        entry.getValue().get(parallelEvaluationTimeoutMs, TimeUnit.MILLISECONDS)
+                );
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException | TimeoutException ex) {
+                // Left unresolved here; the commit loop evaluates it again on demand.
+                entry.getValue().cancel(true);
+            }
+        }
+    }
+
+    private Map<String, Future<MarketIndicators>> prefetchIndicators(
+            List<String> selected,
+            Map<String, AccountSnapshot> accounts,
+            OffsetDateTime now,
+            RegimeSnapshot globalRegime,
+            Map<String, RegimeSnapshot> regimeByMarket,
+            MarketPlans plans
+    ) {
+        if (evaluationExecutor == null || selected.size() <= 1) {
+            return Map.of();
+        }
+        Map<String, Future<MarketIndicators>> futures = new HashMap<>();
+        for (String market : selected) {
+            if (isBackoffActive(market, now)) {
+                continue;
+            }
+            String currency = extractCurrency(market);
+            if (currency == null) {
+                continue;
+            }
+            if (accounts.getOrDefault(currency, AccountSnapshot.empty()).total().compareTo(BigDecimal.ZERO) <= 0) {
+                RegimeSnapshot regime = regimeFilterPerMarket
+                        ? regimeByMarket.get(normalizeMarket(market, regimeMarket))
+                        : globalRegime;
+                if (regime != null && !regime.allowEntries()) {
+                    continue;
+                }
+            }
+            MarketPlan plan = plans.plan(market);
+            futures.put(market, evaluationExecutor.submit(() -> fetchIndicators(plan)));
         }
+        return futures;
+    }
+
+    private MarketIndicators awaitIndicators(MarketPlan plan, Future<MarketIndicators> prefetched) {
+        if (prefetched == null) {
+            return fetchIndicators(plan);
+        }
+        try {
+            return prefetched.get(parallelEvaluationTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("indicator fetch failed", cause);
+        } catch (TimeoutException ex) {
+            prefetched.cancel(true);
+            throw new IllegalStateException("indicator fetch timed out");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("indicator fetch interrupted");
+        }
+    }
+
+    private static ThreadFactory evaluationThreadFactory() {
+        AtomicInteger sequence = new AtomicInteger(0);
+        return runnable -> {
+            Thread thread = new Thread(runnable, "auto-trade-eval-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
     }
 
     private SignalTuning resolveSignalTuning(StrategyProfile profile) {
@@ -968,40 +1372,80 @@ public class AutoTradeService {
 
     private boolean hasRecentOrder(String market, String side) {
         OffsetDateTime after = OffsetDateTime.now().minusSeconds(cooldownSeconds);
-        return orderRepository.existsByMarketAndSideAndRequestedAtAfter(market, side, after);
+        return orderGuardIndex.hasRecentOrder(market, side, after);
     }
 
     private boolean hasOpenRequest(String market, String side) {
         OffsetDateTime after = OffsetDateTime.now().minusMinutes(pendingWindowMinutes);
-        return orderRepository.existsByMarketAndSideAndStatusInAndRequestedAtAfter(
-                market,
-                side,
-                List.of(
-                        com.btcautotrader.order.OrderStatus.REQUESTED,
-                        com.btcautotrader.order.OrderStatus.PENDING,
-                        com.btcautotrader.order.OrderStatus.SUBMITTED
-                ),
-                after
-        );
+        return orderGuardIndex.hasOpenRequest(market, side, after);
     }
 
     private Map<String, AccountSnapshot> loadAccounts() {
-        List<Map<String, Object>> accounts = upbitService.fetchAccounts();
+        List<UpbitAccount> accounts = upbitService.fetchAccounts();
         Map<String, AccountSnapshot> byCurrency = new HashMap<>();
-        for (Map<String, Object> account : accounts) {
-            String currency = asString(account.get("currency"));
-            if (currency == null) {
+        for (UpbitAccount account : accounts) {
+            byCurrency.put(
+                    account.currency().toUpperCase(),
+                    new AccountSnapshot(account.balance(), account.locked(), account.avgBuyPrice())
+            );
+        }
+        return byCurrency;
+    }
+
+    /**
+     * Prices for {@code markets} from the live feed or a recently refreshed candle, with only the rest fetched in
+     * batched ticker calls. Markets missing from the snapshot are looked up one by one later by
+     * {@link #fetchCurrentPrice}.
+     */
+    private Map<String, BigDecimal> loadPriceSnapshot(List<String> markets) {
+        if (markets.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, BigDecimal> prices = new HashMap<>(marketDataFeed.lastPrices(markets));
+        List<String> missing = new ArrayList<>();
+        for (String market : markets) {
+            if (prices.containsKey(market)) {
                 continue;
             }
-            BigDecimal balance = toDecimal(account.get("balance"));
-            BigDecimal locked = toDecimal(account.get("locked"));
-            BigDecimal avgBuyPrice = toDecimal(account.get("avg_buy_price"));
-            byCurrency.put(currency.toUpperCase(), new AccountSnapshot(balance, locked, avgBuyPrice));
+            BigDecimal candlePrice = candlePrice(market);
+            if (candlePrice != null) {
+                prices.put(market, candlePrice);
+            } else {
+                missing.add(market);
+            }
         }
-        return byCurrency;
+        for (int from = 0; from < missing.size(); from += TICKER_BATCH_SIZE) {
+            List<String> chunk = missing.subList(from, Math.min(missing.size(), from + TICKER_BATCH_SIZE));
+            Map<String, UpbitTicker> tickers;
+            try {
+                tickers = upbitService.fetchTickers(chunk);
+            } catch (RuntimeException ex) {
+                continue;
+            }
+            for (String market : chunk) {
+                UpbitTicker ticker = tickers.get(market);
+                BigDecimal price = ticker == null ? null : ticker.tradePrice();
+                if (price != null && price.compareTo(BigDecimal.ZERO) > 0) {
+                    prices.put(market, price);
+                }
+            }
+        }
+        return prices;
     }
 
     private BigDecimal fetchCurrentPrice(String market) {
+        BigDecimal snapshotPrice = tickPrices.get(market);
+        if (snapshotPrice != null) {
+            return snapshotPrice;
+        }
+        BigDecimal livePrice = marketDataFeed.lastPrice(market);
+        if (livePrice != null) {
+            return livePrice;
+        }
+        BigDecimal candlePrice = candlePrice(market);
+        if (candlePrice != null) {
+            return candlePrice;
+        }
         Map<String, Object> ticker = upbitService.fetchTicker(market);
         if (ticker == null) {
             return null;
@@ -1009,6 +1453,14 @@ public class AutoTradeService {
         return toDecimal(ticker.get("trade_price"));
     }
 
+    /**
+     * Close of the market's signal candle when the store refreshed it within {@code engine.candle-price-max-age-ms}.
+     */
+    private BigDecimal candlePrice(String market) {
+        Double close = candleStore.lastClose(market, candleUnitMinutes, candlePriceMaxAgeMs);
+        return close == null || !(close > 0) ? null : BigDecimal.valueOf(close);
+    }
+
     private static BigDecimal percentFactor(double percent) {
         BigDecimal pct = BigDecimal.valueOf(percent).divide(HUNDRED, 8, RoundingMode.HALF_UP);
         return BigDecimal.ONE.add(pct);
@@ -1214,6 +1666,53 @@ public class AutoTradeService {
         }
     }
 
+    /**
+     * Plans compiled from {@code strategy}, rebuilt only when the strategy snapshot has been replaced.
+     */
+    private MarketPlans marketPlans(StrategySnapshot strategy) {
+        MarketPlans plans = marketPlans;
+        if (plans != null && plans.source() == strategy) {
+            return plans;
+        }
+        plans = compileMarketPlans(strategy);
+        marketPlans = plans;
+        return plans;
+    }
+
+    private MarketPlans compileMarketPlans(StrategySnapshot strategy) {
+        StrategyMarketOverrides runtimeOverrides = strategy.marketOverrides();
+        Map<String, BigDecimal> marketMaxOrderKrwByMarket = mergeMarketMaxOrderKrwOverrides(
+                propertyMarketMaxOrderKrwOverrides,
+                runtimeOverrides
+        );
+        Map<String, StrategyProfile> marketProfileByMarket = mergeMarketProfileOverrides(
+                propertyMarketProfileOverrides,
+                runtimeOverrides
+        );
+        Map<StrategyProfile, SignalTuning> tuningByProfile = new EnumMap<>(StrategyProfile.class);
+        for (StrategyProfile profile : StrategyProfile.values()) {
+            tuningByProfile.put(profile, resolveSignalTuning(profile));
+        }
+        Function<String, MarketPlan> compiler = market -> {
+            StrategyConfig marketConfig = resolveConfigForMarket(market, strategy.config(), runtimeOverrides);
+            StrategyProfile profile = resolveProfileForMarket(market, marketConfig, marketProfileByMarket);
+            return new MarketPlan(
+                    market,
+                    marketConfig,
+                    profile,
+                    tuningByProfile.get(profile),
+                    resolveMarketMaxOrderKrw(market, marketConfig, marketMaxOrderKrwByMarket),
+                    signalIndicatorSpec,
+                    signalCandleCount
+            );
+        };
+        Map<String, MarketPlan> byMarket = new HashMap<>();
+        for (String market : strategy.markets()) {
+            byMarket.put(market, compiler.apply(market));
+        }
+        return new MarketPlans(strategy, Map.copyOf(byMarket), compiler);
+    }
+
     private static Map<String, BigDecimal> mergeMarketMaxOrderKrwOverrides(
             Map<String, BigDecimal> propertyOverrides,
             StrategyMarketOverrides runtimeOverrides
@@ -1480,7 +1979,7 @@ public class AutoTradeService {
                 }
             }
             try {
-                List<Map<String, Object>> candles = upbitService.fetchMinuteCandles(
+                List<Candle> candles = candleStore.getCandles(
                         key,
                         relativeMomentumTimeframeUnit,
                         count
@@ -1503,26 +2002,28 @@ public class AutoTradeService {
     }
 
     private BigDecimal computeRelativeMomentumScore(
-            List<Map<String, Object>> candles,
+            List<Candle> candles,
             int shortLookback,
             int longLookback
     ) {
-        List<BigDecimal> closes = extractSortedCloses(candles);
+        CandleColumns columns = CANDLE_COLUMNS.get().loadCloses(candles);
         if (useClosedCandle) {
-            dropLast(closes);
+            columns.dropLast();
         }
-        if (closes.isEmpty()) {
+        if (columns.length() == 0) {
             return null;
         }
 
-        BigDecimal shortReturnPct = computeReturnPct(closes, shortLookback);
-        BigDecimal longReturnPct = computeReturnPct(closes, longLookback);
-        if (shortReturnPct == null || longReturnPct == null) {
+        double shortReturnPct = IndicatorKernels.returnPct(columns.close(), columns.length(), shortLookback);
+        double longReturnPct = IndicatorKernels.returnPct(columns.close(), columns.length(), longLookback);
+        if (Double.isNaN(shortReturnPct) || Double.isNaN(longReturnPct)) {
             return null;
         }
 
-        return longReturnPct.multiply(RELATIVE_MOMENTUM_LONG_WEIGHT)
-                .add(shortReturnPct.multiply(RELATIVE_MOMENTUM_SHORT_WEIGHT));
+        return toDecimal(
+                longReturnPct * RELATIVE_MOMENTUM_LONG_WEIGHT + shortReturnPct * RELATIVE_MOMENTUM_SHORT_WEIGHT,
+                DECIMAL_SCALE
+        );
     }
 
     private RegimeSnapshot evaluateRegime(String market) {
@@ -1544,35 +2045,67 @@ public class AutoTradeService {
             count = Math.max(count, volatilityWindowSafe + 1);
         }
 
-        List<Map<String, Object>> candles;
+        List<Candle> candles;
         try {
-            candles = upbitService.fetchMinuteCandles(regimeTarget, regimeTimeframeUnit, count);
+            candles = candleStore.getCandles(regimeTarget, regimeTimeframeUnit, count);
         } catch (RuntimeException ex) {
             return RegimeSnapshot.block("regime_unavailable", regimeTarget, null, null, null, null, null);
         }
 
-        List<BigDecimal> closes = extractSortedCloses(candles);
-        if (useClosedCandle) {
-            dropLast(closes);
-        }
-        if (closes.size() < longWindow) {
-            return RegimeSnapshot.block("regime_insufficient_data", regimeTarget, null, null, null, null, null);
-        }
-
-        BigDecimal currentPrice = closes.get(closes.size() - 1);
-        BigDecimal maShortValue = averageLast(closes, shortWindow);
-        BigDecimal maLongValue = averageLast(closes, longWindow);
+        double lastClose;
+        double maShortRaw;
+        double maLongRaw;
+        double maLongPrev;
+        double volatilityRaw;
+        if (incrementalIndicators) {
+            IncrementalIndicatorSet state = advanceIncremental(
+                    "regime|" + regimeTarget + "|" + regimeTimeframeUnit,
+                    regimeIndicatorSpec,
+                    candles,
+                    false
+            );
+            synchronized (state) {
+                if (state.count() < longWindow) {
+                    return RegimeSnapshot.block("regime_insufficient_data", regimeTarget, null, null, null, null, null);
+                }
+                lastClose = state.lastClose();
+                maShortRaw = state.maShort();
+                maLongRaw = state.maLong();
+                maLongPrev = state.maLongLagged();
+                volatilityRaw = state.volatilityPct();
+            }
+        } else {
+            CandleColumns columns = CANDLE_COLUMNS.get().loadCloses(candles);
+            if (useClosedCandle) {
+                columns.dropLast();
+            }
+            double[] closes = columns.close();
+            int length = columns.length();
+            if (length < longWindow) {
+                return RegimeSnapshot.block("regime_insufficient_data", regimeTarget, null, null, null, null, null);
+            }
+            lastClose = closes[length - 1];
+            maShortRaw = IndicatorKernels.smaLast(closes, length, shortWindow);
+            maLongRaw = IndicatorKernels.smaLast(closes, length, longWindow);
+            maLongPrev = slopeWindow > 0
+                    ? IndicatorKernels.smaLastWithOffset(closes, length, longWindow, slopeWindow)
+                    : Double.NaN;
+            volatilityRaw = volatilityWindowSafe > 1
+                    ? IndicatorKernels.volatilityPct(closes, length, volatilityWindowSafe)
+                    : Double.NaN;
+        }
+
+        BigDecimal currentPrice = toDecimal(lastClose);
+        BigDecimal maShortValue = toDecimal(maShortRaw, DECIMAL_SCALE);
+        BigDecimal maLongValue = toDecimal(maLongRaw, DECIMAL_SCALE);
         if (maShortValue == null || maLongValue == null || maLongValue.compareTo(BigDecimal.ZERO) <= 0) {
             return RegimeSnapshot.block("regime_invalid_trend", regimeTarget, currentPrice, maShortValue, maLongValue, null, null);
         }
 
         BigDecimal slopePct = null;
         if (slopeWindow > 0) {
-            BigDecimal maLongPrev = averageLastWithOffset(closes, longWindow, slopeWindow);
-            if (maLongPrev != null && maLongPrev.compareTo(BigDecimal.ZERO) > 0) {
-                slopePct = maLongValue.subtract(maLongPrev)
-                        .divide(maLongPrev, 8, RoundingMode.HALF_UP)
-                        .multiply(HUNDRED);
+            if (maLongPrev > 0) {
+                slopePct = toDecimal((maLongRaw - maLongPrev) / maLongPrev * 100.0, DECIMAL_SCALE);
             } else if (regimeMinMaLongSlopePct > 0) {
                 return RegimeSnapshot.block(
                         "regime_missing_slope",
@@ -1588,7 +2121,7 @@ public class AutoTradeService {
 
         BigDecimal volatilityPct = null;
         if (volatilityWindowSafe > 1) {
-            volatilityPct = computeVolatilityPct(closes, volatilityWindowSafe);
+            volatilityPct = toDecimal(volatilityRaw);
         }
 
         if (currentPrice.compareTo(maLongValue) <= 0 || maShortValue.compareTo(maLongValue) <= 0) {
@@ -1661,41 +2194,16 @@ public class AutoTradeService {
         return accounts.getOrDefault(currency, AccountSnapshot.empty()).total();
     }
 
-    private static List<BigDecimal> extractSortedCloses(List<Map<String, Object>> candles) {
-        if (candles == null || candles.isEmpty()) {
-            return List.of();
-        }
-        List<BigDecimal> closes = new ArrayList<>();
-        for (Map<String, Object> candle : candles) {
-            BigDecimal close = toDecimal(candle.get("trade_price"));
-            if (close.compareTo(BigDecimal.ZERO) > 0) {
-                closes.add(close);
-            }
-        }
-        if (closes.isEmpty()) {
-            return List.of();
+    private static BigDecimal toDecimal(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return null;
         }
-        reverseInPlace(closes);
-        return closes;
+        return BigDecimal.valueOf(value);
     }
 
-    private static BigDecimal computeReturnPct(List<BigDecimal> closes, int lookback) {
-        if (closes == null || closes.isEmpty() || lookback <= 0 || closes.size() <= lookback) {
-            return null;
-        }
-        int nowIdx = closes.size() - 1;
-        int pastIdx = nowIdx - lookback;
-        if (pastIdx < 0) {
-            return null;
-        }
-        BigDecimal now = closes.get(nowIdx);
-        BigDecimal past = closes.get(pastIdx);
-        if (past == null || past.compareTo(BigDecimal.ZERO) <= 0) {
-            return null;
-        }
-        return now.subtract(past)
-                .divide(past, 8, RoundingMode.HALF_UP)
-                .multiply(HUNDRED);
+    private static BigDecimal toDecimal(double value, int scale) {
+        BigDecimal decimal = toDecimal(value);
+        return decimal == null ? null : decimal.setScale(scale, RoundingMode.HALF_UP);
     }
 
     private static BigDecimal toDecimal(Object value) {
@@ -1719,10 +2227,6 @@ public class AutoTradeService {
         }
     }
 
-    private static String asString(Object value) {
-        return value == null ? null : value.toString();
-    }
-
     @SuppressWarnings("unchecked")
     private static Map<String, Object> asMap(Object value) {
         if (value instanceof Map<?, ?> map) {
@@ -1731,119 +2235,139 @@ public class AutoTradeService {
         return Map.of();
     }
 
-    private MarketIndicators fetchIndicators(String market, SignalTuning tuning) {
-        int required = Math.max(maLong, maShort);
-        int volWindow = Math.max(0, volatilityWindow);
-        int rsiWindow = Math.max(2, rsiPeriod);
-        int macdFastWindow = Math.max(2, macdFast);
-        int macdSlowWindow = Math.max(macdFastWindow + 1, macdSlow);
-        int macdSignalWindow = Math.max(2, macdSignal);
-        int adxWindow = Math.max(2, adxPeriod);
-        int volumeWindow = Math.max(1, volumeLookback);
-        int bollingerWindowSafe = Math.max(0, bollingerWindow);
-        int breakoutWindow = Math.max(0, breakoutLookback);
-        int trailingWindowSafe = Math.max(0, trailingWindow);
-        int slopeLookback = Math.max(0, maLongSlopeLookback);
-
+    /**
+     * Candles to request so every signal window is filled, plus the forming candle when only closed ones are used.
+     */
+    private static int signalCandleCount(
+            IncrementalIndicatorSet.Spec spec,
+            BigDecimal targetVolPct,
+            boolean useClosedCandle
+    ) {
+        int required = Math.max(spec.maLong(), spec.maShort());
         int count = required;
-        count = Math.max(count, rsiWindow + 1);
-        count = Math.max(count, macdSlowWindow + macdSignalWindow);
-        count = Math.max(count, adxWindow * 2 + 1);
-        count = Math.max(count, volumeWindow + 1);
-        if (bollingerWindowSafe > 1) {
-            count = Math.max(count, bollingerWindowSafe);
+        count = Math.max(count, spec.rsiPeriod() + 1);
+        count = Math.max(count, spec.macdSlow() + spec.macdSignal());
+        count = Math.max(count, spec.adxPeriod() * 2 + 1);
+        count = Math.max(count, spec.volumeLookback() + 1);
+        if (spec.bollingerWindow() > 1) {
+            count = Math.max(count, spec.bollingerWindow());
         }
-        if (breakoutWindow > 1) {
-            count = Math.max(count, breakoutWindow + 1);
+        if (spec.breakoutWindow() > 1) {
+            count = Math.max(count, spec.breakoutWindow() + 1);
         }
-        if (trailingWindowSafe > 1) {
-            count = Math.max(count, trailingWindowSafe);
+        if (spec.trailingWindow() > 1) {
+            count = Math.max(count, spec.trailingWindow());
         }
-        if (slopeLookback > 0) {
-            count = Math.max(count, required + slopeLookback);
+        if (spec.slopeLookback() > 0) {
+            count = Math.max(count, required + spec.slopeLookback());
         }
         if (targetVolPct != null && targetVolPct.compareTo(BigDecimal.ZERO) > 0) {
-            count = Math.max(count, volWindow + 1);
+            count = Math.max(count, spec.volatilityWindow() + 1);
         }
+        return useClosedCandle ? count + 1 : count;
+    }
+
+    private MarketIndicators fetchIndicators(MarketPlan plan) {
+        String market = plan.market();
+        SignalTuning tuning = plan.tuning();
+        IncrementalIndicatorSet.Spec spec = plan.indicatorSpec();
+        int required = Math.max(spec.maLong(), spec.maShort());
         if (required <= 1) {
             return null;
         }
-        int requestCount = useClosedCandle ? count + 1 : count;
-        List<Map<String, Object>> candles = upbitService.fetchMinuteCandles(market, candleUnitMinutes, requestCount);
+        int volWindow = spec.volatilityWindow();
+        int rsiWindow = spec.rsiPeriod();
+        int macdFastWindow = spec.macdFast();
+        int macdSlowWindow = spec.macdSlow();
+        int macdSignalWindow = spec.macdSignal();
+        int adxWindow = spec.adxPeriod();
+        int volumeWindow = spec.volumeLookback();
+        int bollingerWindowSafe = spec.bollingerWindow();
+        int breakoutWindow = spec.breakoutWindow();
+        int trailingWindowSafe = spec.trailingWindow();
+        int slopeLookback = spec.slopeLookback();
+
+        List<Candle> candles = candleStore.getCandles(market, candleUnitMinutes, plan.indicatorCandleCount());
         if (candles == null || candles.isEmpty()) {
             return null;
         }
 
-        List<BigDecimal> closes = new ArrayList<>();
-        List<BigDecimal> highs = new ArrayList<>();
-        List<BigDecimal> lows = new ArrayList<>();
-        List<BigDecimal> quoteVolumes = new ArrayList<>();
-        for (Map<String, Object> candle : candles) {
-            BigDecimal close = toDecimal(candle.get("trade_price"));
-            BigDecimal high = toDecimal(candle.get("high_price"));
-            BigDecimal low = toDecimal(candle.get("low_price"));
-            BigDecimal quoteVolume = toDecimal(candle.get("candle_acc_trade_price"));
-            if (close.compareTo(BigDecimal.ZERO) > 0
-                    && high.compareTo(BigDecimal.ZERO) > 0
-                    && low.compareTo(BigDecimal.ZERO) > 0) {
-                closes.add(close);
-                highs.add(high);
-                lows.add(low);
-                quoteVolumes.add(quoteVolume.compareTo(BigDecimal.ZERO) < 0 ? BigDecimal.ZERO : quoteVolume);
-            }
-        }
-        if (closes.size() < required) {
-            return null;
+        if (incrementalIndicators) {
+            IncrementalIndicatorSet state = advanceIncremental(
+                    market + "|" + candleUnitMinutes,
+                    spec,
+                    candles,
+                    true
+            );
+            synchronized (state) {
+                return state.count() < required ? null : indicatorsFrom(state, tuning);
+            }
         }
-        reverseInPlace(closes);
-        reverseInPlace(highs);
-        reverseInPlace(lows);
-        reverseInPlace(quoteVolumes);
 
+        CandleColumns columns = CANDLE_COLUMNS.get().load(candles);
+        if (columns.length() < required) {
+            return null;
+        }
         if (useClosedCandle) {
-            dropLast(closes);
-            dropLast(highs);
-            dropLast(lows);
-            dropLast(quoteVolumes);
+            columns.dropLast();
         }
-        if (closes.size() < required) {
+        int length = columns.length();
+        if (length < required) {
             return null;
         }
+        double[] closes = columns.close();
+        double[] highs = columns.high();
 
-        BigDecimal currentPrice = closes.get(closes.size() - 1);
-        BigDecimal maShortValue = averageLast(closes, maShort);
-        BigDecimal maLongValue = averageLast(closes, maLong);
+        BigDecimal currentPrice = toDecimal(closes[length - 1]);
+        double maLongRaw = IndicatorKernels.smaLast(closes, length, maLong);
+        BigDecimal maShortValue = toDecimal(IndicatorKernels.smaLast(closes, length, maShort), DECIMAL_SCALE);
+        BigDecimal maLongValue = toDecimal(maLongRaw, DECIMAL_SCALE);
         BigDecimal volatilityPct = null;
         if (targetVolPct != null && targetVolPct.compareTo(BigDecimal.ZERO) > 0 && volWindow > 1) {
-            volatilityPct = computeVolatilityPct(closes, volWindow);
+            volatilityPct = toDecimal(IndicatorKernels.volatilityPct(closes, length, volWindow));
+        }
+
+        BigDecimal rsiValue = toDecimal(IndicatorKernels.rsi(closes, length, rsiWindow));
+        BigDecimal macdHistogram = toDecimal(IndicatorKernels.macdHistogram(
+                closes,
+                length,
+                macdFastWindow,
+                macdSlowWindow,
+                macdSignalWindow
+        ));
+        BigDecimal adxValue = toDecimal(IndicatorKernels.adx(highs, columns.low(), closes, length, adxWindow));
+        BigDecimal volumeRatio = toDecimal(
+                IndicatorKernels.volumeRatio(columns.quoteVolume(), length, volumeWindow),
+                DECIMAL_SCALE
+        );
+        BollingerSnapshot bollinger = null;
+        if (bollingerWindowSafe > 1 && length >= bollingerWindowSafe) {
+            double middle = IndicatorKernels.smaLast(closes, length, bollingerWindowSafe);
+            bollinger = bollingerSnapshot(
+                    middle,
+                    IndicatorKernels.stdDevLast(closes, length, bollingerWindowSafe, middle),
+                    closes[length - 1]
+            );
         }
-
-        BigDecimal rsiValue = computeRsi(closes, rsiWindow);
-        BigDecimal macdHistogram = computeMacdHistogram(closes, macdFastWindow, macdSlowWindow, macdSignalWindow);
-        BigDecimal adxValue = computeAdx(highs, lows, closes, adxWindow);
-        BigDecimal volumeRatio = computeVolumeRatio(quoteVolumes, volumeWindow);
-        BollingerSnapshot bollinger = computeBollinger(closes, bollingerWindowSafe, currentPrice);
         BigDecimal maLongSlopePct = null;
         if (slopeLookback > 0) {
-            BigDecimal maLongPrev = averageLastWithOffset(closes, maLong, slopeLookback);
-            if (maLongPrev != null && maLongPrev.compareTo(BigDecimal.ZERO) > 0 && maLongValue != null) {
-                maLongSlopePct = maLongValue.subtract(maLongPrev)
-                        .divide(maLongPrev, 8, RoundingMode.HALF_UP)
-                        .multiply(HUNDRED);
+            double maLongPrev = IndicatorKernels.smaLastWithOffset(closes, length, maLong, slopeLookback);
+            if (maLongPrev > 0 && maLongValue != null) {
+                maLongSlopePct = toDecimal((maLongRaw - maLongPrev) / maLongPrev * 100.0, DECIMAL_SCALE);
             }
         }
 
         BigDecimal breakoutLevel = null;
-        if (breakoutWindow > 1 && highs.size() >= breakoutWindow + 1) {
-            BigDecimal breakoutHigh = highestHigh(highs, breakoutWindow, true);
-            if (breakoutHigh != null) {
-                breakoutLevel = breakoutHigh.multiply(percentFactor(tuning.breakoutPct()));
+        if (breakoutWindow > 1 && length >= breakoutWindow + 1) {
+            double breakoutHigh = IndicatorKernels.highestHigh(highs, length, breakoutWindow, true);
+            if (!Double.isNaN(breakoutHigh)) {
+                breakoutLevel = BigDecimal.valueOf(breakoutHigh).multiply(percentFactor(tuning.breakoutPct()));
             }
         }
 
         BigDecimal trailingHigh = null;
-        if (trailingWindowSafe > 1 && highs.size() >= trailingWindowSafe) {
-            trailingHigh = highestHigh(highs, trailingWindowSafe, false);
+        if (trailingWindowSafe > 1 && length >= trailingWindowSafe) {
+            trailingHigh = toDecimal(IndicatorKernels.highestHigh(highs, length, trailingWindowSafe, false));
         }
 
         return new MarketIndicators(
@@ -1883,326 +2407,118 @@ public class AutoTradeService {
         return funds.multiply(scale);
     }
 
-    private static BigDecimal averageLast(List<BigDecimal> values, int window) {
-        if (values == null || values.isEmpty() || window <= 0 || values.size() < window) {
-            return null;
-        }
-        BigDecimal sum = BigDecimal.ZERO;
-        for (int i = values.size() - window; i < values.size(); i++) {
-            sum = sum.add(values.get(i));
-        }
-        return sum.divide(BigDecimal.valueOf(window), 8, RoundingMode.HALF_UP);
-    }
-
-    private static BigDecimal averageLastWithOffset(List<BigDecimal> values, int window, int offset) {
-        if (values == null || values.isEmpty() || window <= 0 || offset < 0) {
-            return null;
+    private MarketIndicators indicatorsFrom(IncrementalIndicatorSet state, SignalTuning tuning) {
+        IncrementalIndicatorSet.Spec spec = state.spec();
+        double maLongRaw = state.maLong();
+        BigDecimal maLongValue = toDecimal(maLongRaw, DECIMAL_SCALE);
+        BigDecimal volatilityPct = null;
+        if (targetVolPct != null && targetVolPct.compareTo(BigDecimal.ZERO) > 0) {
+            volatilityPct = toDecimal(state.volatilityPct());
         }
-        int end = values.size() - 1 - offset;
-        int start = end - window + 1;
-        if (start < 0 || end < 0) {
-            return null;
+        BigDecimal maLongSlopePct = null;
+        double maLongPrev = state.maLongLagged();
+        if (maLongPrev > 0 && maLongValue != null) {
+            maLongSlopePct = toDecimal((maLongRaw - maLongPrev) / maLongPrev * 100.0, DECIMAL_SCALE);
         }
-        BigDecimal sum = BigDecimal.ZERO;
-        for (int i = start; i <= end; i++) {
-            sum = sum.add(values.get(i));
+        BigDecimal breakoutLevel = null;
+        double breakoutHigh = state.breakoutHigh();
+        if (!Double.isNaN(breakoutHigh)) {
+            breakoutLevel = BigDecimal.valueOf(breakoutHigh).multiply(percentFactor(tuning.breakoutPct()));
         }
-        return sum.divide(BigDecimal.valueOf(window), 8, RoundingMode.HALF_UP);
-    }
+        BollingerSnapshot bollinger = spec.bollingerWindow() > 1
+                ? bollingerSnapshot(state.bollingerMiddle(), state.bollingerStdDev(), state.lastClose())
+                : null;
 
-    private static BigDecimal computeVolatilityPct(List<BigDecimal> closes, int window) {
-        if (closes.size() < window + 1) {
-            return null;
-        }
-        int start = closes.size() - window - 1;
-        double mean = 0.0;
-        double[] returns = new double[window];
-        int idx = 0;
-        for (int i = start + 1; i < closes.size(); i++) {
-            BigDecimal prev = closes.get(i - 1);
-            BigDecimal curr = closes.get(i);
-            if (prev.compareTo(BigDecimal.ZERO) <= 0) {
-                continue;
-            }
-            double r = curr.subtract(prev).divide(prev, 12, RoundingMode.HALF_UP).doubleValue();
-            returns[idx++] = r;
-            mean += r;
-        }
-        if (idx == 0) {
-            return null;
-        }
-        mean /= idx;
-        double variance = 0.0;
-        for (int i = 0; i < idx; i++) {
-            double diff = returns[i] - mean;
-            variance += diff * diff;
-        }
-        variance /= idx;
-        double stdev = Math.sqrt(variance);
-        return BigDecimal.valueOf(stdev).multiply(HUNDRED);
+        return new MarketIndicators(
+                toDecimal(state.lastClose()),
+                toDecimal(state.maShort(), DECIMAL_SCALE),
+                maLongValue,
+                volatilityPct,
+                toDecimal(state.rsi()),
+                toDecimal(state.macdHistogram()),
+                toDecimal(state.adx()),
+                toDecimal(state.volumeRatio(), DECIMAL_SCALE),
+                bollinger == null ? null : bollinger.middle(),
+                bollinger == null ? null : bollinger.upper(),
+                bollinger == null ? null : bollinger.lower(),
+                bollinger == null ? null : bollinger.bandwidthPct(),
+                bollinger == null ? null : bollinger.percentB(),
+                breakoutLevel,
+                toDecimal(state.trailingHigh()),
+                maLongSlopePct
+        );
     }
 
-    private static BigDecimal computeRsi(List<BigDecimal> closes, int period) {
-        if (closes == null || closes.size() < period + 1) {
-            return null;
-        }
-        int start = closes.size() - period - 1;
-        double gain = 0.0;
-        double loss = 0.0;
-        for (int i = start + 1; i < closes.size(); i++) {
-            double diff = closes.get(i).subtract(closes.get(i - 1)).doubleValue();
-            if (diff >= 0) {
-                gain += diff;
-            } else {
-                loss -= diff;
+    private IncrementalIndicatorSet advanceIncremental(
+            String key,
+            IncrementalIndicatorSet.Spec spec,
+            List<Candle> candles,
+            boolean requireRange
+    ) {
+        IncrementalIndicatorSet state = incrementalIndicatorsByKey.computeIfAbsent(
+                key,
+                ignored -> new IncrementalIndicatorSet(spec)
+        );
+        // The newest candle is still forming; only closed candles advance the state.
+        int closedCount = candles == null ? 0 : candles.size() - 1;
+        synchronized (state) {
+            if (closedCount <= 0) {
+                return state;
+            }
+            if (state.count() == 0 || candles.get(0).openTimeMs() > state.lastOpenTimeMs()) {
+                // Fresh state or a gap since the last update: rebuild from the fetched window.
+                state.reset();
+            }
+            for (int i = 0; i < closedCount; i++) {
+                Candle candle = candles.get(i);
+                if (candle.openTimeMs() <= state.lastOpenTimeMs() || candle.close() <= 0) {
+                    continue;
+                }
+                if (requireRange) {
+                    if (candle.high() <= 0 || candle.low() <= 0) {
+                        continue;
+                    }
+                    state.update(
+                            candle.openTimeMs(),
+                            candle.close(),
+                            candle.high(),
+                            candle.low(),
+                            Math.max(0.0, candle.quoteVolume())
+                    );
+                } else {
+                    state.update(candle.openTimeMs(), candle.close(), candle.close(), candle.close(), 0.0);
+                }
             }
         }
-        double avgGain = gain / period;
-        double avgLoss = loss / period;
-        if (avgLoss == 0.0) {
-            return BigDecimal.valueOf(100.0);
-        }
-        if (avgGain == 0.0) {
-            return BigDecimal.ZERO;
-        }
-        double rs = avgGain / avgLoss;
-        double rsi = 100.0 - (100.0 / (1.0 + rs));
-        return BigDecimal.valueOf(rsi);
-    }
-
-    private static BigDecimal computeMacdHistogram(List<BigDecimal> closes, int fast, int slow, int signal) {
-        if (closes == null || closes.size() < slow + signal) {
-            return null;
-        }
-        List<Double> emaFast = emaSeriesFromDecimal(closes, fast);
-        List<Double> emaSlow = emaSeriesFromDecimal(closes, slow);
-        if (emaFast.isEmpty() || emaSlow.isEmpty()) {
-            return null;
-        }
-        int size = Math.min(emaFast.size(), emaSlow.size());
-        List<Double> macdLine = new ArrayList<>(size);
-        for (int i = 0; i < size; i++) {
-            macdLine.add(emaFast.get(i) - emaSlow.get(i));
-        }
-        List<Double> signalLine = emaSeries(macdLine, signal);
-        if (signalLine.isEmpty()) {
-            return null;
-        }
-        double macd = macdLine.get(macdLine.size() - 1);
-        double signalValue = signalLine.get(signalLine.size() - 1);
-        return BigDecimal.valueOf(macd - signalValue);
-    }
-
-    private static BigDecimal computeAdx(List<BigDecimal> highs, List<BigDecimal> lows, List<BigDecimal> closes, int period) {
-        if (highs == null || lows == null || closes == null || period < 2) {
-            return null;
-        }
-        int size = Math.min(highs.size(), Math.min(lows.size(), closes.size()));
-        if (size < period * 2 + 1) {
-            return null;
-        }
-
-        double trSmooth = 0.0;
-        double plusDmSmooth = 0.0;
-        double minusDmSmooth = 0.0;
-        for (int i = 1; i <= period; i++) {
-            double tr = trueRange(highs.get(i), lows.get(i), closes.get(i - 1));
-            double upMove = highs.get(i).subtract(highs.get(i - 1)).doubleValue();
-            double downMove = lows.get(i - 1).subtract(lows.get(i)).doubleValue();
-            double plusDm = (upMove > downMove && upMove > 0.0) ? upMove : 0.0;
-            double minusDm = (downMove > upMove && downMove > 0.0) ? downMove : 0.0;
-            trSmooth += tr;
-            plusDmSmooth += plusDm;
-            minusDmSmooth += minusDm;
-        }
-
-        List<Double> dxValues = new ArrayList<>();
-        dxValues.add(computeDx(trSmooth, plusDmSmooth, minusDmSmooth));
-        for (int i = period + 1; i < size; i++) {
-            double tr = trueRange(highs.get(i), lows.get(i), closes.get(i - 1));
-            double upMove = highs.get(i).subtract(highs.get(i - 1)).doubleValue();
-            double downMove = lows.get(i - 1).subtract(lows.get(i)).doubleValue();
-            double plusDm = (upMove > downMove && upMove > 0.0) ? upMove : 0.0;
-            double minusDm = (downMove > upMove && downMove > 0.0) ? downMove : 0.0;
-
-            trSmooth = trSmooth - (trSmooth / period) + tr;
-            plusDmSmooth = plusDmSmooth - (plusDmSmooth / period) + plusDm;
-            minusDmSmooth = minusDmSmooth - (minusDmSmooth / period) + minusDm;
-            dxValues.add(computeDx(trSmooth, plusDmSmooth, minusDmSmooth));
-        }
-
-        if (dxValues.size() < period) {
-            return null;
-        }
-        double adx = 0.0;
-        for (int i = 0; i < period; i++) {
-            adx += dxValues.get(i);
-        }
-        adx /= period;
-        for (int i = period; i < dxValues.size(); i++) {
-            adx = ((adx * (period - 1)) + dxValues.get(i)) / period;
-        }
-        return BigDecimal.valueOf(adx);
-    }
-
-    private static double trueRange(BigDecimal high, BigDecimal low, BigDecimal prevClose) {
-        double h = high.doubleValue();
-        double l = low.doubleValue();
-        double pc = prevClose.doubleValue();
-        double range1 = h - l;
-        double range2 = Math.abs(h - pc);
-        double range3 = Math.abs(l - pc);
-        return Math.max(range1, Math.max(range2, range3));
-    }
-
-    private static double computeDx(double trSmooth, double plusDmSmooth, double minusDmSmooth) {
-        if (trSmooth <= 0.0) {
-            return 0.0;
-        }
-        double plusDi = 100.0 * (plusDmSmooth / trSmooth);
-        double minusDi = 100.0 * (minusDmSmooth / trSmooth);
-        double diSum = plusDi + minusDi;
-        if (diSum <= 0.0) {
-            return 0.0;
-        }
-        return 100.0 * Math.abs(plusDi - minusDi) / diSum;
+        return state;
     }
 
-    private static BigDecimal computeVolumeRatio(List<BigDecimal> quoteVolumes, int lookback) {
-        if (quoteVolumes == null || lookback <= 0 || quoteVolumes.size() < lookback + 1) {
-            return null;
-        }
-        int end = quoteVolumes.size() - 1;
-        BigDecimal current = quoteVolumes.get(end);
-        if (current == null || current.compareTo(BigDecimal.ZERO) <= 0) {
-            return BigDecimal.ZERO;
-        }
-        BigDecimal avg = averageRange(quoteVolumes, end - lookback, end - 1);
-        if (avg == null || avg.compareTo(BigDecimal.ZERO) <= 0) {
+    private BollingerSnapshot bollingerSnapshot(double middle, double stdev, double lastClose) {
+        if (Double.isNaN(middle) || Double.isNaN(stdev)) {
             return null;
         }
-        return current.divide(avg, 8, RoundingMode.HALF_UP);
-    }
-
-    private BollingerSnapshot computeBollinger(List<BigDecimal> closes, int window, BigDecimal currentPrice) {
-        if (window <= 1 || closes == null || closes.size() < window) {
-            return null;
-        }
-        BigDecimal middle = averageLast(closes, window);
-        if (middle == null) {
-            return null;
-        }
-        BigDecimal stdev = computeStdDev(closes, window, middle);
-        if (stdev == null) {
-            return null;
-        }
-        BigDecimal deviation = stdev.multiply(BigDecimal.valueOf(bollingerStdDev));
-        BigDecimal upper = middle.add(deviation);
-        BigDecimal lower = middle.subtract(deviation);
-        BigDecimal band = upper.subtract(lower);
+        double deviation = stdev * bollingerStdDev;
+        double upper = middle + deviation;
+        double lower = middle - deviation;
+        double band = upper - lower;
 
         BigDecimal bandwidthPct = null;
-        if (middle.compareTo(BigDecimal.ZERO) > 0) {
-            bandwidthPct = band.divide(middle, 8, RoundingMode.HALF_UP).multiply(HUNDRED);
+        if (middle > 0) {
+            bandwidthPct = toDecimal(band / middle * 100.0, DECIMAL_SCALE);
         }
 
         BigDecimal percentB = null;
-        if (currentPrice != null && band.compareTo(BigDecimal.ZERO) > 0) {
-            percentB = currentPrice.subtract(lower).divide(band, 8, RoundingMode.HALF_UP);
-        }
-
-        return new BollingerSnapshot(middle, upper, lower, bandwidthPct, percentB);
-    }
-
-    private static BigDecimal computeStdDev(List<BigDecimal> values, int window, BigDecimal mean) {
-        if (values == null || mean == null || window <= 1 || values.size() < window) {
-            return null;
-        }
-        double avg = mean.doubleValue();
-        double sum = 0.0;
-        for (int i = values.size() - window; i < values.size(); i++) {
-            double diff = values.get(i).doubleValue() - avg;
-            sum += diff * diff;
-        }
-        double variance = sum / window;
-        return BigDecimal.valueOf(Math.sqrt(variance));
-    }
-
-    private static List<Double> emaSeriesFromDecimal(List<BigDecimal> values, int period) {
-        if (values == null || values.isEmpty() || period <= 0) {
-            return List.of();
-        }
-        double k = 2.0 / (period + 1.0);
-        List<Double> ema = new ArrayList<>(values.size());
-        double prev = values.get(0).doubleValue();
-        ema.add(prev);
-        for (int i = 1; i < values.size(); i++) {
-            double price = values.get(i).doubleValue();
-            prev = price * k + prev * (1.0 - k);
-            ema.add(prev);
-        }
-        return ema;
-    }
-
-    private static List<Double> emaSeries(List<Double> values, int period) {
-        if (values == null || values.isEmpty() || period <= 0) {
-            return List.of();
-        }
-        double k = 2.0 / (period + 1.0);
-        List<Double> ema = new ArrayList<>(values.size());
-        double prev = values.get(0);
-        ema.add(prev);
-        for (int i = 1; i < values.size(); i++) {
-            double price = values.get(i);
-            prev = price * k + prev * (1.0 - k);
-            ema.add(prev);
+        if (band > 0) {
+            percentB = toDecimal((lastClose - lower) / band, DECIMAL_SCALE);
         }
-        return ema;
-    }
 
-    private static BigDecimal highestHigh(List<BigDecimal> highs, int window, boolean excludeLast) {
-        if (highs == null || highs.isEmpty() || window <= 0) {
-            return null;
-        }
-        int end = highs.size() - 1;
-        if (excludeLast) {
-            end -= 1;
-        }
-        if (end < 0) {
-            return null;
-        }
-        int start = Math.max(0, end - window + 1);
-        BigDecimal max = null;
-        for (int i = start; i <= end; i++) {
-            BigDecimal value = highs.get(i);
-            if (value == null) {
-                continue;
-            }
-            if (max == null || value.compareTo(max) > 0) {
-                max = value;
-            }
-        }
-        return max;
-    }
-
-    private static BigDecimal averageRange(List<BigDecimal> values, int start, int end) {
-        if (values == null || values.isEmpty() || start < 0 || end < start || end >= values.size()) {
-            return null;
-        }
-        BigDecimal sum = BigDecimal.ZERO;
-        int count = 0;
-        for (int i = start; i <= end; i++) {
-            BigDecimal value = values.get(i);
-            if (value == null) {
-                continue;
-            }
-            sum = sum.add(value);
-            count++;
-        }
-        if (count == 0) {
-            return null;
-        }
-        return sum.divide(BigDecimal.valueOf(count), 8, RoundingMode.HALF_UP);
+        return new BollingerSnapshot(
+                toDecimal(middle, DECIMAL_SCALE),
+                toDecimal(upper),
+                toDecimal(lower),
+                bandwidthPct,
+                percentB
+        );
     }
 
     private String buildEntryReason(boolean rsiOk, boolean macdOk, boolean breakoutOk) {
@@ -2392,106 +2708,136 @@ public class AutoTradeService {
                 entity.setTrailingHigh(indicators.trailingHigh());
             }
 
-            Map<String, Object> details = new HashMap<>();
-            details.put("timeframeUnit", candleUnitMinutes);
-            details.put("maShortWindow", maShort);
-            details.put("maLongWindow", maLong);
-            details.put("rsiPeriod", rsiPeriod);
-            details.put("macdFast", macdFast);
-            details.put("macdSlow", macdSlow);
-            details.put("macdSignal", macdSignal);
-            details.put("adxPeriod", adxPeriod);
-            details.put("minAdx", minAdx);
-            details.put("volumeLookback", volumeLookback);
-            details.put("minVolumeRatio", minVolumeRatio);
-            details.put("bollingerWindow", bollingerWindow);
-            details.put("bollingerStdDev", bollingerStdDev);
-            details.put("bollingerMinBandwidthPct", bollingerMinBandwidthPct);
-            details.put("bollingerMaxPercentB", bollingerMaxPercentB);
-            details.put("breakoutLookback", breakoutLookback);
-            details.put("trailingWindow", trailingWindow);
-            details.put("entryTrailingHigh", entryTrailingHigh);
-            if (indicators != null) {
-                details.put("windowTrailingHigh", indicators.trailingHigh());
-            }
-            details.put("volatilityWindow", volatilityWindow);
-            details.put("targetVolPct", targetVolPct);
-            details.put("feeRate", feeRate);
-            details.put("slippagePct", slippagePct);
-            details.put("tradeCostRate", tradeCostRate);
-            details.put("orderChanceCacheMinutes", orderChanceCacheMinutes);
-            details.put("reentryCooldownMinutes", reentryCooldownMinutes);
-            details.put("stopLossGuardLookbackMinutes", stopLossGuardLookbackMinutes);
-            details.put("stopLossGuardTriggerCount", stopLossGuardTriggerCount);
-            details.put("stopLossGuardLockMinutes", stopLossGuardLockMinutes);
-            details.put("maxMarketsPerTick", maxMarketsPerTick);
-            details.put("marketMaxOrderKrw", marketMaxOrderKrw);
-            details.put("useClosedCandle", useClosedCandle);
-            details.put("regimeFilterEnabled", regimeFilterEnabled);
-            details.put("regimeFilterPerMarket", regimeFilterPerMarket);
-            details.put("regimeMarket", regime != null ? regime.market() : regimeMarket);
-            details.put("regimeTimeframeUnit", regimeTimeframeUnit);
-            details.put("relativeMomentumEnabled", relativeMomentumEnabled);
-            details.put("relativeMomentumTopN", relativeMomentumTopN);
-            details.put("relativeMomentumMinScorePct", relativeMomentumMinScorePct);
-            details.put("relativeMomentumCacheMinutes", relativeMomentumCacheMinutes);
-            if (config != null) {
-                details.put("stopExitPct", config.stopExitPct());
-                details.put("trendExitPct", config.trendExitPct());
-                details.put("momentumExitPct", config.momentumExitPct());
-                details.put("partialTakeProfitPct", config.partialTakeProfitPct());
-            }
-            if (tuning != null) {
-                details.put("rsiBuyThreshold", tuning.rsiBuyThreshold());
-                details.put("rsiSellThreshold", tuning.rsiSellThreshold());
-                details.put("rsiOverbought", tuning.rsiOverbought());
-                details.put("breakoutPct", tuning.breakoutPct());
-                details.put("minConfirmations", tuning.minConfirmations());
-                details.put("maxExtensionPct", tuning.maxExtensionPct());
-                details.put("minMaLongSlopePct", tuning.minMaLongSlopePct());
-                details.put("tuningMinAdx", tuning.minAdx());
-                details.put("tuningMinVolumeRatio", tuning.minVolumeRatio());
-            }
-            if (indicators != null) {
-                details.put("adx", indicators.adx());
-                details.put("volumeRatio", indicators.volumeRatio());
-                details.put("bollingerMiddle", indicators.bollingerMiddle());
-                details.put("bollingerUpper", indicators.bollingerUpper());
-                details.put("bollingerLower", indicators.bollingerLower());
-                details.put("bollingerBandwidthPct", indicators.bollingerBandwidthPct());
-                details.put("bollingerPercentB", indicators.bollingerPercentB());
-            }
-            if (regime != null) {
-                details.put("regimeAllowEntries", regime.allowEntries());
-                details.put("regimeReason", regime.reason());
-                details.put("regimePrice", regime.price());
-                details.put("regimeMaShort", regime.maShort());
-                details.put("regimeMaLong", regime.maLong());
-                details.put("regimeMaLongSlopePct", regime.maLongSlopePct());
-                details.put("regimeVolatilityPct", regime.volatilityPct());
-            }
-            if (momentumScorePct != null) {
-                details.put("relativeMomentumScorePct", momentumScorePct);
-            }
             String marketKey = normalizeMarketKey(market);
             OrderChanceSnapshot orderChance = marketKey == null ? null : orderChanceCache.get(marketKey);
-            if (orderChance != null) {
-                details.put("orderChanceBidMinTotal", orderChance.bidMinTotal());
-                details.put("orderChanceAskMinTotal", orderChance.askMinTotal());
-                details.put("orderChanceBidFee", orderChance.bidFee());
-                details.put("orderChanceAskFee", orderChance.askFee());
-                details.put(
-                        "orderChanceFetchedAt",
-                        orderChance.fetchedAt() == null ? null : orderChance.fetchedAt().toString()
-                );
-            }
-
-            tradeDecisionService.record(entity, details);
+            tradeDecisionService.record(
+                    entity,
+                    () -> decisionContext(config, tuning, regime, marketMaxOrderKrw),
+                    () -> decisionDetails(indicators, regime, momentumScorePct, entryTrailingHigh, orderChance)
+            );
         } catch (RuntimeException ex) {
             // Do not fail trading due to decision logging issues.
         }
     }
 
+    /**
+     * Parameters shared by every decision made under the same configuration; stored once per distinct set.
+     * Runs on the decision-log writer thread, so it reads only final configuration and immutable snapshots.
+     */
+    private Map<String, Object> decisionContext(
+            StrategyConfig config,
+            SignalTuning tuning,
+            RegimeSnapshot regime,
+            BigDecimal marketMaxOrderKrw
+    ) {
+        Map<String, Object> context = new HashMap<>();
+        context.put("timeframeUnit", candleUnitMinutes);
+        context.put("maShortWindow", maShort);
+        context.put("maLongWindow", maLong);
+        context.put("rsiPeriod", rsiPeriod);
+        context.put("macdFast", macdFast);
+        context.put("macdSlow", macdSlow);
+        context.put("macdSignal", macdSignal);
+        context.put("adxPeriod", adxPeriod);
+        context.put("minAdx", minAdx);
+        context.put("volumeLookback", volumeLookback);
+        context.put("minVolumeRatio", minVolumeRatio);
+        context.put("bollingerWindow", bollingerWindow);
+        context.put("bollingerStdDev", bollingerStdDev);
+        context.put("bollingerMinBandwidthPct", bollingerMinBandwidthPct);
+        context.put("bollingerMaxPercentB", bollingerMaxPercentB);
+        context.put("breakoutLookback", breakoutLookback);
+        context.put("trailingWindow", trailingWindow);
+        context.put("volatilityWindow", volatilityWindow);
+        context.put("targetVolPct", targetVolPct);
+        context.put("feeRate", feeRate);
+        context.put("slippagePct", slippagePct);
+        context.put("tradeCostRate", tradeCostRate);
+        context.put("orderChanceCacheMinutes", orderChanceCacheMinutes);
+        context.put("reentryCooldownMinutes", reentryCooldownMinutes);
+        context.put("stopLossGuardLookbackMinutes", stopLossGuardLookbackMinutes);
+        context.put("stopLossGuardTriggerCount", stopLossGuardTriggerCount);
+        context.put("stopLossGuardLockMinutes", stopLossGuardLockMinutes);
+        context.put("maxMarketsPerTick", maxMarketsPerTick);
+        context.put("marketMaxOrderKrw", marketMaxOrderKrw);
+        context.put("useClosedCandle", useClosedCandle);
+        context.put("regimeFilterEnabled", regimeFilterEnabled);
+        context.put("regimeFilterPerMarket", regimeFilterPerMarket);
+        context.put("regimeMarket", regime != null ? regime.market() : regimeMarket);
+        context.put("regimeTimeframeUnit", regimeTimeframeUnit);
+        context.put("relativeMomentumEnabled", relativeMomentumEnabled);
+        context.put("relativeMomentumTopN", relativeMomentumTopN);
+        context.put("relativeMomentumMinScorePct", relativeMomentumMinScorePct);
+        context.put("relativeMomentumCacheMinutes", relativeMomentumCacheMinutes);
+        if (config != null) {
+            context.put("stopExitPct", config.stopExitPct());
+            context.put("trendExitPct", config.trendExitPct());
+            context.put("momentumExitPct", config.momentumExitPct());
+            context.put("partialTakeProfitPct", config.partialTakeProfitPct());
+        }
+        if (tuning != null) {
+            context.put("rsiBuyThreshold", tuning.rsiBuyThreshold());
+            context.put("rsiSellThreshold", tuning.rsiSellThreshold());
+            context.put("rsiOverbought", tuning.rsiOverbought());
+            context.put("breakoutPct", tuning.breakoutPct());
+            context.put("minConfirmations", tuning.minConfirmations());
+            context.put("maxExtensionPct", tuning.maxExtensionPct());
+            context.put("minMaLongSlopePct", tuning.minMaLongSlopePct());
+            context.put("tuningMinAdx", tuning.minAdx());
+            context.put("tuningMinVolumeRatio", tuning.minVolumeRatio());
+        }
+        return context;
+    }
+
+    /**
+     * Values specific to this decision. Runs on the decision-log writer thread, like {@link #decisionContext}.
+     */
+    private Map<String, Object> decisionDetails(
+            MarketIndicators indicators,
+            RegimeSnapshot regime,
+            BigDecimal momentumScorePct,
+            BigDecimal entryTrailingHigh,
+            OrderChanceSnapshot orderChance
+    ) {
+        Map<String, Object> details = new HashMap<>();
+        details.put("entryTrailingHigh", entryTrailingHigh);
+        if (indicators != null) {
+            details.put("windowTrailingHigh", indicators.trailingHigh());
+        }
+        if (indicators != null) {
+            details.put("adx", indicators.adx());
+            details.put("volumeRatio", indicators.volumeRatio());
+            details.put("bollingerMiddle", indicators.bollingerMiddle());
+            details.put("bollingerUpper", indicators.bollingerUpper());
+            details.put("bollingerLower", indicators.bollingerLower());
+            details.put("bollingerBandwidthPct", indicators.bollingerBandwidthPct());
+            details.put("bollingerPercentB", indicators.bollingerPercentB());
+        }
+        if (regime != null) {
+            details.put("regimeAllowEntries", regime.allowEntries());
+            details.put("regimeReason", regime.reason());
+            details.put("regimePrice", regime.price());
+            details.put("regimeMaShort", regime.maShort());
+            details.put("regimeMaLong", regime.maLong());
+            details.put("regimeMaLongSlopePct", regime.maLongSlopePct());
+            details.put("regimeVolatilityPct", regime.volatilityPct());
+        }
+        if (momentumScorePct != null) {
+            details.put("relativeMomentumScorePct", momentumScorePct);
+        }
+        if (orderChance != null) {
+            details.put("orderChanceBidMinTotal", orderChance.bidMinTotal());
+            details.put("orderChanceAskMinTotal", orderChance.askMinTotal());
+            details.put("orderChanceBidFee", orderChance.bidFee());
+            details.put("orderChanceAskFee", orderChance.askFee());
+            details.put(
+                    "orderChanceFetchedAt",
+                    orderChance.fetchedAt() == null ? null : orderChance.fetchedAt().toString()
+            );
+        }
+        return details;
+    }
+
     private boolean canTakePartialProfit(String market, OffsetDateTime now) {
         if (partialTakeProfitCooldownMinutes <= 0) {
             return true;
@@ -2503,21 +2849,6 @@ public class AutoTradeService {
         return last.isBefore(now.minusMinutes(partialTakeProfitCooldownMinutes));
     }
 
-    private static void reverseInPlace(List<BigDecimal> values) {
-        for (int i = 0, j = values.size() - 1; i < j; i++, j--) {
-            BigDecimal tmp = values.get(i);
-            values.set(i, values.get(j));
-            values.set(j, tmp);
-        }
-    }
-
-    private static void dropLast(List<BigDecimal> values) {
-        if (values == null || values.size() <= 1) {
-            return;
-        }
-        values.remove(values.size() - 1);
-    }
-
     private record MarketIndicators(
             BigDecimal currentPrice,
             BigDecimal maShort,
@@ -2547,6 +2878,31 @@ public class AutoTradeService {
     ) {
     }
 
+    /**
+     * Everything the engine resolves for one market from the strategy snapshot and property overrides.
+     */
+    private record MarketPlan(
+            String market,
+            StrategyConfig config,
+            StrategyProfile profile,
+            SignalTuning tuning,
+            BigDecimal maxOrderKrw,
+            IncrementalIndicatorSet.Spec indicatorSpec,
+            int indicatorCandleCount
+    ) {
+    }
+
+    private record MarketPlans(
+            StrategySnapshot source,
+            Map<String, MarketPlan> byMarket,
+            Function<String, MarketPlan> compiler
+    ) {
+        MarketPlan plan(String market) {
+            MarketPlan plan = byMarket.get(market);
+            return plan != null ? plan : compiler.apply(market);
+        }
+    }
+
     private record SignalTuning(
             double rsiBuyThreshold,
             double rsiSellThreshold,
@@ -0,0 +1,50 @@
+package com.btcautotrader.engine;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Strategy/engine parameters shared by many decisions, stored once and keyed by the SHA-256 of their canonical JSON.
+ */
+@Entity
+@Table(
+        name = "trade_decision_contexts",
+        uniqueConstraints = @UniqueConstraint(name = "uk_trade_decision_contexts_hash", columnNames = "context_hash")
+)
+public class TradeDecisionContextEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "context_hash", nullable = false, length = 64)
+    private String contextHash;
+
+    @Column(name = "params", nullable = false, columnDefinition = "TEXT")
+    private String params;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getContextHash() {
+        return contextHash;
+    }
+
+    public String getParams() {
+        return params;
+    }
+
+    public OffsetDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
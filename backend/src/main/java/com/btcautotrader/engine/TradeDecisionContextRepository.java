@@ -0,0 +1,6 @@
+package com.btcautotrader.engine;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface TradeDecisionContextRepository extends JpaRepository<TradeDecisionContextEntity, Long> {
+}
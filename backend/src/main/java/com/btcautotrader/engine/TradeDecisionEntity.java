@@ -18,7 +18,8 @@ import java.time.OffsetDateTime;
         indexes = {
                 @Index(name = "idx_trade_decisions_executed_at", columnList = "executed_at"),
                 @Index(name = "idx_trade_decisions_action_executed_at", columnList = "action,executed_at"),
-                @Index(name = "idx_trade_decisions_market_executed_at", columnList = "market,executed_at")
+                @Index(name = "idx_trade_decisions_market_executed_at", columnList = "market,executed_at"),
+                @Index(name = "idx_trade_decisions_context_id", columnList = "context_id")
         }
 )
 public class TradeDecisionEntity {
@@ -83,6 +84,18 @@ public class TradeDecisionEntity {
     @Column(name = "details", columnDefinition = "TEXT")
     private String details;
 
+    @Column(name = "context_id")
+    private Long contextId;
+
+    @Column(name = "first_seen")
+    private OffsetDateTime firstSeen;
+
+    @Column(name = "last_seen")
+    private OffsetDateTime lastSeen;
+
+    @Column(name = "repeat_count")
+    private Integer repeatCount;
+
     @PrePersist
     void onCreate() {
         if (executedAt == null) {
@@ -245,4 +258,36 @@ public class TradeDecisionEntity {
     public void setDetails(String details) {
         this.details = details;
     }
+
+    public Long getContextId() {
+        return contextId;
+    }
+
+    public void setContextId(Long contextId) {
+        this.contextId = contextId;
+    }
+
+    public OffsetDateTime getFirstSeen() {
+        return firstSeen;
+    }
+
+    public void setFirstSeen(OffsetDateTime firstSeen) {
+        this.firstSeen = firstSeen;
+    }
+
+    public OffsetDateTime getLastSeen() {
+        return lastSeen;
+    }
+
+    public void setLastSeen(OffsetDateTime lastSeen) {
+        this.lastSeen = lastSeen;
+    }
+
+    public Integer getRepeatCount() {
+        return repeatCount;
+    }
+
+    public void setRepeatCount(Integer repeatCount) {
+        this.repeatCount = repeatCount;
+    }
 }
@@ -9,6 +9,8 @@ public record TradeDecisionItem(
         String action,
         String reason,
         String executedAt,
+        String firstSeenAt,
+        int repeatCount,
         String profile,
         BigDecimal price,
         BigDecimal quantity,
@@ -23,6 +25,7 @@ public record TradeDecisionItem(
         BigDecimal trailingHigh,
         BigDecimal maLongSlopePct,
         BigDecimal volatilityPct,
+        Long contextId,
         Map<String, Object> details
 ) {
 }
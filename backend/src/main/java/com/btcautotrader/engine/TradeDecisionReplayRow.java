@@ -0,0 +1,18 @@
+package com.btcautotrader.engine;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/**
+ * The columns needed to replay a BUY/SELL decision; never carries the details/context payload.
+ */
+public record TradeDecisionReplayRow(
+        OffsetDateTime executedAt,
+        String market,
+        String action,
+        BigDecimal price,
+        BigDecimal quantity,
+        BigDecimal funds,
+        String requestStatus
+) {
+}
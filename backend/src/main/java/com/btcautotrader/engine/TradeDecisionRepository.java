@@ -1,20 +1,62 @@
 package com.btcautotrader.engine;
 
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.time.OffsetDateTime;
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 public interface TradeDecisionRepository extends JpaRepository<TradeDecisionEntity, Long> {
-    Page<TradeDecisionEntity> findByActionIn(Collection<String> actions, Pageable pageable);
+    String REPLAY_FETCH_SIZE = "1000";
+    String REPLAY_SELECT = "select new com.btcautotrader.engine.TradeDecisionReplayRow("
+            + "d.executedAt, d.market, d.action, d.price, d.quantity, d.funds, d.requestStatus) "
+            + "from TradeDecisionEntity d where d.action in :actions";
+    // Compacted SKIP runs are stored at their first occurrence; listings order by their latest one
+    // (idx_trade_decisions_seen_at).
+    String BY_SEEN_AT_DESC = " order by coalesce(d.lastSeen, d.executedAt) desc, d.id desc";
+
+    @Query("select d from TradeDecisionEntity d" + BY_SEEN_AT_DESC)
+    List<TradeDecisionEntity> findRecentBySeenAt(Pageable pageable);
+
+    @Query("select d from TradeDecisionEntity d where d.action in :actions" + BY_SEEN_AT_DESC)
+    List<TradeDecisionEntity> findRecentBySeenAtAndActionIn(
+            @Param("actions") Collection<String> actions,
+            Pageable pageable
+    );
 
     Page<TradeDecisionEntity> findByActionOrderByExecutedAtDesc(String action, Pageable pageable);
 
-    List<TradeDecisionEntity> findByActionInAndExecutedAtBeforeOrderByExecutedAtAsc(
-            Collection<String> actions,
-            OffsetDateTime executedAt
+    @Query(REPLAY_SELECT + " and d.executedAt < :to order by d.executedAt asc, d.id asc")
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = REPLAY_FETCH_SIZE),
+            @QueryHint(name = HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    Stream<TradeDecisionReplayRow> streamReplayRowsBefore(
+            @Param("actions") Collection<String> actions,
+            @Param("to") OffsetDateTime to
+    );
+
+    @Query(REPLAY_SELECT + " and d.executedAt >= :from and d.executedAt < :to order by d.executedAt asc, d.id asc")
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = REPLAY_FETCH_SIZE),
+            @QueryHint(name = HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    Stream<TradeDecisionReplayRow> streamReplayRowsBetween(
+            @Param("actions") Collection<String> actions,
+            @Param("from") OffsetDateTime from,
+            @Param("to") OffsetDateTime to
     );
 }
@@ -4,13 +4,17 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 
 @Service
@@ -19,27 +23,35 @@ public class TradeDecisionService {
     private static final List<String> TRADE_ACTIONS = List.of("BUY", "SELL");
 
     private final TradeDecisionRepository repository;
+    private final TradeDecisionContextRepository contextRepository;
     private final ObjectMapper objectMapper;
     private final JdbcTemplate jdbcTemplate;
+    private final TradeDecisionWriter writer;
 
     public TradeDecisionService(
             TradeDecisionRepository repository,
+            TradeDecisionContextRepository contextRepository,
             ObjectMapper objectMapper,
-            JdbcTemplate jdbcTemplate
+            JdbcTemplate jdbcTemplate,
+            TradeDecisionWriter writer
     ) {
         this.repository = repository;
+        this.contextRepository = contextRepository;
         this.objectMapper = objectMapper;
         this.jdbcTemplate = jdbcTemplate;
+        this.writer = writer;
     }
 
-    public void record(TradeDecisionEntity entity, Map<String, Object> details) {
-        if (entity == null) {
-            return;
-        }
-        if (details != null && !details.isEmpty()) {
-            entity.setDetails(safeSerialize(details));
-        }
-        repository.save(entity);
+    /**
+     * Hands the decision to the background writer; {@code context} holds parameters shared across decisions and is
+     * stored once per distinct set, {@code details} the per-decision values. Both are built off the caller thread.
+     */
+    public void record(
+            TradeDecisionEntity entity,
+            Supplier<Map<String, Object>> context,
+            Supplier<Map<String, Object>> details
+    ) {
+        writer.submit(entity, context, details);
     }
 
     public List<TradeDecisionItem> listRecent(int limit) {
@@ -49,31 +61,43 @@ public class TradeDecisionService {
     @Transactional(readOnly = true)
     public List<TradeDecisionItem> listRecent(int limit, boolean includeSkips) {
         int safeLimit = normalizeLimit(limit);
-        PageRequest pageRequest = PageRequest.of(0, safeLimit, Sort.by(Sort.Direction.DESC, "executedAt"));
+        PageRequest pageRequest = PageRequest.of(0, safeLimit);
         List<TradeDecisionEntity> entities = includeSkips
-                ? repository.findAll(pageRequest).getContent()
-                : repository.findByActionIn(TRADE_ACTIONS, pageRequest).getContent();
+                ? repository.findRecentBySeenAt(pageRequest)
+                : repository.findRecentBySeenAtAndActionIn(TRADE_ACTIONS, pageRequest);
+        Map<Long, Map<String, Object>> contexts = loadContexts(entities);
         return entities
                 .stream()
-                .map(this::toItem)
+                .map(entity -> toItem(entity, contexts.get(entity.getContextId())))
                 .toList();
     }
 
-    private String safeSerialize(Map<String, Object> details) {
-        try {
-            return objectMapper.writeValueAsString(details);
-        } catch (JsonProcessingException ex) {
-            return details.toString();
+    private Map<Long, Map<String, Object>> loadContexts(List<TradeDecisionEntity> entities) {
+        Set<Long> ids = new HashSet<>();
+        for (TradeDecisionEntity entity : entities) {
+            if (entity.getContextId() != null) {
+                ids.add(entity.getContextId());
+            }
+        }
+        if (ids.isEmpty()) {
+            return Map.of();
         }
+        Map<Long, Map<String, Object>> contexts = new HashMap<>();
+        for (TradeDecisionContextEntity context : contextRepository.findAllById(ids)) {
+            contexts.put(context.getId(), parseDetails(context.getParams()));
+        }
+        return contexts;
     }
 
-    private TradeDecisionItem toItem(TradeDecisionEntity entity) {
+    private TradeDecisionItem toItem(TradeDecisionEntity entity, Map<String, Object> context) {
         return new TradeDecisionItem(
                 entity.getId(),
                 entity.getMarket(),
                 entity.getAction(),
                 entity.getReason(),
-                entity.getExecutedAt() == null ? null : entity.getExecutedAt().toString(),
+                lastSeenAt(entity),
+                firstSeenAt(entity),
+                entity.getRepeatCount() == null ? 1 : Math.max(1, entity.getRepeatCount()),
                 entity.getProfile(),
                 entity.getPrice(),
                 entity.getQuantity(),
@@ -88,10 +112,31 @@ public class TradeDecisionService {
                 entity.getTrailingHigh(),
                 entity.getMaLongSlopePct(),
                 entity.getVolatilityPct(),
-                parseDetails(entity.getDetails())
+                entity.getContextId(),
+                mergeDetails(context, parseDetails(entity.getDetails()))
         );
     }
 
+    private static Map<String, Object> mergeDetails(Map<String, Object> context, Map<String, Object> details) {
+        if (context == null || context.isEmpty()) {
+            return details;
+        }
+        Map<String, Object> merged = new HashMap<>(context);
+        merged.putAll(details);
+        return merged;
+    }
+
+    // A compacted SKIP run is stored at its first occurrence and reports its last one as executedAt.
+    private static String lastSeenAt(TradeDecisionEntity entity) {
+        OffsetDateTime lastSeen = entity.getLastSeen() != null ? entity.getLastSeen() : entity.getExecutedAt();
+        return lastSeen == null ? null : lastSeen.toString();
+    }
+
+    private static String firstSeenAt(TradeDecisionEntity entity) {
+        OffsetDateTime firstSeen = entity.getFirstSeen() != null ? entity.getFirstSeen() : entity.getExecutedAt();
+        return firstSeen == null ? null : firstSeen.toString();
+    }
+
     private Map<String, Object> parseDetails(String raw) {
         if (raw == null || raw.isBlank()) {
             return Map.of();
@@ -0,0 +1,561 @@
+package com.btcautotrader.engine;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Decision-log pipeline: the trading thread only enqueues, a single background thread serializes details and
+ * writes rows with JDBC batch inserts once {@code batch-size} rows are queued or {@code flush-interval-ms} passes.
+ * When the queue stays full, SKIP rows are dropped and every other decision is written inline so trades are never
+ * missing from the log. Queued rows are flushed on shutdown.
+ * <p>
+ * A failed batch is retried row by row. SKIP rows that still fail are dropped; any other row is kept and retried on
+ * every later flush until the database takes it, and rows still unwritten at shutdown are logged as errors.
+ * <p>
+ * With {@code compact-skips} on, consecutive SKIPs for a market with the same reason and profile collapse into one
+ * row: the first occurrence is inserted and later ones only advance its {@code last_seen} and {@code repeat_count}.
+ * A run closes when the market logs anything else or after {@code max-run-minutes}.
+ * <p>
+ * Static strategy/engine parameters go to {@code trade_decision_contexts} once per distinct set (keyed by the hash of
+ * their canonical JSON) and rows only carry the {@code context_id}; {@code details} keeps the per-decision values.
+ */
+@Component
+@DependsOn("timePartitionMigrationService")
+public class TradeDecisionWriter {
+    private static final Logger log = LoggerFactory.getLogger(TradeDecisionWriter.class);
+    static final String INSERT_SQL = "insert into trade_decisions ("
+            + "market, action, reason, executed_at, profile, price, quantity, funds, order_id, request_status, "
+            + "ma_short, ma_long, rsi, macd_histogram, breakout_level, trailing_high, ma_long_slope_pct, "
+            + "volatility_pct, details, first_seen, last_seen, repeat_count, context_id) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    // executed_at stays at the run's first occurrence: it is the partition key, so it prunes the update to one
+    // partition and the row never moves between monthly partitions.
+    static final String EXTEND_RUN_SQL =
+            "update trade_decisions set last_seen = ?, repeat_count = ? where id = ? and executed_at = ?";
+    static final String INSERT_CONTEXT_SQL = "insert into trade_decision_contexts (context_hash, params, created_at) "
+            + "values (?, ?, ?) on conflict (context_hash) do nothing";
+    static final String SELECT_CONTEXT_SQL = "select id from trade_decision_contexts where context_hash = ?";
+    private static final int CONTEXT_CACHE_LIMIT = 1024;
+    private static final PendingDecision WAKE_UP = new PendingDecision(null, null, null);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean async;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long offerTimeoutMs;
+    private final long shutdownTimeoutMs;
+    private final boolean compactSkips;
+    private final Duration maxRunLength;
+    private final BlockingQueue<PendingDecision> queue;
+    private final AtomicLong dropped = new AtomicLong();
+    private final ConcurrentLinkedQueue<DecisionRow> unwrittenTrades = new ConcurrentLinkedQueue<>();
+    // Touched by the worker and by callers writing inline (backpressure, stopped writer); guarded by runLock.
+    private final Object runLock = new Object();
+    private final Map<String, SkipRun> openRuns = new HashMap<>();
+    private final Map<String, OffsetDateTime> runsClosedAt = new HashMap<>();
+    private final Map<Map<String, Object>, Long> contextIds = new ConcurrentHashMap<>();
+    private final ExecutorService worker;
+
+    private volatile boolean running;
+
+    public TradeDecisionWriter(
+            JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            @Value("${engine.decision-log.async:true}") boolean async,
+            @Value("${engine.decision-log.queue-capacity:10000}") int queueCapacity,
+            @Value("${engine.decision-log.batch-size:200}") int batchSize,
+            @Value("${engine.decision-log.flush-interval-ms:500}") long flushIntervalMs,
+            @Value("${engine.decision-log.offer-timeout-ms:20}") long offerTimeoutMs,
+            @Value("${engine.decision-log.shutdown-timeout-ms:10000}") long shutdownTimeoutMs,
+            @Value("${engine.decision-log.compact-skips:true}") boolean compactSkips,
+            @Value("${engine.decision-log.max-run-minutes:60}") long maxRunMinutes
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.async = async;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushIntervalMs));
+        this.offerTimeoutMs = Math.max(0, offerTimeoutMs);
+        this.shutdownTimeoutMs = Math.max(0, shutdownTimeoutMs);
+        this.compactSkips = compactSkips;
+        this.maxRunLength = Duration.ofMinutes(Math.max(1, maxRunMinutes));
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "trade-decision-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!async || running) {
+            return;
+        }
+        running = true;
+        worker.execute(this::drainLoop);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        queue.offer(WAKE_UP);
+        worker.shutdown();
+        try {
+            if (!worker.awaitTermination(shutdownTimeoutMs, TimeUnit.MILLISECONDS)) {
+                worker.shutdownNow();
+            }
+        } catch (InterruptedException ex) {
+            worker.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        // Anything enqueued while the worker was exiting.
+        List<PendingDecision> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            writeBatch(remaining);
+        }
+        retryUnwrittenTrades();
+        for (DecisionRow row : unwrittenTrades) {
+            TradeDecisionEntity entity = row.entity();
+            log.error("Trade decision lost at shutdown: {} {} at {} (order {}, price {}, quantity {}, funds {})",
+                    entity.getMarket(), entity.getAction(), entity.getExecutedAt(), entity.getOrderId(),
+                    entity.getPrice(), entity.getQuantity(), entity.getFunds());
+        }
+    }
+
+    /**
+     * Queues one decision. {@code context} (shared parameters) and {@code details} (per-decision values) are evaluated
+     * on the writer thread, so they must only read immutable state.
+     */
+    public void submit(
+            TradeDecisionEntity entity,
+            Supplier<Map<String, Object>> context,
+            Supplier<Map<String, Object>> details
+    ) {
+        if (entity == null) {
+            return;
+        }
+        if (entity.getExecutedAt() == null) {
+            entity.setExecutedAt(OffsetDateTime.now());
+        }
+        PendingDecision pending = new PendingDecision(entity, context, details);
+        if (!running) {
+            writeBatch(List.of(pending));
+            return;
+        }
+        try {
+            if (queue.offer(pending, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        if (isSkip(entity)) {
+            long total = dropped.incrementAndGet();
+            if (total == 1 || total % 1000 == 0) {
+                log.warn("Trade decision queue full; dropped {} SKIP decisions so far", total);
+            }
+            return;
+        }
+        writeBatch(List.of(pending));
+    }
+
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Non-SKIP decisions whose insert failed and that are waiting for the next retry.
+     */
+    public int unwrittenTradeCount() {
+        return unwrittenTrades.size();
+    }
+
+    private void drainLoop() {
+        List<PendingDecision> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingDecision first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null || first == WAKE_UP) {
+                    retryUnwrittenTrades();
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remainingNanos = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remainingNanos <= 0 || !running) {
+                        break;
+                    }
+                    PendingDecision next = queue.poll(remainingNanos, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException ex) {
+                queue.drainTo(batch);
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<PendingDecision> batch) {
+        retryUnwrittenTrades();
+        List<DecisionRow> rows = new ArrayList<>(batch.size());
+        Map<Long, SkipRun> extendedRuns = new LinkedHashMap<>();
+        for (PendingDecision pending : batch) {
+            if (pending == WAKE_UP) {
+                continue;
+            }
+            TradeDecisionEntity entity = pending.entity();
+            Map<String, Object> context = evaluate(pending.context());
+            entity.setContextId(resolveContext(context));
+            if (compactSkips && compact(entity, extendedRuns)) {
+                continue;
+            }
+            // Without a context row the shared parameters stay inline so nothing is lost.
+            Map<String, Object> inlineContext = entity.getContextId() == null ? context : null;
+            DecisionRow row = new DecisionRow(entity, serializeDetails(pending.details(), inlineContext));
+            if (compactSkips && isSkip(entity) && !predatesClosedRun(entity)) {
+                startRun(row);
+            } else {
+                rows.add(row);
+            }
+        }
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            insertChunk(rows.subList(from, Math.min(rows.size(), from + batchSize)));
+        }
+        if (!extendedRuns.isEmpty()) {
+            try {
+                jdbcTemplate.batchUpdate(EXTEND_RUN_SQL, extendedRuns.values(), batchSize, TradeDecisionWriter::bindRun);
+            } catch (RuntimeException ex) {
+                // Only SKIP runs lose their latest last_seen/repeat_count; the runs themselves are already stored.
+                log.warn("Failed to extend {} SKIP runs: {}", extendedRuns.size(), ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Inserts one chunk as a single JDBC batch, which the driver runs as one implicit transaction, so a failure
+     * leaves none of its rows behind and each can be retried on its own without duplicates.
+     */
+    private void insertChunk(List<DecisionRow> chunk) {
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, chunk, chunk.size(), TradeDecisionWriter::bind);
+            return;
+        } catch (RuntimeException ex) {
+            log.warn("Failed to write {} trade decisions, retrying one by one: {}", chunk.size(), ex.getMessage());
+        }
+        for (DecisionRow row : chunk) {
+            if (insertRow(row)) {
+                continue;
+            }
+            TradeDecisionEntity entity = row.entity();
+            if (isSkip(entity)) {
+                dropped.incrementAndGet();
+                continue;
+            }
+            unwrittenTrades.add(row);
+            log.error("Failed to write {} decision for {} at {}; {} trade decisions waiting for retry",
+                    entity.getAction(), entity.getMarket(), entity.getExecutedAt(), unwrittenTrades.size());
+        }
+    }
+
+    /**
+     * Retries trade rows that failed earlier, oldest first, and stops at the first one that still fails.
+     */
+    private void retryUnwrittenTrades() {
+        for (int attempts = unwrittenTrades.size(); attempts > 0; attempts--) {
+            DecisionRow row = unwrittenTrades.poll();
+            if (row == null) {
+                return;
+            }
+            if (!insertRow(row)) {
+                unwrittenTrades.add(row);
+                return;
+            }
+            log.info("Wrote delayed {} decision for {} at {}",
+                    row.entity().getAction(), row.entity().getMarket(), row.entity().getExecutedAt());
+        }
+    }
+
+    private boolean insertRow(DecisionRow row) {
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, List.of(row), 1, TradeDecisionWriter::bind);
+            return true;
+        } catch (RuntimeException ex) {
+            log.debug("Failed to write trade decision for {}: {}", row.entity().getMarket(), ex.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Folds a repeated SKIP into the market's open run. Any other decision closes the run and is written normally.
+     * A trade written inline can overtake SKIPs still queued behind it; those predate the close and are written as
+     * single rows, so no run spans the trade.
+     */
+    private boolean compact(TradeDecisionEntity entity, Map<Long, SkipRun> extendedRuns) {
+        String market = entity.getMarket();
+        if (market == null) {
+            return false;
+        }
+        synchronized (runLock) {
+            if (!isSkip(entity)) {
+                openRuns.remove(market);
+                runsClosedAt.merge(market, entity.getExecutedAt(), (a, b) -> a.isAfter(b) ? a : b);
+                return false;
+            }
+            if (predatesClosedRun(entity)) {
+                return false;
+            }
+            SkipRun run = openRuns.get(market);
+            if (run == null || !run.continuedBy(entity, maxRunLength)) {
+                return false;
+            }
+            SkipRun extended = run.extendTo(entity.getExecutedAt());
+            openRuns.put(market, extended);
+            extendedRuns.put(extended.id(), extended);
+            return true;
+        }
+    }
+
+    private boolean predatesClosedRun(TradeDecisionEntity entity) {
+        synchronized (runLock) {
+            OffsetDateTime closedAt = entity.getMarket() == null ? null : runsClosedAt.get(entity.getMarket());
+            return closedAt != null && entity.getExecutedAt().isBefore(closedAt);
+        }
+    }
+
+    private void startRun(DecisionRow row) {
+        TradeDecisionEntity entity = row.entity();
+        synchronized (runLock) {
+            openRuns.remove(entity.getMarket());
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        try {
+            jdbcTemplate.update(connection -> {
+                PreparedStatement ps = connection.prepareStatement(INSERT_SQL, new String[]{"id"});
+                bind(ps, row);
+                return ps;
+            }, keyHolder);
+        } catch (RuntimeException ex) {
+            // Runs only ever hold SKIPs, which may be dropped.
+            dropped.incrementAndGet();
+            log.warn("Failed to write trade decision for {}: {}", entity.getMarket(), ex.getMessage());
+            return;
+        }
+        Number id = keyHolder.getKey();
+        synchronized (runLock) {
+            // A trade written inline meanwhile may have closed the market's runs; this SKIP then stays a single row.
+            if (id != null && !predatesClosedRun(entity)) {
+                openRuns.put(entity.getMarket(), SkipRun.start(id.longValue(), entity));
+            }
+        }
+    }
+
+    private static boolean isSkip(TradeDecisionEntity entity) {
+        return "SKIP".equalsIgnoreCase(entity.getAction());
+    }
+
+    private Long resolveContext(Map<String, Object> context) {
+        if (context == null) {
+            return null;
+        }
+        Long cached = contextIds.get(context);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            String params = objectMapper.writeValueAsString(new TreeMap<>(context));
+            String hash = sha256Hex(params);
+            jdbcTemplate.update(INSERT_CONTEXT_SQL, hash, params, OffsetDateTime.now());
+            Long id = jdbcTemplate.queryForObject(SELECT_CONTEXT_SQL, Long.class, hash);
+            if (id != null) {
+                if (contextIds.size() >= CONTEXT_CACHE_LIMIT) {
+                    contextIds.clear();
+                }
+                contextIds.put(context, id);
+            }
+            return id;
+        } catch (JsonProcessingException | RuntimeException ex) {
+            log.warn("Failed to store trade decision context: {}", ex.getMessage());
+            return null;
+        }
+    }
+
+    private String serializeDetails(Supplier<Map<String, Object>> supplier, Map<String, Object> inlineContext) {
+        Map<String, Object> details = evaluate(supplier);
+        if (inlineContext != null) {
+            Map<String, Object> merged = new HashMap<>(inlineContext);
+            if (details != null) {
+                merged.putAll(details);
+            }
+            details = merged;
+        }
+        if (details == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(details);
+        } catch (JsonProcessingException ex) {
+            return details.toString();
+        }
+    }
+
+    private static Map<String, Object> evaluate(Supplier<Map<String, Object>> supplier) {
+        if (supplier == null) {
+            return null;
+        }
+        try {
+            Map<String, Object> values = supplier.get();
+            return values == null || values.isEmpty() ? null : values;
+        } catch (RuntimeException ex) {
+            return null;
+        }
+    }
+
+    private static String sha256Hex(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+
+    private static void bind(PreparedStatement ps, DecisionRow row) throws SQLException {
+        TradeDecisionEntity entity = row.entity();
+        ps.setString(1, entity.getMarket());
+        ps.setString(2, entity.getAction());
+        ps.setString(3, entity.getReason());
+        ps.setObject(4, entity.getExecutedAt());
+        ps.setString(5, entity.getProfile());
+        setDecimal(ps, 6, entity.getPrice());
+        setDecimal(ps, 7, entity.getQuantity());
+        setDecimal(ps, 8, entity.getFunds());
+        ps.setString(9, entity.getOrderId());
+        ps.setString(10, entity.getRequestStatus());
+        setDecimal(ps, 11, entity.getMaShort());
+        setDecimal(ps, 12, entity.getMaLong());
+        setDecimal(ps, 13, entity.getRsi());
+        setDecimal(ps, 14, entity.getMacdHistogram());
+        setDecimal(ps, 15, entity.getBreakoutLevel());
+        setDecimal(ps, 16, entity.getTrailingHigh());
+        setDecimal(ps, 17, entity.getMaLongSlopePct());
+        setDecimal(ps, 18, entity.getVolatilityPct());
+        ps.setString(19, row.details());
+        ps.setObject(20, entity.getExecutedAt());
+        ps.setObject(21, entity.getExecutedAt());
+        ps.setInt(22, 1);
+        if (entity.getContextId() == null) {
+            ps.setNull(23, Types.BIGINT);
+        } else {
+            ps.setLong(23, entity.getContextId());
+        }
+    }
+
+    private static void bindRun(PreparedStatement ps, SkipRun run) throws SQLException {
+        ps.setObject(1, run.lastSeen());
+        ps.setInt(2, run.repeatCount());
+        ps.setLong(3, run.id());
+        ps.setObject(4, run.firstSeen());
+    }
+
+    private static void setDecimal(PreparedStatement ps, int index, BigDecimal value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.NUMERIC);
+        } else {
+            ps.setBigDecimal(index, value);
+        }
+    }
+
+    private record PendingDecision(
+            TradeDecisionEntity entity,
+            Supplier<Map<String, Object>> context,
+            Supplier<Map<String, Object>> details
+    ) {
+    }
+
+    private record DecisionRow(TradeDecisionEntity entity, String details) {
+    }
+
+    private record SkipRun(
+            long id,
+            String reason,
+            String profile,
+            Long contextId,
+            OffsetDateTime firstSeen,
+            OffsetDateTime lastSeen,
+            int repeatCount
+    ) {
+        static SkipRun start(long id, TradeDecisionEntity entity) {
+            return new SkipRun(
+                    id,
+                    entity.getReason(),
+                    entity.getProfile(),
+                    entity.getContextId(),
+                    entity.getExecutedAt(),
+                    entity.getExecutedAt(),
+                    1
+            );
+        }
+
+        boolean continuedBy(TradeDecisionEntity entity, Duration maxRunLength) {
+            return Objects.equals(reason, entity.getReason())
+                    && Objects.equals(profile, entity.getProfile())
+                    && Objects.equals(contextId, entity.getContextId())
+                    && entity.getExecutedAt().isBefore(firstSeen.plus(maxRunLength));
+        }
+
+        SkipRun extendTo(OffsetDateTime seenAt) {
+            OffsetDateTime latest = seenAt.isAfter(lastSeen) ? seenAt : lastSeen;
+            return new SkipRun(id, reason, profile, contextId, firstSeen, latest, repeatCount + 1);
+        }
+    }
+}
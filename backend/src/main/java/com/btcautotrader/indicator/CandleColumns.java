@@ -0,0 +1,97 @@
+package com.btcautotrader.indicator;
+
+import com.btcautotrader.market.Candle;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reusable primitive columns for one candle window (oldest first).
+ * Arrays only grow, so a buffer reused across ticks stops allocating once it has seen the largest window.
+ */
+public final class CandleColumns {
+    private double[] close = new double[0];
+    private double[] high = new double[0];
+    private double[] low = new double[0];
+    private double[] quoteVolume = new double[0];
+    private int length;
+
+    /**
+     * Loads candles that have positive close/high/low; negative quote volume is clamped to zero.
+     */
+    public CandleColumns load(List<Candle> candles) {
+        ensureCapacity(candles == null ? 0 : candles.size());
+        length = 0;
+        if (candles == null) {
+            return this;
+        }
+        for (Candle candle : candles) {
+            if (candle.close() > 0 && candle.high() > 0 && candle.low() > 0) {
+                close[length] = candle.close();
+                high[length] = candle.high();
+                low[length] = candle.low();
+                quoteVolume[length] = Math.max(0.0, candle.quoteVolume());
+                length++;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Loads only closes, keeping every candle with a positive close. High/low/volume columns are left stale.
+     */
+    public CandleColumns loadCloses(List<Candle> candles) {
+        ensureCapacity(candles == null ? 0 : candles.size());
+        length = 0;
+        if (candles == null) {
+            return this;
+        }
+        for (Candle candle : candles) {
+            if (candle.close() > 0) {
+                close[length++] = candle.close();
+            }
+        }
+        return this;
+    }
+
+    public void dropLast() {
+        if (length > 1) {
+            length--;
+        }
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public double[] close() {
+        return close;
+    }
+
+    public double[] high() {
+        return high;
+    }
+
+    public double[] low() {
+        return low;
+    }
+
+    public double[] quoteVolume() {
+        return quoteVolume;
+    }
+
+    public double lastClose() {
+        return length == 0 ? Double.NaN : close[length - 1];
+    }
+
+    private void ensureCapacity(int size) {
+        if (close.length >= size) {
+            return;
+        }
+        int capacity = Math.max(size, close.length * 2);
+        close = Arrays.copyOf(close, capacity);
+        high = Arrays.copyOf(high, capacity);
+        low = Arrays.copyOf(low, capacity);
+        quoteVolume = Arrays.copyOf(quoteVolume, capacity);
+    }
+}
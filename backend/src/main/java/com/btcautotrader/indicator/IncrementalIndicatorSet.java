@@ -0,0 +1,604 @@
+package com.btcautotrader.indicator;
+
+/**
+ * Per-market indicator state that advances by one closed candle at a time.
+ * Each update is O(1) regardless of window lengths; getters mirror the readiness rules of {@link IndicatorKernels}
+ * and return {@link Double#NaN} until enough candles have been seen.
+ * <p>
+ * SMA, RSI, volume ratio, rolling highs and the windowed variances match the batch kernels up to floating-point
+ * rounding. MACD and ADX are recursive, so their value depends on where they are seeded. With a
+ * {@link Spec#seedWindow()} they are recomputed over the last {@code seedWindow} candles, seeded at the window start
+ * exactly as the batch kernels seed the engine's fetched window; that costs O(seedWindow) once per new candle, on
+ * the first read. Without one they are carried recursively from the first candle the set has seen.
+ */
+public final class IncrementalIndicatorSet {
+    private static final int RESUM_INTERVAL = 4096;
+
+    private final Spec spec;
+    private final DoubleRing closes;
+    private final DoubleRing highs;
+    private final DoubleRing lows;
+    private final DoubleRing quoteVolumes;
+    private final WindowedVariance returnVariance;
+    private final WindowedVariance closeVariance;
+    private final RollingMax trailingHighs;
+    private final RollingMax breakoutHighs;
+
+    private long count;
+    private long lastOpenTimeMs = Long.MIN_VALUE;
+    private double maShortSum;
+    private double maLongSum;
+    private double maLongLaggedSum;
+    private double volumeSum;
+    private double gainSum;
+    private double lossSum;
+    private int gainSteps;
+    private int lossSteps;
+    private double emaFast;
+    private double emaSlow;
+    private double macdSignal;
+    private double macd;
+    private double trSmooth;
+    private double plusDmSmooth;
+    private double minusDmSmooth;
+    private double dxSum;
+    private int dxCount;
+    private double adx = Double.NaN;
+    private final double[] windowCloses;
+    private final double[] windowHighs;
+    private final double[] windowLows;
+    private long windowComputedAt = -1;
+    private double windowMacdHistogram = Double.NaN;
+    private double windowAdx = Double.NaN;
+
+    public IncrementalIndicatorSet(Spec spec) {
+        this.spec = spec;
+        int capacity = spec.historyCapacity();
+        this.closes = new DoubleRing(capacity);
+        this.highs = new DoubleRing(capacity);
+        this.lows = new DoubleRing(capacity);
+        this.quoteVolumes = new DoubleRing(capacity);
+        this.returnVariance = new WindowedVariance(Math.max(1, spec.volatilityWindow()));
+        this.closeVariance = new WindowedVariance(Math.max(1, spec.bollingerWindow()));
+        this.trailingHighs = new RollingMax(Math.max(1, spec.trailingWindow()));
+        this.breakoutHighs = new RollingMax(Math.max(1, spec.breakoutWindow()));
+        int seedWindow = Math.max(0, spec.seedWindow());
+        this.windowCloses = new double[seedWindow];
+        this.windowHighs = new double[seedWindow];
+        this.windowLows = new double[seedWindow];
+    }
+
+    public Spec spec() {
+        return spec;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long lastOpenTimeMs() {
+        return lastOpenTimeMs;
+    }
+
+    public void reset() {
+        closes.clear();
+        highs.clear();
+        lows.clear();
+        quoteVolumes.clear();
+        returnVariance.clear();
+        closeVariance.clear();
+        trailingHighs.clear();
+        breakoutHighs.clear();
+        count = 0;
+        lastOpenTimeMs = Long.MIN_VALUE;
+        maShortSum = 0.0;
+        maLongSum = 0.0;
+        maLongLaggedSum = 0.0;
+        volumeSum = 0.0;
+        gainSum = 0.0;
+        lossSum = 0.0;
+        gainSteps = 0;
+        lossSteps = 0;
+        emaFast = 0.0;
+        emaSlow = 0.0;
+        macdSignal = 0.0;
+        macd = 0.0;
+        trSmooth = 0.0;
+        plusDmSmooth = 0.0;
+        minusDmSmooth = 0.0;
+        dxSum = 0.0;
+        dxCount = 0;
+        adx = Double.NaN;
+        windowComputedAt = -1;
+    }
+
+    public void update(long openTimeMs, double close, double high, double low, double quoteVolume) {
+        double prevClose = closes.get(0);
+        double prevHigh = highs.get(0);
+        double prevLow = lows.get(0);
+        double prevVolume = quoteVolumes.get(0);
+        closes.push(close);
+        highs.push(high);
+        lows.push(low);
+        quoteVolumes.push(quoteVolume);
+        count++;
+        lastOpenTimeMs = openTimeMs;
+
+        maShortSum = slide(maShortSum, closes, spec.maShort(), 0);
+        maLongSum = slide(maLongSum, closes, spec.maLong(), 0);
+        if (spec.slopeLookback() > 0) {
+            maLongLaggedSum = slide(maLongLaggedSum, closes, spec.maLong(), spec.slopeLookback());
+        }
+        if (spec.volumeLookback() > 0 && count > 1) {
+            volumeSum += prevVolume;
+            if (count > spec.volumeLookback() + 1) {
+                volumeSum -= quoteVolumes.get(spec.volumeLookback() + 1);
+            }
+        }
+        if (count > 1) {
+            updateRsi(close - prevClose);
+            if (spec.volatilityWindow() > 0 && prevClose > 0.0) {
+                returnVariance.push((close - prevClose) / prevClose);
+            }
+            if (spec.seedWindow() <= 0) {
+                updateAdx(high, low, prevClose, prevHigh, prevLow);
+            }
+            if (spec.breakoutWindow() > 0) {
+                breakoutHighs.push(count - 1, prevHigh);
+            }
+        }
+        if (spec.bollingerWindow() > 1) {
+            closeVariance.push(close);
+        }
+        if (spec.trailingWindow() > 0) {
+            trailingHighs.push(count, high);
+        }
+        if (spec.seedWindow() <= 0) {
+            updateMacd(close);
+        }
+
+        if (count % RESUM_INTERVAL == 0) {
+            resum();
+        }
+    }
+
+    public double lastClose() {
+        return count == 0 ? Double.NaN : closes.get(0);
+    }
+
+    public double maShort() {
+        return ready(spec.maShort()) ? maShortSum / spec.maShort() : Double.NaN;
+    }
+
+    public double maLong() {
+        return ready(spec.maLong()) ? maLongSum / spec.maLong() : Double.NaN;
+    }
+
+    public double maLongLagged() {
+        if (spec.slopeLookback() <= 0 || !ready(spec.maLong() + spec.slopeLookback())) {
+            return Double.NaN;
+        }
+        return maLongLaggedSum / spec.maLong();
+    }
+
+    public double rsi() {
+        int period = spec.rsiPeriod();
+        if (period <= 0 || !ready(period + 1)) {
+            return Double.NaN;
+        }
+        double gain = gainSteps == 0 ? 0.0 : gainSum;
+        double loss = lossSteps == 0 ? 0.0 : lossSum;
+        return IndicatorKernels.rsiFromSums(gain, loss, period);
+    }
+
+    public double macdHistogram() {
+        if (spec.macdSlow() <= 0 || spec.macdSignal() <= 0 || !ready(spec.macdSlow() + spec.macdSignal())) {
+            return Double.NaN;
+        }
+        if (spec.seedWindow() > 0) {
+            computeSeedWindow();
+            return windowMacdHistogram;
+        }
+        return macd - macdSignal;
+    }
+
+    public double adx() {
+        int period = spec.adxPeriod();
+        if (period < 2 || !ready(period * 2L + 1)) {
+            return Double.NaN;
+        }
+        if (spec.seedWindow() > 0) {
+            computeSeedWindow();
+            return windowAdx;
+        }
+        return adx;
+    }
+
+    public double volumeRatio() {
+        int lookback = spec.volumeLookback();
+        if (lookback <= 0 || !ready(lookback + 1L)) {
+            return Double.NaN;
+        }
+        double current = quoteVolumes.get(0);
+        if (current <= 0.0) {
+            return 0.0;
+        }
+        double avg = volumeSum / lookback;
+        return avg <= 0.0 ? Double.NaN : current / avg;
+    }
+
+    public double volatilityPct() {
+        int window = spec.volatilityWindow();
+        if (window <= 0 || !ready(window + 1L) || returnVariance.size() == 0) {
+            return Double.NaN;
+        }
+        return Math.sqrt(returnVariance.populationVariance()) * 100.0;
+    }
+
+    public double bollingerMiddle() {
+        int window = spec.bollingerWindow();
+        return window > 1 && ready(window) ? closeVariance.mean() : Double.NaN;
+    }
+
+    public double bollingerStdDev() {
+        int window = spec.bollingerWindow();
+        return window > 1 && ready(window) ? Math.sqrt(closeVariance.populationVariance()) : Double.NaN;
+    }
+
+    public double breakoutHigh() {
+        int window = spec.breakoutWindow();
+        return window > 0 && ready(window + 1L) ? breakoutHighs.max() : Double.NaN;
+    }
+
+    public double trailingHigh() {
+        int window = spec.trailingWindow();
+        return window > 0 && ready(window) ? trailingHighs.max() : Double.NaN;
+    }
+
+    private boolean ready(long required) {
+        return required > 0 && count >= required;
+    }
+
+    private double slide(double sum, DoubleRing ring, int window, int lag) {
+        if (window <= 0) {
+            return 0.0;
+        }
+        if (count > lag) {
+            sum += ring.get(lag);
+        }
+        if (count > lag + window) {
+            sum -= ring.get(lag + window);
+        }
+        return sum;
+    }
+
+    private void updateRsi(double diff) {
+        int period = spec.rsiPeriod();
+        if (period <= 0) {
+            return;
+        }
+        addRsiStep(diff, 1);
+        if (count > period + 1) {
+            addRsiStep(closes.get(period) - closes.get(period + 1), -1);
+        }
+    }
+
+    private void addRsiStep(double diff, int sign) {
+        if (diff >= 0) {
+            gainSum += sign * diff;
+            if (diff > 0) {
+                gainSteps += sign;
+            }
+        } else {
+            lossSum -= sign * diff;
+            lossSteps += sign;
+        }
+    }
+
+    private void computeSeedWindow() {
+        if (windowComputedAt == count) {
+            return;
+        }
+        int length = (int) Math.min(count, spec.seedWindow());
+        for (int i = 0; i < length; i++) {
+            int back = length - 1 - i;
+            windowCloses[i] = closes.get(back);
+            windowHighs[i] = highs.get(back);
+            windowLows[i] = lows.get(back);
+        }
+        windowMacdHistogram = IndicatorKernels.macdHistogram(
+                windowCloses,
+                length,
+                spec.macdFast(),
+                spec.macdSlow(),
+                spec.macdSignal()
+        );
+        windowAdx = IndicatorKernels.adx(windowHighs, windowLows, windowCloses, length, spec.adxPeriod());
+        windowComputedAt = count;
+    }
+
+    private void updateMacd(double close) {
+        if (spec.macdFast() <= 0 || spec.macdSlow() <= 0 || spec.macdSignal() <= 0) {
+            return;
+        }
+        if (count == 1) {
+            emaFast = close;
+            emaSlow = close;
+            macd = 0.0;
+            macdSignal = 0.0;
+            return;
+        }
+        double kFast = 2.0 / (spec.macdFast() + 1.0);
+        double kSlow = 2.0 / (spec.macdSlow() + 1.0);
+        double kSignal = 2.0 / (spec.macdSignal() + 1.0);
+        emaFast = close * kFast + emaFast * (1.0 - kFast);
+        emaSlow = close * kSlow + emaSlow * (1.0 - kSlow);
+        macd = emaFast - emaSlow;
+        macdSignal = macd * kSignal + macdSignal * (1.0 - kSignal);
+    }
+
+    private void updateAdx(double high, double low, double prevClose, double prevHigh, double prevLow) {
+        int period = spec.adxPeriod();
+        if (period < 2) {
+            return;
+        }
+        double tr = IndicatorKernels.trueRange(high, low, prevClose);
+        double upMove = high - prevHigh;
+        double downMove = prevLow - low;
+        double plusDm = (upMove > downMove && upMove > 0.0) ? upMove : 0.0;
+        double minusDm = (downMove > upMove && downMove > 0.0) ? downMove : 0.0;
+        long step = count - 1;
+        if (step <= period) {
+            trSmooth += tr;
+            plusDmSmooth += plusDm;
+            minusDmSmooth += minusDm;
+            if (step == period) {
+                dxSum = IndicatorKernels.dx(trSmooth, plusDmSmooth, minusDmSmooth);
+                dxCount = 1;
+            }
+            return;
+        }
+        trSmooth = trSmooth - (trSmooth / period) + tr;
+        plusDmSmooth = plusDmSmooth - (plusDmSmooth / period) + plusDm;
+        minusDmSmooth = minusDmSmooth - (minusDmSmooth / period) + minusDm;
+        double dx = IndicatorKernels.dx(trSmooth, plusDmSmooth, minusDmSmooth);
+        if (dxCount < period) {
+            dxSum += dx;
+            dxCount++;
+            if (dxCount == period) {
+                adx = dxSum / period;
+            }
+        } else {
+            adx = ((adx * (period - 1)) + dx) / period;
+        }
+    }
+
+    private void resum() {
+        maShortSum = sumRange(closes, 0, spec.maShort());
+        maLongSum = sumRange(closes, 0, spec.maLong());
+        maLongLaggedSum = spec.slopeLookback() > 0 ? sumRange(closes, spec.slopeLookback(), spec.maLong()) : 0.0;
+        volumeSum = spec.volumeLookback() > 0 ? sumRange(quoteVolumes, 1, spec.volumeLookback()) : 0.0;
+        if (spec.rsiPeriod() > 0) {
+            gainSum = 0.0;
+            lossSum = 0.0;
+            gainSteps = 0;
+            lossSteps = 0;
+            int steps = (int) Math.min(spec.rsiPeriod(), count - 1);
+            for (int back = 0; back < steps; back++) {
+                addRsiStep(closes.get(back) - closes.get(back + 1), 1);
+            }
+        }
+        returnVariance.recompute();
+        closeVariance.recompute();
+    }
+
+    private double sumRange(DoubleRing ring, int fromBack, int window) {
+        double sum = 0.0;
+        int available = (int) Math.min(window, Math.max(0, count - fromBack));
+        for (int back = fromBack; back < fromBack + available; back++) {
+            sum += ring.get(back);
+        }
+        return sum;
+    }
+
+    /**
+     * Window lengths in candles; zero disables the corresponding indicator. {@code seedWindow} is the number of
+     * candles MACD and ADX are seeded over, zero meaning since the first candle seen.
+     */
+    public record Spec(
+            int maShort,
+            int maLong,
+            int slopeLookback,
+            int rsiPeriod,
+            int macdFast,
+            int macdSlow,
+            int macdSignal,
+            int adxPeriod,
+            int volumeLookback,
+            int bollingerWindow,
+            int volatilityWindow,
+            int breakoutWindow,
+            int trailingWindow,
+            int seedWindow
+    ) {
+        public static Spec trendOnly(int maShort, int maLong, int slopeLookback, int volatilityWindow) {
+            return new Spec(maShort, maLong, slopeLookback, 0, 0, 0, 0, 0, 0, 0, volatilityWindow, 0, 0, 0);
+        }
+
+        public Spec withSeedWindow(int seedWindow) {
+            return new Spec(
+                    maShort,
+                    maLong,
+                    slopeLookback,
+                    rsiPeriod,
+                    macdFast,
+                    macdSlow,
+                    macdSignal,
+                    adxPeriod,
+                    volumeLookback,
+                    bollingerWindow,
+                    volatilityWindow,
+                    breakoutWindow,
+                    trailingWindow,
+                    seedWindow
+            );
+        }
+
+        int historyCapacity() {
+            int capacity = Math.max(maShort, maLong + Math.max(0, slopeLookback));
+            capacity = Math.max(capacity, rsiPeriod + 1);
+            capacity = Math.max(capacity, volumeLookback + 1);
+            capacity = Math.max(capacity, volatilityWindow + 1);
+            capacity = Math.max(capacity, seedWindow);
+            return capacity + 2;
+        }
+    }
+
+    private static final class DoubleRing {
+        private final double[] values;
+        private int head;
+        private int size;
+
+        private DoubleRing(int capacity) {
+            this.values = new double[Math.max(1, capacity)];
+        }
+
+        private void push(double value) {
+            head = (head + 1) % values.length;
+            values[head] = value;
+            if (size < values.length) {
+                size++;
+            }
+        }
+
+        /**
+         * Value {@code back} candles ago (0 = newest); NaN when not retained.
+         */
+        private double get(int back) {
+            if (back < 0 || back >= size) {
+                return Double.NaN;
+            }
+            return values[Math.floorMod(head - back, values.length)];
+        }
+
+        private void clear() {
+            head = 0;
+            size = 0;
+        }
+    }
+
+    /**
+     * Population mean/variance over the last {@code window} pushed values using a sliding-window Welford update.
+     */
+    private static final class WindowedVariance {
+        private final double[] window;
+        private int next;
+        private int size;
+        private double mean;
+        private double m2;
+
+        private WindowedVariance(int window) {
+            this.window = new double[window];
+        }
+
+        private void push(double value) {
+            if (size < window.length) {
+                window[next] = value;
+                next = (next + 1) % window.length;
+                size++;
+                double delta = value - mean;
+                mean += delta / size;
+                m2 += delta * (value - mean);
+                return;
+            }
+            double evicted = window[next];
+            window[next] = value;
+            next = (next + 1) % window.length;
+            double oldMean = mean;
+            mean = oldMean + (value - evicted) / size;
+            m2 += (value - evicted) * (value - mean + evicted - oldMean);
+            if (m2 < 0.0) {
+                m2 = 0.0;
+            }
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private double mean() {
+            return size == 0 ? Double.NaN : mean;
+        }
+
+        private double populationVariance() {
+            return size == 0 ? Double.NaN : m2 / size;
+        }
+
+        private void recompute() {
+            if (size == 0) {
+                return;
+            }
+            double sum = 0.0;
+            for (int i = 0; i < size; i++) {
+                sum += window[i];
+            }
+            mean = sum / size;
+            double squares = 0.0;
+            for (int i = 0; i < size; i++) {
+                double diff = window[i] - mean;
+                squares += diff * diff;
+            }
+            m2 = squares;
+        }
+
+        private void clear() {
+            next = 0;
+            size = 0;
+            mean = 0.0;
+            m2 = 0.0;
+        }
+    }
+
+    /**
+     * Sliding-window maximum over sequence numbers using a monotonic deque backed by arrays.
+     */
+    private static final class RollingMax {
+        private final int window;
+        private final long[] sequences;
+        private final double[] values;
+        private int first;
+        private int size;
+
+        private RollingMax(int window) {
+            this.window = window;
+            this.sequences = new long[window + 1];
+            this.values = new double[window + 1];
+        }
+
+        private void push(long sequence, double value) {
+            while (size > 0 && values[slot(size - 1)] <= value) {
+                size--;
+            }
+            sequences[slot(size)] = sequence;
+            values[slot(size)] = value;
+            size++;
+            while (size > 0 && sequences[first] <= sequence - window) {
+                first = (first + 1) % sequences.length;
+                size--;
+            }
+        }
+
+        private double max() {
+            return size == 0 ? Double.NaN : values[first];
+        }
+
+        private int slot(int offset) {
+            return (first + offset) % sequences.length;
+        }
+
+        private void clear() {
+            first = 0;
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.btcautotrader.indicator;
+
+/**
+ * Allocation-free indicator kernels over the first {@code length} entries of primitive columns (oldest first).
+ * Every kernel returns {@link Double#NaN} where the engine previously treated the value as unavailable.
+ */
+public final class IndicatorKernels {
+    private IndicatorKernels() {
+    }
+
+    public static double smaLast(double[] values, int length, int window) {
+        return smaLastWithOffset(values, length, window, 0);
+    }
+
+    public static double smaLastWithOffset(double[] values, int length, int window, int offset) {
+        if (length <= 0 || window <= 0 || offset < 0) {
+            return Double.NaN;
+        }
+        int end = length - 1 - offset;
+        int start = end - window + 1;
+        if (start < 0 || end < 0) {
+            return Double.NaN;
+        }
+        double sum = 0.0;
+        for (int i = start; i <= end; i++) {
+            sum += values[i];
+        }
+        return sum / window;
+    }
+
+    /**
+     * Population standard deviation of simple returns over the last {@code window} steps, in percent.
+     */
+    public static double volatilityPct(double[] closes, int length, int window) {
+        if (window <= 0 || length < window + 1) {
+            return Double.NaN;
+        }
+        int start = length - window;
+        double sum = 0.0;
+        int count = 0;
+        for (int i = start; i < length; i++) {
+            double prev = closes[i - 1];
+            if (prev <= 0.0) {
+                continue;
+            }
+            sum += (closes[i] - prev) / prev;
+            count++;
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        double mean = sum / count;
+        double variance = 0.0;
+        for (int i = start; i < length; i++) {
+            double prev = closes[i - 1];
+            if (prev <= 0.0) {
+                continue;
+            }
+            double diff = (closes[i] - prev) / prev - mean;
+            variance += diff * diff;
+        }
+        return Math.sqrt(variance / count) * 100.0;
+    }
+
+    /**
+     * RSI from the simple average of the last {@code period} gains and losses (not Wilder-smoothed).
+     */
+    public static double rsi(double[] closes, int length, int period) {
+        if (period <= 0 || length < period + 1) {
+            return Double.NaN;
+        }
+        double gain = 0.0;
+        double loss = 0.0;
+        for (int i = length - period; i < length; i++) {
+            double diff = closes[i] - closes[i - 1];
+            if (diff >= 0) {
+                gain += diff;
+            } else {
+                loss -= diff;
+            }
+        }
+        return rsiFromSums(gain, loss, period);
+    }
+
+    static double rsiFromSums(double gain, double loss, int period) {
+        double avgGain = gain / period;
+        double avgLoss = loss / period;
+        if (avgLoss == 0.0) {
+            return 100.0;
+        }
+        if (avgGain == 0.0) {
+            return 0.0;
+        }
+        double rs = avgGain / avgLoss;
+        return 100.0 - (100.0 / (1.0 + rs));
+    }
+
+    /**
+     * MACD histogram (macd - signal). Both EMAs and the signal EMA are seeded with the first value of the window.
+     */
+    public static double macdHistogram(double[] closes, int length, int fast, int slow, int signal) {
+        if (fast <= 0 || slow <= 0 || signal <= 0 || length < slow + signal || length == 0) {
+            return Double.NaN;
+        }
+        double kFast = 2.0 / (fast + 1.0);
+        double kSlow = 2.0 / (slow + 1.0);
+        double kSignal = 2.0 / (signal + 1.0);
+        double emaFast = closes[0];
+        double emaSlow = closes[0];
+        double macd = emaFast - emaSlow;
+        double signalValue = macd;
+        for (int i = 1; i < length; i++) {
+            double price = closes[i];
+            emaFast = price * kFast + emaFast * (1.0 - kFast);
+            emaSlow = price * kSlow + emaSlow * (1.0 - kSlow);
+            macd = emaFast - emaSlow;
+            signalValue = macd * kSignal + signalValue * (1.0 - kSignal);
+        }
+        return macd - signalValue;
+    }
+
+    /**
+     * Wilder ADX over the whole window: the first {@code period} bars seed TR/DM sums, the first {@code period}
+     * DX values seed ADX, after which both are Wilder-smoothed.
+     */
+    public static double adx(double[] highs, double[] lows, double[] closes, int length, int period) {
+        if (period < 2 || length < period * 2 + 1) {
+            return Double.NaN;
+        }
+        double trSmooth = 0.0;
+        double plusDmSmooth = 0.0;
+        double minusDmSmooth = 0.0;
+        for (int i = 1; i <= period; i++) {
+            trSmooth += trueRange(highs[i], lows[i], closes[i - 1]);
+            plusDmSmooth += plusDm(highs, lows, i);
+            minusDmSmooth += minusDm(highs, lows, i);
+        }
+
+        double dxSum = dx(trSmooth, plusDmSmooth, minusDmSmooth);
+        int dxCount = 1;
+        double adx = Double.NaN;
+        for (int i = period + 1; i < length; i++) {
+            trSmooth = trSmooth - (trSmooth / period) + trueRange(highs[i], lows[i], closes[i - 1]);
+            plusDmSmooth = plusDmSmooth - (plusDmSmooth / period) + plusDm(highs, lows, i);
+            minusDmSmooth = minusDmSmooth - (minusDmSmooth / period) + minusDm(highs, lows, i);
+            double dx = dx(trSmooth, plusDmSmooth, minusDmSmooth);
+            if (dxCount < period) {
+                dxSum += dx;
+                dxCount++;
+                if (dxCount == period) {
+                    adx = dxSum / period;
+                }
+            } else {
+                adx = ((adx * (period - 1)) + dx) / period;
+            }
+        }
+        return adx;
+    }
+
+    static double trueRange(double high, double low, double prevClose) {
+        double range1 = high - low;
+        double range2 = Math.abs(high - prevClose);
+        double range3 = Math.abs(low - prevClose);
+        return Math.max(range1, Math.max(range2, range3));
+    }
+
+    static double plusDm(double[] highs, double[] lows, int i) {
+        double upMove = highs[i] - highs[i - 1];
+        double downMove = lows[i - 1] - lows[i];
+        return (upMove > downMove && upMove > 0.0) ? upMove : 0.0;
+    }
+
+    static double minusDm(double[] highs, double[] lows, int i) {
+        double upMove = highs[i] - highs[i - 1];
+        double downMove = lows[i - 1] - lows[i];
+        return (downMove > upMove && downMove > 0.0) ? downMove : 0.0;
+    }
+
+    static double dx(double trSmooth, double plusDmSmooth, double minusDmSmooth) {
+        if (trSmooth <= 0.0) {
+            return 0.0;
+        }
+        double plusDi = 100.0 * (plusDmSmooth / trSmooth);
+        double minusDi = 100.0 * (minusDmSmooth / trSmooth);
+        double diSum = plusDi + minusDi;
+        if (diSum <= 0.0) {
+            return 0.0;
+        }
+        return 100.0 * Math.abs(plusDi - minusDi) / diSum;
+    }
+
+    /**
+     * Current quote volume divided by the average of the {@code lookback} bars before it.
+     * Returns 0 when the current bar has no volume.
+     */
+    public static double volumeRatio(double[] quoteVolumes, int length, int lookback) {
+        if (lookback <= 0 || length < lookback + 1) {
+            return Double.NaN;
+        }
+        int end = length - 1;
+        double current = quoteVolumes[end];
+        if (current <= 0.0) {
+            return 0.0;
+        }
+        double sum = 0.0;
+        for (int i = end - lookback; i < end; i++) {
+            sum += quoteVolumes[i];
+        }
+        double avg = sum / lookback;
+        if (avg <= 0.0) {
+            return Double.NaN;
+        }
+        return current / avg;
+    }
+
+    public static double stdDevLast(double[] values, int length, int window, double mean) {
+        if (window <= 1 || length < window || Double.isNaN(mean)) {
+            return Double.NaN;
+        }
+        double sum = 0.0;
+        for (int i = length - window; i < length; i++) {
+            double diff = values[i] - mean;
+            sum += diff * diff;
+        }
+        return Math.sqrt(sum / window);
+    }
+
+    public static double highestHigh(double[] highs, int length, int window, boolean excludeLast) {
+        if (length <= 0 || window <= 0) {
+            return Double.NaN;
+        }
+        int end = excludeLast ? length - 2 : length - 1;
+        if (end < 0) {
+            return Double.NaN;
+        }
+        int start = Math.max(0, end - window + 1);
+        double max = Double.NaN;
+        for (int i = start; i <= end; i++) {
+            if (Double.isNaN(max) || highs[i] > max) {
+                max = highs[i];
+            }
+        }
+        return max;
+    }
+
+    public static double returnPct(double[] closes, int length, int lookback) {
+        if (lookback <= 0 || length <= lookback) {
+            return Double.NaN;
+        }
+        double now = closes[length - 1];
+        double past = closes[length - 1 - lookback];
+        if (past <= 0.0) {
+            return Double.NaN;
+        }
+        return (now - past) / past * 100.0;
+    }
+}
@@ -0,0 +1,12 @@
+package com.btcautotrader.market;
+
+public record Candle(
+        long openTimeMs,
+        double open,
+        double high,
+        double low,
+        double close,
+        double volume,
+        double quoteVolume
+) {
+}
@@ -0,0 +1,73 @@
+package com.btcautotrader.market;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rolls fine-grained candles up into a coarser minute unit (e.g. 1m into 15m), the way Upbit builds its own:
+ * buckets are aligned to the epoch (so 240m bars open at 00/04/08... UTC), open/close come from the first/last
+ * candle in the bucket, high/low are the extremes and volumes are summed. Minutes without trades have no candle
+ * upstream, so a bucket with holes is still complete.
+ */
+public final class CandleAggregator {
+    private static final int MINUTES_PER_DAY = 1440;
+
+    private CandleAggregator() {
+    }
+
+    /**
+     * True when {@code unit} bars can be built from {@code baseUnit} bars without straddling bucket boundaries.
+     */
+    public static boolean canAggregate(int baseUnit, int unit) {
+        return baseUnit > 0
+                && unit > baseUnit
+                && unit % baseUnit == 0
+                && MINUTES_PER_DAY % unit == 0;
+    }
+
+    /**
+     * Aggregates chronological {@code base} candles into {@code unit}-minute candles (oldest first).
+     * {@code base} must hold every candle that opened at or after {@code completeFromMs}; buckets that open earlier
+     * are only partially covered and are dropped. The last bucket is still forming when its last base candle is.
+     */
+    public static List<Candle> aggregate(List<Candle> base, int unit, long completeFromMs) {
+        if (unit <= 0) {
+            throw new IllegalArgumentException("unit must be positive");
+        }
+        long unitMs = unit * 60_000L;
+        List<Candle> aggregated = new ArrayList<>(base.size() / Math.max(1, unit) + 1);
+        long bucketOpenMs = Long.MIN_VALUE;
+        double open = 0.0;
+        double high = 0.0;
+        double low = 0.0;
+        double close = 0.0;
+        double volume = 0.0;
+        double quoteVolume = 0.0;
+        for (Candle candle : base) {
+            long openMs = Math.floorDiv(candle.openTimeMs(), unitMs) * unitMs;
+            if (openMs < completeFromMs) {
+                continue;
+            }
+            if (openMs != bucketOpenMs) {
+                if (bucketOpenMs != Long.MIN_VALUE) {
+                    aggregated.add(new Candle(bucketOpenMs, open, high, low, close, volume, quoteVolume));
+                }
+                bucketOpenMs = openMs;
+                open = candle.open();
+                high = candle.high();
+                low = candle.low();
+                volume = 0.0;
+                quoteVolume = 0.0;
+            }
+            high = Math.max(high, candle.high());
+            low = Math.min(low, candle.low());
+            close = candle.close();
+            volume += candle.volume();
+            quoteVolume += candle.quoteVolume();
+        }
+        if (bucketOpenMs != Long.MIN_VALUE) {
+            aggregated.add(new Candle(bucketOpenMs, open, high, low, close, volume, quoteVolume));
+        }
+        return aggregated;
+    }
+}
@@ -0,0 +1,388 @@
+package com.btcautotrader.market;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Append-only candle history on local disk, one directory per (market, unit) ({@code KRW-BTC/1m/}) holding a
+ * fixed-width little-endian file per column ({@code open_time.i64}, {@code open.f64}, ..., {@code quote_volume.f64})
+ * and a {@code rows} file with the committed row count. Open times are strictly increasing, so the time column is
+ * its own index: a range lookup is a binary search over it. Reads map the committed rows with
+ * {@link MappedByteBuffer}.
+ * <p>
+ * A {@code run_start} file holds the open time where the newest gap-free run begins. Starting a new run after a
+ * gap that could not be bridged keeps every older row; only {@link #latest} is confined to the newest run.
+ * <p>
+ * An append writes the columns past the committed count, forces them and only then publishes the new count; a crash
+ * mid-append leaves an uncommitted tail that the next open truncates. {@code scripts/backtest.py} reads the same
+ * layout.
+ */
+@Component
+public class CandleArchive {
+    private static final Logger log = LoggerFactory.getLogger(CandleArchive.class);
+    private static final int VALUE_BYTES = Long.BYTES;
+    private static final String ROWS_FILE = "rows";
+    private static final String RUN_START_FILE = "run_start";
+    private static final String[] COLUMN_FILES = {
+            "open_time.i64",
+            "open.f64",
+            "high.f64",
+            "low.f64",
+            "close.f64",
+            "volume.f64",
+            "quote_volume.f64"
+    };
+    private static final int OPEN_TIME = 0;
+    private static final int OPEN = 1;
+    private static final int HIGH = 2;
+    private static final int LOW = 3;
+    private static final int CLOSE = 4;
+    private static final int VOLUME = 5;
+    private static final int QUOTE_VOLUME = 6;
+    private static final Pattern MARKET_PATTERN = Pattern.compile("[A-Z0-9-]+");
+
+    private final boolean enabled;
+    private final Path root;
+    private final Map<String, Series> seriesByKey = new ConcurrentHashMap<>();
+
+    public CandleArchive(
+            @Value("${market.candle-archive.enabled:true}") boolean enabled,
+            @Value("${market.candle-archive.dir:data/candles}") String dir
+    ) {
+        this.enabled = enabled;
+        this.root = Paths.get(dir == null || dir.isBlank() ? "data/candles" : dir.trim());
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * Up to {@code count} most recent candles of the newest run, oldest first.
+     */
+    public List<Candle> latest(String market, int unit, int count) {
+        if (!enabled) {
+            return List.of();
+        }
+        Series series = series(market, unit);
+        synchronized (series) {
+            if (series.rows == 0) {
+                return List.of();
+            }
+            int runStart = lowerBound(series.map(OPEN_TIME, 0, series.rows), series.rows, series.runStartMs);
+            return series.read(Math.max(runStart, series.rows - Math.max(0, count)), series.rows);
+        }
+    }
+
+    /**
+     * Archived candles that opened in {@code [fromOpenTimeMs, toOpenTimeMs)}, oldest first.
+     */
+    public List<Candle> range(String market, int unit, long fromOpenTimeMs, long toOpenTimeMs) {
+        if (!enabled || toOpenTimeMs <= fromOpenTimeMs) {
+            return List.of();
+        }
+        Series series = series(market, unit);
+        synchronized (series) {
+            if (series.rows == 0) {
+                return List.of();
+            }
+            ByteBuffer openTimes = series.map(OPEN_TIME, 0, series.rows);
+            int from = lowerBound(openTimes, series.rows, fromOpenTimeMs);
+            int to = lowerBound(openTimes, series.rows, toOpenTimeMs);
+            return series.read(from, to);
+        }
+    }
+
+    /**
+     * Appends the candles newer than the newest archived one and returns how many were written.
+     * Callers pass closed candles only; an archived candle is never rewritten.
+     */
+    public int append(String market, int unit, List<Candle> candles) {
+        if (!enabled || candles.isEmpty()) {
+            return 0;
+        }
+        Series series = series(market, unit);
+        synchronized (series) {
+            return series.append(candles);
+        }
+    }
+
+    /**
+     * Starts a new run from {@code candles}, for when they cannot be joined to the newest run. Archived rows older
+     * than the first candle are kept; rows from its open time on are replaced, since {@code candles} covers them.
+     */
+    public void startRun(String market, int unit, List<Candle> candles) {
+        if (!enabled || candles.isEmpty()) {
+            return;
+        }
+        Series series = series(market, unit);
+        synchronized (series) {
+            series.startRun(candles);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        for (Series series : seriesByKey.values()) {
+            synchronized (series) {
+                series.close();
+            }
+        }
+        seriesByKey.clear();
+    }
+
+    private Series series(String market, int unit) {
+        if (unit <= 0) {
+            throw new IllegalArgumentException("unit must be positive");
+        }
+        String normalized = market == null ? "" : market.trim().toUpperCase(Locale.ROOT);
+        if (!MARKET_PATTERN.matcher(normalized).matches()) {
+            throw new IllegalArgumentException("invalid market: " + market);
+        }
+        return seriesByKey.computeIfAbsent(normalized + "|" + unit, key -> {
+            try {
+                return Series.open(root.resolve(normalized).resolve(unit + "m"));
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Failed to open candle archive " + normalized + " " + unit + "m", ex);
+            }
+        });
+    }
+
+    private static int lowerBound(ByteBuffer openTimes, int rows, long openTimeMs) {
+        int low = 0;
+        int high = rows;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (openTimes.getLong(mid * VALUE_BYTES) < openTimeMs) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static final class Series {
+        private final Path dir;
+        private final FileChannel rowsChannel;
+        private final FileChannel runStartChannel;
+        private final FileChannel[] columns;
+        private int rows;
+        private long lastOpenTimeMs;
+        private long runStartMs = Long.MIN_VALUE;
+
+        private Series(Path dir, FileChannel rowsChannel, FileChannel runStartChannel, FileChannel[] columns) {
+            this.dir = dir;
+            this.rowsChannel = rowsChannel;
+            this.runStartChannel = runStartChannel;
+            this.columns = columns;
+        }
+
+        private static Series open(Path dir) throws IOException {
+            Files.createDirectories(dir);
+            FileChannel rowsChannel = openChannel(dir.resolve(ROWS_FILE));
+            FileChannel runStartChannel = openChannel(dir.resolve(RUN_START_FILE));
+            FileChannel[] columns = new FileChannel[COLUMN_FILES.length];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = openChannel(dir.resolve(COLUMN_FILES[i]));
+            }
+            Series series = new Series(dir, rowsChannel, runStartChannel, columns);
+            series.recover();
+            return series;
+        }
+
+        private static FileChannel openChannel(Path path) throws IOException {
+            return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        /**
+         * Trusts the committed count, clamped to the rows every column actually holds, and cuts off whatever a
+         * crashed append left past it.
+         */
+        private void recover() throws IOException {
+            long committed = Math.max(0, readValue(rowsChannel, 0));
+            runStartMs = readValue(runStartChannel, Long.MIN_VALUE);
+            long stored = committed;
+            for (FileChannel column : columns) {
+                stored = Math.min(stored, column.size() / VALUE_BYTES);
+            }
+            if (stored != committed) {
+                log.warn("Candle archive {} committed {} rows but holds {}", dir, committed, stored);
+                writeRows(stored);
+            }
+            for (FileChannel column : columns) {
+                if (column.size() > stored * VALUE_BYTES) {
+                    column.truncate(stored * VALUE_BYTES);
+                }
+            }
+            rows = Math.toIntExact(stored);
+            lastOpenTimeMs = rows == 0 ? Long.MIN_VALUE : map(OPEN_TIME, rows - 1, rows).getLong(0);
+        }
+
+        private List<Candle> read(int from, int to) {
+            int count = to - from;
+            if (count <= 0) {
+                return List.of();
+            }
+            ByteBuffer[] values = new ByteBuffer[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                values[i] = map(i, from, to);
+            }
+            List<Candle> candles = new ArrayList<>(count);
+            for (int row = 0; row < count; row++) {
+                int offset = row * VALUE_BYTES;
+                candles.add(new Candle(
+                        values[OPEN_TIME].getLong(offset),
+                        values[OPEN].getDouble(offset),
+                        values[HIGH].getDouble(offset),
+                        values[LOW].getDouble(offset),
+                        values[CLOSE].getDouble(offset),
+                        values[VOLUME].getDouble(offset),
+                        values[QUOTE_VOLUME].getDouble(offset)
+                ));
+            }
+            return candles;
+        }
+
+        private ByteBuffer map(int column, int fromRow, int toRow) {
+            try {
+                MappedByteBuffer mapped = columns[column].map(
+                        FileChannel.MapMode.READ_ONLY,
+                        (long) fromRow * VALUE_BYTES,
+                        (long) (toRow - fromRow) * VALUE_BYTES
+                );
+                return mapped.order(ByteOrder.LITTLE_ENDIAN);
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Failed to map candle archive " + dir.resolve(COLUMN_FILES[column]), ex);
+            }
+        }
+
+        private int append(List<Candle> candles) {
+            ByteBuffer[] values = new ByteBuffer[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                values[i] = ByteBuffer.allocate(candles.size() * VALUE_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            long newestMs = lastOpenTimeMs;
+            int appended = 0;
+            for (Candle candle : candles) {
+                if (candle.openTimeMs() <= newestMs) {
+                    continue;
+                }
+                values[OPEN_TIME].putLong(candle.openTimeMs());
+                values[OPEN].putDouble(candle.open());
+                values[HIGH].putDouble(candle.high());
+                values[LOW].putDouble(candle.low());
+                values[CLOSE].putDouble(candle.close());
+                values[VOLUME].putDouble(candle.volume());
+                values[QUOTE_VOLUME].putDouble(candle.quoteVolume());
+                newestMs = candle.openTimeMs();
+                appended++;
+            }
+            if (appended == 0) {
+                return 0;
+            }
+            try {
+                long position = (long) rows * VALUE_BYTES;
+                for (int i = 0; i < columns.length; i++) {
+                    values[i].flip();
+                    writeFully(columns[i], values[i], position);
+                    columns[i].force(false);
+                }
+                // The count is the commit point: until it is on disk the new rows do not exist.
+                writeRows((long) rows + appended);
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Failed to append to candle archive " + dir, ex);
+            }
+            rows += appended;
+            lastOpenTimeMs = newestMs;
+            return appended;
+        }
+
+        private void startRun(List<Candle> candles) {
+            long firstMs = candles.get(0).openTimeMs();
+            int kept = rows == 0 ? 0 : lowerBound(map(OPEN_TIME, 0, rows), rows, firstMs);
+            try {
+                // Published before the rows change, so a crash in between never joins the new rows to the old run.
+                writeValue(runStartChannel, firstMs);
+                writeRows(kept);
+                for (FileChannel column : columns) {
+                    column.truncate((long) kept * VALUE_BYTES);
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Failed to start a run in candle archive " + dir, ex);
+            }
+            runStartMs = firstMs;
+            rows = kept;
+            lastOpenTimeMs = rows == 0 ? Long.MIN_VALUE : map(OPEN_TIME, rows - 1, rows).getLong(0);
+            append(candles);
+        }
+
+        private void writeRows(long count) throws IOException {
+            writeValue(rowsChannel, count);
+        }
+
+        private static long readValue(FileChannel channel, long missing) throws IOException {
+            if (channel.size() < VALUE_BYTES) {
+                return missing;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(VALUE_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, buffer, 0);
+            return buffer.getLong(0);
+        }
+
+        private static void writeValue(FileChannel channel, long value) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(VALUE_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putLong(0, value);
+            writeFully(channel, buffer, 0);
+            channel.force(false);
+        }
+
+        private void close() {
+            try {
+                rowsChannel.close();
+                runStartChannel.close();
+                for (FileChannel column : columns) {
+                    column.close();
+                }
+            } catch (IOException ex) {
+                log.warn("Failed to close candle archive {}", dir, ex);
+            }
+        }
+
+        private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    break;
+                }
+                position += read;
+            }
+        }
+
+        private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.btcautotrader.market;
+
+import com.btcautotrader.upbit.UpbitCandleBatch;
+import com.btcautotrader.upbit.UpbitService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Minute-candle history of any depth. Upbit returns at most 200 candles per call, so deeper windows are paged
+ * backward with {@code to}; closed candles are kept in the local {@link CandleArchive} (or {@code market_candles}
+ * when the archive is disabled), and a later load for the same (market, unit) reads the stored run and only fetches
+ * the head since its newest candle.
+ * After downtime the head is paged back until it joins the stored run, within {@code max-gap-pages}. A gap deeper
+ * than that starts a new run; the older rows stay stored but are no longer read as part of the window.
+ */
+@Component
+public class CandleHistoryService {
+    private static final Logger log = LoggerFactory.getLogger(CandleHistoryService.class);
+    private static final int PAGE_SIZE = UpbitService.MAX_CANDLES_PER_REQUEST;
+    static final String SELECT_LATEST_SQL = "select open_time_ms, open, high, low, close, volume, quote_volume "
+            + "from market_candles where market = ? and unit = ? and open_time_ms >= coalesce(("
+            + "select max(open_time_ms) from market_candles where market = ? and unit = ? and run_start), 0) "
+            + "order by open_time_ms desc limit ?";
+    static final String INSERT_SQL = "insert into market_candles "
+            + "(market, unit, open_time_ms, open, high, low, close, volume, quote_volume) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?, ?) on conflict (market, unit, open_time_ms) do nothing";
+    static final String START_RUN_SQL = "insert into market_candles "
+            + "(market, unit, open_time_ms, open, high, low, close, volume, quote_volume, run_start) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, true) "
+            + "on conflict (market, unit, open_time_ms) do update set run_start = true";
+
+    private final UpbitService upbitService;
+    private final JdbcTemplate jdbcTemplate;
+    private final CandleArchive archive;
+    private final boolean persist;
+    private final int maxPages;
+    private final int maxGapPages;
+
+    public CandleHistoryService(
+            UpbitService upbitService,
+            JdbcTemplate jdbcTemplate,
+            CandleArchive archive,
+            @Value("${market.candle-history.persist:true}") boolean persist,
+            @Value("${market.candle-history.max-pages:25}") int maxPages,
+            @Value("${market.candle-history.max-gap-pages:100}") int maxGapPages
+    ) {
+        this.upbitService = upbitService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.archive = archive;
+        this.persist = persist;
+        this.maxPages = Math.max(1, maxPages);
+        this.maxGapPages = Math.max(1, maxGapPages);
+    }
+
+    /**
+     * Up to {@code count} most recent candles, oldest first, the last one possibly still forming.
+     */
+    public List<Candle> load(String market, int unit, int count) {
+        if (unit <= 0) {
+            throw new IllegalArgumentException("unit must be positive");
+        }
+        int safeCount = Math.max(1, count);
+        String key = normalizeMarket(market);
+        long nowMs = System.currentTimeMillis();
+        long unitMs = unit * 60_000L;
+        List<Candle> stored = readStored(key, unit, safeCount);
+
+        // Head: newest pages until they reach the stored run (or, cold, until the window is filled). Upbit skips
+        // minutes without trades, so the gap in minutes is an upper bound on the candles it takes to bridge it.
+        long newestStoredMs = stored.isEmpty() ? Long.MIN_VALUE : stored.get(stored.size() - 1).openTimeMs();
+        long gap = stored.isEmpty() ? 0 : Math.floorDiv(nowMs - newestStoredMs, unitMs) + 1;
+        if (!stored.isEmpty() && (gap + PAGE_SIZE - 1) / PAGE_SIZE > maxGapPages) {
+            log.info("Stored {} {}m candles end {} candles ago; starting a new run", key, unit, gap);
+            stored = List.of();
+        }
+        boolean bridging = !stored.isEmpty();
+        List<Candle> head = new ArrayList<>();
+        boolean reachedListing = false;
+        boolean joined = !bridging;
+        int pages = 0;
+        Long toMs = null;
+        while (pages < (bridging ? maxGapPages : maxPages)) {
+            int requestCount = bridging
+                    ? (int) Math.min(PAGE_SIZE, Math.max(2, gap - head.size()))
+                    : Math.min(PAGE_SIZE, safeCount - head.size());
+            if (requestCount <= 0) {
+                break;
+            }
+            List<Candle> page = fetchPage(key, unit, requestCount, toMs);
+            pages++;
+            head.addAll(0, page);
+            if (page.size() < requestCount) {
+                reachedListing = true;
+                break;
+            }
+            if (bridging && page.get(0).openTimeMs() <= newestStoredMs) {
+                joined = true;
+                break;
+            }
+            toMs = page.get(0).openTimeMs();
+        }
+        if (!joined && !reachedListing) {
+            log.warn("Could not bridge {} {}m candles to the stored run in {} pages; starting a new run",
+                    key, unit, pages);
+            stored = List.of();
+        }
+        boolean newRun = stored.isEmpty();
+
+        List<Candle> candles = new ArrayList<>(safeCount);
+        long firstHeadMs = head.isEmpty() ? Long.MAX_VALUE : head.get(0).openTimeMs();
+        for (Candle candle : stored) {
+            if (candle.openTimeMs() < firstHeadMs) {
+                candles.add(candle);
+            }
+        }
+        candles.addAll(head);
+
+        // Tail: older pages when the stored run plus the head still fall short of the window.
+        List<Candle> tail = new ArrayList<>();
+        int tailPages = 0;
+        while (!reachedListing && candles.size() + tail.size() < safeCount && tailPages < maxPages) {
+            int requestCount = Math.min(PAGE_SIZE, safeCount - candles.size() - tail.size());
+            long oldestMs = tail.isEmpty()
+                    ? (candles.isEmpty() ? nowMs : candles.get(0).openTimeMs())
+                    : tail.get(0).openTimeMs();
+            List<Candle> page = fetchPage(key, unit, requestCount, oldestMs);
+            tailPages++;
+            tail.addAll(0, page);
+            if (page.size() < requestCount) {
+                reachedListing = true;
+            }
+        }
+        candles.addAll(0, tail);
+
+        if (persist && (!head.isEmpty() || !tail.isEmpty())) {
+            // The archive only grows at its end, so a tail older than the stored run starts a run over the window.
+            boolean rewrite = newRun || !tail.isEmpty();
+            store(key, unit, rewrite ? candles : head, rewrite, nowMs);
+        }
+        if (candles.size() > safeCount) {
+            return List.copyOf(candles.subList(candles.size() - safeCount, candles.size()));
+        }
+        return candles;
+    }
+
+    /**
+     * Persists candles the caller merged after its last load, e.g. from the live feed; forming ones are skipped.
+     */
+    public void record(String market, int unit, List<Candle> candles) {
+        if (!persist || candles.isEmpty()) {
+            return;
+        }
+        store(normalizeMarket(market), unit, candles, false, System.currentTimeMillis());
+    }
+
+    /**
+     * One exchange call: up to 200 candles that opened before {@code toMs} (now when null), oldest first.
+     */
+    List<Candle> fetchPage(String market, int unit, int count, Long toMs) {
+        UpbitCandleBatch batch = toMs == null
+                ? upbitService.fetchMinuteCandles(market, unit, count)
+                : upbitService.fetchMinuteCandles(market, unit, count, Instant.ofEpochMilli(toMs));
+        if (batch == null || batch.isEmpty()) {
+            return List.of();
+        }
+        List<Candle> candles = new ArrayList<>(batch.size());
+        for (int i = batch.size() - 1; i >= 0; i--) {
+            long openTimeMs = batch.openTimeMs(i);
+            if (!candles.isEmpty() && candles.get(candles.size() - 1).openTimeMs() >= openTimeMs) {
+                continue;
+            }
+            candles.add(new Candle(
+                    openTimeMs,
+                    batch.open(i),
+                    batch.high(i),
+                    batch.low(i),
+                    batch.close(i),
+                    batch.volume(i),
+                    batch.quoteVolume(i)
+            ));
+        }
+        return candles;
+    }
+
+    private List<Candle> readStored(String market, int unit, int count) {
+        if (!persist) {
+            return List.of();
+        }
+        try {
+            if (archive.enabled()) {
+                return archive.latest(market, unit, count);
+            }
+            List<Candle> newestFirst = jdbcTemplate.query(
+                    SELECT_LATEST_SQL,
+                    (rs, rowNum) -> new Candle(
+                            rs.getLong(1),
+                            rs.getDouble(2),
+                            rs.getDouble(3),
+                            rs.getDouble(4),
+                            rs.getDouble(5),
+                            rs.getDouble(6),
+                            rs.getDouble(7)
+                    ),
+                    market,
+                    unit,
+                    market,
+                    unit,
+                    count
+            );
+            if (newestFirst == null || newestFirst.isEmpty()) {
+                return List.of();
+            }
+            List<Candle> chronological = new ArrayList<>(newestFirst);
+            Collections.reverse(chronological);
+            return chronological;
+        } catch (RuntimeException ex) {
+            log.warn("Failed to read stored candles for {} {}m", market, unit, ex);
+            return List.of();
+        }
+    }
+
+    private void store(String market, int unit, List<Candle> fetched, boolean startRun, long nowMs) {
+        long unitMs = unit * 60_000L;
+        List<Candle> closed = new ArrayList<>(fetched.size());
+        for (Candle candle : fetched) {
+            if (candle.openTimeMs() + unitMs <= nowMs) {
+                closed.add(candle);
+            }
+        }
+        if (closed.isEmpty()) {
+            return;
+        }
+        try {
+            if (archive.enabled()) {
+                if (startRun) {
+                    archive.startRun(market, unit, closed);
+                } else {
+                    archive.append(market, unit, closed);
+                }
+                return;
+            }
+            if (startRun) {
+                // Older rows stay; the marker keeps them out of the window, as they cannot be joined without a hole.
+                Candle first = closed.get(0);
+                jdbcTemplate.update(
+                        START_RUN_SQL,
+                        market,
+                        unit,
+                        first.openTimeMs(),
+                        first.open(),
+                        first.high(),
+                        first.low(),
+                        first.close(),
+                        first.volume(),
+                        first.quoteVolume()
+                );
+            }
+            jdbcTemplate.batchUpdate(INSERT_SQL, closed, PAGE_SIZE, (ps, candle) -> {
+                ps.setString(1, market);
+                ps.setInt(2, unit);
+                ps.setLong(3, candle.openTimeMs());
+                ps.setDouble(4, candle.open());
+                ps.setDouble(5, candle.high());
+                ps.setDouble(6, candle.low());
+                ps.setDouble(7, candle.close());
+                ps.setDouble(8, candle.volume());
+                ps.setDouble(9, candle.quoteVolume());
+            });
+        } catch (RuntimeException ex) {
+            log.warn("Failed to store candles for {} {}m", market, unit, ex);
+        }
+    }
+
+    private static String normalizeMarket(String market) {
+        return market == null ? "" : market.trim().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,284 @@
+package com.btcautotrader.market;
+
+import com.btcautotrader.upbit.UpbitService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class CandleStore {
+    private static final int MAX_FETCH_COUNT = UpbitService.MAX_CANDLES_PER_REQUEST;
+    private static final int MAX_CAPACITY = 10_000;
+    private static final int BASE_UNIT = 1;
+
+    private final CandleHistoryService candleHistory;
+    private final MarketDataFeed marketDataFeed;
+    private final boolean enabled;
+    private final int capacity;
+    private final long minRefreshMs;
+    private final boolean aggregateFromBase;
+    private final Map<String, CandleSeries> seriesByKey = new ConcurrentHashMap<>();
+
+    public CandleStore(
+            CandleHistoryService candleHistory,
+            MarketDataFeed marketDataFeed,
+            @Value("${market.candle-store.enabled:true}") boolean enabled,
+            @Value("${market.candle-store.capacity:1000}") int capacity,
+            @Value("${market.candle-store.min-refresh-ms:1000}") long minRefreshMs,
+            @Value("${market.candle-store.aggregate-from-base:true}") boolean aggregateFromBase
+    ) {
+        this.candleHistory = candleHistory;
+        this.marketDataFeed = marketDataFeed;
+        this.enabled = enabled;
+        this.capacity = Math.max(2, Math.min(capacity, MAX_CAPACITY));
+        this.minRefreshMs = Math.max(0, minRefreshMs);
+        this.aggregateFromBase = aggregateFromBase;
+    }
+
+    /**
+     * Deepest window {@link #getCandles} serves; longer requests are truncated to this many candles.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns up to {@code count} most recent candles in chronological order (oldest first).
+     * The last element is the still-forming candle when the exchange has one open.
+     */
+    public List<Candle> getCandles(String market, int unit, int count) {
+        if (unit <= 0) {
+            throw new IllegalArgumentException("unit must be positive");
+        }
+        int safeCount = Math.max(1, Math.min(count, capacity));
+        if (!enabled) {
+            return candleHistory.load(market, unit, safeCount);
+        }
+
+        CandleSeries series = seriesByKey.computeIfAbsent(seriesKey(market, unit), key -> new CandleSeries(capacity));
+        synchronized (series) {
+            refresh(series, market, unit, safeCount, System.currentTimeMillis());
+            return series.last(safeCount);
+        }
+    }
+
+    /**
+     * Close of the newest cached candle, i.e. the last trade price as of the series' latest refresh. Null when the
+     * series is not cached or was refreshed more than {@code maxAgeMs} ago; never fetches.
+     */
+    public Double lastClose(String market, int unit, long maxAgeMs) {
+        CandleSeries series = seriesByKey.get(seriesKey(market, unit));
+        if (series == null) {
+            return null;
+        }
+        synchronized (series) {
+            if (series.size() == 0 || System.currentTimeMillis() - series.refreshedAtMs > maxAgeMs) {
+                return null;
+            }
+            return series.last(1).get(0).close();
+        }
+    }
+
+    private void refresh(CandleSeries series, String market, int unit, int count, long nowMs) {
+        boolean needsBackfill = series.size() == 0 || series.backfilledCount < count;
+        if (!needsBackfill) {
+            List<Candle> live = marketDataFeed.liveCandles(market, unit, series.lastOpenTimeMs());
+            if (live != null && series.merge(live)) {
+                merged(series, market, unit, nowMs);
+                return;
+            }
+            if (nowMs - series.refreshedAtMs < minRefreshMs) {
+                return;
+            }
+            if (aggregateFromBase && CandleAggregator.canAggregate(BASE_UNIT, unit)) {
+                List<Candle> derived = aggregateSince(market, unit, series.lastOpenTimeMs(), nowMs);
+                if (derived != null && series.merge(derived)) {
+                    merged(series, market, unit, nowMs);
+                    return;
+                }
+            }
+            long unitMs = unit * 60_000L;
+            long elapsedUnits = Math.max(0, Math.floorDiv(nowMs - series.lastOpenTimeMs(), unitMs));
+            if (elapsedUnits + 1 >= Math.min(capacity, MAX_FETCH_COUNT)) {
+                needsBackfill = true;
+            } else {
+                int requestCount = (int) Math.max(2, elapsedUnits + 1);
+                List<Candle> latest = candleHistory.fetchPage(market, unit, requestCount, null);
+                if (series.merge(latest)) {
+                    merged(series, market, unit, nowMs);
+                    return;
+                }
+                needsBackfill = true;
+            }
+        }
+
+        // At least a full page, so windows a little longer than the first request do not backfill again.
+        int depth = Math.max(Math.max(count, series.backfilledCount), Math.min(capacity, MAX_FETCH_COUNT));
+        series.replace(candleHistory.load(market, unit, depth));
+        series.backfilledCount = depth;
+        series.refreshedAtMs = nowMs;
+        // The load persisted what it fetched; the newest candle may still be forming and is recorded once closed.
+        series.persistedThroughMs = series.size() == 0 ? Long.MIN_VALUE : series.lastOpenTimeMs() - 1;
+    }
+
+    /**
+     * Hands candles that closed since the last merge to the history so it keeps growing while the engine runs.
+     */
+    private void merged(CandleSeries series, String market, int unit, long nowMs) {
+        series.refreshedAtMs = nowMs;
+        List<Candle> closed = series.closedAfter(series.persistedThroughMs, nowMs - unit * 60_000L);
+        if (closed.isEmpty()) {
+            return;
+        }
+        candleHistory.record(market, unit, closed);
+        series.persistedThroughMs = closed.get(closed.size() - 1).openTimeMs();
+    }
+
+    /**
+     * {@code unit}-minute candles from {@code fromOpenTimeMs} on, rolled up from the 1-minute series so higher
+     * timeframes ride on the refresh the signal timeframe already pays for. Null when the 1-minute series does not
+     * reach back that far.
+     */
+    private List<Candle> aggregateSince(String market, int unit, long fromOpenTimeMs, long nowMs) {
+        long baseUnitMs = BASE_UNIT * 60_000L;
+        long elapsedBaseUnits = Math.max(0, Math.floorDiv(nowMs - fromOpenTimeMs, baseUnitMs)) + 1;
+        if (elapsedBaseUnits >= capacity) {
+            return null;
+        }
+        CandleSeries base = seriesByKey.computeIfAbsent(
+                seriesKey(market, BASE_UNIT),
+                key -> new CandleSeries(capacity)
+        );
+        List<Candle> baseCandles;
+        synchronized (base) {
+            refresh(base, market, BASE_UNIT, (int) elapsedBaseUnits, nowMs);
+            if (base.size() == 0 || base.firstOpenTimeMs() > fromOpenTimeMs) {
+                return null;
+            }
+            baseCandles = base.since(fromOpenTimeMs);
+        }
+        return CandleAggregator.aggregate(baseCandles, unit, fromOpenTimeMs);
+    }
+
+    private static String seriesKey(String market, int unit) {
+        String normalized = market == null ? "" : market.trim().toUpperCase(Locale.ROOT);
+        return normalized + "|" + unit;
+    }
+
+    private static final class CandleSeries {
+        private final Candle[] slots;
+        private int head;
+        private int size;
+        private int backfilledCount;
+        private long refreshedAtMs;
+        private long persistedThroughMs = Long.MIN_VALUE;
+
+        private CandleSeries(int capacity) {
+            this.slots = new Candle[capacity];
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private long lastOpenTimeMs() {
+            return slots[index(size - 1)].openTimeMs();
+        }
+
+        private long firstOpenTimeMs() {
+            return slots[index(0)].openTimeMs();
+        }
+
+        private void replace(List<Candle> candles) {
+            head = 0;
+            size = 0;
+            for (Candle candle : candles) {
+                append(candle);
+            }
+        }
+
+        /**
+         * Merges freshly fetched candles. Candles older than the newest stored one are closed and kept as-is;
+         * the newest stored (forming) candle is overwritten and newer ones are appended.
+         * Returns false when the fetched window does not reach back to the stored tail (a gap).
+         */
+        private boolean merge(List<Candle> latest) {
+            if (latest.isEmpty()) {
+                return true;
+            }
+            long tailOpenTimeMs = lastOpenTimeMs();
+            if (latest.get(0).openTimeMs() > tailOpenTimeMs) {
+                return false;
+            }
+            for (Candle candle : latest) {
+                long lastMs = lastOpenTimeMs();
+                if (candle.openTimeMs() < lastMs) {
+                    continue;
+                }
+                if (candle.openTimeMs() == lastMs) {
+                    slots[index(size - 1)] = candle;
+                } else {
+                    append(candle);
+                }
+            }
+            return true;
+        }
+
+        private void append(Candle candle) {
+            if (size < slots.length) {
+                slots[index(size)] = candle;
+                size++;
+                return;
+            }
+            slots[head] = candle;
+            head = (head + 1) % slots.length;
+        }
+
+        private List<Candle> last(int count) {
+            int n = Math.min(count, size);
+            Candle[] copy = new Candle[n];
+            for (int i = 0; i < n; i++) {
+                copy[i] = slots[index(size - n + i)];
+            }
+            return List.of(copy);
+        }
+
+        private List<Candle> since(long fromOpenTimeMs) {
+            List<Candle> candles = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                Candle candle = slots[index(i)];
+                if (candle.openTimeMs() >= fromOpenTimeMs) {
+                    candles.add(candle);
+                }
+            }
+            return candles;
+        }
+
+        /**
+         * Candles that opened after {@code afterOpenTimeMs} and no later than {@code closedThroughMs}, oldest first.
+         */
+        private List<Candle> closedAfter(long afterOpenTimeMs, long closedThroughMs) {
+            int from = size;
+            while (from > 0 && slots[index(from - 1)].openTimeMs() > afterOpenTimeMs) {
+                from--;
+            }
+            List<Candle> candles = new ArrayList<>(size - from);
+            for (int i = from; i < size; i++) {
+                Candle candle = slots[index(i)];
+                if (candle.openTimeMs() <= closedThroughMs) {
+                    candles.add(candle);
+                }
+            }
+            return candles;
+        }
+
+        private int index(int offset) {
+            return (head + offset) % slots.length;
+        }
+    }
+}
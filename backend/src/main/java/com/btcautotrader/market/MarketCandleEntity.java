@@ -0,0 +1,77 @@
+package com.btcautotrader.market;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * Closed minute candle kept as the persistent tier of {@link CandleHistoryService}. Mapped so the schema is managed
+ * with the rest of the tables; rows are read and written in bulk through JDBC.
+ */
+@Entity
+@Table(
+        name = "market_candles",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_market_candles_market_unit_open_time",
+                columnNames = {"market", "unit", "open_time_ms"}
+        )
+)
+public class MarketCandleEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "market", nullable = false, length = 20)
+    private String market;
+
+    @Column(name = "unit", nullable = false)
+    private int unit;
+
+    @Column(name = "open_time_ms", nullable = false)
+    private long openTimeMs;
+
+    @Column(name = "open", nullable = false)
+    private double open;
+
+    @Column(name = "high", nullable = false)
+    private double high;
+
+    @Column(name = "low", nullable = false)
+    private double low;
+
+    @Column(name = "close", nullable = false)
+    private double close;
+
+    @Column(name = "volume", nullable = false)
+    private double volume;
+
+    @Column(name = "quote_volume", nullable = false)
+    private double quoteVolume;
+
+    @Column(name = "run_start", nullable = false, columnDefinition = "BOOLEAN DEFAULT FALSE")
+    private boolean runStart;
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getMarket() {
+        return market;
+    }
+
+    public int getUnit() {
+        return unit;
+    }
+
+    public long getOpenTimeMs() {
+        return openTimeMs;
+    }
+
+    public Candle toCandle() {
+        return new Candle(openTimeMs, open, high, low, close, volume, quoteVolume);
+    }
+}
@@ -0,0 +1,288 @@
+package com.btcautotrader.market;
+
+import com.btcautotrader.upbit.UpbitWebSocketClient;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory last price and trade-built candles fed by the Upbit WebSocket stream.
+ * Every read returns null when the stream cannot vouch for the value, so callers fall back to REST.
+ */
+@Component
+public class MarketDataFeed implements UpbitWebSocketClient.Handler {
+    private static final int MAX_LIVE_CANDLES = 200;
+    private static final long UNSET = Long.MAX_VALUE;
+
+    private final UpbitWebSocketClient client;
+    private final long maxPriceAgeMs;
+    private final Map<String, MarketState> marketsByCode = new ConcurrentHashMap<>();
+
+    private volatile boolean connected;
+    private volatile long connectionEpoch;
+
+    public MarketDataFeed(
+            UpbitWebSocketClient client,
+            @Value("${upbit.websocket.max-price-age-ms:60000}") long maxPriceAgeMs
+    ) {
+        this.client = client;
+        this.maxPriceAgeMs = Math.max(0, maxPriceAgeMs);
+    }
+
+    @PostConstruct
+    void start() {
+        client.start(this);
+    }
+
+    public boolean isLive() {
+        return connected;
+    }
+
+    /**
+     * Last streamed trade price, or null when the market has not been priced since the current connection opened.
+     * The first call for a market only subscribes it.
+     */
+    public BigDecimal lastPrice(String market) {
+        MarketState state = track(market);
+        if (state == null || !connected) {
+            return null;
+        }
+        synchronized (state) {
+            if (state.priceEpoch != connectionEpoch || Double.isNaN(state.price)) {
+                return null;
+            }
+            if (maxPriceAgeMs > 0 && System.currentTimeMillis() - state.priceReceivedAtMs > maxPriceAgeMs) {
+                return null;
+            }
+            return BigDecimal.valueOf(state.price);
+        }
+    }
+
+    public Map<String, BigDecimal> lastPrices(Collection<String> markets) {
+        Map<String, BigDecimal> prices = new HashMap<>();
+        for (String market : markets) {
+            BigDecimal price = lastPrice(market);
+            if (price != null) {
+                prices.put(market, price);
+            }
+        }
+        return prices;
+    }
+
+    /**
+     * Trade-built candles (oldest first, last one forming) whose open time is at or after {@code fromOpenTimeMs}.
+     * Returns null unless every trade since that candle was observed on the current connection.
+     */
+    public List<Candle> liveCandles(String market, int unit, long fromOpenTimeMs) {
+        MarketState state = track(market);
+        if (state == null || unit <= 0) {
+            return null;
+        }
+        synchronized (state) {
+            LiveCandles candles = state.candlesByUnit.computeIfAbsent(unit, LiveCandles::new);
+            if (!connected || candles.coveredFromMs == UNSET || candles.coveredFromMs > fromOpenTimeMs) {
+                return null;
+            }
+            return candles.since(fromOpenTimeMs);
+        }
+    }
+
+    @Override
+    public void onConnected() {
+        connectionEpoch++;
+        connected = true;
+    }
+
+    @Override
+    public void onMessage(Map<String, Object> message) {
+        String type = String.valueOf(message.get("type"));
+        if (!"trade".equals(type) && !"ticker".equals(type)) {
+            return;
+        }
+        Object code = message.get("code");
+        if (code == null) {
+            return;
+        }
+        MarketState state = marketsByCode.get(code.toString().toUpperCase(Locale.ROOT));
+        if (state == null) {
+            return;
+        }
+        double price = toDouble(message.get("trade_price"));
+        long tradeTimestamp = toLong(message.get("trade_timestamp"));
+        if (!(price > 0) || tradeTimestamp <= 0) {
+            return;
+        }
+        synchronized (state) {
+            if (tradeTimestamp >= state.priceTimestamp || state.priceEpoch != connectionEpoch) {
+                state.price = price;
+                state.priceTimestamp = tradeTimestamp;
+                state.priceEpoch = connectionEpoch;
+                state.priceReceivedAtMs = System.currentTimeMillis();
+            }
+            if ("trade".equals(type)) {
+                applyTrade(state, message, price, tradeTimestamp);
+            }
+        }
+    }
+
+    @Override
+    public void onDisconnected() {
+        connected = false;
+        // Trades missed while disconnected would leave holes in the live candles.
+        for (MarketState state : marketsByCode.values()) {
+            synchronized (state) {
+                state.lastSequentialId = Long.MIN_VALUE;
+                for (LiveCandles candles : state.candlesByUnit.values()) {
+                    candles.reset();
+                }
+            }
+        }
+    }
+
+    private void applyTrade(MarketState state, Map<String, Object> message, double price, long tradeTimestamp) {
+        long sequentialId = toLong(message.get("sequential_id"));
+        if (sequentialId > 0) {
+            // Upbit sequential ids grow with trade time; replays (snapshot frames, resubscribe) are dropped.
+            if (sequentialId <= state.lastSequentialId) {
+                return;
+            }
+            state.lastSequentialId = sequentialId;
+        }
+        double volume = Math.max(0.0, toDouble(message.get("trade_volume")));
+        for (LiveCandles candles : state.candlesByUnit.values()) {
+            candles.apply(tradeTimestamp, price, volume);
+        }
+    }
+
+    private MarketState track(String market) {
+        if (market == null || market.isBlank()) {
+            return null;
+        }
+        String code = market.trim().toUpperCase(Locale.ROOT);
+        MarketState state = marketsByCode.get(code);
+        if (state != null) {
+            return state;
+        }
+        state = marketsByCode.computeIfAbsent(code, ignored -> new MarketState());
+        client.subscribe(List.of(code));
+        return state;
+    }
+
+    private static double toDouble(Object value) {
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        if (value == null) {
+            return Double.NaN;
+        }
+        try {
+            return Double.parseDouble(value.toString().trim());
+        } catch (NumberFormatException ex) {
+            return Double.NaN;
+        }
+    }
+
+    private static long toLong(Object value) {
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.toString().trim());
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private static final class MarketState {
+        private final Map<Integer, LiveCandles> candlesByUnit = new HashMap<>();
+        private double price = Double.NaN;
+        private long priceTimestamp;
+        private long priceEpoch = -1;
+        private long priceReceivedAtMs;
+        private long lastSequentialId = Long.MIN_VALUE;
+    }
+
+    private static final class LiveCandles {
+        private final long unitMs;
+        private final Deque<Candle> closed = new ArrayDeque<>();
+        private long coveredFromMs = UNSET;
+        private long formingOpenTimeMs = -1;
+        private double open;
+        private double high;
+        private double low;
+        private double close;
+        private double volume;
+        private double quoteVolume;
+
+        private LiveCandles(int unit) {
+            this.unitMs = unit * 60_000L;
+        }
+
+        private void reset() {
+            closed.clear();
+            coveredFromMs = UNSET;
+            formingOpenTimeMs = -1;
+        }
+
+        private void apply(long tradeTimestamp, double price, double tradeVolume) {
+            long openTimeMs = Math.floorDiv(tradeTimestamp, unitMs) * unitMs;
+            if (coveredFromMs == UNSET) {
+                // Trades before the first observed one may be missing, so that candle is never trusted.
+                coveredFromMs = openTimeMs + unitMs;
+            }
+            if (openTimeMs < formingOpenTimeMs) {
+                return;
+            }
+            if (openTimeMs > formingOpenTimeMs) {
+                if (formingOpenTimeMs >= 0) {
+                    closed.addLast(forming());
+                    if (closed.size() > MAX_LIVE_CANDLES) {
+                        closed.removeFirst();
+                    }
+                }
+                formingOpenTimeMs = openTimeMs;
+                open = price;
+                high = price;
+                low = price;
+                volume = 0.0;
+                quoteVolume = 0.0;
+            }
+            high = Math.max(high, price);
+            low = Math.min(low, price);
+            close = price;
+            volume += tradeVolume;
+            quoteVolume += price * tradeVolume;
+        }
+
+        private List<Candle> since(long fromOpenTimeMs) {
+            List<Candle> candles = new ArrayList<>();
+            for (Candle candle : closed) {
+                if (candle.openTimeMs() >= fromOpenTimeMs && candle.openTimeMs() >= coveredFromMs) {
+                    candles.add(candle);
+                }
+            }
+            if (formingOpenTimeMs >= fromOpenTimeMs && formingOpenTimeMs >= coveredFromMs) {
+                candles.add(forming());
+            }
+            return candles;
+        }
+
+        private Candle forming() {
+            return new Candle(formingOpenTimeMs, open, high, low, close, volume, quoteVolume);
+        }
+    }
+}
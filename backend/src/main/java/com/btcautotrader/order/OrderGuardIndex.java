@@ -0,0 +1,247 @@
+package com.btcautotrader.order;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * In-memory view of recent orders per (market, side) that answers the engine's cooldown and open-order guards
+ * without a query per market per tick. Kept current by {@link OrderService} and {@link OrderReconcileService},
+ * warmed at startup and periodically rebuilt from the orders table to catch drift.
+ * Lookups whose window reaches further back than the loaded range fall through to the repository.
+ */
+@Component
+public class OrderGuardIndex {
+    private static final Logger log = LoggerFactory.getLogger(OrderGuardIndex.class);
+    static final List<OrderStatus> OPEN_STATUSES = List.of(
+            OrderStatus.REQUESTED,
+            OrderStatus.PENDING,
+            OrderStatus.SUBMITTED
+    );
+
+    private final OrderRepository orderRepository;
+    private final boolean enabled;
+    private final long horizonMinutes;
+
+    private Map<GuardKey, GuardEntry> entries = new HashMap<>();
+    private OffsetDateTime coveredFrom;
+    private List<OrderEntity> recordedDuringRebuild;
+
+    public OrderGuardIndex(
+            OrderRepository orderRepository,
+            @Value("${orders.guard-index.enabled:true}") boolean enabled,
+            @Value("${orders.guard-index.horizon-minutes:1440}") long horizonMinutes
+    ) {
+        this.orderRepository = orderRepository;
+        this.enabled = enabled;
+        this.horizonMinutes = Math.max(1, horizonMinutes);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild(false);
+    }
+
+    @Scheduled(
+            initialDelayString = "${orders.guard-index.verify-delay-ms:300000}",
+            fixedDelayString = "${orders.guard-index.verify-delay-ms:300000}"
+    )
+    public void verify() {
+        rebuild(true);
+    }
+
+    /**
+     * True when an order for (market, side) was requested after {@code after}.
+     */
+    public boolean hasRecentOrder(String market, String side, OffsetDateTime after) {
+        synchronized (this) {
+            if (covers(after)) {
+                GuardEntry entry = entries.get(GuardKey.of(market, side));
+                return entry != null && entry.latestRequestedAt != null && entry.latestRequestedAt.isAfter(after);
+            }
+        }
+        return orderRepository.existsByMarketAndSideAndRequestedAtAfter(market, side, after);
+    }
+
+    /**
+     * True when an order for (market, side) requested after {@code after} is still REQUESTED/PENDING/SUBMITTED.
+     */
+    public boolean hasOpenRequest(String market, String side, OffsetDateTime after) {
+        synchronized (this) {
+            if (covers(after)) {
+                GuardEntry entry = entries.get(GuardKey.of(market, side));
+                return entry != null && entry.hasOpenAfter(after);
+            }
+        }
+        return orderRepository.existsByMarketAndSideAndStatusInAndRequestedAtAfter(
+                market,
+                side,
+                OPEN_STATUSES,
+                after
+        );
+    }
+
+    /**
+     * Applies the current state of a saved order.
+     */
+    public synchronized void record(OrderEntity order) {
+        if (!enabled || order == null || order.getId() == null) {
+            return;
+        }
+        if (recordedDuringRebuild != null) {
+            recordedDuringRebuild.add(order);
+        }
+        apply(entries, order);
+    }
+
+    private boolean covers(OffsetDateTime after) {
+        return enabled && coveredFrom != null && after != null && !after.isBefore(coveredFrom);
+    }
+
+    private void rebuild(boolean compare) {
+        if (!enabled) {
+            return;
+        }
+        OffsetDateTime from = OffsetDateTime.now().minusMinutes(horizonMinutes);
+        synchronized (this) {
+            recordedDuringRebuild = new ArrayList<>();
+        }
+        List<OrderEntity> orders;
+        try {
+            orders = orderRepository.findByRequestedAtAfter(from);
+        } catch (RuntimeException ex) {
+            synchronized (this) {
+                recordedDuringRebuild = null;
+            }
+            log.warn("Failed to load orders for the guard index: {}", ex.getMessage());
+            return;
+        }
+
+        Map<GuardKey, GuardEntry> loaded = new HashMap<>();
+        for (OrderEntity order : orders) {
+            apply(loaded, order);
+        }
+        synchronized (this) {
+            // Saves that raced the load carry state at least as new as what the query saw.
+            for (OrderEntity order : recordedDuringRebuild) {
+                apply(loaded, order);
+            }
+            recordedDuringRebuild = null;
+            if (compare && coveredFrom != null) {
+                int drifted = countDrift(loaded, from);
+                if (drifted > 0) {
+                    log.warn("Order guard index drifted from the orders table on {} market/side keys", drifted);
+                }
+            }
+            entries = loaded;
+            coveredFrom = from;
+        }
+    }
+
+    private int countDrift(Map<GuardKey, GuardEntry> loaded, OffsetDateTime from) {
+        int drifted = 0;
+        for (GuardKey key : union(entries, loaded)) {
+            GuardEntry current = entries.get(key);
+            GuardEntry fresh = loaded.get(key);
+            if (!GuardEntry.sameSince(current, fresh, from)) {
+                drifted++;
+            }
+        }
+        return drifted;
+    }
+
+    private static List<GuardKey> union(Map<GuardKey, GuardEntry> left, Map<GuardKey, GuardEntry> right) {
+        List<GuardKey> keys = new ArrayList<>(left.keySet());
+        for (GuardKey key : right.keySet()) {
+            if (!left.containsKey(key)) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    private static void apply(Map<GuardKey, GuardEntry> target, OrderEntity order) {
+        if (order == null || order.getId() == null || order.getRequestedAt() == null) {
+            return;
+        }
+        GuardKey key = GuardKey.of(order.getMarket(), order.getSide());
+        if (key == null) {
+            return;
+        }
+        target.computeIfAbsent(key, ignored -> new GuardEntry()).apply(order);
+    }
+
+    private record GuardKey(String market, String side) {
+        private static GuardKey of(String market, String side) {
+            if (market == null || side == null) {
+                return null;
+            }
+            return new GuardKey(market.trim().toUpperCase(Locale.ROOT), side.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private static final class GuardEntry {
+        private OffsetDateTime latestRequestedAt;
+        // Open orders are a handful per market/side at most, so a scan here is effectively constant time.
+        private final Map<Long, OffsetDateTime> openRequestedAt = new HashMap<>();
+
+        private void apply(OrderEntity order) {
+            OffsetDateTime requestedAt = order.getRequestedAt();
+            if (latestRequestedAt == null || requestedAt.isAfter(latestRequestedAt)) {
+                latestRequestedAt = requestedAt;
+            }
+            if (OPEN_STATUSES.contains(order.getStatus())) {
+                openRequestedAt.put(order.getId(), requestedAt);
+            } else {
+                openRequestedAt.remove(order.getId());
+            }
+        }
+
+        private boolean hasOpenAfter(OffsetDateTime after) {
+            for (OffsetDateTime requestedAt : openRequestedAt.values()) {
+                if (requestedAt.isAfter(after)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean sameSince(GuardEntry left, GuardEntry right, OffsetDateTime from) {
+            return Objects.equals(latestSince(left, from), latestSince(right, from))
+                    && openSince(left, from).equals(openSince(right, from));
+        }
+
+        private static OffsetDateTime latestSince(GuardEntry entry, OffsetDateTime from) {
+            if (entry == null || entry.latestRequestedAt == null || !entry.latestRequestedAt.isAfter(from)) {
+                return null;
+            }
+            return entry.latestRequestedAt.toInstant().atOffset(ZoneOffset.UTC);
+        }
+
+        private static Map<Long, OffsetDateTime> openSince(GuardEntry entry, OffsetDateTime from) {
+            Map<Long, OffsetDateTime> open = new HashMap<>();
+            if (entry == null) {
+                return open;
+            }
+            entry.openRequestedAt.forEach((id, requestedAt) -> {
+                if (requestedAt.isAfter(from)) {
+                    open.put(id, requestedAt.toInstant().atOffset(ZoneOffset.UTC));
+                }
+            });
+            return open;
+        }
+    }
+}
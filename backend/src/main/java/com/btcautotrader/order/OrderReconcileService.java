@@ -1,41 +1,72 @@
 package com.btcautotrader.order;
 
+import com.btcautotrader.upbit.UpbitAsyncClient;
 import com.btcautotrader.upbit.UpbitOrderResponse;
-import com.btcautotrader.upbit.UpbitService;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
 public class OrderReconcileService {
+    static final String UPDATE_SQL = """
+            update orders
+               set external_id = ?, state = ?, status = ?, created_at = ?, volume = ?, raw_response = ?,
+                   error_message = ?
+             where id = ? and requested_at = ?
+            """;
+
     private final OrderRepository orderRepository;
-    private final UpbitService upbitService;
+    private final UpbitAsyncClient upbitClient;
     private final ObjectMapper objectMapper;
+    private final OrderGuardIndex orderGuardIndex;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
     private final boolean enabled;
     private final long lookbackMinutes;
     private final long staleMinutes;
+    private final int batchSize;
 
     public OrderReconcileService(
             OrderRepository orderRepository,
-            UpbitService upbitService,
+            UpbitAsyncClient upbitClient,
             ObjectMapper objectMapper,
+            OrderGuardIndex orderGuardIndex,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
             @Value("${orders.reconcile.enabled:true}") boolean enabled,
             @Value("${orders.reconcile.lookback-minutes:60}") long lookbackMinutes,
-            @Value("${orders.reconcile.stale-minutes:180}") long staleMinutes
+            @Value("${orders.reconcile.stale-minutes:180}") long staleMinutes,
+            @Value("${orders.reconcile.batch-size:100}") int batchSize
     ) {
         this.orderRepository = orderRepository;
-        this.upbitService = upbitService;
+        this.upbitClient = upbitClient;
         this.objectMapper = objectMapper;
+        this.orderGuardIndex = orderGuardIndex;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
         this.enabled = enabled;
         this.lookbackMinutes = lookbackMinutes;
         this.staleMinutes = staleMinutes;
+        this.batchSize = Math.max(1, Math.min(batchSize, UpbitAsyncClient.MAX_ORDERS_PER_LOOKUP));
     }
 
     @Scheduled(fixedDelayString = "${orders.reconcile.delay-ms:10000}")
@@ -45,71 +76,182 @@ public class OrderReconcileService {
         }
         OffsetDateTime after = OffsetDateTime.now().minusMinutes(lookbackMinutes);
         List<OrderEntity> pending = orderRepository.findByStatusInAndRequestedAtAfter(
-                List.of(OrderStatus.REQUESTED, OrderStatus.PENDING, OrderStatus.SUBMITTED),
+                OrderGuardIndex.OPEN_STATUSES,
                 after
         );
+        OffsetDateTime staleCutoff = OffsetDateTime.now().minusMinutes(staleMinutes);
+        List<OrderEntity> stale = orderRepository.findByStatusInAndRequestedAtBefore(
+                OrderGuardIndex.OPEN_STATUSES,
+                staleCutoff
+        );
+
+        List<OrderEntity> all = new ArrayList<>(pending.size() + stale.size());
+        all.addAll(pending);
+        all.addAll(stale);
+        Map<OrderEntity, Lookup> lookups = lookUp(all);
+        List<OrderEntity> changed = new ArrayList<>();
 
         for (OrderEntity order : pending) {
-            String identifier = order.getClientOrderId();
-            if (identifier == null || identifier.isBlank()) {
+            Lookup lookup = lookups.get(order);
+            if (lookup == null) {
                 continue;
             }
+            Snapshot before = Snapshot.of(order);
+            if (lookup.error() != null) {
+                order.setErrorMessage(truncate(lookup.error().getMessage(), 2000));
+            } else if (lookup.response() != null) {
+                applyResponse(order, lookup.response());
+            }
+            collectIfChanged(order, before, changed);
+        }
 
-            try {
-                UpbitOrderResponse response = upbitService.fetchOrderByIdentifier(identifier);
-                if (response == null) {
-                    continue;
-                }
-
-                order.setExternalId(response.uuid());
-                order.setState(response.state());
-                order.setStatus(resolveStatus(response, order.getStatus()));
-                order.setCreatedAt(parseOffsetDateTime(response.createdAt()));
-                applyExecutionSnapshot(order, response);
-                order.setRawResponse(safeSerialize(response));
-                orderRepository.save(order);
-            } catch (RuntimeException ex) {
-                order.setErrorMessage(truncate(ex.getMessage(), 2000));
-                orderRepository.save(order);
+        for (OrderEntity order : stale) {
+            Lookup lookup = lookups.get(order);
+            Snapshot before = Snapshot.of(order);
+            if (lookup == null) {
+                order.setStatus(OrderStatus.FAILED);
+                order.setErrorMessage("reconcile timeout");
+            } else if (lookup.error() != null) {
+                order.setStatus(OrderStatus.SUBMITTED);
+                order.setErrorMessage(truncate(lookup.error().getMessage(), 2000));
+            } else if (lookup.response() != null) {
+                applyResponse(order, lookup.response());
+            } else {
+                order.setStatus(OrderStatus.SUBMITTED);
+                order.setErrorMessage("reconcile timeout");
             }
+            collectIfChanged(order, before, changed);
         }
 
-        OffsetDateTime staleCutoff = OffsetDateTime.now().minusMinutes(staleMinutes);
-        List<OrderEntity> stale = orderRepository.findByStatusInAndRequestedAtBefore(
-                List.of(OrderStatus.REQUESTED, OrderStatus.PENDING, OrderStatus.SUBMITTED),
-                staleCutoff
-        );
+        persistAll(changed);
+    }
 
-        for (OrderEntity order : stale) {
+    /**
+     * Looks orders up by identifier, {@code batchSize} per request, with every batch sent up front so they overlap
+     * on the wire. Orders without a client order id get no entry; orders Upbit does not return get an empty one.
+     */
+    private Map<OrderEntity, Lookup> lookUp(List<OrderEntity> orders) {
+        Map<String, List<OrderEntity>> byIdentifier = new LinkedHashMap<>();
+        for (OrderEntity order : orders) {
             String identifier = order.getClientOrderId();
             if (identifier == null || identifier.isBlank()) {
-                order.setStatus(OrderStatus.FAILED);
-                order.setErrorMessage("reconcile timeout");
-                orderRepository.save(order);
                 continue;
             }
+            byIdentifier.computeIfAbsent(identifier, key -> new ArrayList<>()).add(order);
+        }
 
+        List<String> identifiers = new ArrayList<>(byIdentifier.keySet());
+        List<List<String>> batches = new ArrayList<>();
+        List<CompletableFuture<List<UpbitOrderResponse>>> requests = new ArrayList<>();
+        for (int from = 0; from < identifiers.size(); from += batchSize) {
+            List<String> batch = identifiers.subList(from, Math.min(identifiers.size(), from + batchSize));
+            batches.add(batch);
             try {
-                UpbitOrderResponse response = upbitService.fetchOrderByIdentifier(identifier);
-                if (response != null) {
-                    order.setExternalId(response.uuid());
-                    order.setState(response.state());
-                    order.setStatus(resolveStatus(response, order.getStatus()));
-                    order.setCreatedAt(parseOffsetDateTime(response.createdAt()));
-                    applyExecutionSnapshot(order, response);
-                    order.setRawResponse(safeSerialize(response));
-                    orderRepository.save(order);
+                requests.add(upbitClient.fetchOrdersByIdentifiers(batch));
+            } catch (RuntimeException ex) {
+                requests.add(CompletableFuture.failedFuture(ex));
+            }
+        }
+
+        Map<OrderEntity, Lookup> lookups = new HashMap<>();
+        for (int i = 0; i < batches.size(); i++) {
+            List<String> batch = batches.get(i);
+            List<UpbitOrderResponse> responses;
+            try {
+                responses = await(requests.get(i));
+            } catch (RuntimeException ex) {
+                for (String identifier : batch) {
+                    byIdentifier.get(identifier).forEach(order -> lookups.put(order, new Lookup(null, ex)));
+                }
+                continue;
+            }
+            Map<String, UpbitOrderResponse> responseByIdentifier = new HashMap<>();
+            Map<String, UpbitOrderResponse> responseByUuid = new HashMap<>();
+            for (UpbitOrderResponse response : responses == null ? List.<UpbitOrderResponse>of() : responses) {
+                if (response == null) {
                     continue;
                 }
-                order.setStatus(OrderStatus.SUBMITTED);
-                order.setErrorMessage("reconcile timeout");
-                orderRepository.save(order);
-            } catch (RuntimeException ex) {
-                order.setStatus(OrderStatus.SUBMITTED);
-                order.setErrorMessage(truncate(ex.getMessage(), 2000));
-                orderRepository.save(order);
+                if (response.identifier() != null) {
+                    responseByIdentifier.put(response.identifier(), response);
+                }
+                if (response.uuid() != null) {
+                    responseByUuid.put(response.uuid(), response);
+                }
+            }
+            for (String identifier : batch) {
+                for (OrderEntity order : byIdentifier.get(identifier)) {
+                    UpbitOrderResponse response = responseByIdentifier.get(identifier);
+                    if (response == null && order.getExternalId() != null) {
+                        response = responseByUuid.get(order.getExternalId());
+                    }
+                    lookups.put(order, new Lookup(response, null));
+                }
             }
         }
+        return lookups;
+    }
+
+    private void applyResponse(OrderEntity order, UpbitOrderResponse response) {
+        order.setExternalId(response.uuid());
+        order.setState(response.state());
+        order.setStatus(resolveStatus(response, order.getStatus()));
+        order.setCreatedAt(parseOffsetDateTime(response.createdAt()));
+        applyExecutionSnapshot(order, response);
+        order.setRawResponse(safeSerialize(response));
+    }
+
+    private void collectIfChanged(OrderEntity order, Snapshot before, List<OrderEntity> changed) {
+        if (before.equals(Snapshot.of(order))) {
+            return;
+        }
+        changed.add(order);
+    }
+
+    /**
+     * Writes every changed order in one JDBC batch inside a single transaction, then updates the guard index.
+     */
+    private void persistAll(List<OrderEntity> changed) {
+        if (changed.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+                UPDATE_SQL,
+                changed,
+                Math.max(1, changed.size()),
+                OrderReconcileService::bindUpdate
+        ));
+        changed.forEach(orderGuardIndex::record);
+    }
+
+    private static void bindUpdate(PreparedStatement ps, OrderEntity order) throws SQLException {
+        ps.setString(1, order.getExternalId());
+        ps.setString(2, order.getState());
+        ps.setString(3, order.getStatus() == null ? null : order.getStatus().name());
+        if (order.getCreatedAt() == null) {
+            ps.setNull(4, Types.TIMESTAMP_WITH_TIMEZONE);
+        } else {
+            ps.setObject(4, order.getCreatedAt());
+        }
+        if (order.getVolume() == null) {
+            ps.setNull(5, Types.NUMERIC);
+        } else {
+            ps.setBigDecimal(5, order.getVolume());
+        }
+        ps.setString(6, order.getRawResponse());
+        ps.setString(7, order.getErrorMessage());
+        ps.setLong(8, order.getId());
+        ps.setObject(9, order.getRequestedAt());
+    }
+
+    private static List<UpbitOrderResponse> await(CompletableFuture<List<UpbitOrderResponse>> lookup) {
+        try {
+            return lookup.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
     }
 
     private static OffsetDateTime parseOffsetDateTime(String value) {
@@ -190,4 +332,29 @@ public class OrderReconcileService {
             return null;
         }
     }
+
+    private record Lookup(UpbitOrderResponse response, RuntimeException error) {
+    }
+
+    private record Snapshot(
+            String externalId,
+            String state,
+            OrderStatus status,
+            OffsetDateTime createdAt,
+            BigDecimal volume,
+            String rawResponse,
+            String errorMessage
+    ) {
+        private static Snapshot of(OrderEntity order) {
+            return new Snapshot(
+                    order.getExternalId(),
+                    order.getState(),
+                    order.getStatus(),
+                    order.getCreatedAt(),
+                    order.getVolume(),
+                    order.getRawResponse(),
+                    order.getErrorMessage()
+            );
+        }
+    }
 }
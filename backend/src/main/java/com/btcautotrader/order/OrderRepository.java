@@ -11,6 +11,8 @@ public interface OrderRepository extends JpaRepository<OrderEntity, Long> {
 
     List<OrderEntity> findByStatusInAndRequestedAtAfter(List<OrderStatus> statuses, OffsetDateTime after);
 
+    List<OrderEntity> findByRequestedAtAfter(OffsetDateTime after);
+
     List<OrderEntity> findByStatusInAndRequestedAtBefore(List<OrderStatus> statuses, OffsetDateTime before);
 
     boolean existsByMarketAndSideAndRequestedAtAfter(String market, String side, OffsetDateTime after);
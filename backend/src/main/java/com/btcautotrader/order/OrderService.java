@@ -28,11 +28,18 @@ public class OrderService {
     private final UpbitService upbitService;
     private final OrderRepository orderRepository;
     private final ObjectMapper objectMapper;
-
-    public OrderService(UpbitService upbitService, OrderRepository orderRepository, ObjectMapper objectMapper) {
+    private final OrderGuardIndex orderGuardIndex;
+
+    public OrderService(
+            UpbitService upbitService,
+            OrderRepository orderRepository,
+            ObjectMapper objectMapper,
+            OrderGuardIndex orderGuardIndex
+    ) {
         this.upbitService = upbitService;
         this.orderRepository = orderRepository;
         this.objectMapper = objectMapper;
+        this.orderGuardIndex = orderGuardIndex;
     }
 
     public OrderResponse create(OrderRequest request) {
@@ -66,6 +73,7 @@ public class OrderService {
 
         try {
             orderRepository.saveAndFlush(entity);
+            orderGuardIndex.record(entity);
         } catch (DataIntegrityViolationException ex) {
             OrderEntity found = orderRepository.findByClientOrderId(clientOrderId)
                     .orElseThrow(() -> ex);
@@ -83,7 +91,7 @@ public class OrderService {
             entity.setCreatedAt(parseOffsetDateTime(response.createdAt()));
             applyExecutionSnapshot(entity, response);
             entity.setRawResponse(safeSerialize(response));
-            orderRepository.save(entity);
+            persist(entity);
             return toResponse(entity);
         } catch (UpbitApiException ex) {
             if (isRetryable(ex)) {
@@ -95,26 +103,31 @@ public class OrderService {
                     entity.setCreatedAt(parseOffsetDateTime(reconciled.createdAt()));
                     applyExecutionSnapshot(entity, reconciled);
                     entity.setRawResponse(safeSerialize(reconciled));
-                    orderRepository.save(entity);
+                    persist(entity);
                     return toResponse(entity);
                 }
                 entity.setStatus(OrderStatus.PENDING);
                 entity.setErrorMessage(truncate(resolveErrorMessage(ex), 2000));
-                orderRepository.save(entity);
+                persist(entity);
                 return toResponse(entity);
             }
             entity.setStatus(OrderStatus.FAILED);
             entity.setErrorMessage(truncate(resolveErrorMessage(ex), 2000));
-            orderRepository.save(entity);
+            persist(entity);
             throw ex;
         } catch (RuntimeException ex) {
             entity.setStatus(OrderStatus.FAILED);
             entity.setErrorMessage(truncate(resolveErrorMessage(ex), 2000));
-            orderRepository.save(entity);
+            persist(entity);
             throw ex;
         }
     }
 
+    private void persist(OrderEntity entity) {
+        orderRepository.save(entity);
+        orderGuardIndex.record(entity);
+    }
+
     @Transactional(readOnly = true)
     public List<OrderHistoryItem> listRecent(int limit) {
         int safeLimit = normalizeLimit(limit);
@@ -0,0 +1,46 @@
+package com.btcautotrader.portfolio;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.math.BigDecimal;
+
+/**
+ * Estimated per-market inventory (quantity and cost basis incl. fees) at the end of the last rolled-up day.
+ */
+@Entity
+@Table(name = "portfolio_inventory_snapshot")
+public class PortfolioInventorySnapshotEntity {
+    @Id
+    @Column(nullable = false, length = 20)
+    private String market;
+
+    @Column(nullable = false, columnDefinition = "numeric")
+    private BigDecimal quantity;
+
+    @Column(nullable = false, columnDefinition = "numeric")
+    private BigDecimal cost;
+
+    public PortfolioInventorySnapshotEntity() {
+    }
+
+    public PortfolioInventorySnapshotEntity(String market, BigDecimal quantity, BigDecimal cost) {
+        this.market = market;
+        this.quantity = quantity;
+        this.cost = cost;
+    }
+
+    public String getMarket() {
+        return market;
+    }
+
+    public BigDecimal getQuantity() {
+        return quantity;
+    }
+
+    public BigDecimal getCost() {
+        return cost;
+    }
+}
@@ -0,0 +1,6 @@
+package com.btcautotrader.portfolio;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface PortfolioInventorySnapshotRepository extends JpaRepository<PortfolioInventorySnapshotEntity, String> {
+}
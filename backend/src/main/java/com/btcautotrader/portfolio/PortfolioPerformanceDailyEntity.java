@@ -0,0 +1,153 @@
+package com.btcautotrader.portfolio;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One closed report day (Asia/Seoul) of estimated performance. Amounts use unconstrained numeric so summing days
+ * gives exactly what replaying that day's decisions would.
+ */
+@Entity
+@Table(name = "portfolio_performance_daily")
+public class PortfolioPerformanceDailyEntity {
+    @Id
+    @Column(name = "report_date", nullable = false)
+    private LocalDate reportDate;
+
+    @Column(name = "estimated_realized_pnl_krw", nullable = false, columnDefinition = "numeric")
+    private BigDecimal estimatedRealizedPnlKrw = BigDecimal.ZERO;
+
+    @Column(name = "net_cash_flow_krw", nullable = false, columnDefinition = "numeric")
+    private BigDecimal netCashFlowKrw = BigDecimal.ZERO;
+
+    @Column(name = "buy_notional_krw", nullable = false, columnDefinition = "numeric")
+    private BigDecimal buyNotionalKrw = BigDecimal.ZERO;
+
+    @Column(name = "sell_notional_krw", nullable = false, columnDefinition = "numeric")
+    private BigDecimal sellNotionalKrw = BigDecimal.ZERO;
+
+    @Column(name = "unmatched_sell_notional_krw", nullable = false, columnDefinition = "numeric")
+    private BigDecimal unmatchedSellNotionalKrw = BigDecimal.ZERO;
+
+    @Column(name = "estimated_fee_krw", nullable = false, columnDefinition = "numeric")
+    private BigDecimal estimatedFeeKrw = BigDecimal.ZERO;
+
+    @Column(name = "buy_count", nullable = false)
+    private long buyCount;
+
+    @Column(name = "sell_count", nullable = false)
+    private long sellCount;
+
+    @Column(name = "matched_sell_count", nullable = false)
+    private long matchedSellCount;
+
+    @Column(name = "winning_sell_count", nullable = false)
+    private long winningSellCount;
+
+    @Column(name = "losing_sell_count", nullable = false)
+    private long losingSellCount;
+
+    public PortfolioPerformanceDailyEntity() {
+    }
+
+    public PortfolioPerformanceDailyEntity(LocalDate reportDate) {
+        this.reportDate = reportDate;
+    }
+
+    public LocalDate getReportDate() {
+        return reportDate;
+    }
+
+    public BigDecimal getEstimatedRealizedPnlKrw() {
+        return estimatedRealizedPnlKrw;
+    }
+
+    public void setEstimatedRealizedPnlKrw(BigDecimal estimatedRealizedPnlKrw) {
+        this.estimatedRealizedPnlKrw = estimatedRealizedPnlKrw;
+    }
+
+    public BigDecimal getNetCashFlowKrw() {
+        return netCashFlowKrw;
+    }
+
+    public void setNetCashFlowKrw(BigDecimal netCashFlowKrw) {
+        this.netCashFlowKrw = netCashFlowKrw;
+    }
+
+    public BigDecimal getBuyNotionalKrw() {
+        return buyNotionalKrw;
+    }
+
+    public void setBuyNotionalKrw(BigDecimal buyNotionalKrw) {
+        this.buyNotionalKrw = buyNotionalKrw;
+    }
+
+    public BigDecimal getSellNotionalKrw() {
+        return sellNotionalKrw;
+    }
+
+    public void setSellNotionalKrw(BigDecimal sellNotionalKrw) {
+        this.sellNotionalKrw = sellNotionalKrw;
+    }
+
+    public BigDecimal getUnmatchedSellNotionalKrw() {
+        return unmatchedSellNotionalKrw;
+    }
+
+    public void setUnmatchedSellNotionalKrw(BigDecimal unmatchedSellNotionalKrw) {
+        this.unmatchedSellNotionalKrw = unmatchedSellNotionalKrw;
+    }
+
+    public BigDecimal getEstimatedFeeKrw() {
+        return estimatedFeeKrw;
+    }
+
+    public void setEstimatedFeeKrw(BigDecimal estimatedFeeKrw) {
+        this.estimatedFeeKrw = estimatedFeeKrw;
+    }
+
+    public long getBuyCount() {
+        return buyCount;
+    }
+
+    public void setBuyCount(long buyCount) {
+        this.buyCount = buyCount;
+    }
+
+    public long getSellCount() {
+        return sellCount;
+    }
+
+    public void setSellCount(long sellCount) {
+        this.sellCount = sellCount;
+    }
+
+    public long getMatchedSellCount() {
+        return matchedSellCount;
+    }
+
+    public void setMatchedSellCount(long matchedSellCount) {
+        this.matchedSellCount = matchedSellCount;
+    }
+
+    public long getWinningSellCount() {
+        return winningSellCount;
+    }
+
+    public void setWinningSellCount(long winningSellCount) {
+        this.winningSellCount = winningSellCount;
+    }
+
+    public long getLosingSellCount() {
+        return losingSellCount;
+    }
+
+    public void setLosingSellCount(long losingSellCount) {
+        this.losingSellCount = losingSellCount;
+    }
+}
@@ -0,0 +1,10 @@
+package com.btcautotrader.portfolio;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface PortfolioPerformanceDailyRepository extends JpaRepository<PortfolioPerformanceDailyEntity, LocalDate> {
+    List<PortfolioPerformanceDailyEntity> findByReportDateBetweenOrderByReportDateAsc(LocalDate from, LocalDate to);
+}
@@ -1,10 +1,11 @@
 package com.btcautotrader.portfolio;
 
-import com.btcautotrader.engine.TradeDecisionEntity;
-import com.btcautotrader.engine.TradeDecisionRepository;
+import com.btcautotrader.engine.TradeDecisionReplayRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -12,37 +13,53 @@ import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.time.YearMonth;
 import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 @Service
 public class PortfolioPerformanceService {
+    private static final Logger log = LoggerFactory.getLogger(PortfolioPerformanceService.class);
     private static final BigDecimal ZERO = BigDecimal.ZERO;
     private static final BigDecimal EPSILON_QUANTITY = new BigDecimal("0.000000000001");
     private static final int CALC_SCALE = 18;
     private static final ZoneId REPORT_ZONE = ZoneId.of("Asia/Seoul");
     private static final List<String> TRADE_ACTIONS = List.of("BUY", "SELL");
 
-    private final TradeDecisionRepository tradeDecisionRepository;
+    private final TradeDecisionReplayReader replayReader;
+    private final PortfolioRollupStore rollupStore;
     private final BigDecimal feeRate;
     private final BigDecimal slippagePct;
     private final BigDecimal tradeCostRate;
+    private final boolean rollupEnabled;
+    private final long rollupSettleMinutes;
+    private final Object rollupLock = new Object();
 
     public PortfolioPerformanceService(
-            TradeDecisionRepository tradeDecisionRepository,
+            TradeDecisionReplayReader replayReader,
+            PortfolioRollupStore rollupStore,
             @Value("${trading.fee-rate:0.0005}") BigDecimal feeRate,
-            @Value("${trading.slippage-pct:0.001}") BigDecimal slippagePct
+            @Value("${trading.slippage-pct:0.001}") BigDecimal slippagePct,
+            @Value("${portfolio.performance.rollup.enabled:true}") boolean rollupEnabled,
+            @Value("${portfolio.performance.rollup.settle-minutes:10}") long rollupSettleMinutes
     ) {
-        this.tradeDecisionRepository = tradeDecisionRepository;
+        this.replayReader = replayReader;
+        this.rollupStore = rollupStore;
         this.feeRate = normalizeRate(feeRate);
         this.slippagePct = normalizeRate(slippagePct);
         BigDecimal combined = this.feeRate.add(this.slippagePct);
         this.tradeCostRate = combined.compareTo(ZERO) < 0 ? ZERO : combined;
+        this.rollupEnabled = rollupEnabled;
+        this.rollupSettleMinutes = Math.max(0, rollupSettleMinutes);
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Sums the daily rollups for closed days in range and replays only the decisions since the last checkpoint,
+     * starting from the checkpoint's inventory. Without a checkpoint the whole history is replayed.
+     */
     public PortfolioPerformanceResponse getPerformance(LocalDate fromDate, LocalDate toDate) {
         if (fromDate == null || toDate == null) {
             throw new IllegalArgumentException("from/to date are required");
@@ -51,36 +68,55 @@ public class PortfolioPerformanceService {
             throw new IllegalArgumentException("from date must be before or equal to to date");
         }
 
-        OffsetDateTime fromAt = fromDate.atStartOfDay(REPORT_ZONE).toOffsetDateTime();
-        OffsetDateTime toExclusive = toDate.plusDays(1).atStartOfDay(REPORT_ZONE).toOffsetDateTime();
+        OffsetDateTime fromAt = startOfDay(fromDate);
+        OffsetDateTime toExclusive = startOfDay(toDate.plusDays(1));
 
-        List<TradeDecisionEntity> decisions = tradeDecisionRepository
-                .findByActionInAndExecutedAtBeforeOrderByExecutedAtAsc(TRADE_ACTIONS, toExclusive);
+        PortfolioRollupStore.Checkpoint checkpoint = rollUpClosedDays();
+        LocalDate rolledThrough = checkpoint == null ? null : checkpoint.rolledThrough();
 
         MetricsAccumulator total = new MetricsAccumulator();
         Map<Integer, MetricsAccumulator> yearly = new LinkedHashMap<>();
         Map<YearMonth, MetricsAccumulator> monthly = new LinkedHashMap<>();
-        Map<String, PositionState> inventoryByMarket = new HashMap<>();
-
-        for (TradeDecisionEntity decision : decisions) {
-            if (decision == null || decision.getExecutedAt() == null) {
-                continue;
-            }
-
-            EventMetrics event = toEvent(decision, inventoryByMarket, tradeCostRate);
-            if (event == null) {
-                continue;
-            }
-
-            OffsetDateTime executedAt = decision.getExecutedAt();
-            if (executedAt.isBefore(fromAt) || !executedAt.isBefore(toExclusive)) {
-                continue;
+        Map<String, PositionState> inventoryByMarket = restoreInventory(checkpoint);
+
+        if (rolledThrough != null && fromDate.isBefore(rolledThrough)) {
+            LocalDate lastRolledDay = toDate.isBefore(rolledThrough) ? toDate : rolledThrough.minusDays(1);
+            for (PortfolioPerformanceDailyEntity day : rollupStore.findDays(fromDate, lastRolledDay)) {
+                LocalDate date = day.getReportDate();
+                total.addDay(day);
+                yearly.computeIfAbsent(date.getYear(), key -> new MetricsAccumulator()).addDay(day);
+                monthly.computeIfAbsent(YearMonth.from(date), key -> new MetricsAccumulator()).addDay(day);
             }
+        }
 
-            LocalDate eventDate = executedAt.atZoneSameInstant(REPORT_ZONE).toLocalDate();
-            total.add(eventDate, event);
-            yearly.computeIfAbsent(eventDate.getYear(), key -> new MetricsAccumulator()).add(eventDate, event);
-            monthly.computeIfAbsent(YearMonth.from(eventDate), key -> new MetricsAccumulator()).add(eventDate, event);
+        if (rolledThrough == null || !toDate.isBefore(rolledThrough)) {
+            replayReader.replay(
+                    TRADE_ACTIONS,
+                    rolledThrough == null ? null : startOfDay(rolledThrough),
+                    toExclusive,
+                    decision -> {
+                        if (decision == null || decision.executedAt() == null) {
+                            return;
+                        }
+
+                        EventMetrics event = toEvent(decision, inventoryByMarket, tradeCostRate);
+                        if (event == null) {
+                            return;
+                        }
+
+                        OffsetDateTime executedAt = decision.executedAt();
+                        if (executedAt.isBefore(fromAt) || !executedAt.isBefore(toExclusive)) {
+                            return;
+                        }
+
+                        LocalDate eventDate = executedAt.atZoneSameInstant(REPORT_ZONE).toLocalDate();
+                        total.add(eventDate, event);
+                        yearly.computeIfAbsent(eventDate.getYear(), key -> new MetricsAccumulator())
+                                .add(eventDate, event);
+                        monthly.computeIfAbsent(YearMonth.from(eventDate), key -> new MetricsAccumulator())
+                                .add(eventDate, event);
+                    }
+            );
         }
 
         List<PortfolioPerformanceMetrics> yearlyMetrics = yearly.entrySet().stream()
@@ -102,16 +138,103 @@ public class PortfolioPerformanceService {
         );
     }
 
+    @Scheduled(fixedDelayString = "${portfolio.performance.rollup.delay-ms:600000}")
+    public void scheduledRollUp() {
+        rollUpClosedDays();
+    }
+
+    /**
+     * Folds every closed report day (older than {@code settle-minutes}) into the daily rollups and inventory
+     * snapshot, replaying only the decisions recorded since the previous checkpoint.
+     * Returns null when rollups are disabled or unavailable, in which case callers replay the full history.
+     */
+    private PortfolioRollupStore.Checkpoint rollUpClosedDays() {
+        if (!rollupEnabled) {
+            return null;
+        }
+        synchronized (rollupLock) {
+            try {
+                return rollUp();
+            } catch (RuntimeException ex) {
+                log.warn("Failed to update portfolio performance rollups: {}", ex.getMessage());
+                return null;
+            }
+        }
+    }
+
+    private PortfolioRollupStore.Checkpoint rollUp() {
+        PortfolioRollupStore.Checkpoint checkpoint = rollupStore.load();
+        if (checkpoint != null && checkpoint.tradeCostRate().compareTo(tradeCostRate) != 0) {
+            // Rollups were priced with a different fee/slippage estimate; rebuild them from scratch.
+            rollupStore.reset();
+            checkpoint = null;
+        }
+        LocalDate closeBefore = ZonedDateTime.now(REPORT_ZONE).minusMinutes(rollupSettleMinutes).toLocalDate();
+        LocalDate rolledThrough = checkpoint == null ? null : checkpoint.rolledThrough();
+        if (rolledThrough != null && !rolledThrough.isBefore(closeBefore)) {
+            return checkpoint;
+        }
+
+        OffsetDateTime toExclusive = startOfDay(closeBefore);
+        Map<String, PositionState> inventoryByMarket = restoreInventory(checkpoint);
+        Map<LocalDate, MetricsAccumulator> days = new TreeMap<>();
+        replayReader.replay(
+                TRADE_ACTIONS,
+                rolledThrough == null ? null : startOfDay(rolledThrough),
+                toExclusive,
+                decision -> {
+                    if (decision == null || decision.executedAt() == null) {
+                        return;
+                    }
+                    EventMetrics event = toEvent(decision, inventoryByMarket, tradeCostRate);
+                    if (event == null) {
+                        return;
+                    }
+                    LocalDate eventDate = decision.executedAt().atZoneSameInstant(REPORT_ZONE).toLocalDate();
+                    days.computeIfAbsent(eventDate, key -> new MetricsAccumulator()).add(eventDate, event);
+                }
+        );
+
+        List<PortfolioPerformanceDailyEntity> dailyRows = days.entrySet().stream()
+                .map(entry -> entry.getValue().toDaily(entry.getKey()))
+                .toList();
+        List<PortfolioInventorySnapshotEntity> inventory = inventoryByMarket.entrySet().stream()
+                .filter(entry -> !entry.getValue().isEmpty())
+                .map(entry -> new PortfolioInventorySnapshotEntity(
+                        entry.getKey(),
+                        entry.getValue().quantity,
+                        entry.getValue().cost
+                ))
+                .toList();
+        rollupStore.save(closeBefore, tradeCostRate, dailyRows, inventory);
+        return new PortfolioRollupStore.Checkpoint(closeBefore, tradeCostRate, inventory);
+    }
+
+    private static Map<String, PositionState> restoreInventory(PortfolioRollupStore.Checkpoint checkpoint) {
+        Map<String, PositionState> inventoryByMarket = new HashMap<>();
+        if (checkpoint == null || checkpoint.inventory() == null) {
+            return inventoryByMarket;
+        }
+        for (PortfolioInventorySnapshotEntity snapshot : checkpoint.inventory()) {
+            inventoryByMarket.put(snapshot.getMarket(), new PositionState(snapshot.getQuantity(), snapshot.getCost()));
+        }
+        return inventoryByMarket;
+    }
+
+    private static OffsetDateTime startOfDay(LocalDate date) {
+        return date.atStartOfDay(REPORT_ZONE).toOffsetDateTime();
+    }
+
     private static EventMetrics toEvent(
-            TradeDecisionEntity decision,
+            TradeDecisionReplayRow decision,
             Map<String, PositionState> inventoryByMarket,
             BigDecimal tradeCostRate
     ) {
         if (isFailedDecision(decision)) {
             return null;
         }
-        String action = normalize(decision.getAction());
-        String market = normalize(decision.getMarket());
+        String action = normalize(decision.action());
+        String market = normalize(decision.market());
         if (action == null || market == null) {
             return null;
         }
@@ -120,9 +243,9 @@ public class PortfolioPerformanceService {
         }
 
         PositionState inventory = inventoryByMarket.computeIfAbsent(market, key -> new PositionState());
-        BigDecimal price = positiveOrNull(decision.getPrice());
-        BigDecimal quantity = positiveOrNull(decision.getQuantity());
-        BigDecimal funds = positiveOrNull(decision.getFunds());
+        BigDecimal price = positiveOrNull(decision.price());
+        BigDecimal quantity = positiveOrNull(decision.quantity());
+        BigDecimal funds = positiveOrNull(decision.funds());
 
         if ("BUY".equals(action)) {
             if (quantity == null && funds != null && price != null) {
@@ -161,11 +284,11 @@ public class PortfolioPerformanceService {
         );
     }
 
-    private static boolean isFailedDecision(TradeDecisionEntity decision) {
+    private static boolean isFailedDecision(TradeDecisionReplayRow decision) {
         if (decision == null) {
             return true;
         }
-        String status = decision.getRequestStatus();
+        String status = decision.requestStatus();
         if (status == null || status.isBlank()) {
             return false;
         }
@@ -220,6 +343,18 @@ public class PortfolioPerformanceService {
         private BigDecimal quantity = ZERO;
         private BigDecimal cost = ZERO;
 
+        private PositionState() {
+        }
+
+        private PositionState(BigDecimal quantity, BigDecimal cost) {
+            this.quantity = quantity == null ? ZERO : quantity;
+            this.cost = cost == null ? ZERO : cost;
+        }
+
+        private boolean isEmpty() {
+            return quantity.signum() == 0 && cost.signum() == 0;
+        }
+
         private void addBuy(BigDecimal buyQuantity, BigDecimal buyFunds) {
             if (buyQuantity == null || buyFunds == null) {
                 return;
@@ -368,14 +503,7 @@ public class PortfolioPerformanceService {
         private LocalDate lastDate;
 
         private void add(LocalDate date, EventMetrics event) {
-            if (date != null) {
-                if (firstDate == null || date.isBefore(firstDate)) {
-                    firstDate = date;
-                }
-                if (lastDate == null || date.isAfter(lastDate)) {
-                    lastDate = date;
-                }
-            }
+            touch(date);
 
             if (event.buy()) {
                 buyCount++;
@@ -402,6 +530,49 @@ public class PortfolioPerformanceService {
             }
         }
 
+        private void addDay(PortfolioPerformanceDailyEntity day) {
+            touch(day.getReportDate());
+            estimatedRealizedPnlKrw = estimatedRealizedPnlKrw.add(day.getEstimatedRealizedPnlKrw());
+            netCashFlowKrw = netCashFlowKrw.add(day.getNetCashFlowKrw());
+            buyNotionalKrw = buyNotionalKrw.add(day.getBuyNotionalKrw());
+            sellNotionalKrw = sellNotionalKrw.add(day.getSellNotionalKrw());
+            unmatchedSellNotionalKrw = unmatchedSellNotionalKrw.add(day.getUnmatchedSellNotionalKrw());
+            estimatedFeeKrw = estimatedFeeKrw.add(day.getEstimatedFeeKrw());
+            buyCount += day.getBuyCount();
+            sellCount += day.getSellCount();
+            matchedSellCount += day.getMatchedSellCount();
+            winningSellCount += day.getWinningSellCount();
+            losingSellCount += day.getLosingSellCount();
+        }
+
+        private void touch(LocalDate date) {
+            if (date == null) {
+                return;
+            }
+            if (firstDate == null || date.isBefore(firstDate)) {
+                firstDate = date;
+            }
+            if (lastDate == null || date.isAfter(lastDate)) {
+                lastDate = date;
+            }
+        }
+
+        private PortfolioPerformanceDailyEntity toDaily(LocalDate date) {
+            PortfolioPerformanceDailyEntity day = new PortfolioPerformanceDailyEntity(date);
+            day.setEstimatedRealizedPnlKrw(estimatedRealizedPnlKrw);
+            day.setNetCashFlowKrw(netCashFlowKrw);
+            day.setBuyNotionalKrw(buyNotionalKrw);
+            day.setSellNotionalKrw(sellNotionalKrw);
+            day.setUnmatchedSellNotionalKrw(unmatchedSellNotionalKrw);
+            day.setEstimatedFeeKrw(estimatedFeeKrw);
+            day.setBuyCount(buyCount);
+            day.setSellCount(sellCount);
+            day.setMatchedSellCount(matchedSellCount);
+            day.setWinningSellCount(winningSellCount);
+            day.setLosingSellCount(losingSellCount);
+            return day;
+        }
+
         private PortfolioPerformanceMetrics toMetrics(String period) {
             BigDecimal winRate = null;
             if (matchedSellCount > 0) {
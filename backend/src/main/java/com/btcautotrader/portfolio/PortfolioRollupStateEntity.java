@@ -0,0 +1,62 @@
+package com.btcautotrader.portfolio;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+
+@Entity
+@Table(name = "portfolio_rollup_state")
+public class PortfolioRollupStateEntity {
+    static final long SINGLETON_ID = 1L;
+
+    @Id
+    private Long id;
+
+    /** First report day not yet rolled up; decisions from this day on are replayed per request. */
+    @Column(name = "rolled_through", nullable = false)
+    private LocalDate rolledThrough;
+
+    @Column(name = "trade_cost_rate", nullable = false, columnDefinition = "numeric")
+    private BigDecimal tradeCostRate;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+
+    public PortfolioRollupStateEntity() {
+    }
+
+    public PortfolioRollupStateEntity(LocalDate rolledThrough, BigDecimal tradeCostRate) {
+        this.id = SINGLETON_ID;
+        this.rolledThrough = rolledThrough;
+        this.tradeCostRate = tradeCostRate;
+    }
+
+    @PrePersist
+    @PreUpdate
+    private void touch() {
+        this.updatedAt = OffsetDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDate getRolledThrough() {
+        return rolledThrough;
+    }
+
+    public BigDecimal getTradeCostRate() {
+        return tradeCostRate;
+    }
+
+    public OffsetDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
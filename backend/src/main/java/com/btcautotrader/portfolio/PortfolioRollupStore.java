@@ -0,0 +1,69 @@
+package com.btcautotrader.portfolio;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Persistence for the performance rollups; each checkpoint (days, inventory, watermark) is written atomically.
+ */
+@Service
+public class PortfolioRollupStore {
+    private final PortfolioRollupStateRepository stateRepository;
+    private final PortfolioPerformanceDailyRepository dailyRepository;
+    private final PortfolioInventorySnapshotRepository inventoryRepository;
+
+    public PortfolioRollupStore(
+            PortfolioRollupStateRepository stateRepository,
+            PortfolioPerformanceDailyRepository dailyRepository,
+            PortfolioInventorySnapshotRepository inventoryRepository
+    ) {
+        this.stateRepository = stateRepository;
+        this.dailyRepository = dailyRepository;
+        this.inventoryRepository = inventoryRepository;
+    }
+
+    @Transactional(readOnly = true)
+    public Checkpoint load() {
+        PortfolioRollupStateEntity state = stateRepository.findById(PortfolioRollupStateEntity.SINGLETON_ID).orElse(null);
+        if (state == null) {
+            return null;
+        }
+        return new Checkpoint(state.getRolledThrough(), state.getTradeCostRate(), inventoryRepository.findAll());
+    }
+
+    @Transactional(readOnly = true)
+    public List<PortfolioPerformanceDailyEntity> findDays(LocalDate from, LocalDate to) {
+        return dailyRepository.findByReportDateBetweenOrderByReportDateAsc(from, to);
+    }
+
+    @Transactional
+    public void save(
+            LocalDate rolledThrough,
+            BigDecimal tradeCostRate,
+            List<PortfolioPerformanceDailyEntity> days,
+            List<PortfolioInventorySnapshotEntity> inventory
+    ) {
+        dailyRepository.saveAll(days);
+        inventoryRepository.deleteAllInBatch();
+        inventoryRepository.saveAll(inventory);
+        stateRepository.save(new PortfolioRollupStateEntity(rolledThrough, tradeCostRate));
+    }
+
+    @Transactional
+    public void reset() {
+        dailyRepository.deleteAllInBatch();
+        inventoryRepository.deleteAllInBatch();
+        stateRepository.deleteAllInBatch();
+    }
+
+    public record Checkpoint(
+            LocalDate rolledThrough,
+            BigDecimal tradeCostRate,
+            List<PortfolioInventorySnapshotEntity> inventory
+    ) {
+    }
+}
@@ -1,6 +1,9 @@
 package com.btcautotrader.portfolio;
 
+import com.btcautotrader.market.MarketDataFeed;
+import com.btcautotrader.upbit.UpbitAccount;
 import com.btcautotrader.upbit.UpbitService;
+import com.btcautotrader.upbit.UpbitTicker;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -13,28 +16,26 @@ import java.util.Map;
 @Service
 public class PortfolioService {
     private final UpbitService upbitService;
+    private final MarketDataFeed marketDataFeed;
 
-    public PortfolioService(UpbitService upbitService) {
+    public PortfolioService(UpbitService upbitService, MarketDataFeed marketDataFeed) {
         this.upbitService = upbitService;
+        this.marketDataFeed = marketDataFeed;
     }
 
     public PortfolioSummary getSummary() {
-        List<Map<String, Object>> accounts = upbitService.fetchAccounts();
+        List<UpbitAccount> accounts = upbitService.fetchAccounts();
         CashBalance cash = null;
         List<Position> rawPositions = new ArrayList<>();
         List<String> markets = new ArrayList<>();
 
-        for (Map<String, Object> account : accounts) {
-            String currency = asString(account.get("currency"));
-            if (currency == null) {
-                continue;
-            }
-
-            String unitCurrency = asString(account.get("unit_currency"));
-            BigDecimal balance = toDecimal(account.get("balance"));
-            BigDecimal locked = toDecimal(account.get("locked"));
+        for (UpbitAccount account : accounts) {
+            String currency = account.currency();
+            String unitCurrency = account.unitCurrency();
+            BigDecimal balance = account.balance();
+            BigDecimal locked = account.locked();
             BigDecimal total = balance.add(locked);
-            BigDecimal avgBuyPrice = toDecimal(account.get("avg_buy_price"));
+            BigDecimal avgBuyPrice = account.avgBuyPrice();
 
             if ("KRW".equalsIgnoreCase(currency)) {
                 cash = new CashBalance("KRW", balance, locked, total);
@@ -63,17 +64,24 @@ public class PortfolioService {
             markets.add(market);
         }
 
-        Map<String, Map<String, Object>> tickers = upbitService.fetchTickers(markets);
+        Map<String, BigDecimal> livePrices = marketDataFeed.lastPrices(markets);
+        List<String> restMarkets = new ArrayList<>();
+        for (String market : markets) {
+            if (!livePrices.containsKey(market)) {
+                restMarkets.add(market);
+            }
+        }
+        Map<String, UpbitTicker> tickers = upbitService.fetchTickers(restMarkets);
 
         BigDecimal positionValueTotal = BigDecimal.ZERO;
         BigDecimal positionCostTotal = BigDecimal.ZERO;
 
         List<Position> positions = new ArrayList<>();
         for (Position position : rawPositions) {
-            Map<String, Object> ticker = tickers.get(position.market());
-            BigDecimal currentPrice = null;
-            if (ticker != null) {
-                currentPrice = toDecimal(ticker.get("trade_price"));
+            UpbitTicker ticker = tickers.get(position.market());
+            BigDecimal currentPrice = livePrices.get(position.market());
+            if (currentPrice == null && ticker != null) {
+                currentPrice = ticker.tradePrice();
             }
 
             BigDecimal valuation = currentPrice == null ? null : currentPrice.multiply(position.quantity());
@@ -140,31 +148,6 @@ public class PortfolioService {
         return numerator.divide(denominator, 8, RoundingMode.HALF_UP);
     }
 
-    private static BigDecimal toDecimal(Object value) {
-        if (value == null) {
-            return BigDecimal.ZERO;
-        }
-        if (value instanceof BigDecimal bigDecimal) {
-            return bigDecimal;
-        }
-        if (value instanceof Number number) {
-            return new BigDecimal(number.toString());
-        }
-        String text = value.toString().trim();
-        if (text.isEmpty()) {
-            return BigDecimal.ZERO;
-        }
-        try {
-            return new BigDecimal(text);
-        } catch (NumberFormatException ex) {
-            return BigDecimal.ZERO;
-        }
-    }
-
-    private static String asString(Object value) {
-        return value == null ? null : value.toString();
-    }
-
     private static boolean isBlank(String value) {
         return value == null || value.trim().isEmpty();
     }
@@ -0,0 +1,42 @@
+package com.btcautotrader.portfolio;
+
+import com.btcautotrader.engine.TradeDecisionReplayRow;
+import com.btcautotrader.engine.TradeDecisionRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Feeds BUY/SELL decisions to a replay in execution order over a forward-only cursor. Rows are projections, so
+ * nothing accumulates in the persistence context and the details payload is never read.
+ */
+@Component
+public class TradeDecisionReplayReader {
+    private final TradeDecisionRepository tradeDecisionRepository;
+
+    public TradeDecisionReplayReader(TradeDecisionRepository tradeDecisionRepository) {
+        this.tradeDecisionRepository = tradeDecisionRepository;
+    }
+
+    /**
+     * Streams decisions in {@code [from, toExclusive)}; a null {@code from} starts at the beginning of history.
+     * The cursor only lives inside this read-only transaction, so {@code consumer} must not keep the stream.
+     */
+    @Transactional(readOnly = true)
+    public void replay(
+            Collection<String> actions,
+            OffsetDateTime from,
+            OffsetDateTime toExclusive,
+            Consumer<TradeDecisionReplayRow> consumer
+    ) {
+        try (Stream<TradeDecisionReplayRow> rows = from == null
+                ? tradeDecisionRepository.streamReplayRowsBefore(actions, toExclusive)
+                : tradeDecisionRepository.streamReplayRowsBetween(actions, from, toExclusive)) {
+            rows.forEach(consumer);
+        }
+    }
+}
@@ -24,9 +24,11 @@ public class StrategyController {
     private static final Pattern MARKET_CODE_PATTERN = Pattern.compile("^[A-Z]{2,10}-[A-Z0-9]{2,15}$");
 
     private final StrategyService strategyService;
+    private final StrategySnapshotCache strategySnapshotCache;
 
-    public StrategyController(StrategyService strategyService) {
+    public StrategyController(StrategyService strategyService, StrategySnapshotCache strategySnapshotCache) {
         this.strategyService = strategyService;
+        this.strategySnapshotCache = strategySnapshotCache;
     }
 
     @GetMapping
@@ -74,7 +76,9 @@ public class StrategyController {
             return ResponseEntity.badRequest().body(error);
         }
 
-        return ResponseEntity.ok(strategyService.replaceMarkets(markets));
+        StrategyMarketsResponse updated = strategyService.replaceMarkets(markets);
+        strategySnapshotCache.invalidate();
+        return ResponseEntity.ok(updated);
     }
 
     @PutMapping
@@ -104,7 +108,9 @@ public class StrategyController {
             return ResponseEntity.badRequest().body(error);
         }
 
-        return ResponseEntity.ok(strategyService.updateConfig(config));
+        StrategyConfig updated = strategyService.updateConfig(config);
+        strategySnapshotCache.invalidate();
+        return ResponseEntity.ok(updated);
     }
 
     @PatchMapping("/ratios")
@@ -131,7 +137,9 @@ public class StrategyController {
             return ResponseEntity.badRequest().body(error);
         }
 
-        return ResponseEntity.ok(strategyService.updateRatios(request));
+        StrategyConfig updated = strategyService.updateRatios(request);
+        strategySnapshotCache.invalidate();
+        return ResponseEntity.ok(updated);
     }
 
     @PutMapping("/market-overrides")
@@ -173,7 +181,9 @@ public class StrategyController {
                 profileByMarket,
                 ratiosByMarket
         );
-        return ResponseEntity.ok(strategyService.replaceMarketOverrides(normalized));
+        StrategyMarketOverridesResponse updated = strategyService.replaceMarketOverrides(normalized);
+        strategySnapshotCache.invalidate();
+        return ResponseEntity.ok(updated);
     }
 
     @PutMapping("/overrides")
@@ -0,0 +1,17 @@
+package com.btcautotrader.strategy;
+
+import java.util.List;
+
+/**
+ * Immutable view of the strategy config, per-market overrides and market list as of {@code version}.
+ */
+public record StrategySnapshot(
+        long version,
+        StrategyConfig config,
+        StrategyMarketOverrides marketOverrides,
+        List<String> markets
+) {
+    public StrategySnapshot {
+        markets = List.copyOf(markets);
+    }
+}
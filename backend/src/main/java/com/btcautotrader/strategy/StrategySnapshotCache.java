@@ -0,0 +1,164 @@
+package com.btcautotrader.strategy;
+
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the strategy state the engine reads every tick as one immutable {@link StrategySnapshot}, so a read is a
+ * single atomic load instead of three repository round trips. The snapshot is rebuilt only when the strategy API
+ * changes state ({@link #invalidate()}); with {@code strategy.snapshot.notify.enabled} the change is also broadcast
+ * over Postgres {@code NOTIFY} so other instances rebuild theirs.
+ */
+@Component
+public class StrategySnapshotCache {
+    private static final Logger log = LoggerFactory.getLogger(StrategySnapshotCache.class);
+    static final String NOTIFY_CHANNEL = "strategy_snapshot_changed";
+
+    private final StrategyService strategyService;
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final boolean notifyEnabled;
+    private final int notifyPollMs;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicReference<StrategySnapshot> current = new AtomicReference<>();
+
+    private volatile boolean listening;
+    private Thread listener;
+
+    public StrategySnapshotCache(
+            StrategyService strategyService,
+            JdbcTemplate jdbcTemplate,
+            DataSource dataSource,
+            @Value("${strategy.snapshot.notify.enabled:false}") boolean notifyEnabled,
+            @Value("${strategy.snapshot.notify.poll-ms:1000}") int notifyPollMs
+    ) {
+        this.strategyService = strategyService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.notifyEnabled = notifyEnabled;
+        this.notifyPollMs = Math.max(100, notifyPollMs);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void warmUp() {
+        get();
+        if (notifyEnabled && listener == null) {
+            listening = true;
+            listener = new Thread(this::listenLoop, "strategy-snapshot-listener");
+            listener.setDaemon(true);
+            listener.start();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        listening = false;
+        if (listener != null) {
+            listener.interrupt();
+            listener = null;
+        }
+    }
+
+    public StrategySnapshot get() {
+        StrategySnapshot snapshot = current.get();
+        if (snapshot != null) {
+            return snapshot;
+        }
+        return reload();
+    }
+
+    /**
+     * Rebuilds the snapshot after a committed strategy change and tells the other instances to do the same.
+     */
+    public StrategySnapshot invalidate() {
+        version.incrementAndGet();
+        StrategySnapshot snapshot = reload();
+        if (notifyEnabled) {
+            try {
+                jdbcTemplate.queryForList("select pg_notify(?, ?)", String.class, NOTIFY_CHANNEL, instanceId);
+            } catch (RuntimeException ex) {
+                log.warn("Failed to broadcast strategy snapshot change", ex);
+            }
+        }
+        return snapshot;
+    }
+
+    long version() {
+        return version.get();
+    }
+
+    private StrategySnapshot reload() {
+        // Stamp before loading so a load that started ahead of a newer invalidation can never replace its result.
+        long loadVersion = version.get();
+        StrategySnapshot loaded = new StrategySnapshot(
+                loadVersion,
+                strategyService.getConfig(),
+                strategyService.getMarketOverridesSnapshot(),
+                strategyService.configuredMarkets()
+        );
+        return current.accumulateAndGet(loaded, (existing, candidate) ->
+                existing == null || candidate.version() > existing.version() ? candidate : existing
+        );
+    }
+
+    private void remoteChanged() {
+        version.incrementAndGet();
+        reload();
+    }
+
+    private void listenLoop() {
+        while (listening) {
+            try (Connection connection = dataSource.getConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + NOTIFY_CHANNEL);
+                }
+                // Changes may have been missed while disconnected.
+                remoteChanged();
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (listening) {
+                    PGNotification[] notifications = pgConnection.getNotifications(notifyPollMs);
+                    if (notifications != null && hasRemoteChange(notifications)) {
+                        remoteChanged();
+                    }
+                }
+            } catch (SQLException | RuntimeException ex) {
+                if (!listening) {
+                    return;
+                }
+                log.warn("Strategy snapshot listener disconnected; retrying", ex);
+                try {
+                    Thread.sleep(notifyPollMs * 5L);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private boolean hasRemoteChange(PGNotification[] notifications) {
+        for (PGNotification notification : notifications) {
+            if (!instanceId.equals(notification.getParameter())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
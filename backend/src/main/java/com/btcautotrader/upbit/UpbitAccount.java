@@ -0,0 +1,12 @@
+package com.btcautotrader.upbit;
+
+import java.math.BigDecimal;
+
+public record UpbitAccount(
+        String currency,
+        String unitCurrency,
+        BigDecimal balance,
+        BigDecimal locked,
+        BigDecimal avgBuyPrice
+) {
+}
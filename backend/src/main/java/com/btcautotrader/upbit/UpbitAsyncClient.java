@@ -0,0 +1,32 @@
+package com.btcautotrader.upbit;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@link UpbitService} for callers that fan out many requests at once.
+ * Futures complete exceptionally with {@link UpbitApiException} on HTTP or transport errors.
+ */
+public interface UpbitAsyncClient {
+    int MAX_ORDERS_PER_LOOKUP = 100;
+
+    CompletableFuture<List<UpbitAccount>> fetchAccounts();
+
+    CompletableFuture<Map<String, UpbitTicker>> fetchTickers(List<String> markets);
+
+    CompletableFuture<UpbitCandleBatch> fetchMinuteCandles(String market, int unit, int count);
+
+    /**
+     * Completes with null when Upbit does not know the identifier.
+     */
+    CompletableFuture<UpbitOrderResponse> fetchOrderByIdentifier(String identifier);
+
+    /**
+     * Looks up to {@link #MAX_ORDERS_PER_LOOKUP} orders by client identifier in one request; identifiers Upbit does
+     * not know are simply absent from the result.
+     */
+    CompletableFuture<List<UpbitOrderResponse>> fetchOrdersByIdentifiers(List<String> identifiers);
+
+    CompletableFuture<Map<String, Object>> fetchOrderChance(String market);
+}
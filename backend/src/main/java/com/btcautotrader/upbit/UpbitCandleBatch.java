@@ -0,0 +1,97 @@
+package com.btcautotrader.upbit;
+
+import java.util.Arrays;
+
+/**
+ * Minute candles decoded straight into primitive columns, in response order (newest first).
+ */
+public final class UpbitCandleBatch {
+    private long[] openTimeMs;
+    private double[] open;
+    private double[] high;
+    private double[] low;
+    private double[] close;
+    private double[] volume;
+    private double[] quoteVolume;
+    private int size;
+
+    public UpbitCandleBatch(int capacity) {
+        int safeCapacity = Math.max(1, capacity);
+        this.openTimeMs = new long[safeCapacity];
+        this.open = new double[safeCapacity];
+        this.high = new double[safeCapacity];
+        this.low = new double[safeCapacity];
+        this.close = new double[safeCapacity];
+        this.volume = new double[safeCapacity];
+        this.quoteVolume = new double[safeCapacity];
+    }
+
+    public void add(
+            long openTimeMs,
+            double open,
+            double high,
+            double low,
+            double close,
+            double volume,
+            double quoteVolume
+    ) {
+        if (size == this.openTimeMs.length) {
+            grow();
+        }
+        this.openTimeMs[size] = openTimeMs;
+        this.open[size] = open;
+        this.high[size] = high;
+        this.low[size] = low;
+        this.close[size] = close;
+        this.volume[size] = volume;
+        this.quoteVolume[size] = quoteVolume;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long openTimeMs(int index) {
+        return openTimeMs[index];
+    }
+
+    public double open(int index) {
+        return open[index];
+    }
+
+    public double high(int index) {
+        return high[index];
+    }
+
+    public double low(int index) {
+        return low[index];
+    }
+
+    public double close(int index) {
+        return close[index];
+    }
+
+    public double volume(int index) {
+        return volume[index];
+    }
+
+    public double quoteVolume(int index) {
+        return quoteVolume[index];
+    }
+
+    private void grow() {
+        int capacity = openTimeMs.length * 2;
+        openTimeMs = Arrays.copyOf(openTimeMs, capacity);
+        open = Arrays.copyOf(open, capacity);
+        high = Arrays.copyOf(high, capacity);
+        low = Arrays.copyOf(low, capacity);
+        close = Arrays.copyOf(close, capacity);
+        volume = Arrays.copyOf(volume, capacity);
+        quoteVolume = Arrays.copyOf(quoteVolume, capacity);
+    }
+}
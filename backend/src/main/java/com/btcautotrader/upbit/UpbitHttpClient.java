@@ -0,0 +1,308 @@
+package com.btcautotrader.upbit;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * {@link UpbitAsyncClient} on the JDK {@link HttpClient}: HTTP/2 when the server negotiates it, otherwise pooled
+ * keep-alive HTTP/1.1 connections. The number of requests on the wire is capped so HTTP/1.1 fan-out reuses a
+ * bounded set of connections instead of opening one per call.
+ */
+@Component
+public class UpbitHttpClient implements UpbitAsyncClient {
+    private static final int MAX_THROTTLE_RETRIES = 2;
+    private static final TypeReference<List<UpbitOrderResponse>> ORDER_LIST_TYPE = new TypeReference<>() {
+    };
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    private final String baseUrl;
+    private final UpbitJwtSigner signer;
+    private final UpbitRateLimiter rateLimiter;
+    private final Duration requestTimeout;
+    private final ObjectReader mapReader;
+    private final ObjectReader orderReader;
+    private final ObjectReader orderListReader;
+    private final ExecutorService executor;
+    private final HttpClient httpClient;
+    private final Semaphore inFlight;
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+
+    public UpbitHttpClient(
+            ObjectMapper objectMapper,
+            UpbitJwtSigner signer,
+            UpbitRateLimiter rateLimiter,
+            @Value("${upbit.http.base-url:https://api.upbit.com}") String baseUrl,
+            @Value("${upbit.http.threads:4}") int threads,
+            @Value("${upbit.http.max-in-flight:16}") int maxInFlight,
+            @Value("${upbit.http.request-timeout-ms:10000}") long requestTimeoutMs
+    ) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.signer = signer;
+        this.rateLimiter = rateLimiter;
+        this.requestTimeout = Duration.ofMillis(Math.max(100, requestTimeoutMs));
+        ObjectReader reader = objectMapper.reader().without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.mapReader = reader.forType(MAP_TYPE);
+        this.orderReader = reader.forType(UpbitOrderResponse.class);
+        this.orderListReader = reader.forType(ORDER_LIST_TYPE);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "upbit-http-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(executor)
+                .build();
+        this.inFlight = new Semaphore(Math.max(1, maxInFlight));
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public CompletableFuture<List<UpbitAccount>> fetchAccounts() {
+        CompletableFuture<List<UpbitAccount>> accounts = send(new Call<>(
+                UpbitRateGroup.EXCHANGE_DEFAULT,
+                true,
+                false,
+                () -> signedGet("/v1/accounts", null),
+                UpbitJsonDecoder::readAccounts
+        ));
+        return accounts.thenApply(body -> body == null ? List.of() : body);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, UpbitTicker>> fetchTickers(List<String> markets) {
+        if (markets == null || markets.isEmpty()) {
+            return CompletableFuture.completedFuture(Map.of());
+        }
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("markets", String.join(",", markets));
+        String path = "/v1/ticker?" + UpbitJwtSigner.queryString(params);
+        CompletableFuture<Map<String, UpbitTicker>> tickers = send(new Call<>(
+                UpbitRateGroup.TICKER,
+                true,
+                false,
+                () -> get(path).build(),
+                UpbitJsonDecoder::readTickers
+        ));
+        return tickers.thenApply(body -> body == null ? Map.of() : body);
+    }
+
+    @Override
+    public CompletableFuture<UpbitCandleBatch> fetchMinuteCandles(String market, int unit, int count) {
+        if (unit <= 0) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("unit must be positive"));
+        }
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("market", market);
+        params.put("count", String.valueOf(Math.max(1, Math.min(count, 200))));
+        String path = "/v1/candles/minutes/" + unit + "?" + UpbitJwtSigner.queryString(params);
+        CompletableFuture<UpbitCandleBatch> candles = send(new Call<>(
+                UpbitRateGroup.CANDLES,
+                true,
+                false,
+                () -> get(path).build(),
+                UpbitJsonDecoder::readCandles
+        ));
+        return candles.thenApply(body -> body == null ? new UpbitCandleBatch(1) : body);
+    }
+
+    @Override
+    public CompletableFuture<UpbitOrderResponse> fetchOrderByIdentifier(String identifier) {
+        if (identifier == null || identifier.isBlank()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("identifier", identifier);
+        String queryString = UpbitJwtSigner.queryString(params);
+        return send(new Call<>(
+                UpbitRateGroup.EXCHANGE_DEFAULT,
+                true,
+                true,
+                () -> signedGet("/v1/order?" + queryString, queryString),
+                orderReader::readValue
+        ));
+    }
+
+    @Override
+    public CompletableFuture<List<UpbitOrderResponse>> fetchOrdersByIdentifiers(List<String> identifiers) {
+        if (identifiers == null || identifiers.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        if (identifiers.size() > MAX_ORDERS_PER_LOOKUP) {
+            return CompletableFuture.failedFuture(
+                    new IllegalArgumentException("at most " + MAX_ORDERS_PER_LOOKUP + " identifiers per lookup")
+            );
+        }
+        String queryString = UpbitJwtSigner.arrayQueryString("identifiers", identifiers);
+        String signedQuery = UpbitJwtSigner.decodedQueryString(queryString);
+        CompletableFuture<List<UpbitOrderResponse>> orders = send(new Call<>(
+                UpbitRateGroup.EXCHANGE_DEFAULT,
+                true,
+                false,
+                () -> signedGet("/v1/orders/uuids?" + queryString, signedQuery),
+                orderListReader::readValue
+        ));
+        return orders.thenApply(body -> body == null ? List.of() : body);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object>> fetchOrderChance(String market) {
+        if (market == null || market.isBlank()) {
+            return CompletableFuture.completedFuture(Map.of());
+        }
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("market", market);
+        String queryString = UpbitJwtSigner.queryString(params);
+        CompletableFuture<Map<String, Object>> chance = send(new Call<>(
+                UpbitRateGroup.EXCHANGE_DEFAULT,
+                true,
+                false,
+                () -> signedGet("/v1/orders/chance?" + queryString, queryString),
+                mapReader::readValue
+        ));
+        return chance.thenApply(body -> body == null ? Map.of() : body);
+    }
+
+    private HttpRequest.Builder get(String pathAndQuery) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + pathAndQuery))
+                .timeout(requestTimeout)
+                .header("Accept", "application/json")
+                .GET();
+    }
+
+    private HttpRequest signedGet(String pathAndQuery, String queryString) {
+        return get(pathAndQuery)
+                .header("Authorization", signer.authorization(queryString))
+                .build();
+    }
+
+    private <T> CompletableFuture<T> send(Call<T> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        attempt(call, 0, result);
+        return result;
+    }
+
+    /**
+     * Waits for the rate limit without holding a thread, then for a free in-flight slot. The request (and its JWT
+     * nonce) is built only when it is about to go out.
+     */
+    private <T> void attempt(Call<T> call, int throttled, CompletableFuture<T> result) {
+        rateLimiter.acquireAsync(call.group()).thenRun(() -> submit(() -> {
+            HttpRequest request;
+            try {
+                request = call.request().get();
+            } catch (RuntimeException ex) {
+                release();
+                result.completeExceptionally(ex);
+                return;
+            }
+            httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                    .whenComplete((response, error) -> {
+                        release();
+                        if (error != null) {
+                            result.completeExceptionally(new UpbitApiException(502, rootMessage(error)));
+                            return;
+                        }
+                        complete(call, throttled, response, result);
+                    });
+        }));
+    }
+
+    private <T> void complete(Call<T> call, int throttled, HttpResponse<byte[]> response, CompletableFuture<T> result) {
+        rateLimiter.onRemainingReq(response.headers().firstValue(UpbitRateLimiter.REMAINING_REQ_HEADER).orElse(null));
+        int status = response.statusCode();
+        byte[] body = response.body();
+        if (status == 429) {
+            rateLimiter.onThrottled(call.group());
+            if (call.retryOnThrottle() && throttled < MAX_THROTTLE_RETRIES) {
+                attempt(call, throttled + 1, result);
+                return;
+            }
+        }
+        if (status == 404 && call.nullOnNotFound()) {
+            result.complete(null);
+            return;
+        }
+        if (status < 200 || status >= 300) {
+            result.completeExceptionally(new UpbitApiException(status, new String(body, StandardCharsets.UTF_8)));
+            return;
+        }
+        try {
+            T decoded = body.length == 0 ? null : UpbitJsonDecoder.decode(body, call.reader());
+            result.complete(decoded);
+        } catch (IOException ex) {
+            result.completeExceptionally(new UpbitApiException(502, ex.getMessage()));
+        }
+    }
+
+    private void submit(Runnable task) {
+        waiting.add(task);
+        drain();
+    }
+
+    private void release() {
+        inFlight.release();
+        drain();
+    }
+
+    private void drain() {
+        while (!waiting.isEmpty() && inFlight.tryAcquire()) {
+            Runnable task = waiting.poll();
+            if (task == null) {
+                inFlight.release();
+                continue;
+            }
+            task.run();
+        }
+    }
+
+    private static String rootMessage(Throwable error) {
+        Throwable cause = error;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        String message = cause.getMessage();
+        return message == null ? cause.getClass().getSimpleName() : message;
+    }
+
+    private record Call<T>(
+            UpbitRateGroup group,
+            boolean retryOnThrottle,
+            boolean nullOnNotFound,
+            Supplier<HttpRequest> request,
+            UpbitJsonDecoder.Reader<T> reader
+    ) {
+    }
+}
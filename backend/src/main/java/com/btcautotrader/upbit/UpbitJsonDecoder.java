@@ -0,0 +1,289 @@
+package com.btcautotrader.upbit;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming decoders for the hot Upbit responses. Only the fields the engine reads are materialized; everything
+ * else is skipped in the token stream without building maps or strings.
+ */
+final class UpbitJsonDecoder {
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final int CANDLE_BATCH_CAPACITY = 200;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    interface Reader<T> {
+        T read(JsonParser parser) throws IOException;
+    }
+
+    private UpbitJsonDecoder() {
+    }
+
+    static <T> T decode(InputStream body, Reader<T> reader) throws IOException {
+        try (JsonParser parser = JSON.createParser(body)) {
+            return reader.read(parser);
+        }
+    }
+
+    static <T> T decode(byte[] body, Reader<T> reader) throws IOException {
+        try (JsonParser parser = JSON.createParser(body)) {
+            return reader.read(parser);
+        }
+    }
+
+    static UpbitCandleBatch readCandles(JsonParser parser) throws IOException {
+        UpbitCandleBatch batch = new UpbitCandleBatch(CANDLE_BATCH_CAPACITY);
+        if (!startArray(parser)) {
+            return batch;
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            long openTimeMs = -1;
+            double open = 0.0;
+            double high = 0.0;
+            double low = 0.0;
+            double close = 0.0;
+            double volume = 0.0;
+            double quoteVolume = 0.0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "candle_date_time_utc" -> openTimeMs = readUtcMillis(parser);
+                    case "opening_price" -> open = readDouble(parser);
+                    case "high_price" -> high = readDouble(parser);
+                    case "low_price" -> low = readDouble(parser);
+                    case "trade_price" -> close = readDouble(parser);
+                    case "candle_acc_trade_volume" -> volume = readDouble(parser);
+                    case "candle_acc_trade_price" -> quoteVolume = readDouble(parser);
+                    default -> parser.skipChildren();
+                }
+            }
+            if (openTimeMs > 0) {
+                batch.add(openTimeMs, open, high, low, close, volume, quoteVolume);
+            }
+        }
+        return batch;
+    }
+
+    static Map<String, UpbitTicker> readTickers(JsonParser parser) throws IOException {
+        Map<String, UpbitTicker> byMarket = new HashMap<>();
+        if (!startArray(parser)) {
+            return byMarket;
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String market = null;
+            BigDecimal tradePrice = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "market" -> market = readText(parser);
+                    case "trade_price" -> tradePrice = readDecimal(parser);
+                    default -> parser.skipChildren();
+                }
+            }
+            if (market != null) {
+                byMarket.put(market, new UpbitTicker(market, tradePrice));
+            }
+        }
+        return byMarket;
+    }
+
+    static List<UpbitAccount> readAccounts(JsonParser parser) throws IOException {
+        List<UpbitAccount> accounts = new ArrayList<>();
+        if (!startArray(parser)) {
+            return accounts;
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String currency = null;
+            String unitCurrency = null;
+            BigDecimal balance = BigDecimal.ZERO;
+            BigDecimal locked = BigDecimal.ZERO;
+            BigDecimal avgBuyPrice = BigDecimal.ZERO;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "currency" -> currency = readText(parser);
+                    case "unit_currency" -> unitCurrency = readText(parser);
+                    case "balance" -> balance = readDecimal(parser);
+                    case "locked" -> locked = readDecimal(parser);
+                    case "avg_buy_price" -> avgBuyPrice = readDecimal(parser);
+                    default -> parser.skipChildren();
+                }
+            }
+            if (currency != null) {
+                accounts.add(new UpbitAccount(currency, unitCurrency, balance, locked, avgBuyPrice));
+            }
+        }
+        return accounts;
+    }
+
+    private static boolean startArray(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            return false;
+        }
+        if (token != JsonToken.START_ARRAY) {
+            throw new IOException("Expected a JSON array from Upbit but got " + token);
+        }
+        return true;
+    }
+
+    private static String readText(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getText();
+    }
+
+    private static double readDouble(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+            double value = parseShortDecimal(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+            return Double.isNaN(value) ? parser.getDoubleValue() : value;
+        }
+        if (token != JsonToken.VALUE_STRING) {
+            parser.skipChildren();
+            return 0.0;
+        }
+        String text = parser.getText().trim();
+        if (text.isEmpty()) {
+            return 0.0;
+        }
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException ex) {
+            return 0.0;
+        }
+    }
+
+    private static BigDecimal readDecimal(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+            return parser.getDecimalValue();
+        }
+        if (token != JsonToken.VALUE_STRING) {
+            parser.skipChildren();
+            return BigDecimal.ZERO;
+        }
+        String text = parser.getText().trim();
+        if (text.isEmpty()) {
+            return BigDecimal.ZERO;
+        }
+        try {
+            return new BigDecimal(text);
+        } catch (NumberFormatException ex) {
+            return BigDecimal.ZERO;
+        }
+    }
+
+    /**
+     * Exact parse of plain decimals with at most 15 significant digits (prices and volumes Upbit sends):
+     * the digits fit a double exactly and so does the power of ten, so one division rounds correctly.
+     * Returns NaN for anything else (exponents, longer mantissas) so the caller falls back to Jackson.
+     */
+    private static double parseShortDecimal(char[] chars, int offset, int length) {
+        int end = offset + length;
+        int i = offset;
+        boolean negative = i < end && chars[i] == '-';
+        if (negative) {
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean fraction = false;
+        for (; i < end; i++) {
+            char c = chars[i];
+            if (c == '.' && !fraction) {
+                fraction = true;
+                continue;
+            }
+            if (c < '0' || c > '9') {
+                return Double.NaN;
+            }
+            if (mantissa != 0 || c != '0') {
+                if (++digits > 15) {
+                    return Double.NaN;
+                }
+            }
+            mantissa = mantissa * 10 + (c - '0');
+            if (fraction) {
+                fractionDigits++;
+            }
+        }
+        if (fractionDigits >= POWERS_OF_TEN.length) {
+            return Double.NaN;
+        }
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses {@code yyyy-MM-ddTHH:mm:ss} from the parser's character buffer without creating a String;
+     * anything else goes through {@link LocalDateTime#parse}.
+     */
+    private static long readUtcMillis(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.VALUE_STRING) {
+            parser.skipChildren();
+            return -1;
+        }
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        if (parser.getTextLength() == 19
+                && chars[offset + 4] == '-' && chars[offset + 7] == '-' && chars[offset + 10] == 'T'
+                && chars[offset + 13] == ':' && chars[offset + 16] == ':') {
+            int year = digits(chars, offset, 4);
+            int month = digits(chars, offset + 5, 2);
+            int day = digits(chars, offset + 8, 2);
+            int hour = digits(chars, offset + 11, 2);
+            int minute = digits(chars, offset + 14, 2);
+            int second = digits(chars, offset + 17, 2);
+            if (year >= 0 && month >= 1 && month <= 12 && day >= 1 && day <= 31
+                    && hour >= 0 && hour < 24 && minute >= 0 && minute < 60 && second >= 0 && second < 60) {
+                long epochDay = epochDay(year, month, day);
+                return ((epochDay * 24 + hour) * 60 + minute) * 60_000L + second * 1000L;
+            }
+        }
+        try {
+            return LocalDateTime.parse(parser.getText().trim()).toInstant(ZoneOffset.UTC).toEpochMilli();
+        } catch (DateTimeParseException ex) {
+            return -1;
+        }
+    }
+
+    private static int digits(char[] chars, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    // Days since 1970-01-01 for a proleptic Gregorian date (Howard Hinnant's days_from_civil).
+    private static long epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097 + dayOfEra - 719_468;
+    }
+}
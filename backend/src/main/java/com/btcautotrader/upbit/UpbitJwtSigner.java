@@ -0,0 +1,186 @@
+package com.btcautotrader.upbit;
+
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Builds the Upbit exchange API {@code Authorization} header shared by the blocking and async clients.
+ * Tokens are HS512 JWTs assembled directly into a byte buffer: the header and the access-key part of the payload are
+ * encoded once, and each thread keeps a keyed {@link Mac} and a SHA-512 digest, so signing a request costs one UUID,
+ * one digest and one HMAC.
+ */
+@Component
+public class UpbitJwtSigner {
+    private static final String HMAC_ALGORITHM = "HmacSHA512";
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ENCODED_HEADER = BASE64_URL.encode(ascii("{\"alg\":\"HS512\",\"typ\":\"JWT\"}"));
+    private static final byte[] QUERY_HASH_CLAIM = ascii("\",\"query_hash\":\"");
+    private static final byte[] QUERY_HASH_ALG_CLAIM = ascii("\",\"query_hash_alg\":\"SHA512\"}");
+    private static final byte[] CLOSE_PAYLOAD = ascii("\"}");
+    private static final int NONCE_LENGTH = 36;
+    private static final int SHA512_HEX_LENGTH = 128;
+    private static final int ENCODED_SIGNATURE_LENGTH = 86;
+
+    private final byte[] payloadPrefix;
+    private final ThreadLocal<Mac> mac;
+    private final ThreadLocal<MessageDigest> sha512 = ThreadLocal.withInitial(UpbitJwtSigner::newSha512);
+
+    public UpbitJwtSigner(UpbitCredentials credentials) {
+        this(credentials.getAccessKey(), credentials.getSecretKey());
+    }
+
+    UpbitJwtSigner(String accessKey, String secretKey) {
+        this.payloadPrefix = ("{\"access_key\":" + jsonString(accessKey) + ",\"nonce\":\"")
+                .getBytes(StandardCharsets.UTF_8);
+        // Keyed lazily so a missing secret fails the signed call, not application startup.
+        this.mac = ThreadLocal.withInitial(() -> newMac(secretKey));
+    }
+
+    public String authorization(String queryString) {
+        return "Bearer " + sign(queryString);
+    }
+
+    public String sign(String queryString) {
+        boolean hashQuery = queryString != null && !queryString.isBlank();
+        int payloadLength = payloadPrefix.length + NONCE_LENGTH + (hashQuery
+                ? QUERY_HASH_CLAIM.length + SHA512_HEX_LENGTH + QUERY_HASH_ALG_CLAIM.length
+                : CLOSE_PAYLOAD.length);
+        byte[] payload = new byte[payloadLength];
+        int position = append(payload, 0, payloadPrefix);
+        position = append(payload, position, ascii(UUID.randomUUID().toString()));
+        if (hashQuery) {
+            position = append(payload, position, QUERY_HASH_CLAIM);
+            position = appendHex(payload, position, sha512.get().digest(queryString.getBytes(StandardCharsets.UTF_8)));
+            append(payload, position, QUERY_HASH_ALG_CLAIM);
+        } else {
+            append(payload, position, CLOSE_PAYLOAD);
+        }
+
+        byte[] encodedPayload = BASE64_URL.encode(payload);
+        int signingInputLength = ENCODED_HEADER.length + 1 + encodedPayload.length;
+        byte[] token = new byte[signingInputLength + 1 + ENCODED_SIGNATURE_LENGTH];
+        position = append(token, 0, ENCODED_HEADER);
+        token[position++] = '.';
+        position = append(token, position, encodedPayload);
+
+        Mac hmac = mac.get();
+        hmac.update(token, 0, signingInputLength);
+        byte[] signature = hmac.doFinal();
+        token[position++] = '.';
+        append(token, position, BASE64_URL.encode(signature));
+        return new String(token, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Query string in the exact form that is hashed into {@code query_hash}; the request must send the same bytes.
+     */
+    static String queryString(Map<String, String> params) {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, String> entry : params.entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+            if (!builder.isEmpty()) {
+                builder.append("&");
+            }
+            builder.append(encode(entry.getKey())).append("=").append(encode(entry.getValue()));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * {@code key[]=v1&key[]=v2} for list parameters, percent-encoded for the request line. Upbit hashes the decoded
+     * form, so sign {@link #decodedQueryString(String)} of the result.
+     */
+    static String arrayQueryString(String key, List<String> values) {
+        StringBuilder builder = new StringBuilder();
+        String encodedKey = encode(key + "[]");
+        for (String value : values) {
+            if (value == null) {
+                continue;
+            }
+            if (!builder.isEmpty()) {
+                builder.append("&");
+            }
+            builder.append(encodedKey).append("=").append(encode(value));
+        }
+        return builder.toString();
+    }
+
+    static String decodedQueryString(String queryString) {
+        return URLDecoder.decode(queryString, StandardCharsets.UTF_8);
+    }
+
+    private static Mac newMac(String secretKey) {
+        if (secretKey == null || secretKey.isEmpty()) {
+            throw new IllegalStateException("Upbit secret key is not configured");
+        }
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM));
+            return mac;
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("Failed to initialize HMAC-SHA512", ex);
+        }
+    }
+
+    private static MessageDigest newSha512() {
+        try {
+            return MessageDigest.getInstance("SHA-512");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("Failed to create SHA-512 hash", ex);
+        }
+    }
+
+    private static int append(byte[] target, int position, byte[] bytes) {
+        System.arraycopy(bytes, 0, target, position, bytes.length);
+        return position + bytes.length;
+    }
+
+    private static int appendHex(byte[] target, int position, byte[] bytes) {
+        for (byte value : bytes) {
+            target[position++] = HEX_DIGITS[(value >> 4) & 0x0f];
+            target[position++] = HEX_DIGITS[value & 0x0f];
+        }
+        return position;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static String jsonString(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c < 0x20) {
+                builder.append(String.format("\\u%04x", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
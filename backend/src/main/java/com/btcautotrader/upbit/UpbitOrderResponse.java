@@ -18,6 +18,7 @@ public record UpbitOrderResponse(
         String locked,
         @JsonProperty("executed_volume") String executedVolume,
         @JsonProperty("trades_count") Integer tradesCount,
-        @JsonProperty("time_in_force") String timeInForce
+        @JsonProperty("time_in_force") String timeInForce,
+        String identifier
 ) {
 }
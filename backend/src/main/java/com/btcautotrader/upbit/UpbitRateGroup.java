@@ -0,0 +1,58 @@
+package com.btcautotrader.upbit;
+
+import java.util.Locale;
+
+/**
+ * Upbit budgets requests per group; each group gets its own limiter bucket. Quotation endpoints are budgeted
+ * per endpoint family, so every family is its own group, keyed by the name Upbit reports in {@code Remaining-Req}.
+ */
+public enum UpbitRateGroup {
+    /** Market list. */
+    MARKET("market", true),
+    /** Current prices. */
+    TICKER("ticker", true),
+    /** Minute, day and other candles. */
+    CANDLES("candles", true),
+    /** Authenticated non-order calls: accounts, order lookup, order chance. */
+    EXCHANGE_DEFAULT("default", false),
+    /** Order creation and cancellation. */
+    ORDER("order", false);
+
+    private final String headerName;
+    private final boolean quotation;
+
+    UpbitRateGroup(String headerName, boolean quotation) {
+        this.headerName = headerName;
+        this.quotation = quotation;
+    }
+
+    /**
+     * Group name as it appears in the {@code Remaining-Req} header.
+     */
+    public String headerName() {
+        return headerName;
+    }
+
+    /**
+     * Public market-data group, sized by the quotation limits.
+     */
+    public boolean quotation() {
+        return quotation;
+    }
+
+    /**
+     * The group reported by a {@code Remaining-Req} header, or null for a group this client does not call.
+     */
+    static UpbitRateGroup fromHeaderName(String name) {
+        if (name == null) {
+            return null;
+        }
+        String normalized = name.trim().toLowerCase(Locale.ROOT);
+        for (UpbitRateGroup group : values()) {
+            if (group.headerName.equals(normalized)) {
+                return group;
+            }
+        }
+        return null;
+    }
+}
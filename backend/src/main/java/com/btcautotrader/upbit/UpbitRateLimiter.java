@@ -3,103 +3,331 @@ package com.btcautotrader.upbit;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Per-group Upbit rate limiter. Each group has a per-second and an optional per-minute sliding-window bucket, so
+ * no window of either length ever carries more than its limit. Reserving a slot only records its grant time under
+ * the bucket's monitor; waiting happens outside the limiter (park or delayed future).
+ * <p>
+ * Upbit reports the remaining per-second budget of a group in the {@code Remaining-Req} header. Each quotation
+ * family (ticker, candles, market) is budgeted separately and gets its own buckets sized by the quotation limits;
+ * a header for a group this client does not call is ignored. The per-second rate follows the largest budget seen
+ * over the last observation window, so it drops again when Upbit lowers the quota; an exhausted budget holds the
+ * group until the next second, and HTTP 429 holds it for a decorrelated-jitter backoff.
+ */
 @Component
 public class UpbitRateLimiter {
-    private final boolean enabled;
-    private final long minIntervalMs;
-    private final int maxRequestsPerSecond;
-    private final int maxRequestsPerMinute;
+    public static final String REMAINING_REQ_HEADER = "Remaining-Req";
 
-    private final Object monitor = new Object();
-    private final Deque<Long> secondWindow = new ArrayDeque<>();
-    private final Deque<Long> minuteWindow = new ArrayDeque<>();
-    private long lastRequestAtMs;
+    private final boolean enabled;
+    private final boolean adaptive;
+    private final int adaptiveHeadroom;
+    private final long throttleBaseNanos;
+    private final long throttleMaxNanos;
+    private final Map<UpbitRateGroup, Bucket[]> bucketsByGroup = new EnumMap<>(UpbitRateGroup.class);
+    private final Map<UpbitRateGroup, AtomicLong> throttleBackoffNanos = new EnumMap<>(UpbitRateGroup.class);
 
     public UpbitRateLimiter(
             @Value("${upbit.rate-limit.enabled:true}") boolean enabled,
-            @Value("${upbit.rate-limit.min-interval-ms:120}") long minIntervalMs,
-            @Value("${upbit.rate-limit.max-requests-per-second:8}") int maxRequestsPerSecond,
-            @Value("${upbit.rate-limit.max-requests-per-minute:240}") int maxRequestsPerMinute
+            @Value("${upbit.rate-limit.quotation.per-second:8}") int quotationPerSecond,
+            @Value("${upbit.rate-limit.quotation.per-minute:600}") int quotationPerMinute,
+            @Value("${upbit.rate-limit.exchange.per-second:25}") int exchangePerSecond,
+            @Value("${upbit.rate-limit.exchange.per-minute:0}") int exchangePerMinute,
+            @Value("${upbit.rate-limit.order.per-second:8}") int orderPerSecond,
+            @Value("${upbit.rate-limit.order.per-minute:0}") int orderPerMinute,
+            @Value("${upbit.rate-limit.adaptive.enabled:true}") boolean adaptive,
+            @Value("${upbit.rate-limit.adaptive.headroom:1}") int adaptiveHeadroom,
+            @Value("${upbit.rate-limit.throttle-backoff-base-ms:200}") long throttleBackoffBaseMs,
+            @Value("${upbit.rate-limit.throttle-backoff-max-ms:10000}") long throttleBackoffMaxMs
     ) {
         this.enabled = enabled;
-        this.minIntervalMs = Math.max(0, minIntervalMs);
-        this.maxRequestsPerSecond = Math.max(1, maxRequestsPerSecond);
-        this.maxRequestsPerMinute = Math.max(1, maxRequestsPerMinute);
+        this.adaptive = adaptive;
+        this.adaptiveHeadroom = Math.max(0, adaptiveHeadroom);
+        this.throttleBaseNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, throttleBackoffBaseMs));
+        this.throttleMaxNanos = Math.max(throttleBaseNanos, TimeUnit.MILLISECONDS.toNanos(throttleBackoffMaxMs));
+        for (UpbitRateGroup group : UpbitRateGroup.values()) {
+            throttleBackoffNanos.put(group, new AtomicLong(0));
+            if (group.quotation()) {
+                bucketsByGroup.put(group, buckets(quotationPerSecond, quotationPerMinute));
+            }
+        }
+        bucketsByGroup.put(UpbitRateGroup.EXCHANGE_DEFAULT, buckets(exchangePerSecond, exchangePerMinute));
+        bucketsByGroup.put(UpbitRateGroup.ORDER, buckets(orderPerSecond, orderPerMinute));
     }
 
-    public void acquire(String endpoint) {
-        if (!enabled) {
-            return;
+    /**
+     * Blocks the calling thread until a slot in {@code group} is reserved. No lock is held while waiting.
+     */
+    public void acquire(UpbitRateGroup group, String endpoint) {
+        long waitNanos = reserve(group);
+        long deadline = System.nanoTime() + waitNanos;
+        while (waitNanos > 0) {
+            LockSupport.parkNanos(this, waitNanos);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting rate limit for endpoint: " + endpoint);
+            }
+            waitNanos = deadline - System.nanoTime();
         }
+    }
 
-        synchronized (monitor) {
-            waitForMinInterval(endpoint);
+    /**
+     * Reserves a slot and completes once it is due, without occupying a thread in the meantime.
+     */
+    public CompletableFuture<Void> acquireAsync(UpbitRateGroup group) {
+        long waitNanos = reserve(group);
+        if (waitNanos <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> {
+        }, CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS));
+    }
 
-            while (true) {
-                long now = System.currentTimeMillis();
-                trim(now);
-                long waitMs = computeWaitMs(now);
-                if (waitMs <= 0) {
-                    break;
-                }
-                sleep(waitMs, endpoint);
-            }
+    /**
+     * Reserves the next slot in {@code group} and returns how long the caller must wait before using it.
+     */
+    public long reserve(UpbitRateGroup group) {
+        return reserve(group, System.nanoTime());
+    }
 
-            long now = System.currentTimeMillis();
-            secondWindow.addLast(now);
-            minuteWindow.addLast(now);
-            lastRequestAtMs = now;
-        }
+    /**
+     * Takes a slot only if it is available right now.
+     */
+    public boolean tryAcquire(UpbitRateGroup group) {
+        return tryAcquire(group, System.nanoTime());
+    }
+
+    /**
+     * Applies a {@code Remaining-Req} header value such as {@code group=default; min=1799; sec=29}.
+     */
+    public void onRemainingReq(String header) {
+        onRemainingReq(header, System.nanoTime());
+    }
+
+    /**
+     * Records an HTTP 429 for {@code group} and holds the whole group for a decorrelated-jitter backoff.
+     */
+    public void onThrottled(UpbitRateGroup group) {
+        onThrottled(group, System.nanoTime());
     }
 
-    private void waitForMinInterval(String endpoint) {
-        if (minIntervalMs <= 0 || lastRequestAtMs <= 0) {
+    void onRemainingReq(String header, long nowNanos) {
+        RemainingReq remaining = RemainingReq.parse(header);
+        if (!enabled || remaining == null) {
+            return;
+        }
+        UpbitRateGroup group = UpbitRateGroup.fromHeaderName(remaining.group());
+        if (group == null) {
             return;
         }
-        long elapsed = System.currentTimeMillis() - lastRequestAtMs;
-        long waitMs = minIntervalMs - elapsed;
-        if (waitMs > 0) {
-            sleep(waitMs, endpoint);
+        Bucket perSecond = bucketsByGroup.get(group)[0];
+        if (adaptive) {
+            // The response that carried the header used one request of the window, hence +1.
+            perSecond.observeLimit(remaining.sec() + 1, adaptiveHeadroom, nowNanos);
+        }
+        if (remaining.sec() <= 0) {
+            holdUntil(group, nowNanos + TimeUnit.SECONDS.toNanos(1));
+        } else {
+            throttleBackoffNanos.get(group).set(0);
         }
     }
 
-    private long computeWaitMs(long now) {
-        long secondWaitMs = 0;
-        if (secondWindow.size() >= maxRequestsPerSecond && !secondWindow.isEmpty()) {
-            long oldestSecond = secondWindow.peekFirst();
-            secondWaitMs = 1000 - (now - oldestSecond);
+    void onThrottled(UpbitRateGroup group, long nowNanos) {
+        if (!enabled) {
+            return;
         }
+        long backoff = throttleBackoffNanos.get(group).updateAndGet(previous -> {
+            long upper = Math.max(throttleBaseNanos + 1, Math.min(throttleMaxNanos, previous * 3));
+            return ThreadLocalRandom.current().nextLong(throttleBaseNanos, upper + 1);
+        });
+        holdUntil(group, nowNanos + backoff);
+    }
 
-        long minuteWaitMs = 0;
-        if (minuteWindow.size() >= maxRequestsPerMinute && !minuteWindow.isEmpty()) {
-            long oldestMinute = minuteWindow.peekFirst();
-            minuteWaitMs = 60000 - (now - oldestMinute);
+    private void holdUntil(UpbitRateGroup group, long untilNanos) {
+        for (Bucket bucket : bucketsByGroup.get(group)) {
+            bucket.holdUntil(untilNanos);
         }
+    }
 
-        return Math.max(secondWaitMs, minuteWaitMs);
+    long reserve(UpbitRateGroup group, long nowNanos) {
+        if (!enabled) {
+            return 0;
+        }
+        long waitNanos = 0;
+        for (Bucket bucket : bucketsByGroup.get(group)) {
+            waitNanos = Math.max(waitNanos, bucket.reserve(nowNanos));
+        }
+        return waitNanos;
     }
 
-    private void trim(long now) {
-        while (!secondWindow.isEmpty() && now - secondWindow.peekFirst() >= 1000) {
-            secondWindow.pollFirst();
+    boolean tryAcquire(UpbitRateGroup group, long nowNanos) {
+        if (!enabled) {
+            return true;
         }
-        while (!minuteWindow.isEmpty() && now - minuteWindow.peekFirst() >= 60000) {
-            minuteWindow.pollFirst();
+        Bucket[] buckets = bucketsByGroup.get(group);
+        for (Bucket bucket : buckets) {
+            if (bucket.waitNanos(nowNanos) > 0) {
+                return false;
+            }
         }
+        // Another caller may win the slot in between; fall back to reserving it for the next free time.
+        return reserve(group, nowNanos) <= 0;
     }
 
-    private static void sleep(long waitMs, String endpoint) {
-        if (waitMs <= 0) {
-            return;
+    private static Bucket[] buckets(int perSecond, int perMinute) {
+        Bucket second = new Bucket(Math.max(1, perSecond), TimeUnit.SECONDS.toNanos(1));
+        if (perMinute <= 0) {
+            return new Bucket[]{second};
         }
-        try {
-            Thread.sleep(waitMs);
-        } catch (InterruptedException ex) {
-            Thread.currentThread().interrupt();
-            throw new IllegalStateException("Interrupted while waiting rate limit for endpoint: " + endpoint, ex);
+        return new Bucket[]{second, new Bucket(perMinute, TimeUnit.MINUTES.toNanos(1))};
+    }
+
+    /**
+     * Sliding-window bucket: at most {@code limit} requests in any {@code periodNanos} window. It keeps the grant
+     * times of the last {@code limit} requests in a ring; the next request is granted no earlier than one period
+     * after the oldest of them, and never before an earlier grant, so grants stay in time order.
+     */
+    private static final class Bucket {
+        /** How long the largest observed budget is trusted before a smaller one may replace it. */
+        private static final long OBSERVE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+        private final long periodNanos;
+        private long[] grantNanos;
+        private int oldest;
+        private int granted;
+        private long latestGrantNanos;
+        private long heldUntilNanos;
+        private boolean held;
+        private int observedLimit;
+        private int windowMaxLimit;
+        private long windowStartNanos;
+        private boolean windowStarted;
+
+        private Bucket(int limit, long periodNanos) {
+            this.periodNanos = periodNanos;
+            this.grantNanos = new long[limit];
+        }
+
+        private synchronized long reserve(long nowNanos) {
+            long start = earliestGrant(nowNanos);
+            grantNanos[oldest] = start;
+            oldest = (oldest + 1) % grantNanos.length;
+            granted = Math.min(granted + 1, grantNanos.length);
+            latestGrantNanos = start;
+            return start - nowNanos;
+        }
+
+        private synchronized long waitNanos(long nowNanos) {
+            return earliestGrant(nowNanos) - nowNanos;
+        }
+
+        private long earliestGrant(long nowNanos) {
+            long start = nowNanos;
+            if (granted > 0 && latestGrantNanos - start > 0) {
+                start = latestGrantNanos;
+            }
+            if (granted == grantNanos.length) {
+                long freed = grantNanos[oldest] + periodNanos;
+                if (freed - start > 0) {
+                    start = freed;
+                }
+            }
+            if (held && heldUntilNanos - start > 0) {
+                start = heldUntilNanos;
+            }
+            return start;
+        }
+
+        private synchronized void holdUntil(long untilNanos) {
+            if (!held || untilNanos - heldUntilNanos > 0) {
+                heldUntilNanos = untilNanos;
+                held = true;
+            }
+        }
+
+        /**
+         * A single header only shows what is left of the current second, so the limit is the largest value seen
+         * in a window. A larger value applies at once; at the end of each window the limit is reset to that
+         * window's largest value, which lets a lowered quota take effect.
+         */
+        private synchronized void observeLimit(int limit, int headroom, long nowNanos) {
+            if (!windowStarted || nowNanos - windowStartNanos >= OBSERVE_WINDOW_NANOS) {
+                if (windowStarted && windowMaxLimit != observedLimit) {
+                    applyLimit(windowMaxLimit, headroom);
+                }
+                windowStarted = true;
+                windowStartNanos = nowNanos;
+                windowMaxLimit = 0;
+            }
+            windowMaxLimit = Math.max(windowMaxLimit, limit);
+            if (windowMaxLimit > observedLimit) {
+                applyLimit(windowMaxLimit, headroom);
+            }
+        }
+
+        private void applyLimit(int limit, int headroom) {
+            observedLimit = limit;
+            resize(Math.max(1, limit - headroom));
+        }
+
+        /**
+         * Keeps the most recent grants so the window already in flight still counts against the new limit.
+         */
+        private void resize(int limit) {
+            if (limit == grantNanos.length) {
+                return;
+            }
+            int kept = Math.min(granted, limit);
+            long[] resized = new long[limit];
+            for (int i = 0; i < kept; i++) {
+                int from = Math.floorMod(oldest - kept + i, grantNanos.length);
+                resized[i] = grantNanos[from];
+            }
+            grantNanos = resized;
+            granted = kept;
+            oldest = kept % limit;
+        }
+    }
+
+    record RemainingReq(String group, int min, int sec) {
+        static RemainingReq parse(String header) {
+            if (header == null || header.isBlank()) {
+                return null;
+            }
+            String group = null;
+            int min = -1;
+            int sec = -1;
+            for (String part : header.split(";")) {
+                int eq = part.indexOf('=');
+                if (eq <= 0) {
+                    continue;
+                }
+                String key = part.substring(0, eq).trim().toLowerCase(Locale.ROOT);
+                String value = part.substring(eq + 1).trim();
+                try {
+                    switch (key) {
+                        case "group" -> group = value.toLowerCase(Locale.ROOT);
+                        case "min" -> min = Integer.parseInt(value);
+                        case "sec" -> sec = Integer.parseInt(value);
+                        default -> {
+                        }
+                    }
+                } catch (NumberFormatException ex) {
+                    return null;
+                }
+            }
+            if (group == null || sec < 0) {
+                return null;
+            }
+            return new RemainingReq(group, min, sec);
         }
     }
 }
@@ -1,7 +1,5 @@
 package com.btcautotrader.upbit;
 
-import com.auth0.jwt.JWT;
-import com.auth0.jwt.algorithms.Algorithm;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -14,19 +12,18 @@ import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
 import java.time.Duration;
-import java.util.HexFormat;
-import java.util.HashMap;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.function.Supplier;
 
 @Service
 public class UpbitService {
+    public static final int MAX_CANDLES_PER_REQUEST = 200;
     private static final String UPBIT_ACCOUNTS_URL = "https://api.upbit.com/v1/accounts";
     private static final String UPBIT_TICKER_URL = "https://api.upbit.com/v1/ticker";
     private static final String UPBIT_MARKETS_URL = "https://api.upbit.com/v1/market/all";
@@ -34,49 +31,47 @@ public class UpbitService {
     private static final String UPBIT_ORDER_URL = "https://api.upbit.com/v1/orders";
     private static final String UPBIT_ORDER_CHANCE_URL = "https://api.upbit.com/v1/orders/chance";
     private static final String UPBIT_ORDER_DETAIL_URL = "https://api.upbit.com/v1/order";
+    private static final int MAX_THROTTLE_RETRIES = 2;
 
     private final RestTemplate restTemplate;
-    private final UpbitCredentials credentials;
+    private final UpbitJwtSigner signer;
     private final UpbitRateLimiter rateLimiter;
 
     public UpbitService(
             RestTemplateBuilder restTemplateBuilder,
-            UpbitCredentials credentials,
+            UpbitJwtSigner signer,
             UpbitRateLimiter rateLimiter
     ) {
         this.restTemplate = restTemplateBuilder
                 .setConnectTimeout(Duration.ofSeconds(5))
                 .setReadTimeout(Duration.ofSeconds(10))
                 .build();
-        this.credentials = credentials;
+        this.signer = signer;
         this.rateLimiter = rateLimiter;
     }
 
-    public List<Map<String, Object>> fetchAccounts() {
-        rateLimiter.acquire("accounts");
-        String jwtToken = createJwtToken(null);
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "Bearer " + jwtToken);
-
-        HttpEntity<Void> entity = new HttpEntity<>(headers);
-        ResponseEntity<List> response = restTemplate.exchange(
+    public List<UpbitAccount> fetchAccounts() {
+        ResponseEntity<List<UpbitAccount>> response = send(UpbitRateGroup.EXCHANGE_DEFAULT, "accounts", true, () -> getDecoded(
                 UPBIT_ACCOUNTS_URL,
-                HttpMethod.GET,
-                entity,
-                List.class
-        );
+                signer.authorization(null),
+                UpbitJsonDecoder::readAccounts
+        ));
 
-        List<Map<String, Object>> body = response.getBody();
+        List<UpbitAccount> body = response.getBody();
         return body == null ? List.of() : body;
     }
 
     public Map<String, Object> fetchTicker(String market) {
-        rateLimiter.acquire("ticker");
         String url = UriComponentsBuilder.fromHttpUrl(UPBIT_TICKER_URL)
                 .queryParam("markets", market)
                 .toUriString();
 
-        ResponseEntity<List> response = restTemplate.getForEntity(url, List.class);
+        ResponseEntity<List> response = send(
+                UpbitRateGroup.TICKER,
+                "ticker",
+                true,
+                () -> restTemplate.getForEntity(url, List.class)
+        );
         List<Map<String, Object>> body = response.getBody();
 
         if (body == null || body.isEmpty()) {
@@ -87,75 +82,82 @@ public class UpbitService {
     }
 
     public List<Map<String, Object>> fetchMarkets() {
-        rateLimiter.acquire("markets");
         String url = UriComponentsBuilder.fromHttpUrl(UPBIT_MARKETS_URL)
                 .queryParam("isDetails", true)
                 .toUriString();
 
-        ResponseEntity<List> response = restTemplate.getForEntity(url, List.class);
+        ResponseEntity<List> response = send(
+                UpbitRateGroup.MARKET,
+                "markets",
+                true,
+                () -> restTemplate.getForEntity(url, List.class)
+        );
         List<Map<String, Object>> body = response.getBody();
         return body == null ? List.of() : body;
     }
 
-    public List<Map<String, Object>> fetchMinuteCandles(String market, int unit, int count) {
+    public UpbitCandleBatch fetchMinuteCandles(String market, int unit, int count) {
+        return fetchMinuteCandles(market, unit, count, null);
+    }
+
+    /**
+     * Up to {@code count} (max 200) candles that opened before {@code to}, newest first; {@code to == null} means now.
+     */
+    public UpbitCandleBatch fetchMinuteCandles(String market, int unit, int count, Instant to) {
         if (unit <= 0) {
             throw new IllegalArgumentException("unit must be positive");
         }
-        rateLimiter.acquire("candles");
-        int safeCount = Math.max(1, Math.min(count, 200));
-        String url = UriComponentsBuilder.fromHttpUrl(UPBIT_CANDLES_MINUTE_URL + "/" + unit)
+        int safeCount = Math.max(1, Math.min(count, MAX_CANDLES_PER_REQUEST));
+        UriComponentsBuilder builder = UriComponentsBuilder.fromHttpUrl(UPBIT_CANDLES_MINUTE_URL + "/" + unit)
                 .queryParam("market", market)
-                .queryParam("count", safeCount)
-                .toUriString();
+                .queryParam("count", safeCount);
+        if (to != null) {
+            builder.queryParam("to", DateTimeFormatter.ISO_INSTANT.format(to.truncatedTo(ChronoUnit.SECONDS)));
+        }
+        String url = builder.toUriString();
 
-        ResponseEntity<List> response = restTemplate.getForEntity(url, List.class);
-        List<Map<String, Object>> body = response.getBody();
-        return body == null ? List.of() : body;
+        ResponseEntity<UpbitCandleBatch> response = send(
+                UpbitRateGroup.CANDLES,
+                "candles",
+                true,
+                () -> getDecoded(url, null, UpbitJsonDecoder::readCandles)
+        );
+        UpbitCandleBatch body = response.getBody();
+        return body == null ? new UpbitCandleBatch(1) : body;
     }
 
-    public Map<String, Map<String, Object>> fetchTickers(List<String> markets) {
+    public Map<String, UpbitTicker> fetchTickers(List<String> markets) {
         if (markets == null || markets.isEmpty()) {
             return Map.of();
         }
-        rateLimiter.acquire("tickers");
-
         String url = UriComponentsBuilder.fromHttpUrl(UPBIT_TICKER_URL)
                 .queryParam("markets", String.join(",", markets))
                 .toUriString();
 
-        ResponseEntity<List> response = restTemplate.getForEntity(url, List.class);
-        List<Map<String, Object>> body = response.getBody();
-
-        if (body == null || body.isEmpty()) {
-            return Map.of();
-        }
-
-        Map<String, Map<String, Object>> byMarket = new HashMap<>();
-        for (Map<String, Object> ticker : body) {
-            Object market = ticker.get("market");
-            if (market != null) {
-                byMarket.put(market.toString(), ticker);
-            }
-        }
-
-        return byMarket;
+        ResponseEntity<Map<String, UpbitTicker>> response = send(
+                UpbitRateGroup.TICKER,
+                "tickers",
+                true,
+                () -> getDecoded(url, null, UpbitJsonDecoder::readTickers)
+        );
+        Map<String, UpbitTicker> body = response.getBody();
+        return body == null ? Map.of() : body;
     }
 
     public UpbitOrderResponse createOrder(Map<String, String> body, String queryString) {
-        rateLimiter.acquire("create-order");
-        String jwtToken = createJwtToken(queryString);
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "Bearer " + jwtToken);
-        headers.setContentType(MediaType.APPLICATION_JSON);
-
-        HttpEntity<Map<String, String>> entity = new HttpEntity<>(body, headers);
         try {
-            ResponseEntity<UpbitOrderResponse> response = restTemplate.exchange(
-                    UPBIT_ORDER_URL,
-                    HttpMethod.POST,
-                    entity,
-                    UpbitOrderResponse.class
-            );
+            // Not retried on 429: the caller decides whether to resubmit an order.
+            ResponseEntity<UpbitOrderResponse> response = send(UpbitRateGroup.ORDER, "create-order", false, () -> {
+                HttpHeaders headers = new HttpHeaders();
+                headers.set("Authorization", signer.authorization(queryString));
+                headers.setContentType(MediaType.APPLICATION_JSON);
+                return restTemplate.exchange(
+                        UPBIT_ORDER_URL,
+                        HttpMethod.POST,
+                        new HttpEntity<>(body, headers),
+                        UpbitOrderResponse.class
+                );
+            });
             return response.getBody();
         } catch (HttpStatusCodeException ex) {
             throw new UpbitApiException(ex.getStatusCode().value(), ex.getResponseBodyAsString());
@@ -177,26 +179,22 @@ public class UpbitService {
         if (market == null || market.isBlank()) {
             return Map.of();
         }
-        rateLimiter.acquire("order-chance");
-
         Map<String, String> params = new LinkedHashMap<>();
         params.put("market", market);
-        String queryString = buildQueryString(params);
-        String jwtToken = createJwtToken(queryString);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "Bearer " + jwtToken);
-
-        HttpEntity<Void> entity = new HttpEntity<>(headers);
+        String queryString = UpbitJwtSigner.queryString(params);
         String url = UPBIT_ORDER_CHANCE_URL + "?" + queryString;
 
         try {
-            ResponseEntity<Map> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    entity,
-                    Map.class
-            );
+            ResponseEntity<Map> response = send(UpbitRateGroup.EXCHANGE_DEFAULT, "order-chance", true, () -> {
+                HttpHeaders headers = new HttpHeaders();
+                headers.set("Authorization", signer.authorization(queryString));
+                return restTemplate.exchange(
+                        url,
+                        HttpMethod.GET,
+                        new HttpEntity<Void>(headers),
+                        Map.class
+                );
+            });
             Map<String, Object> body = response.getBody();
             return body == null ? Map.of() : body;
         } catch (HttpStatusCodeException ex) {
@@ -206,40 +204,75 @@ public class UpbitService {
         }
     }
 
-    private String createJwtToken(String queryString) {
-        String nonce = UUID.randomUUID().toString();
-        Algorithm algorithm = Algorithm.HMAC512(credentials.getSecretKey());
-
-        com.auth0.jwt.JWTCreator.Builder builder = JWT.create()
-                .withClaim("access_key", credentials.getAccessKey())
-                .withClaim("nonce", nonce);
-
-        if (queryString != null && !queryString.isBlank()) {
-            builder.withClaim("query_hash", sha512Hex(queryString));
-            builder.withClaim("query_hash_alg", "SHA512");
+    /**
+     * Runs one Upbit call under the group's rate limit and feeds the {@code Remaining-Req} header back to the
+     * limiter. On HTTP 429 the group is backed off; idempotent calls are then retried a bounded number of times.
+     */
+    private <T> ResponseEntity<T> send(
+            UpbitRateGroup group,
+            String endpoint,
+            boolean retryOnThrottle,
+            Supplier<ResponseEntity<T>> call
+    ) {
+        int throttled = 0;
+        while (true) {
+            rateLimiter.acquire(group, endpoint);
+            try {
+                ResponseEntity<T> response = call.get();
+                rateLimiter.onRemainingReq(response.getHeaders().getFirst(UpbitRateLimiter.REMAINING_REQ_HEADER));
+                return response;
+            } catch (HttpStatusCodeException ex) {
+                HttpHeaders headers = ex.getResponseHeaders();
+                if (headers != null) {
+                    rateLimiter.onRemainingReq(headers.getFirst(UpbitRateLimiter.REMAINING_REQ_HEADER));
+                }
+                if (ex.getStatusCode().value() != 429) {
+                    throw ex;
+                }
+                rateLimiter.onThrottled(group);
+                if (!retryOnThrottle || ++throttled > MAX_THROTTLE_RETRIES) {
+                    throw ex;
+                }
+            }
         }
+    }
 
-        return builder.sign(algorithm);
+    /**
+     * GET whose body is decoded from the response stream by {@code reader}, skipping the generic map conversion.
+     */
+    private <T> ResponseEntity<T> getDecoded(String url, String authorization, UpbitJsonDecoder.Reader<T> reader) {
+        return restTemplate.execute(
+                url,
+                HttpMethod.GET,
+                request -> {
+                    request.getHeaders().setAccept(List.of(MediaType.APPLICATION_JSON));
+                    if (authorization != null) {
+                        request.getHeaders().set("Authorization", authorization);
+                    }
+                },
+                response -> new ResponseEntity<>(
+                        UpbitJsonDecoder.decode(response.getBody(), reader),
+                        response.getHeaders(),
+                        response.getStatusCode()
+                )
+        );
     }
 
     private UpbitOrderResponse fetchOrder(Map<String, String> params) {
-        rateLimiter.acquire("order-detail");
-        String queryString = buildQueryString(params);
-        String jwtToken = createJwtToken(queryString);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "Bearer " + jwtToken);
-
-        HttpEntity<Void> entity = new HttpEntity<>(headers);
+        String queryString = UpbitJwtSigner.queryString(params);
         String url = UPBIT_ORDER_DETAIL_URL + "?" + queryString;
 
         try {
-            ResponseEntity<UpbitOrderResponse> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    entity,
-                    UpbitOrderResponse.class
-            );
+            ResponseEntity<UpbitOrderResponse> response = send(UpbitRateGroup.EXCHANGE_DEFAULT, "order-detail", true, () -> {
+                HttpHeaders headers = new HttpHeaders();
+                headers.set("Authorization", signer.authorization(queryString));
+                return restTemplate.exchange(
+                        url,
+                        HttpMethod.GET,
+                        new HttpEntity<Void>(headers),
+                        UpbitOrderResponse.class
+                );
+            });
             return response.getBody();
         } catch (HttpStatusCodeException ex) {
             if (ex.getStatusCode().value() == 404) {
@@ -250,32 +283,4 @@ public class UpbitService {
             throw new UpbitApiException(502, ex.getMessage());
         }
     }
-
-    private static String sha512Hex(String value) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-512");
-            byte[] hashed = digest.digest(value.getBytes(StandardCharsets.UTF_8));
-            return HexFormat.of().formatHex(hashed);
-        } catch (Exception ex) {
-            throw new IllegalStateException("Failed to create SHA-512 hash", ex);
-        }
-    }
-
-    private static String buildQueryString(Map<String, String> params) {
-        StringBuilder builder = new StringBuilder();
-        for (Map.Entry<String, String> entry : params.entrySet()) {
-            if (entry.getValue() == null) {
-                continue;
-            }
-            if (!builder.isEmpty()) {
-                builder.append("&");
-            }
-            builder.append(encode(entry.getKey())).append("=").append(encode(entry.getValue()));
-        }
-        return builder.toString();
-    }
-
-    private static String encode(String value) {
-        return URLEncoder.encode(value, StandardCharsets.UTF_8);
-    }
 }
@@ -0,0 +1,9 @@
+package com.btcautotrader.upbit;
+
+import java.math.BigDecimal;
+
+public record UpbitTicker(
+        String market,
+        BigDecimal tradePrice
+) {
+}
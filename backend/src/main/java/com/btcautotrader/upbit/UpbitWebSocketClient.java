@@ -0,0 +1,304 @@
+package com.btcautotrader.upbit;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Single Upbit quotation WebSocket (ticker + trade) with ping heartbeat, idle watchdog and exponential reconnect.
+ * Frames are decoded into maps with the same field names as the REST responses and passed to the {@link Handler}.
+ */
+@Component
+public class UpbitWebSocketClient {
+    private static final Logger log = LoggerFactory.getLogger(UpbitWebSocketClient.class);
+    private static final TypeReference<Map<String, Object>> MESSAGE_TYPE = new TypeReference<>() {
+    };
+
+    public interface Handler {
+        void onConnected();
+
+        void onMessage(Map<String, Object> message);
+
+        void onDisconnected();
+    }
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final URI uri;
+    private final long pingIntervalMs;
+    private final long idleTimeoutMs;
+    private final long reconnectBaseMs;
+    private final long reconnectMaxMs;
+    private final HttpClient httpClient;
+    private final ScheduledExecutorService scheduler;
+    private final Set<String> codes = ConcurrentHashMap.newKeySet();
+    private final AtomicReference<WebSocket> socket = new AtomicReference<>();
+
+    private volatile Handler handler;
+    private volatile boolean running;
+    private volatile boolean connecting;
+    private volatile long lastFrameAtMs;
+    private int reconnectAttempts;
+
+    public UpbitWebSocketClient(
+            ObjectMapper objectMapper,
+            @Value("${upbit.websocket.enabled:false}") boolean enabled,
+            @Value("${upbit.websocket.url:wss://api.upbit.com/websocket/v1}") String url,
+            @Value("${upbit.websocket.ping-interval-ms:30000}") long pingIntervalMs,
+            @Value("${upbit.websocket.idle-timeout-ms:90000}") long idleTimeoutMs,
+            @Value("${upbit.websocket.reconnect-base-ms:1000}") long reconnectBaseMs,
+            @Value("${upbit.websocket.reconnect-max-ms:30000}") long reconnectMaxMs
+    ) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.uri = URI.create(url);
+        this.pingIntervalMs = Math.max(100, pingIntervalMs);
+        this.idleTimeoutMs = Math.max(this.pingIntervalMs * 2, idleTimeoutMs);
+        this.reconnectBaseMs = Math.max(10, reconnectBaseMs);
+        this.reconnectMaxMs = Math.max(this.reconnectBaseMs, reconnectMaxMs);
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "upbit-websocket");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isConnected() {
+        return socket.get() != null;
+    }
+
+    public synchronized boolean start(Handler handler) {
+        if (!enabled || running) {
+            return false;
+        }
+        this.handler = handler;
+        this.running = true;
+        scheduler.execute(this::connect);
+        scheduler.scheduleWithFixedDelay(this::heartbeat, pingIntervalMs, pingIntervalMs, TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    /**
+     * Adds markets to the stream. Upbit replaces the subscription on every request, so the full set is re-sent.
+     */
+    public void subscribe(Collection<String> markets) {
+        boolean changed = false;
+        for (String market : markets) {
+            if (market != null && !market.isBlank()) {
+                changed |= codes.add(market.trim().toUpperCase(Locale.ROOT));
+            }
+        }
+        if (changed && running) {
+            runOnScheduler(this::sendSubscription);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        scheduler.shutdownNow();
+        WebSocket current = socket.getAndSet(null);
+        if (current != null) {
+            current.sendClose(WebSocket.NORMAL_CLOSURE, "shutdown");
+        }
+    }
+
+    private void connect() {
+        if (!running || connecting || socket.get() != null) {
+            return;
+        }
+        connecting = true;
+        httpClient.newWebSocketBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .buildAsync(uri, new FrameListener())
+                .whenComplete((webSocket, error) -> runOnScheduler(() -> onConnectComplete(webSocket, error)));
+    }
+
+    private void onConnectComplete(WebSocket webSocket, Throwable error) {
+        connecting = false;
+        if (error != null || webSocket == null) {
+            log.warn("Upbit websocket connect failed: {}", error == null ? "no socket" : error.getMessage());
+            scheduleReconnect();
+            return;
+        }
+        if (!running) {
+            webSocket.abort();
+            return;
+        }
+        if (webSocket.isInputClosed()) {
+            scheduleReconnect();
+            return;
+        }
+        socket.set(webSocket);
+        reconnectAttempts = 0;
+        lastFrameAtMs = System.currentTimeMillis();
+        handler.onConnected();
+        sendSubscription();
+    }
+
+    private void sendSubscription() {
+        WebSocket current = socket.get();
+        if (current == null || codes.isEmpty()) {
+            return;
+        }
+        List<String> markets = new ArrayList<>(codes);
+        List<Map<String, Object>> request = List.of(
+                Map.of("ticket", "btc-autotrader-" + UUID.randomUUID()),
+                Map.of("type", "ticker", "codes", markets),
+                Map.of("type", "trade", "codes", markets),
+                Map.of("format", "DEFAULT")
+        );
+        try {
+            current.sendText(objectMapper.writeValueAsString(request), true).get(5, TimeUnit.SECONDS);
+        } catch (Exception ex) {
+            log.warn("Upbit websocket subscribe failed: {}", ex.getMessage());
+            disconnected(current, true);
+        }
+    }
+
+    private void heartbeat() {
+        WebSocket current = socket.get();
+        if (current == null) {
+            return;
+        }
+        if (System.currentTimeMillis() - lastFrameAtMs > idleTimeoutMs) {
+            log.warn("Upbit websocket idle for more than {}ms; reconnecting", idleTimeoutMs);
+            disconnected(current, true);
+            return;
+        }
+        current.sendPing(ByteBuffer.allocate(0));
+    }
+
+    private void disconnected(WebSocket webSocket, boolean abort) {
+        if (!socket.compareAndSet(webSocket, null)) {
+            return;
+        }
+        if (abort) {
+            webSocket.abort();
+        }
+        handler.onDisconnected();
+        scheduleReconnect();
+    }
+
+    private void scheduleReconnect() {
+        if (!running) {
+            return;
+        }
+        long delay = reconnectMaxMs;
+        if (reconnectAttempts < 30) {
+            delay = Math.min(reconnectMaxMs, reconnectBaseMs << reconnectAttempts);
+        }
+        reconnectAttempts++;
+        try {
+            scheduler.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ex) {
+            // Shutting down.
+        }
+    }
+
+    private void runOnScheduler(Runnable task) {
+        try {
+            scheduler.execute(task);
+        } catch (RejectedExecutionException ex) {
+            // Shutting down.
+        }
+    }
+
+    private void dispatch(byte[] payload) {
+        Map<String, Object> message;
+        try {
+            message = objectMapper.readValue(payload, MESSAGE_TYPE);
+        } catch (Exception ex) {
+            log.warn("Ignoring undecodable Upbit websocket frame: {}", ex.getMessage());
+            return;
+        }
+        if (message != null && message.get("type") != null) {
+            handler.onMessage(message);
+        }
+    }
+
+    private final class FrameListener implements WebSocket.Listener {
+        private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+        @Override
+        public CompletionStage<?> onBinary(WebSocket webSocket, ByteBuffer data, boolean last) {
+            byte[] bytes = new byte[data.remaining()];
+            data.get(bytes);
+            return onFrame(webSocket, bytes, last);
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            return onFrame(webSocket, data.toString().getBytes(StandardCharsets.UTF_8), last);
+        }
+
+        @Override
+        public CompletionStage<?> onPong(WebSocket webSocket, ByteBuffer message) {
+            lastFrameAtMs = System.currentTimeMillis();
+            webSocket.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+            log.warn("Upbit websocket closed: {} {}", statusCode, reason);
+            runOnScheduler(() -> disconnected(webSocket, false));
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket webSocket, Throwable error) {
+            log.warn("Upbit websocket error: {}", error.getMessage());
+            runOnScheduler(() -> disconnected(webSocket, true));
+        }
+
+        private CompletionStage<?> onFrame(WebSocket webSocket, byte[] bytes, boolean last) {
+            lastFrameAtMs = System.currentTimeMillis();
+            if (!last || pending.size() > 0) {
+                pending.writeBytes(bytes);
+                if (!last) {
+                    webSocket.request(1);
+                    return null;
+                }
+                bytes = pending.toByteArray();
+                pending.reset();
+            }
+            dispatch(bytes);
+            webSocket.request(1);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.btcautotrader.engine;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TradeDecisionWriterTest {
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final List<List<String>> writtenBatches = new CopyOnWriteArrayList<>();
+    private final List<String> writerThreads = new CopyOnWriteArrayList<>();
+    private TradeDecisionWriter writer;
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null) {
+            writer.stop();
+        }
+    }
+
+    @Test
+    void decisions_areBatchedOffTheCallerThreadAndFlushedOnStop() {
+        when(jdbcTemplate.batchUpdate(eq(TradeDecisionWriter.INSERT_SQL), anyCollection(), anyInt(), any()))
+                .thenAnswer(this::recordBatch);
+        writer = new TradeDecisionWriter(jdbcTemplate, new ObjectMapper(), true, 100, 10, 60_000, 0, 5000, false, 60);
+        writer.start();
+
+        for (int i = 0; i < 25; i++) {
+            writer.submit(decision("SKIP"), null, () -> Map.of("rsi", 55));
+        }
+        writer.stop();
+
+        assertThat(writtenBatches.stream().mapToInt(List::size).sum()).isEqualTo(25);
+        assertThat(writtenBatches.stream().mapToInt(List::size).max().orElse(0)).isLessThanOrEqualTo(10);
+        assertThat(writerThreads).containsOnly("trade-decision-writer");
+    }
+
+    @Test
+    void fullQueue_dropsSkipsButWritesTradesInline() throws Exception {
+        CountDownLatch writerBlocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(jdbcTemplate.batchUpdate(eq(TradeDecisionWriter.INSERT_SQL), anyCollection(), anyInt(), any()))
+                .thenAnswer(invocation -> {
+                    if (Thread.currentThread().getName().equals("trade-decision-writer")
+                            && writerBlocked.getCount() > 0) {
+                        writerBlocked.countDown();
+                        release.await(5, TimeUnit.SECONDS);
+                    }
+                    return recordBatch(invocation);
+                });
+        writer = new TradeDecisionWriter(jdbcTemplate, new ObjectMapper(), true, 1, 1, 60_000, 0, 5000, false, 60);
+        writer.start();
+
+        writer.submit(decision("SKIP"), null, null);
+        assertThat(writerBlocked.await(5, TimeUnit.SECONDS)).isTrue();
+        writer.submit(decision("SKIP"), null, null);
+        writer.submit(decision("SKIP"), null, null);
+        writer.submit(decision("BUY"), null, null);
+
+        assertThat(writer.droppedCount()).isEqualTo(1);
+        assertThat(writtenBatches).containsExactly(List.of("BUY"));
+
+        release.countDown();
+        writer.stop();
+
+        assertThat(writtenBatches).containsExactlyInAnyOrder(List.of("BUY"), List.of("SKIP"), List.of("SKIP"));
+    }
+
+    @Test
+    void failedInserts_keepTradesForRetryButDropSkips() throws Exception {
+        AtomicInteger failures = new AtomicInteger(4);
+        when(jdbcTemplate.batchUpdate(eq(TradeDecisionWriter.INSERT_SQL), anyCollection(), anyInt(), any()))
+                .thenAnswer(invocation -> {
+                    if (failures.getAndDecrement() > 0) {
+                        throw new DataAccessResourceFailureException("database down");
+                    }
+                    return recordBatch(invocation);
+                });
+        writer = new TradeDecisionWriter(jdbcTemplate, new ObjectMapper(), false, 100, 10, 500, 0, 5000, false, 60);
+
+        writer.submit(decision("SKIP"), null, null);
+        writer.submit(decision("BUY"), null, null);
+
+        assertThat(writtenBatches).isEmpty();
+        assertThat(writer.droppedCount()).isEqualTo(1);
+        assertThat(writer.unwrittenTradeCount()).isEqualTo(1);
+
+        writer.submit(decision("SELL"), null, null);
+
+        assertThat(writtenBatches).containsExactly(List.of("BUY"), List.of("SELL"));
+        assertThat(writer.unwrittenTradeCount()).isZero();
+    }
+
+    @Test
+    void repeatedSkips_collapseIntoOneRowPerRun() throws Exception {
+        OffsetDateTime start = OffsetDateTime.parse("2024-03-01T00:00:00Z");
+        List<Integer> repeatCounts = new CopyOnWriteArrayList<>();
+        List<Long> extendedIds = new CopyOnWriteArrayList<>();
+        AtomicLong nextId = new AtomicLong(40);
+        when(jdbcTemplate.update(any(PreparedStatementCreator.class), any(KeyHolder.class)))
+                .thenAnswer(invocation -> {
+                    GeneratedKeyHolder keyHolder = invocation.getArgument(1);
+                    keyHolder.getKeyList().add(Map.of("id", nextId.incrementAndGet()));
+                    return 1;
+                });
+        when(jdbcTemplate.batchUpdate(eq(TradeDecisionWriter.INSERT_SQL), anyCollection(), anyInt(), any()))
+                .thenAnswer(this::recordBatch);
+        when(jdbcTemplate.batchUpdate(eq(TradeDecisionWriter.EXTEND_RUN_SQL), anyCollection(), anyInt(), any()))
+                .thenAnswer(invocation -> {
+                    Collection<Object> runs = invocation.getArgument(1);
+                    ParameterizedPreparedStatementSetter<Object> setter = invocation.getArgument(3);
+                    PreparedStatement statement = mock(PreparedStatement.class);
+                    for (Object run : runs) {
+                        setter.setValues(statement, run);
+                    }
+                    ArgumentCaptor<Integer> counts = ArgumentCaptor.forClass(Integer.class);
+                    ArgumentCaptor<Long> ids = ArgumentCaptor.forClass(Long.class);
+                    verify(statement, atLeast(runs.size())).setInt(eq(2), counts.capture());
+                    verify(statement, atLeast(runs.size())).setLong(eq(3), ids.capture());
+                    verify(statement, atLeast(runs.size())).setObject(4, start);
+                    repeatCounts.addAll(counts.getAllValues());
+                    extendedIds.addAll(ids.getAllValues());
+                    return new int[0][];
+                });
+        writer = new TradeDecisionWriter(jdbcTemplate, new ObjectMapper(), false, 100, 10, 500, 0, 5000, true, 60);
+
+        writer.submit(decision("SKIP", "risk_off_regime", start), null, null);
+        writer.submit(decision("SKIP", "risk_off_regime", start.plusSeconds(5)), null, null);
+        writer.submit(decision("SKIP", "risk_off_regime", start.plusSeconds(10)), null, null);
+        writer.submit(decision("SKIP", "backoff", start.plusSeconds(15)), null, null);
+        writer.submit(decision("BUY", "signal", start.plusSeconds(20)), null, null);
+        writer.submit(decision("SKIP", "backoff", start.plusSeconds(25)), null, null);
+        writer.submit(decision("SKIP", "backoff", start.plusMinutes(61)), null, null);
+
+        verify(jdbcTemplate, times(4)).update(any(PreparedStatementCreator.class), any(KeyHolder.class));
+        assertThat(writtenBatches).containsExactly(List.of("BUY"));
+        assertThat(extendedIds).containsExactly(41L, 41L);
+        assertThat(repeatCounts).containsExactly(2, 3);
+    }
+
+    @Test
+    void skipQueuedBeforeAnInlineTrade_neverJoinsOrReopensARunAcrossIt() throws Exception {
+        List<Long> extendedIds = new CopyOnWriteArrayList<>();
+        AtomicLong nextId = new AtomicLong(40);
+        when(jdbcTemplate.update(any(PreparedStatementCreator.class), any(KeyHolder.class)))
+                .thenAnswer(invocation -> {
+                    GeneratedKeyHolder keyHolder = invocation.getArgument(1);
+                    keyHolder.getKeyList().add(Map.of("id", nextId.incrementAndGet()));
+                    return 1;
+                });
+        when(jdbcTemplate.batchUpdate(eq(TradeDecisionWriter.INSERT_SQL), anyCollection(), anyInt(), any()))
+                .thenAnswer(this::recordBatch);
+        when(jdbcTemplate.batchUpdate(eq(TradeDecisionWriter.EXTEND_RUN_SQL), anyCollection(), anyInt(), any()))
+                .thenAnswer(invocation -> {
+                    Collection<Object> runs = invocation.getArgument(1);
+                    ParameterizedPreparedStatementSetter<Object> setter = invocation.getArgument(3);
+                    PreparedStatement statement = mock(PreparedStatement.class);
+                    for (Object run : runs) {
+                        setter.setValues(statement, run);
+                    }
+                    ArgumentCaptor<Long> ids = ArgumentCaptor.forClass(Long.class);
+                    verify(statement, atLeast(runs.size())).setLong(eq(3), ids.capture());
+                    extendedIds.addAll(ids.getAllValues());
+                    return new int[0][];
+                });
+        writer = new TradeDecisionWriter(jdbcTemplate, new ObjectMapper(), false, 100, 10, 500, 0, 5000, true, 60);
+        OffsetDateTime start = OffsetDateTime.parse("2024-03-01T00:00:00Z");
+
+        writer.submit(decision("SKIP", "backoff", start), null, null);
+        // The BUY was written inline under backpressure, ahead of a SKIP that was still queued.
+        writer.submit(decision("BUY", "signal", start.plusSeconds(10)), null, null);
+        writer.submit(decision("SKIP", "backoff", start.plusSeconds(5)), null, null);
+        writer.submit(decision("SKIP", "backoff", start.plusSeconds(15)), null, null);
+        writer.submit(decision("SKIP", "backoff", start.plusSeconds(20)), null, null);
+
+        verify(jdbcTemplate, times(2)).update(any(PreparedStatementCreator.class), any(KeyHolder.class));
+        assertThat(writtenBatches).containsExactly(List.of("BUY"), List.of("SKIP"));
+        assertThat(extendedIds).containsExactly(42L);
+    }
+
+    @Test
+    void sharedParameters_areStoredOncePerDistinctContext() {
+        List<Long> boundContextIds = new CopyOnWriteArrayList<>();
+        when(jdbcTemplate.queryForObject(eq(TradeDecisionWriter.SELECT_CONTEXT_SQL), eq(Long.class), any()))
+                .thenReturn(7L, 8L);
+        when(jdbcTemplate.batchUpdate(eq(TradeDecisionWriter.INSERT_SQL), anyCollection(), anyInt(), any()))
+                .thenAnswer(invocation -> {
+                    Collection<Object> rows = invocation.getArgument(1);
+                    ParameterizedPreparedStatementSetter<Object> setter = invocation.getArgument(3);
+                    PreparedStatement statement = mock(PreparedStatement.class);
+                    for (Object row : rows) {
+                        setter.setValues(statement, row);
+                    }
+                    ArgumentCaptor<Long> ids = ArgumentCaptor.forClass(Long.class);
+                    verify(statement, atLeast(rows.size())).setLong(eq(23), ids.capture());
+                    boundContextIds.addAll(ids.getAllValues());
+                    return new int[0][];
+                });
+        writer = new TradeDecisionWriter(jdbcTemplate, new ObjectMapper(), false, 100, 10, 500, 0, 5000, false, 60);
+
+        writer.submit(decision("BUY"), () -> new HashMap<>(Map.of("maShortWindow", 5, "feeRate", 0.0005)), null);
+        writer.submit(decision("SELL"), () -> new HashMap<>(Map.of("feeRate", 0.0005, "maShortWindow", 5)), null);
+        writer.submit(decision("BUY"), () -> new HashMap<>(Map.of("maShortWindow", 8, "feeRate", 0.0005)), null);
+
+        verify(jdbcTemplate, times(2)).update(eq(TradeDecisionWriter.INSERT_CONTEXT_SQL), any(), any(), any());
+        assertThat(boundContextIds).containsExactly(7L, 7L, 8L);
+    }
+
+    private Object recordBatch(InvocationOnMock invocation) throws SQLException {
+        Collection<Object> rows = invocation.getArgument(1);
+        ParameterizedPreparedStatementSetter<Object> setter = invocation.getArgument(3);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        for (Object row : rows) {
+            setter.setValues(statement, row);
+        }
+        ArgumentCaptor<String> actions = ArgumentCaptor.forClass(String.class);
+        verify(statement, atLeast(rows.size())).setString(eq(2), actions.capture());
+        writtenBatches.add(List.copyOf(actions.getAllValues()));
+        writerThreads.add(Thread.currentThread().getName());
+        return new int[0][];
+    }
+
+    private static TradeDecisionEntity decision(String action) {
+        return decision(action, "test", null);
+    }
+
+    private static TradeDecisionEntity decision(String action, String reason, OffsetDateTime executedAt) {
+        TradeDecisionEntity entity = new TradeDecisionEntity();
+        entity.setMarket("KRW-BTC");
+        entity.setAction(action);
+        entity.setReason(reason);
+        entity.setExecutedAt(executedAt);
+        return entity;
+    }
+}
@@ -0,0 +1,122 @@
+package com.btcautotrader.indicator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class IncrementalIndicatorSetTest {
+
+    private static final IncrementalIndicatorSet.Spec SPEC = new IncrementalIndicatorSet.Spec(
+            5, 20, 3, 14, 12, 26, 9, 14, 20, 20, 10, 15, 22, 0
+    );
+    /** The engine fetches 36 candles for these windows and evaluates the 35 closed ones. */
+    private static final int ENGINE_WINDOW = 35;
+
+    @Test
+    void update_matchesBatchKernelsOverTheSameHistory() {
+        int bars = 300;
+        double[] closes = new double[bars];
+        double[] highs = new double[bars];
+        double[] lows = new double[bars];
+        double[] volumes = new double[bars];
+        Random random = new Random(42);
+        double price = 50_000_000.0;
+        for (int i = 0; i < bars; i++) {
+            price *= 1.0 + (random.nextDouble() - 0.5) * 0.01;
+            closes[i] = price;
+            highs[i] = price * (1.0 + random.nextDouble() * 0.003);
+            lows[i] = price * (1.0 - random.nextDouble() * 0.003);
+            volumes[i] = 1_000_000.0 + random.nextDouble() * 5_000_000.0;
+        }
+
+        IncrementalIndicatorSet state = new IncrementalIndicatorSet(SPEC);
+        for (int i = 0; i < bars; i++) {
+            state.update(i * 60_000L, closes[i], highs[i], lows[i], volumes[i]);
+            int length = i + 1;
+            double bollingerMiddle = IndicatorKernels.smaLast(closes, length, 20);
+
+            assertClose(state.maShort(), IndicatorKernels.smaLast(closes, length, 5), 1e-9 * price);
+            assertClose(state.maLong(), IndicatorKernels.smaLast(closes, length, 20), 1e-9 * price);
+            assertClose(state.maLongLagged(), IndicatorKernels.smaLastWithOffset(closes, length, 20, 3), 1e-9 * price);
+            assertClose(state.rsi(), IndicatorKernels.rsi(closes, length, 14), 1e-6);
+            assertClose(state.macdHistogram(), IndicatorKernels.macdHistogram(closes, length, 12, 26, 9), 1e-6);
+            assertClose(state.adx(), IndicatorKernels.adx(highs, lows, closes, length, 14), 1e-6);
+            assertClose(state.volumeRatio(), IndicatorKernels.volumeRatio(volumes, length, 20), 1e-9);
+            assertClose(state.volatilityPct(), IndicatorKernels.volatilityPct(closes, length, 10), 1e-9);
+            assertClose(state.bollingerMiddle(), bollingerMiddle, 1e-9 * price);
+            assertClose(state.bollingerStdDev(), IndicatorKernels.stdDevLast(closes, length, 20, bollingerMiddle), 1e-6);
+            if (length > 15) {
+                assertClose(state.breakoutHigh(), IndicatorKernels.highestHigh(highs, length, 15, true), 0.0);
+            }
+            if (length >= 22) {
+                assertClose(state.trailingHigh(), IndicatorKernels.highestHigh(highs, length, 22, false), 0.0);
+            }
+        }
+        assertThat(state.count()).isEqualTo(bars);
+        assertThat(state.lastOpenTimeMs()).isEqualTo((bars - 1) * 60_000L);
+    }
+
+    @Test
+    void seedWindow_matchesTheEngineBatchComputationOverItsFetchedWindow() {
+        int bars = 300;
+        double[] closes = new double[bars];
+        double[] highs = new double[bars];
+        double[] lows = new double[bars];
+        Random random = new Random(7);
+        double price = 50_000_000.0;
+        for (int i = 0; i < bars; i++) {
+            price *= 1.0 + (random.nextDouble() - 0.5) * 0.01;
+            closes[i] = price;
+            highs[i] = price * (1.0 + random.nextDouble() * 0.003);
+            lows[i] = price * (1.0 - random.nextDouble() * 0.003);
+        }
+
+        IncrementalIndicatorSet state = new IncrementalIndicatorSet(SPEC.withSeedWindow(ENGINE_WINDOW));
+        for (int i = 0; i < bars; i++) {
+            state.update(i * 60_000L, closes[i], highs[i], lows[i], 1.0);
+            int from = Math.max(0, i + 1 - ENGINE_WINDOW);
+            double[] windowCloses = Arrays.copyOfRange(closes, from, i + 1);
+            double[] windowHighs = Arrays.copyOfRange(highs, from, i + 1);
+            double[] windowLows = Arrays.copyOfRange(lows, from, i + 1);
+            int length = windowCloses.length;
+
+            assertClose(
+                    state.macdHistogram(),
+                    IndicatorKernels.macdHistogram(windowCloses, length, 12, 26, 9),
+                    1e-9 * price
+            );
+            assertClose(state.adx(), IndicatorKernels.adx(windowHighs, windowLows, windowCloses, length, 14), 1e-9);
+        }
+    }
+
+    @Test
+    void getters_stayUnavailableUntilTheirWindowFills() {
+        IncrementalIndicatorSet state = new IncrementalIndicatorSet(SPEC);
+        for (int i = 0; i < 19; i++) {
+            state.update(i, 100.0 + i, 101.0 + i, 99.0 + i, 10.0);
+        }
+
+        assertThat(state.maShort()).isEqualTo(116.0);
+        assertThat(state.maLong()).isNaN();
+        assertThat(state.volumeRatio()).isNaN();
+        assertThat(state.adx()).isNaN();
+
+        state.reset();
+
+        assertThat(state.count()).isZero();
+        assertThat(state.maShort()).isNaN();
+        assertThat(state.lastClose()).isNaN();
+    }
+
+    private static void assertClose(double actual, double expected, double tolerance) {
+        if (Double.isNaN(expected)) {
+            assertThat(actual).isNaN();
+            return;
+        }
+        assertThat(actual).isCloseTo(expected, within(tolerance));
+    }
+}
@@ -0,0 +1,55 @@
+package com.btcautotrader.market;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CandleAggregatorTest {
+    private static final long MINUTE_MS = 60_000L;
+    private static final long DAY_MS = 86_400_000L;
+
+    @Test
+    void aggregate_rollsUpOhlcvPerEpochAlignedBucket() {
+        List<Candle> base = List.of(
+                candle(0, 100.0, 101.0, 99.0, 100.5, 1.0),
+                candle(2, 100.5, 104.0, 100.0, 103.0, 2.0),
+                candle(4, 103.0, 103.5, 98.0, 99.0, 3.0),
+                candle(5, 99.0, 100.0, 97.0, 98.0, 4.0)
+        );
+
+        List<Candle> bars = CandleAggregator.aggregate(base, 5, DAY_MS);
+
+        assertThat(bars).containsExactly(
+                new Candle(DAY_MS, 100.0, 104.0, 98.0, 99.0, 6.0, 6.0),
+                new Candle(DAY_MS + 5 * MINUTE_MS, 99.0, 100.0, 97.0, 98.0, 4.0, 4.0)
+        );
+    }
+
+    @Test
+    void aggregate_dropsBucketsOpenedBeforeTheCoveredRange() {
+        List<Candle> base = List.of(
+                candle(13, 1.0, 1.0, 1.0, 1.0, 1.0),
+                candle(14, 2.0, 2.0, 2.0, 2.0, 1.0),
+                candle(15, 3.0, 3.0, 3.0, 3.0, 1.0)
+        );
+
+        List<Candle> bars = CandleAggregator.aggregate(base, 15, DAY_MS + 15 * MINUTE_MS);
+
+        assertThat(bars).containsExactly(new Candle(DAY_MS + 15 * MINUTE_MS, 3.0, 3.0, 3.0, 3.0, 1.0, 1.0));
+    }
+
+    @Test
+    void canAggregate_onlyAcceptsUnitsThatTileADay() {
+        assertThat(CandleAggregator.canAggregate(1, 15)).isTrue();
+        assertThat(CandleAggregator.canAggregate(1, 240)).isTrue();
+        assertThat(CandleAggregator.canAggregate(1, 1)).isFalse();
+        assertThat(CandleAggregator.canAggregate(1, 7)).isFalse();
+        assertThat(CandleAggregator.canAggregate(15, 10)).isFalse();
+    }
+
+    private static Candle candle(int minute, double open, double high, double low, double close, double volume) {
+        return new Candle(DAY_MS + minute * MINUTE_MS, open, high, low, close, volume, volume);
+    }
+}
@@ -0,0 +1,107 @@
+package com.btcautotrader.market;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CandleArchiveTest {
+    private static final long MINUTE_MS = 60_000L;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void append_keepsOnlyNewerCandlesAndSurvivesReopen() {
+        CandleArchive archive = new CandleArchive(true, dir.toString());
+        assertThat(archive.append("krw-btc", 1, candles(0, 5))).isEqualTo(5);
+        assertThat(archive.append("KRW-BTC", 1, candles(3, 4))).isEqualTo(2);
+        archive.close();
+
+        CandleArchive reopened = new CandleArchive(true, dir.toString());
+
+        assertThat(reopened.latest("KRW-BTC", 1, 100)).isEqualTo(candles(0, 7));
+        assertThat(reopened.latest("KRW-BTC", 1, 2)).isEqualTo(candles(5, 2));
+        assertThat(reopened.latest("KRW-BTC", 15, 10)).isEmpty();
+        reopened.close();
+    }
+
+    @Test
+    void range_looksUpRowsByOpenTime() {
+        CandleArchive archive = new CandleArchive(true, dir.toString());
+        archive.append("KRW-BTC", 1, candles(0, 10));
+
+        assertThat(archive.range("KRW-BTC", 1, 3 * MINUTE_MS, 6 * MINUTE_MS)).isEqualTo(candles(3, 3));
+        assertThat(archive.range("KRW-BTC", 1, 3 * MINUTE_MS + 1, 100 * MINUTE_MS)).isEqualTo(candles(4, 6));
+        assertThat(archive.range("KRW-BTC", 1, 20 * MINUTE_MS, 30 * MINUTE_MS)).isEmpty();
+        archive.close();
+    }
+
+    @Test
+    void reopen_dropsRowsAppendedPastTheCommittedCount() throws IOException {
+        CandleArchive archive = new CandleArchive(true, dir.toString());
+        archive.append("KRW-BTC", 1, candles(0, 3));
+        archive.close();
+        // A crash after the column writes but before the count was published.
+        try (FileChannel column = FileChannel.open(
+                dir.resolve("KRW-BTC").resolve("1m").resolve("open_time.i64"),
+                StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND
+        )) {
+            column.write(ByteBuffer.allocate(12));
+        }
+
+        CandleArchive reopened = new CandleArchive(true, dir.toString());
+
+        assertThat(reopened.latest("KRW-BTC", 1, 10)).isEqualTo(candles(0, 3));
+        assertThat(Files.size(dir.resolve("KRW-BTC").resolve("1m").resolve("open_time.i64"))).isEqualTo(24);
+        assertThat(reopened.append("KRW-BTC", 1, candles(3, 1))).isEqualTo(1);
+        assertThat(reopened.latest("KRW-BTC", 1, 10)).isEqualTo(candles(0, 4));
+        reopened.close();
+    }
+
+    @Test
+    void startRun_confinesLatestToTheNewRunAndKeepsOlderRows() {
+        CandleArchive archive = new CandleArchive(true, dir.toString());
+        archive.append("KRW-BTC", 1, candles(0, 5));
+
+        archive.startRun("KRW-BTC", 1, candles(100, 2));
+        archive.close();
+        CandleArchive reopened = new CandleArchive(true, dir.toString());
+
+        assertThat(reopened.latest("KRW-BTC", 1, 10)).isEqualTo(candles(100, 2));
+        assertThat(reopened.range("KRW-BTC", 1, 0, 200 * MINUTE_MS)).hasSize(7);
+        assertThat(reopened.append("KRW-BTC", 1, candles(102, 1))).isEqualTo(1);
+        assertThat(reopened.latest("KRW-BTC", 1, 10)).isEqualTo(candles(100, 3));
+        reopened.close();
+    }
+
+    @Test
+    void startRun_replacesOnlyRowsTheNewRunCovers() {
+        CandleArchive archive = new CandleArchive(true, dir.toString());
+        archive.append("KRW-BTC", 1, candles(0, 10));
+
+        archive.startRun("KRW-BTC", 1, candles(6, 6));
+
+        assertThat(archive.range("KRW-BTC", 1, 0, 100 * MINUTE_MS)).isEqualTo(candles(0, 12));
+        assertThat(archive.latest("KRW-BTC", 1, 100)).isEqualTo(candles(6, 6));
+        archive.close();
+    }
+
+    private static List<Candle> candles(int fromMinute, int count) {
+        List<Candle> candles = new ArrayList<>(count);
+        for (int i = fromMinute; i < fromMinute + count; i++) {
+            candles.add(new Candle(i * MINUTE_MS, i, i + 1.0, i - 1.0, i + 0.5, 2.0 * i, 3.0 * i));
+        }
+        return candles;
+    }
+}
@@ -0,0 +1,203 @@
+package com.btcautotrader.market;
+
+import com.btcautotrader.upbit.UpbitCandleBatch;
+import com.btcautotrader.upbit.UpbitService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CandleHistoryServiceTest {
+    private static final long MINUTE_MS = 60_000L;
+
+    private final UpbitService upbitService = mock(UpbitService.class);
+    private final InMemoryCandleTable table = new InMemoryCandleTable();
+    private final long nowMinuteMs = Instant.now().truncatedTo(ChronoUnit.MINUTES).toEpochMilli();
+    private long exchangeNowMs = nowMinuteMs;
+
+    @Test
+    void coldLoad_pagesBackwardAndLaterLoadsOnlyFetchTheHead() {
+        stubExchange();
+
+        List<Candle> cold = service(true).load("KRW-BTC", 1, 450);
+
+        assertThat(cold).hasSize(450);
+        assertThat(cold.get(449).openTimeMs()).isEqualTo(nowMinuteMs);
+        assertThat(cold.get(0).openTimeMs()).isEqualTo(nowMinuteMs - 449 * MINUTE_MS);
+        verify(upbitService, times(1)).fetchMinuteCandles(eq("KRW-BTC"), eq(1), eq(200));
+        verify(upbitService, times(1)).fetchMinuteCandles(eq("KRW-BTC"), eq(1), eq(200), any(Instant.class));
+        verify(upbitService, times(1)).fetchMinuteCandles(eq("KRW-BTC"), eq(1), eq(50), any(Instant.class));
+        assertThat(table.rows).hasSize(449);
+
+        List<Candle> warm = service(true).load("KRW-BTC", 1, 450);
+
+        assertThat(warm).isEqualTo(cold);
+        verify(upbitService, times(1)).fetchMinuteCandles(eq("KRW-BTC"), eq(1), eq(2));
+        verify(upbitService, times(2)).fetchMinuteCandles(eq("KRW-BTC"), eq(1), anyInt(), any(Instant.class));
+    }
+
+    @Test
+    void listingStart_stopsPagingEarly() {
+        when(upbitService.fetchMinuteCandles(eq("KRW-NEW"), eq(1), anyInt())).thenReturn(batch(3));
+
+        List<Candle> candles = service(false).load("KRW-NEW", 1, 500);
+
+        assertThat(candles).hasSize(3);
+        verify(upbitService, never()).fetchMinuteCandles(eq("KRW-NEW"), eq(1), anyInt(), any(Instant.class));
+    }
+
+    @Test
+    void archiveBackedLoad_restartsFromTheArchiveAndFetchesOnlyTheHead(@TempDir Path dir) {
+        stubExchange();
+
+        CandleArchive archive = new CandleArchive(true, dir.toString());
+        List<Candle> cold = new CandleHistoryService(upbitService, table, archive, true, 25, 100).load("KRW-BTC", 1, 450);
+        archive.close();
+
+        CandleArchive reopened = new CandleArchive(true, dir.toString());
+        List<Candle> warm = new CandleHistoryService(upbitService, table, reopened, true, 25, 100).load("KRW-BTC", 1, 450);
+
+        assertThat(warm).isEqualTo(cold);
+        assertThat(reopened.latest("KRW-BTC", 1, 1000)).hasSize(449);
+        assertThat(table.rows).isEmpty();
+        verify(upbitService, times(1)).fetchMinuteCandles(eq("KRW-BTC"), eq(1), eq(2));
+        reopened.close();
+    }
+
+    @Test
+    void restartAfterAGapLongerThanTheWindow_bridgesItAndKeepsTheArchivedPast(@TempDir Path dir) {
+        stubExchange();
+        exchangeNowMs = nowMinuteMs - 300 * MINUTE_MS;
+        CandleArchive archive = new CandleArchive(true, dir.toString());
+        new CandleHistoryService(upbitService, table, archive, true, 25, 100).load("KRW-BTC", 1, 200);
+        archive.close();
+
+        exchangeNowMs = nowMinuteMs;
+        CandleArchive reopened = new CandleArchive(true, dir.toString());
+        List<Candle> candles = new CandleHistoryService(upbitService, table, reopened, true, 25, 100)
+                .load("KRW-BTC", 1, 200);
+
+        assertThat(candles).hasSize(200);
+        assertThat(candles.get(199).openTimeMs()).isEqualTo(nowMinuteMs);
+        List<Candle> archived = reopened.latest("KRW-BTC", 1, 1000);
+        assertThat(archived).hasSize(499);
+        assertThat(archived.get(0).openTimeMs()).isEqualTo(nowMinuteMs - 499 * MINUTE_MS);
+        assertThat(archived.get(498).openTimeMs()).isEqualTo(nowMinuteMs - MINUTE_MS);
+        reopened.close();
+    }
+
+    @Test
+    void restartAfterAGapDeeperThanTheBudget_startsANewRunWithoutDeletingOlderRows() {
+        stubExchange();
+        exchangeNowMs = nowMinuteMs - 300 * MINUTE_MS;
+        CandleHistoryService history = new CandleHistoryService(
+                upbitService, table, new CandleArchive(false, null), true, 25, 1);
+        history.load("KRW-BTC", 1, 200);
+
+        exchangeNowMs = nowMinuteMs;
+        List<Candle> afterGap = history.load("KRW-BTC", 1, 200);
+
+        assertThat(afterGap).hasSize(200);
+        assertThat(afterGap.get(0).openTimeMs()).isEqualTo(nowMinuteMs - 199 * MINUTE_MS);
+        assertThat(table.rows).hasSize(399);
+        assertThat(table.runStarts.last()).isEqualTo(nowMinuteMs - 199 * MINUTE_MS);
+        assertThat(history.load("KRW-BTC", 1, 200)).isEqualTo(afterGap);
+    }
+
+    private CandleHistoryService service(boolean persist) {
+        return new CandleHistoryService(upbitService, table, new CandleArchive(false, null), persist, 25, 100);
+    }
+
+    private void stubExchange() {
+        when(upbitService.fetchMinuteCandles(eq("KRW-BTC"), eq(1), anyInt()))
+                .thenAnswer(invocation -> exchange(invocation.getArgument(2), exchangeNowMs + MINUTE_MS));
+        when(upbitService.fetchMinuteCandles(eq("KRW-BTC"), eq(1), anyInt(), any(Instant.class)))
+                .thenAnswer(invocation -> exchange(
+                        invocation.getArgument(2),
+                        Math.min(invocation.<Instant>getArgument(3).toEpochMilli(), exchangeNowMs + MINUTE_MS)
+                ));
+    }
+
+    private UpbitCandleBatch exchange(int count, long toExclusiveMs) {
+        UpbitCandleBatch batch = new UpbitCandleBatch(count);
+        long openTimeMs = toExclusiveMs - MINUTE_MS;
+        for (int i = 0; i < count; i++, openTimeMs -= MINUTE_MS) {
+            batch.add(openTimeMs, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0);
+        }
+        return batch;
+    }
+
+    private UpbitCandleBatch batch(int count) {
+        return exchange(count, nowMinuteMs + MINUTE_MS);
+    }
+
+    private static final class InMemoryCandleTable extends JdbcTemplate {
+        private final TreeMap<Long, Candle> rows = new TreeMap<>();
+        private final TreeSet<Long> runStarts = new TreeSet<>();
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            int limit = (Integer) args[4];
+            long runStartMs = runStarts.isEmpty() ? 0 : runStarts.last();
+            List<T> newestFirst = new ArrayList<>();
+            for (Candle candle : rows.tailMap(runStartMs, true).descendingMap().values()) {
+                if (newestFirst.size() == limit) {
+                    break;
+                }
+                newestFirst.add((T) candle);
+            }
+            return newestFirst;
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            long openTimeMs = (Long) args[2];
+            rows.put(openTimeMs, new Candle(
+                    openTimeMs,
+                    (Double) args[3],
+                    (Double) args[4],
+                    (Double) args[5],
+                    (Double) args[6],
+                    (Double) args[7],
+                    (Double) args[8]
+            ));
+            runStarts.add(openTimeMs);
+            return 1;
+        }
+
+        @Override
+        public <T> int[][] batchUpdate(
+                String sql,
+                Collection<T> batchArgs,
+                int batchSize,
+                ParameterizedPreparedStatementSetter<T> setter
+        ) {
+            for (T row : batchArgs) {
+                Candle candle = (Candle) row;
+                rows.putIfAbsent(candle.openTimeMs(), candle);
+            }
+            return new int[0][];
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.btcautotrader.market;
+
+import com.btcautotrader.upbit.UpbitCandleBatch;
+import com.btcautotrader.upbit.UpbitService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CandleStoreTest {
+
+    @Mock
+    private UpbitService upbitService;
+
+    @Mock
+    private MarketDataFeed marketDataFeed;
+
+    private CandleStore candleStore;
+    private Instant currentMinute;
+
+    @BeforeEach
+    void setUp() {
+        candleStore = new CandleStore(
+                new CandleHistoryService(upbitService, null, new CandleArchive(false, null), false, 25, 100),
+                marketDataFeed,
+                true,
+                200,
+                0,
+                true
+        );
+        currentMinute = Instant.now().truncatedTo(ChronoUnit.MINUTES);
+    }
+
+    @Test
+    void getCandles_backfillsOnceThenMergesOnlyTheNewestCandles() {
+        when(upbitService.fetchMinuteCandles("KRW-BTC", 1, 200)).thenReturn(batch(
+                candle(0, 100.0),
+                candle(1, 90.0),
+                candle(2, 80.0)
+        ));
+        when(upbitService.fetchMinuteCandles("KRW-BTC", 1, 2)).thenReturn(batch(
+                candle(0, 105.0),
+                candle(1, 999.0)
+        ));
+
+        List<Candle> first = candleStore.getCandles("KRW-BTC", 1, 50);
+        List<Candle> second = candleStore.getCandles("KRW-BTC", 1, 50);
+
+        assertThat(first).hasSize(3);
+        assertThat(first.get(2).close()).isEqualTo(100.0);
+        assertThat(second).hasSize(3);
+        assertThat(second.get(0).close()).isEqualTo(80.0);
+        assertThat(second.get(1).close()).isEqualTo(90.0);
+        assertThat(second.get(2).close()).isEqualTo(105.0);
+        verify(upbitService, times(1)).fetchMinuteCandles("KRW-BTC", 1, 200);
+        verify(upbitService, times(1)).fetchMinuteCandles("KRW-BTC", 1, 2);
+    }
+
+    @Test
+    void getCandles_refetchesHistoryWhenIncrementalWindowLeavesAGap() {
+        when(upbitService.fetchMinuteCandles(eq("KRW-ETH"), eq(1), anyInt()))
+                .thenReturn(batch(candle(5, 10.0), candle(6, 9.0), candle(7, 8.0)))
+                .thenReturn(batch(candle(0, 12.0), candle(1, 11.0)))
+                .thenReturn(batch(candle(0, 12.0), candle(1, 11.0), candle(2, 10.5)));
+
+        candleStore.getCandles("KRW-ETH", 1, 10);
+        List<Candle> refreshed = candleStore.getCandles("KRW-ETH", 1, 10);
+
+        assertThat(refreshed).hasSize(3);
+        assertThat(refreshed.get(2).close()).isEqualTo(12.0);
+        verify(upbitService, times(2)).fetchMinuteCandles("KRW-ETH", 1, 200);
+    }
+
+    @Test
+    void getCandles_refreshesHigherTimeframesFromTheOneMinuteSeries() {
+        long bucketOpenMs = Math.floorDiv(currentMinute.toEpochMilli(), 900_000L) * 900_000L;
+        when(upbitService.fetchMinuteCandles("KRW-BTC", 15, 200)).thenReturn(batch(
+                new Candle(bucketOpenMs, 10.0, 10.0, 10.0, 10.0, 1.0, 10.0),
+                new Candle(bucketOpenMs - 900_000L, 8.0, 9.0, 7.0, 9.0, 4.0, 32.0)
+        ));
+        when(upbitService.fetchMinuteCandles("KRW-BTC", 1, 200)).thenReturn(batch(
+                new Candle(bucketOpenMs + 60_000L, 11.0, 14.0, 11.0, 13.0, 3.0, 39.0),
+                new Candle(bucketOpenMs, 10.0, 12.0, 9.5, 11.0, 2.0, 21.0),
+                new Candle(bucketOpenMs - 60_000L, 9.0, 9.0, 9.0, 9.0, 1.0, 9.0)
+        ));
+
+        candleStore.getCandles("KRW-BTC", 15, 2);
+        List<Candle> refreshed = candleStore.getCandles("KRW-BTC", 15, 2);
+
+        assertThat(refreshed).hasSize(2);
+        assertThat(refreshed.get(0).close()).isEqualTo(9.0);
+        assertThat(refreshed.get(1)).isEqualTo(new Candle(bucketOpenMs, 10.0, 14.0, 9.5, 13.0, 5.0, 60.0));
+        verify(upbitService, times(1)).fetchMinuteCandles(eq("KRW-BTC"), eq(15), anyInt());
+    }
+
+    @Test
+    void lastClose_servesTheCachedNewestCloseWithoutFetching() {
+        when(upbitService.fetchMinuteCandles("KRW-BTC", 1, 200)).thenReturn(batch(
+                candle(0, 100.0),
+                candle(1, 90.0)
+        ));
+
+        assertThat(candleStore.lastClose("KRW-BTC", 1, 60_000)).isNull();
+        candleStore.getCandles("KRW-BTC", 1, 50);
+
+        assertThat(candleStore.lastClose("KRW-BTC", 1, 60_000)).isEqualTo(100.0);
+        assertThat(candleStore.lastClose("KRW-BTC", 5, 60_000)).isNull();
+        verify(upbitService, times(1)).fetchMinuteCandles(eq("KRW-BTC"), anyInt(), anyInt());
+    }
+
+    private Candle candle(int minutesAgo, double close) {
+        long openTimeMs = currentMinute.minus(minutesAgo, ChronoUnit.MINUTES).toEpochMilli();
+        return new Candle(openTimeMs, close, close, close, close, 1.0, close);
+    }
+
+    private static UpbitCandleBatch batch(Candle... newestFirst) {
+        UpbitCandleBatch batch = new UpbitCandleBatch(newestFirst.length);
+        for (Candle candle : newestFirst) {
+            batch.add(
+                    candle.openTimeMs(),
+                    candle.open(),
+                    candle.high(),
+                    candle.low(),
+                    candle.close(),
+                    candle.volume(),
+                    candle.quoteVolume()
+            );
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,98 @@
+package com.btcautotrader.market;
+
+import com.btcautotrader.upbit.UpbitWebSocketClient;
+import com.btcautotrader.upbit.UpbitWebSocketStubServer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class MarketDataFeedTest {
+    private static final long MINUTE_0 = 1704067200000L;
+    private static final long MINUTE_1 = MINUTE_0 + 60_000L;
+    private static final long MINUTE_2 = MINUTE_0 + 120_000L;
+    private static final long MINUTE_6 = MINUTE_0 + 360_000L;
+
+    private UpbitWebSocketStubServer server;
+    private UpbitWebSocketClient client;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (client != null) {
+            client.stop();
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    void replayedFrames_feedLastPriceAndTradeBuiltCandles() throws Exception {
+        MarketDataFeed feed = startFeed(List.of(
+                UpbitWebSocketStubServer.loadFrames("/upbit/websocket-session-1.jsonl")
+        ));
+
+        awaitTrue(() -> hasPrice(feed, "60020000"));
+
+        List<Candle> candles = feed.liveCandles("KRW-BTC", 1, MINUTE_1);
+        assertThat(candles).hasSize(2);
+        Candle closed = candles.get(0);
+        assertThat(closed.openTimeMs()).isEqualTo(MINUTE_1);
+        assertThat(closed.open()).isEqualTo(60050000.0);
+        assertThat(closed.high()).isEqualTo(60050000.0);
+        assertThat(closed.low()).isEqualTo(59990000.0);
+        assertThat(closed.close()).isEqualTo(59990000.0);
+        assertThat(closed.volume()).isCloseTo(0.3, within(1e-12));
+        assertThat(closed.quoteVolume()).isCloseTo(60050000.0 * 0.2 + 59990000.0 * 0.1, within(1e-6));
+        assertThat(candles.get(1).openTimeMs()).isEqualTo(MINUTE_2);
+        assertThat(candles.get(1).close()).isEqualTo(60020000.0);
+
+        // The minute of the first observed trade may be missing earlier trades.
+        assertThat(feed.liveCandles("KRW-BTC", 1, MINUTE_0)).isNull();
+        assertThat(server.subscriptions().get(0)).contains("\"trade\"").contains("KRW-BTC");
+    }
+
+    @Test
+    void reconnect_resubscribesAndDropsCandlesSpanningTheGap() throws Exception {
+        MarketDataFeed feed = startFeed(List.of(
+                UpbitWebSocketStubServer.loadFrames("/upbit/websocket-session-1.jsonl"),
+                UpbitWebSocketStubServer.loadFrames("/upbit/websocket-session-2.jsonl")
+        ));
+
+        awaitTrue(() -> hasPrice(feed, "60300000"));
+
+        assertThat(server.connections()).isEqualTo(2);
+        assertThat(server.subscriptions()).hasSize(2);
+        assertThat(feed.liveCandles("KRW-BTC", 1, MINUTE_1)).isNull();
+        assertThat(feed.liveCandles("KRW-BTC", 1, MINUTE_6)).isEmpty();
+    }
+
+    private MarketDataFeed startFeed(List<List<String>> sessions) throws Exception {
+        server = new UpbitWebSocketStubServer(sessions);
+        client = new UpbitWebSocketClient(new ObjectMapper(), true, server.url(), 200, 5000, 50, 200);
+        MarketDataFeed feed = new MarketDataFeed(client, 0);
+        assertThat(feed.lastPrice("KRW-BTC")).isNull();
+        assertThat(feed.liveCandles("KRW-BTC", 1, MINUTE_1)).isNull();
+        feed.start();
+        return feed;
+    }
+
+    private static boolean hasPrice(MarketDataFeed feed, String expected) {
+        BigDecimal price = feed.lastPrice("KRW-BTC");
+        return price != null && price.compareTo(new BigDecimal(expected)) == 0;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+}
@@ -0,0 +1,88 @@
+package com.btcautotrader.order;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderGuardIndexTest {
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final OrderGuardIndex index = new OrderGuardIndex(orderRepository, true, 60);
+
+    @Test
+    void warmedIndex_answersGuardsWithoutQueryingPerMarket() {
+        OffsetDateTime now = OffsetDateTime.now();
+        when(orderRepository.findByRequestedAtAfter(any())).thenReturn(List.of(
+                order(1L, "KRW-BTC", "BUY", OrderStatus.SUBMITTED, now.minusMinutes(5)),
+                order(2L, "KRW-ETH", "SELL", OrderStatus.FILLED, now.minusSeconds(10))
+        ));
+        index.warmUp();
+
+        assertThat(index.hasOpenRequest("KRW-BTC", "BUY", now.minusMinutes(30))).isTrue();
+        assertThat(index.hasOpenRequest("KRW-BTC", "SELL", now.minusMinutes(30))).isFalse();
+        assertThat(index.hasOpenRequest("KRW-ETH", "SELL", now.minusMinutes(30))).isFalse();
+        assertThat(index.hasRecentOrder("KRW-ETH", "SELL", now.minusSeconds(30))).isTrue();
+        assertThat(index.hasRecentOrder("KRW-BTC", "BUY", now.minusSeconds(30))).isFalse();
+        verify(orderRepository, never()).existsByMarketAndSideAndRequestedAtAfter(anyString(), anyString(), any());
+        verify(orderRepository, never())
+                .existsByMarketAndSideAndStatusInAndRequestedAtAfter(anyString(), anyString(), anyList(), any());
+    }
+
+    @Test
+    void recordedOrders_updateOpenStateAndCooldown() {
+        OffsetDateTime now = OffsetDateTime.now();
+        when(orderRepository.findByRequestedAtAfter(any())).thenReturn(List.of());
+        index.warmUp();
+
+        index.record(order(7L, "KRW-BTC", "SELL", OrderStatus.REQUESTED, now));
+        assertThat(index.hasOpenRequest("KRW-BTC", "SELL", now.minusMinutes(30))).isTrue();
+        assertThat(index.hasRecentOrder("KRW-BTC", "SELL", now.minusSeconds(30))).isTrue();
+
+        index.record(order(7L, "KRW-BTC", "SELL", OrderStatus.FILLED, now));
+        assertThat(index.hasOpenRequest("KRW-BTC", "SELL", now.minusMinutes(30))).isFalse();
+        assertThat(index.hasRecentOrder("KRW-BTC", "SELL", now.minusSeconds(30))).isTrue();
+    }
+
+    @Test
+    void windowsBeyondTheLoadedRange_fallBackToTheRepository() {
+        OffsetDateTime now = OffsetDateTime.now();
+        OffsetDateTime beforeWarmUp = now.minusMinutes(90);
+        when(orderRepository.findByRequestedAtAfter(any())).thenReturn(List.of());
+        when(orderRepository.existsByMarketAndSideAndStatusInAndRequestedAtAfter(
+                "KRW-BTC",
+                "BUY",
+                OrderGuardIndex.OPEN_STATUSES,
+                beforeWarmUp
+        )).thenReturn(true);
+
+        assertThat(index.hasOpenRequest("KRW-BTC", "BUY", now.minusMinutes(30))).isFalse();
+        index.warmUp();
+
+        assertThat(index.hasOpenRequest("KRW-BTC", "BUY", beforeWarmUp)).isTrue();
+    }
+
+    private static OrderEntity order(
+            Long id,
+            String market,
+            String side,
+            OrderStatus status,
+            OffsetDateTime requestedAt
+    ) {
+        OrderEntity order = mock(OrderEntity.class);
+        when(order.getId()).thenReturn(id);
+        when(order.getMarket()).thenReturn(market);
+        when(order.getSide()).thenReturn(side);
+        when(order.getStatus()).thenReturn(status);
+        when(order.getRequestedAt()).thenReturn(requestedAt);
+        return order;
+    }
+}
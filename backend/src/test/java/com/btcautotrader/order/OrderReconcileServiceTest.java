@@ -0,0 +1,125 @@
+package com.btcautotrader.order;
+
+import com.btcautotrader.upbit.UpbitAsyncClient;
+import com.btcautotrader.upbit.UpbitOrderResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderReconcileServiceTest {
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final UpbitAsyncClient upbitClient = mock(UpbitAsyncClient.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final List<List<String>> lookedUp = new ArrayList<>();
+    private final List<List<String>> writtenBatches = new ArrayList<>();
+
+    @Test
+    void pendingOrders_areLookedUpInBatchesAndWrittenOnce() {
+        OffsetDateTime requestedAt = OffsetDateTime.now().minusMinutes(5);
+        List<OrderEntity> pending = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            pending.add(order("order-" + i, requestedAt));
+        }
+        when(orderRepository.findByStatusInAndRequestedAtAfter(anyList(), any())).thenReturn(pending);
+        when(orderRepository.findByStatusInAndRequestedAtBefore(anyList(), any())).thenReturn(List.of());
+        when(upbitClient.fetchOrdersByIdentifiers(anyList())).thenAnswer(invocation -> {
+            List<String> identifiers = invocation.getArgument(0);
+            lookedUp.add(List.copyOf(identifiers));
+            List<UpbitOrderResponse> found = new ArrayList<>();
+            for (String identifier : identifiers) {
+                if (!identifier.equals("order-4")) {
+                    found.add(response(identifier, identifier.equals("order-1") ? "done" : "wait"));
+                }
+            }
+            return CompletableFuture.completedFuture(found);
+        });
+        when(jdbcTemplate.batchUpdate(eq(OrderReconcileService.UPDATE_SQL), anyCollection(), anyInt(), any()))
+                .thenAnswer(invocation -> {
+                    Collection<OrderEntity> rows = invocation.getArgument(1);
+                    writtenBatches.add(rows.stream().map(OrderEntity::getClientOrderId).toList());
+                    return new int[0][];
+                });
+        OrderReconcileService service = service();
+
+        service.reconcilePending();
+
+        assertThat(lookedUp).containsExactly(
+                List.of("order-0", "order-1"),
+                List.of("order-2", "order-3"),
+                List.of("order-4")
+        );
+        assertThat(writtenBatches).containsExactly(List.of("order-0", "order-1", "order-2", "order-3"));
+        assertThat(pending.get(1).getStatus()).isEqualTo(OrderStatus.FILLED);
+        assertThat(pending.get(4).getStatus()).isEqualTo(OrderStatus.SUBMITTED);
+
+        service.reconcilePending();
+
+        verify(jdbcTemplate, times(1))
+                .batchUpdate(eq(OrderReconcileService.UPDATE_SQL), anyCollection(), anyInt(), any());
+    }
+
+    private OrderReconcileService service() {
+        return new OrderReconcileService(
+                orderRepository,
+                upbitClient,
+                new ObjectMapper(),
+                new OrderGuardIndex(orderRepository, false, 60),
+                jdbcTemplate,
+                mock(PlatformTransactionManager.class),
+                true,
+                60,
+                180,
+                2
+        );
+    }
+
+    private static OrderEntity order(String clientOrderId, OffsetDateTime requestedAt) {
+        OrderEntity order = new OrderEntity();
+        order.setClientOrderId(clientOrderId);
+        order.setMarket("KRW-BTC");
+        order.setSide("BUY");
+        order.setStatus(OrderStatus.SUBMITTED);
+        order.setRequestedAt(requestedAt);
+        return order;
+    }
+
+    private static UpbitOrderResponse response(String identifier, String state) {
+        return new UpbitOrderResponse(
+                "uuid-" + identifier,
+                "bid",
+                "limit",
+                "100",
+                state,
+                "KRW-BTC",
+                "2024-03-01T09:00:00+09:00",
+                "1",
+                "0",
+                null,
+                null,
+                null,
+                null,
+                "done".equals(state) ? "1" : "0",
+                "done".equals(state) ? 1 : 0,
+                null,
+                identifier
+        );
+    }
+}
@@ -0,0 +1,158 @@
+package com.btcautotrader.portfolio;
+
+import com.btcautotrader.engine.TradeDecisionReplayRow;
+import com.btcautotrader.engine.TradeDecisionRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PortfolioPerformanceServiceTest {
+    private static final ZoneId REPORT_ZONE = ZoneId.of("Asia/Seoul");
+    private static final BigDecimal FEE_RATE = new BigDecimal("0.0005");
+    private static final BigDecimal SLIPPAGE_PCT = new BigDecimal("0.001");
+
+    private final TradeDecisionRepository repository = mock(TradeDecisionRepository.class);
+    private final List<TradeDecisionReplayRow> decisions = new ArrayList<>();
+    private final InMemoryRollupStore store = new InMemoryRollupStore();
+
+    @Test
+    void rolledUpDaysPlusTail_matchFullHistoryReplay() {
+        LocalDate today = LocalDate.now(REPORT_ZONE);
+        addDecision("KRW-BTC", "BUY", today.minusDays(5), "1000", null, "20000");
+        addDecision("KRW-BTC", "BUY", today.minusDays(4), "1100", "5", null);
+        addDecision("KRW-ETH", "BUY", today.minusDays(4), "300", null, "9000");
+        addDecision("KRW-BTC", "SELL", today.minusDays(2), "1200", "12", null);
+        addDecision("KRW-ETH", "SELL", today.minusDays(1), "250", "40", null);
+        addDecision("KRW-BTC", "SELL", today, "1300", "13", null);
+        stubRepository();
+        PortfolioPerformanceService fullReplay = service(false);
+        PortfolioPerformanceService rollups = service(true);
+
+        for (LocalDate from : List.of(today.minusDays(6), today.minusDays(4), today.minusDays(1), today)) {
+            assertThat(rollups.getPerformance(from, today).toString())
+                    .isEqualTo(fullReplay.getPerformance(from, today).toString());
+        }
+        assertThat(store.rolledThrough).isEqualTo(today);
+        assertThat(store.days).hasSize(4);
+    }
+
+    @Test
+    void afterCheckpoint_onlyTheTailIsReplayed() {
+        LocalDate today = LocalDate.now(REPORT_ZONE);
+        addDecision("KRW-BTC", "BUY", today.minusDays(3), "1000", null, "20000");
+        addDecision("KRW-BTC", "SELL", today, "1200", "10", null);
+        stubRepository();
+        PortfolioPerformanceService rollups = service(true);
+        rollups.getPerformance(today.minusDays(3), today);
+
+        PortfolioPerformanceResponse response = service(true).getPerformance(today.minusDays(3), today);
+
+        verify(repository).streamReplayRowsBefore(anyCollection(), any());
+        assertThat(response.total().tradeCount()).isEqualTo(2);
+        assertThat(response.total().estimatedRealizedPnlKrw()).isPositive();
+    }
+
+    @Test
+    void disabledRollups_neverTouchTheStore() {
+        stubRepository();
+
+        service(false).getPerformance(LocalDate.now(REPORT_ZONE).minusDays(1), LocalDate.now(REPORT_ZONE));
+
+        assertThat(store.saves).isZero();
+        verify(repository, never()).streamReplayRowsBetween(anyCollection(), any(), any());
+    }
+
+    private PortfolioPerformanceService service(boolean rollupEnabled) {
+        return new PortfolioPerformanceService(
+                new TradeDecisionReplayReader(repository),
+                store,
+                FEE_RATE,
+                SLIPPAGE_PCT,
+                rollupEnabled,
+                0
+        );
+    }
+
+    private void stubRepository() {
+        when(repository.streamReplayRowsBefore(anyCollection(), any()))
+                .thenAnswer(invocation -> between(null, invocation.getArgument(1)));
+        when(repository.streamReplayRowsBetween(anyCollection(), any(), any()))
+                .thenAnswer(invocation -> between(invocation.getArgument(1), invocation.getArgument(2)));
+    }
+
+    private Stream<TradeDecisionReplayRow> between(OffsetDateTime from, OffsetDateTime to) {
+        return decisions.stream()
+                .filter(decision -> from == null || !decision.executedAt().isBefore(from))
+                .filter(decision -> decision.executedAt().isBefore(to));
+    }
+
+    private void addDecision(String market, String action, LocalDate date, String price, String quantity, String funds) {
+        decisions.add(new TradeDecisionReplayRow(
+                date.atStartOfDay(REPORT_ZONE).plusMinutes(decisions.size()).toOffsetDateTime(),
+                market,
+                action,
+                new BigDecimal(price),
+                quantity == null ? null : new BigDecimal(quantity),
+                funds == null ? null : new BigDecimal(funds),
+                null
+        ));
+    }
+
+    private static final class InMemoryRollupStore extends PortfolioRollupStore {
+        private final TreeMap<LocalDate, PortfolioPerformanceDailyEntity> days = new TreeMap<>();
+        private List<PortfolioInventorySnapshotEntity> inventory = List.of();
+        private LocalDate rolledThrough;
+        private BigDecimal tradeCostRate;
+        private int saves;
+
+        private InMemoryRollupStore() {
+            super(null, null, null);
+        }
+
+        @Override
+        public Checkpoint load() {
+            return rolledThrough == null ? null : new Checkpoint(rolledThrough, tradeCostRate, inventory);
+        }
+
+        @Override
+        public List<PortfolioPerformanceDailyEntity> findDays(LocalDate from, LocalDate to) {
+            return new ArrayList<>(days.subMap(from, true, to, true).values());
+        }
+
+        @Override
+        public void save(
+                LocalDate rolledThrough,
+                BigDecimal tradeCostRate,
+                List<PortfolioPerformanceDailyEntity> days,
+                List<PortfolioInventorySnapshotEntity> inventory
+        ) {
+            saves++;
+            this.rolledThrough = rolledThrough;
+            this.tradeCostRate = tradeCostRate;
+            days.forEach(day -> this.days.put(day.getReportDate(), day));
+            this.inventory = inventory;
+        }
+
+        @Override
+        public void reset() {
+            rolledThrough = null;
+            days.clear();
+            inventory = List.of();
+        }
+    }
+}
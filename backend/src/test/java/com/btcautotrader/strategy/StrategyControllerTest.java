@@ -29,6 +29,9 @@ class StrategyControllerTest {
     @MockBean
     private StrategyService strategyService;
 
+    @MockBean
+    private StrategySnapshotCache strategySnapshotCache;
+
     @Test
     void replaceMarketOverrides_normalizesMarketAndSavesRatios() throws Exception {
         when(strategyService.configuredMarkets()).thenReturn(List.of("KRW-BTC", "KRW-ETH"));
@@ -76,6 +79,7 @@ class StrategyControllerTest {
         assertThat(saved.ratiosByMarket()).containsKey("KRW-ETH");
         assertThat(saved.ratiosByMarket().get("KRW-ETH").takeProfitPct()).isEqualTo(4.5);
         assertThat(saved.ratiosByMarket().get("KRW-ETH").stopLossPct()).isEqualTo(2.1);
+        verify(strategySnapshotCache).invalidate();
     }
 
     @Test
@@ -101,6 +105,7 @@ class StrategyControllerTest {
                 .andExpect(jsonPath("$.fields['ratiosByMarket.KRW-ETH']").value("market is not configured"));
 
         verify(strategyService, never()).replaceMarketOverrides(any());
+        verify(strategySnapshotCache, never()).invalidate();
     }
 
     @Test
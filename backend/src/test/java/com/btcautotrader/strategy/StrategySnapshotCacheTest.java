@@ -0,0 +1,59 @@
+package com.btcautotrader.strategy;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StrategySnapshotCacheTest {
+    private static final StrategyConfig CONFIG =
+            new StrategyConfig(true, 30000.0, 4.5, 2.2, 2.3, 40.0, "BALANCED", 100.0, 0.0, 0.0);
+    private static final StrategyMarketOverrides NO_OVERRIDES = new StrategyMarketOverrides(Map.of(), Map.of(), Map.of());
+
+    private final StrategyService strategyService = mock(StrategyService.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final StrategySnapshotCache cache =
+            new StrategySnapshotCache(strategyService, jdbcTemplate, mock(DataSource.class), false, 1000);
+
+    @Test
+    void repeatedReads_loadFromTheServiceOnce() {
+        when(strategyService.getConfig()).thenReturn(CONFIG);
+        when(strategyService.getMarketOverridesSnapshot()).thenReturn(NO_OVERRIDES);
+        when(strategyService.configuredMarkets()).thenReturn(List.of("KRW-BTC"));
+
+        StrategySnapshot first = cache.get();
+        StrategySnapshot second = cache.get();
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.markets()).containsExactly("KRW-BTC");
+        verify(strategyService, times(1)).getConfig();
+        verify(strategyService, times(1)).configuredMarkets();
+    }
+
+    @Test
+    void invalidate_rebuildsWithANewerVersion() {
+        when(strategyService.getConfig()).thenReturn(CONFIG);
+        when(strategyService.getMarketOverridesSnapshot()).thenReturn(NO_OVERRIDES);
+        when(strategyService.configuredMarkets()).thenReturn(List.of("KRW-BTC"), List.of("KRW-BTC", "KRW-ETH"));
+        StrategySnapshot before = cache.get();
+
+        StrategySnapshot after = cache.invalidate();
+
+        assertThat(after.version()).isGreaterThan(before.version());
+        assertThat(cache.get()).isSameAs(after);
+        assertThat(cache.get().markets()).containsExactly("KRW-BTC", "KRW-ETH");
+        verify(jdbcTemplate, never()).queryForList(anyString(), eq(String.class), any(Object[].class));
+    }
+}
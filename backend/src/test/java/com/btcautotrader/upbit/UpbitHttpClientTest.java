@@ -0,0 +1,160 @@
+package com.btcautotrader.upbit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UpbitHttpClientTest {
+    private static final int MAX_IN_FLIGHT = 4;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+    private final AtomicInteger throttleOnce = new AtomicInteger();
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+    private ExecutorService serverExecutor;
+    private HttpServer server;
+    private UpbitHttpClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 50);
+        serverExecutor = Executors.newFixedThreadPool(16);
+        server.setExecutor(serverExecutor);
+        server.createContext("/v1/ticker", this::ticker);
+        server.createContext("/v1/order", this::order);
+        server.start();
+
+        UpbitRateLimiter rateLimiter = new UpbitRateLimiter(false, 10, 600, 25, 0, 8, 0, true, 1, 10, 20);
+        client = new UpbitHttpClient(
+                new ObjectMapper(),
+                new UpbitJwtSigner("access-key", "secret-key"),
+                rateLimiter,
+                "http://127.0.0.1:" + server.getAddress().getPort(),
+                2,
+                MAX_IN_FLIGHT,
+                5000
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.stop();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void fanOut_overlapsRequestsAndReusesPooledConnections() {
+        List<Map<String, UpbitTicker>> firstWave = fetchTickers(12);
+
+        assertThat(firstWave).hasSize(12);
+        assertThat(firstWave.get(0).get("KRW-BTC").tradePrice()).isEqualByComparingTo("60000000");
+        assertThat(maxActive.get()).isGreaterThan(1).isLessThanOrEqualTo(MAX_IN_FLIGHT);
+        int connectionsAfterFirstWave = clientPorts.size();
+        assertThat(connectionsAfterFirstWave).isLessThanOrEqualTo(MAX_IN_FLIGHT);
+
+        fetchTickers(12);
+
+        assertThat(clientPorts).hasSize(connectionsAfterFirstWave);
+    }
+
+    @Test
+    void throttledRequest_isRetriedAfterBackoff() {
+        throttleOnce.set(1);
+
+        Map<String, UpbitTicker> tickers = client.fetchTickers(List.of("KRW-BTC")).join();
+
+        assertThat(tickers).containsKey("KRW-BTC");
+        assertThat(throttleOnce.get()).isZero();
+    }
+
+    @Test
+    void orderLookup_decodesTypedResponseAndMapsNotFoundToNull() {
+        UpbitOrderResponse order = client.fetchOrderByIdentifier("known").join();
+
+        assertThat(order.uuid()).isEqualTo("9ca023a5-851b-4fec-9f0a-48cd83c2eaae");
+        assertThat(order.state()).isEqualTo("done");
+        assertThat(order.tradesCount()).isEqualTo(1);
+        assertThat(client.fetchOrderByIdentifier("missing").join()).isNull();
+        assertThatThrownBy(() -> client.fetchOrderByIdentifier("broken").join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(UpbitApiException.class);
+    }
+
+    private List<Map<String, UpbitTicker>> fetchTickers(int count) {
+        List<CompletableFuture<Map<String, UpbitTicker>>> futures = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            futures.add(client.fetchTickers(List.of("KRW-BTC")));
+        }
+        List<Map<String, UpbitTicker>> results = new ArrayList<>();
+        for (CompletableFuture<Map<String, UpbitTicker>> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    private void ticker(HttpExchange exchange) throws IOException {
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        if (throttleOnce.compareAndSet(1, 0)) {
+            respond(exchange, 429, "{\"error\":{\"name\":\"too_many_requests\"}}");
+            return;
+        }
+        int now = active.incrementAndGet();
+        maxActive.accumulateAndGet(now, Math::max);
+        try {
+            TimeUnit.MILLISECONDS.sleep(100);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            active.decrementAndGet();
+        }
+        exchange.getResponseHeaders().add("Remaining-Req", "group=default; min=599; sec=9");
+        respond(exchange, 200, "[{\"market\":\"KRW-BTC\",\"trade_price\":60000000}]");
+    }
+
+    private void order(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getQuery();
+        assertThat(exchange.getRequestHeaders().getFirst("Authorization")).startsWith("Bearer ");
+        if ("identifier=missing".equals(query)) {
+            respond(exchange, 404, "{\"error\":{\"name\":\"order_not_found\"}}");
+        } else if ("identifier=known".equals(query)) {
+            respond(exchange, 200, "{\"uuid\":\"9ca023a5-851b-4fec-9f0a-48cd83c2eaae\",\"side\":\"bid\","
+                    + "\"state\":\"done\",\"market\":\"KRW-BTC\",\"trades_count\":1,\"trades\":[]}");
+        } else {
+            respond(exchange, 500, "{\"error\":{\"name\":\"server_error\"}}");
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.btcautotrader.upbit;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UpbitJsonDecoderTest {
+
+    @Test
+    void readCandles_keepsResponseOrderAndSkipsUnreadFields() throws Exception {
+        String body = "["
+                + "{\"market\":\"KRW-BTC\",\"candle_date_time_utc\":\"2024-03-01T00:01:00\","
+                + "\"candle_date_time_kst\":\"2024-03-01T09:01:00\",\"opening_price\":60100000.0,"
+                + "\"high_price\":60200000.0,\"low_price\":60000000.0,\"trade_price\":60150000.0,"
+                + "\"timestamp\":1709251319000,\"candle_acc_trade_price\":120300000.5,"
+                + "\"candle_acc_trade_volume\":2.0,\"unit\":1,\"extra\":{\"nested\":[1,2,{\"a\":null}]}},"
+                + "{\"market\":\"KRW-BTC\",\"candle_date_time_utc\":\"2024-02-29T23:59:00.000\","
+                + "\"opening_price\":\"59900000\",\"high_price\":60000000,\"low_price\":59800000,"
+                + "\"trade_price\":60000000,\"candle_acc_trade_price\":null,\"candle_acc_trade_volume\":1.5},"
+                + "{\"market\":\"KRW-BTC\",\"candle_date_time_utc\":null,\"trade_price\":1}"
+                + "]";
+
+        UpbitCandleBatch batch = UpbitJsonDecoder.decode(bytes(body), UpbitJsonDecoder::readCandles);
+
+        assertThat(batch.size()).isEqualTo(2);
+        assertThat(batch.openTimeMs(0)).isEqualTo(utcMillis("2024-03-01T00:01:00"));
+        assertThat(batch.open(0)).isEqualTo(60100000.0);
+        assertThat(batch.high(0)).isEqualTo(60200000.0);
+        assertThat(batch.low(0)).isEqualTo(60000000.0);
+        assertThat(batch.close(0)).isEqualTo(60150000.0);
+        assertThat(batch.volume(0)).isEqualTo(2.0);
+        assertThat(batch.quoteVolume(0)).isEqualTo(120300000.5);
+        assertThat(batch.openTimeMs(1)).isEqualTo(utcMillis("2024-02-29T23:59:00"));
+        assertThat(batch.open(1)).isEqualTo(59900000.0);
+        assertThat(batch.quoteVolume(1)).isEqualTo(0.0);
+    }
+
+    @Test
+    void readTickersAndAccounts_decodeIntoTypedRecords() throws Exception {
+        Map<String, UpbitTicker> tickers = UpbitJsonDecoder.decode(
+                bytes("[{\"market\":\"KRW-ETH\",\"trade_date\":\"20240301\",\"trade_price\":4500000.5,"
+                        + "\"change\":\"RISE\"},{\"trade_price\":1}]"),
+                UpbitJsonDecoder::readTickers
+        );
+        List<UpbitAccount> accounts = UpbitJsonDecoder.decode(
+                bytes("[{\"currency\":\"KRW\",\"balance\":\"1000000.0\",\"locked\":\"0.0\",\"avg_buy_price\":\"0\","
+                        + "\"avg_buy_price_modified\":false,\"unit_currency\":\"KRW\"},"
+                        + "{\"currency\":\"BTC\",\"balance\":\"0.01\",\"locked\":\"0.002\","
+                        + "\"avg_buy_price\":\"60000000\",\"unit_currency\":\"KRW\"}]"),
+                UpbitJsonDecoder::readAccounts
+        );
+
+        assertThat(tickers).hasSize(1);
+        assertThat(tickers.get("KRW-ETH").tradePrice()).isEqualByComparingTo("4500000.5");
+        assertThat(accounts).hasSize(2);
+        UpbitAccount btc = accounts.get(1);
+        assertThat(btc.currency()).isEqualTo("BTC");
+        assertThat(btc.unitCurrency()).isEqualTo("KRW");
+        assertThat(btc.balance().add(btc.locked())).isEqualByComparingTo("0.012");
+        assertThat(btc.avgBuyPrice()).isEqualByComparingTo("60000000");
+    }
+
+    @Test
+    void nonArrayBody_isRejected() {
+        assertThatThrownBy(() -> UpbitJsonDecoder.decode(
+                bytes("{\"error\":{\"name\":\"invalid_query_payload\"}}"),
+                UpbitJsonDecoder::readTickers
+        )).isInstanceOf(IOException.class);
+    }
+
+    private static byte[] bytes(String body) {
+        return body.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long utcMillis(String value) {
+        return LocalDateTime.parse(value).toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
@@ -0,0 +1,93 @@
+package com.btcautotrader.upbit;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UpbitJwtSignerTest {
+    private static final String SECRET_KEY = "secret-key";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final UpbitJwtSigner signer = new UpbitJwtSigner("access-key", SECRET_KEY);
+
+    @Test
+    void signedQuery_carriesQueryHashAndVerifiesWithHmacSha512() throws Exception {
+        String queryString = "market=KRW-BTC&side=bid&ord_type=price&price=5000";
+
+        String token = signer.sign(queryString);
+
+        assertThat(decode(token, 0)).containsEntry("alg", "HS512").containsEntry("typ", "JWT");
+        Map<String, Object> claims = decode(token, 1);
+        assertThat(claims).containsEntry("access_key", "access-key").containsEntry("query_hash_alg", "SHA512");
+        assertThat(claims.get("query_hash")).isEqualTo(HexFormat.of().formatHex(
+                MessageDigest.getInstance("SHA-512").digest(queryString.getBytes(StandardCharsets.UTF_8))
+        ));
+        assertThat((String) claims.get("nonce")).hasSize(36);
+        assertThat(verifies(token)).isTrue();
+    }
+
+    @Test
+    void unsignedQuery_omitsQueryHashAndUsesFreshNonces() throws Exception {
+        String first = signer.sign(null);
+        String second = signer.sign("");
+
+        assertThat(decode(first, 1)).containsOnlyKeys("access_key", "nonce");
+        assertThat(decode(second, 1)).containsOnlyKeys("access_key", "nonce");
+        assertThat(decode(first, 1).get("nonce")).isNotEqualTo(decode(second, 1).get("nonce"));
+        assertThat(signer.authorization(null)).startsWith("Bearer ");
+    }
+
+    @Test
+    void concurrentSigning_producesValidTokensOnEveryThread() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Boolean>> tasks = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                String queryString = "market=KRW-BTC&identifier=order-" + i;
+                tasks.add(() -> verifies(signer.sign(queryString)));
+            }
+            for (Future<Boolean> result : executor.invokeAll(tasks)) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void missingSecret_failsOnSignNotOnConstruction() {
+        UpbitJwtSigner unconfigured = new UpbitJwtSigner("access-key", "");
+
+        assertThatThrownBy(() -> unconfigured.sign(null)).isInstanceOf(IllegalStateException.class);
+    }
+
+    private Map<String, Object> decode(String token, int part) throws Exception {
+        byte[] json = Base64.getUrlDecoder().decode(token.split("\\.")[part]);
+        return objectMapper.readValue(json, new TypeReference<Map<String, Object>>() { });
+    }
+
+    private static boolean verifies(String token) throws Exception {
+        int lastDot = token.lastIndexOf('.');
+        Mac mac = Mac.getInstance("HmacSHA512");
+        mac.init(new SecretKeySpec(SECRET_KEY.getBytes(StandardCharsets.UTF_8), "HmacSHA512"));
+        byte[] expected = mac.doFinal(token.substring(0, lastDot).getBytes(StandardCharsets.US_ASCII));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(expected).equals(token.substring(lastDot + 1));
+    }
+}
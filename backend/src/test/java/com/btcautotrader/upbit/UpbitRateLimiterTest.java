@@ -0,0 +1,138 @@
+package com.btcautotrader.upbit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UpbitRateLimiterTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void reserve_allowsBurstButNeverMoreThanLimitInAnyPeriod() {
+        UpbitRateLimiter limiter = limiter(4, 0);
+        long now = 1_000 * SECOND;
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(limiter.reserve(UpbitRateGroup.TICKER, now)).isZero();
+        }
+        assertThat(limiter.tryAcquire(UpbitRateGroup.TICKER, now + SECOND / 2)).isFalse();
+
+        long[] grants = new long[20];
+        for (int i = 0; i < grants.length; i++) {
+            long at = now + i * SECOND / 10;
+            grants[i] = at + limiter.reserve(UpbitRateGroup.TICKER, at);
+        }
+        assertThat(grants[0]).isEqualTo(now + SECOND);
+        for (int i = 4; i < grants.length; i++) {
+            assertThat(grants[i] - grants[i - 4]).isGreaterThanOrEqualTo(SECOND);
+            assertThat(grants[i]).isGreaterThanOrEqualTo(grants[i - 1]);
+        }
+    }
+
+    @Test
+    void reserve_keepsOtherGroupsIndependentOfTickerBursts() {
+        UpbitRateLimiter limiter = limiter(2, 0);
+        long now = 1_000 * SECOND;
+
+        for (int i = 0; i < 50; i++) {
+            limiter.reserve(UpbitRateGroup.TICKER, now);
+        }
+
+        assertThat(limiter.reserve(UpbitRateGroup.TICKER, now)).isGreaterThan(SECOND);
+        assertThat(limiter.reserve(UpbitRateGroup.CANDLES, now)).isZero();
+        assertThat(limiter.reserve(UpbitRateGroup.ORDER, now)).isZero();
+        assertThat(limiter.reserve(UpbitRateGroup.EXCHANGE_DEFAULT, now)).isZero();
+    }
+
+    @Test
+    void onRemainingReq_raisesRateToObservedBudgetAndHoldsOnlyTheExhaustedGroup() {
+        UpbitRateLimiter limiter = limiter(2, 0);
+        long now = 1_000 * SECOND;
+
+        limiter.onRemainingReq("group=ticker; min=1799; sec=9", now);
+        for (int i = 0; i < 9; i++) {
+            assertThat(limiter.reserve(UpbitRateGroup.TICKER, now)).isZero();
+        }
+
+        assertThat(limiter.reserve(UpbitRateGroup.TICKER, now)).isEqualTo(SECOND);
+
+        long later = now + 2 * SECOND;
+        limiter.onRemainingReq("group=candles; min=1799; sec=0", later);
+        assertThat(limiter.tryAcquire(UpbitRateGroup.CANDLES, later + SECOND / 2)).isFalse();
+        assertThat(limiter.tryAcquire(UpbitRateGroup.TICKER, later + SECOND / 2)).isTrue();
+        assertThat(limiter.tryAcquire(UpbitRateGroup.ORDER, later)).isTrue();
+        assertThat(limiter.tryAcquire(UpbitRateGroup.CANDLES, later + SECOND)).isTrue();
+    }
+
+    @Test
+    void onRemainingReq_lowersRateOnceASmallerBudgetOutlastsTheWindow() {
+        UpbitRateLimiter limiter = limiter(2, 0);
+        long now = 1_000 * SECOND;
+
+        limiter.onRemainingReq("group=ticker; sec=9", now);
+        limiter.onRemainingReq("group=ticker; sec=3", now + 5 * SECOND);
+        limiter.onRemainingReq("group=ticker; sec=3", now + 11 * SECOND);
+        limiter.onRemainingReq("group=ticker; sec=3", now + 22 * SECOND);
+
+        long later = now + 30 * SECOND;
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.reserve(UpbitRateGroup.TICKER, later)).isZero();
+        }
+        assertThat(limiter.reserve(UpbitRateGroup.TICKER, later)).isEqualTo(SECOND);
+    }
+
+    @Test
+    void onRemainingReq_ignoresGroupsThisClientDoesNotCall() {
+        UpbitRateLimiter limiter = limiter(2, 0);
+        long now = 1_000 * SECOND;
+
+        limiter.onRemainingReq("group=orderbook; sec=0", now);
+        limiter.onRemainingReq("group=order-cancel-all; sec=0", now);
+
+        for (UpbitRateGroup group : UpbitRateGroup.values()) {
+            assertThat(limiter.tryAcquire(group, now)).isTrue();
+        }
+    }
+
+    @Test
+    void onThrottled_holdsOnlyTheThrottledGroup() {
+        UpbitRateLimiter limiter = limiter(10, 0);
+        long now = 1_000 * SECOND;
+
+        limiter.onThrottled(UpbitRateGroup.EXCHANGE_DEFAULT, now);
+
+        assertThat(limiter.reserve(UpbitRateGroup.EXCHANGE_DEFAULT, now)).isGreaterThanOrEqualTo(SECOND / 5);
+        assertThat(limiter.reserve(UpbitRateGroup.TICKER, now)).isZero();
+        assertThat(limiter.reserve(UpbitRateGroup.ORDER, now)).isZero();
+    }
+
+    @Test
+    void remainingReq_parsesUpbitHeaderFormat() {
+        UpbitRateLimiter.RemainingReq parsed = UpbitRateLimiter.RemainingReq.parse("group=default; min=1799; sec=29");
+
+        assertThat(parsed.group()).isEqualTo("default");
+        assertThat(parsed.sec()).isEqualTo(29);
+        assertThat(UpbitRateGroup.fromHeaderName(parsed.group())).isEqualTo(UpbitRateGroup.EXCHANGE_DEFAULT);
+        assertThat(UpbitRateGroup.fromHeaderName("order")).isEqualTo(UpbitRateGroup.ORDER);
+        assertThat(UpbitRateGroup.fromHeaderName("candles")).isEqualTo(UpbitRateGroup.CANDLES);
+        assertThat(UpbitRateGroup.fromHeaderName("orderbook")).isNull();
+        assertThat(UpbitRateLimiter.RemainingReq.parse("garbage")).isNull();
+    }
+
+    @Test
+    void reserve_appliesPerMinuteCapOnTopOfPerSecond() {
+        UpbitRateLimiter limiter = limiter(10, 3);
+        long now = 1_000 * SECOND;
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.reserve(UpbitRateGroup.TICKER, now)).isZero();
+        }
+        assertThat(limiter.reserve(UpbitRateGroup.TICKER, now)).isEqualTo(TimeUnit.MINUTES.toNanos(1));
+    }
+
+    private static UpbitRateLimiter limiter(int quotationPerSecond, int quotationPerMinute) {
+        return new UpbitRateLimiter(true, quotationPerSecond, quotationPerMinute, 25, 0, 8, 0, true, 1, 200, 10_000);
+    }
+}
@@ -0,0 +1,225 @@
+package com.btcautotrader.upbit;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal RFC 6455 server that replays recorded Upbit frames to each connecting client.
+ * Connection N replays session N as binary frames once the client has subscribed; every session but the last
+ * ends with a server-side close, the last one stays open and answers pings.
+ */
+public final class UpbitWebSocketStubServer implements AutoCloseable {
+    private static final String ACCEPT_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    private final ServerSocket serverSocket;
+    private final List<List<String>> sessions;
+    private final AtomicInteger connections = new AtomicInteger();
+    private final List<String> subscriptions = new CopyOnWriteArrayList<>();
+    private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+
+    public UpbitWebSocketStubServer(List<List<String>> sessions) throws IOException {
+        this.sessions = sessions;
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "upbit-ws-stub");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public static List<String> loadFrames(String resource) {
+        InputStream stream = UpbitWebSocketStubServer.class.getResourceAsStream(resource);
+        if (stream == null) {
+            throw new IllegalArgumentException("missing resource " + resource);
+        }
+        List<String> frames = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    frames.add(line);
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return frames;
+    }
+
+    public String url() {
+        return "ws://127.0.0.1:" + serverSocket.getLocalPort() + "/websocket/v1";
+    }
+
+    public int connections() {
+        return connections.get();
+    }
+
+    public List<String> subscriptions() {
+        return subscriptions;
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                sockets.add(socket);
+                int session = connections.getAndIncrement();
+                Thread worker = new Thread(() -> serve(socket, session), "upbit-ws-stub-" + session);
+                worker.setDaemon(true);
+                worker.start();
+            } catch (IOException ex) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket, int session) {
+        try (socket) {
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            OutputStream out = socket.getOutputStream();
+            handshake(in, out);
+
+            boolean lastSession = session >= sessions.size() - 1;
+            List<String> frames = sessions.get(Math.min(session, sessions.size() - 1));
+            boolean replayed = false;
+            while (true) {
+                Frame frame = readFrame(in);
+                if (frame.opcode() == 0x8) {
+                    writeFrame(out, 0x8, new byte[0]);
+                    return;
+                }
+                if (frame.opcode() == 0x9) {
+                    writeFrame(out, 0xA, frame.payload());
+                    continue;
+                }
+                if (frame.opcode() != 0x1 || replayed) {
+                    continue;
+                }
+                subscriptions.add(new String(frame.payload(), StandardCharsets.UTF_8));
+                for (String recorded : frames) {
+                    writeFrame(out, 0x2, recorded.getBytes(StandardCharsets.UTF_8));
+                }
+                replayed = true;
+                if (!lastSession) {
+                    writeFrame(out, 0x8, new byte[]{0x03, (byte) 0xE8});
+                    return;
+                }
+            }
+        } catch (IOException ex) {
+            // Client went away.
+        }
+    }
+
+    private static void handshake(DataInputStream in, OutputStream out) throws IOException {
+        String key = null;
+        String line;
+        while (!(line = readLine(in)).isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase("Sec-WebSocket-Key")) {
+                key = line.substring(colon + 1).trim();
+            }
+        }
+        if (key == null) {
+            throw new IOException("not a websocket upgrade");
+        }
+        String response = "HTTP/1.1 101 Switching Protocols\r\n"
+                + "Upgrade: websocket\r\n"
+                + "Connection: Upgrade\r\n"
+                + "Sec-WebSocket-Accept: " + acceptKey(key) + "\r\n\r\n";
+        out.write(response.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    private static String acceptKey(String key) {
+        try {
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            byte[] digest = sha1.digest((key + ACCEPT_GUID).getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static String readLine(DataInputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int value;
+        while ((value = in.read()) != -1) {
+            if (value == '\n') {
+                break;
+            }
+            if (value != '\r') {
+                line.append((char) value);
+            }
+        }
+        if (value == -1 && line.length() == 0) {
+            throw new IOException("connection closed during handshake");
+        }
+        return line.toString();
+    }
+
+    private static Frame readFrame(DataInputStream in) throws IOException {
+        int first = in.readUnsignedByte();
+        int second = in.readUnsignedByte();
+        long length = second & 0x7F;
+        if (length == 126) {
+            length = in.readUnsignedShort();
+        } else if (length == 127) {
+            length = in.readLong();
+        }
+        byte[] mask = new byte[4];
+        boolean masked = (second & 0x80) != 0;
+        if (masked) {
+            in.readFully(mask);
+        }
+        byte[] payload = new byte[(int) length];
+        in.readFully(payload);
+        if (masked) {
+            for (int i = 0; i < payload.length; i++) {
+                payload[i] ^= mask[i % 4];
+            }
+        }
+        return new Frame(first & 0x0F, payload);
+    }
+
+    private static void writeFrame(OutputStream out, int opcode, byte[] payload) throws IOException {
+        out.write(0x80 | opcode);
+        if (payload.length < 126) {
+            out.write(payload.length);
+        } else if (payload.length <= 0xFFFF) {
+            out.write(126);
+            out.write(payload.length >>> 8);
+            out.write(payload.length & 0xFF);
+        } else {
+            out.write(127);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                out.write((int) (((long) payload.length >>> shift) & 0xFF));
+            }
+        }
+        out.write(payload);
+        out.flush();
+    }
+
+    private record Frame(int opcode, byte[] payload) {
+    }
+}
@@ -27,6 +27,53 @@ CREATE INDEX idx_portfolio_snapshot_item_snapshot
 CREATE INDEX idx_portfolio_snapshot_item_currency
   ON portfolio_snapshot_item(currency);
 
+-- 성과 집계: 마감된 보고일(Asia/Seoul)별 합계
+CREATE TABLE portfolio_performance_daily (
+  report_date                  DATE PRIMARY KEY,
+  estimated_realized_pnl_krw   NUMERIC NOT NULL,
+  net_cash_flow_krw            NUMERIC NOT NULL,
+  buy_notional_krw             NUMERIC NOT NULL,
+  sell_notional_krw            NUMERIC NOT NULL,
+  unmatched_sell_notional_krw  NUMERIC NOT NULL,
+  estimated_fee_krw            NUMERIC NOT NULL,
+  buy_count                    BIGINT NOT NULL,
+  sell_count                   BIGINT NOT NULL,
+  matched_sell_count           BIGINT NOT NULL,
+  winning_sell_count           BIGINT NOT NULL,
+  losing_sell_count            BIGINT NOT NULL
+);
+
+-- 성과 집계: 마지막 집계일 종료 시점의 마켓별 추정 보유량/원가
+CREATE TABLE portfolio_inventory_snapshot (
+  market    VARCHAR(20) PRIMARY KEY,
+  quantity  NUMERIC NOT NULL,
+  cost      NUMERIC NOT NULL
+);
+
+-- 성과 집계 워터마크 (단일 행, rolled_through 이전 날짜까지 집계 완료)
+CREATE TABLE portfolio_rollup_state (
+  id               BIGINT PRIMARY KEY,
+  rolled_through   DATE NOT NULL,
+  trade_cost_rate  NUMERIC NOT NULL,
+  updated_at       TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+-- 분봉 이력 캐시 (마감된 캔들만, run_start 행부터가 마켓/단위별로 끊김 없는 최신 구간)
+CREATE TABLE market_candles (
+  id            BIGSERIAL PRIMARY KEY,
+  market        VARCHAR(20) NOT NULL,
+  unit          INTEGER NOT NULL,
+  open_time_ms  BIGINT NOT NULL,
+  open          DOUBLE PRECISION NOT NULL,
+  high          DOUBLE PRECISION NOT NULL,
+  low           DOUBLE PRECISION NOT NULL,
+  close         DOUBLE PRECISION NOT NULL,
+  volume        DOUBLE PRECISION NOT NULL,
+  quote_volume  DOUBLE PRECISION NOT NULL,
+  run_start     BOOLEAN NOT NULL DEFAULT FALSE,
+  CONSTRAINT uk_market_candles_market_unit_open_time UNIQUE (market, unit, open_time_ms)
+);
+
 -- 주문 기록 (Upbit Spot)
 CREATE TABLE orders (
   id              BIGSERIAL PRIMARY KEY,
@@ -135,7 +182,13 @@ CREATE TABLE trade_decisions (
   trailing_high     NUMERIC(38, 18),
   ma_long_slope_pct NUMERIC(38, 18),
   volatility_pct    NUMERIC(38, 18),
-  details           TEXT
+  details           TEXT,
+  -- 연속된 동일 SKIP은 한 행으로 압축 (executed_at = first_seen, 최근 발생 시각은 last_seen)
+  first_seen        TIMESTAMPTZ,
+  last_seen         TIMESTAMPTZ,
+  repeat_count      INTEGER DEFAULT 1,
+  -- 공통 전략/엔진 파라미터 (trade_decision_contexts.id, 논리 참조)
+  context_id        BIGINT
 );
 
 CREATE INDEX idx_trade_decisions_executed_at
@@ -150,6 +203,26 @@ CREATE INDEX idx_trade_decisions_action_executed_at
 CREATE INDEX idx_trade_decisions_market_executed_at
   ON trade_decisions(market, executed_at);
 
+CREATE INDEX idx_trade_decisions_context_id
+  ON trade_decisions(context_id);
+
+-- 최근 판단 조회 정렬 (압축된 SKIP은 마지막 발생 시각 기준)
+CREATE INDEX idx_trade_decisions_seen_at
+  ON trade_decisions((COALESCE(last_seen, executed_at)) DESC, id DESC);
+
+-- db.partitioning.trade-decisions.enabled=true이면 TimePartitionMigrationService가 시작 시 trade_decisions를 executed_at 기준 월별 파티션
+-- (PRIMARY KEY (id, executed_at), trade_decisions_pYYYYMM + trade_decisions_default)으로 변환합니다.
+-- orders는 client_order_id/external_id unique 제약(주문 멱등성)을 유지해야 하므로 파티셔닝하지 않습니다.
+
+-- 매매 결정 공통 파라미터 (정규화된 JSON의 SHA-256으로 중복 제거)
+CREATE TABLE trade_decision_contexts (
+  id            BIGSERIAL PRIMARY KEY,
+  context_hash  VARCHAR(64) NOT NULL,
+  params        TEXT NOT NULL,
+  created_at    TIMESTAMPTZ NOT NULL DEFAULT now(),
+  CONSTRAINT uk_trade_decision_contexts_hash UNIQUE (context_hash)
+);
+
 -- 엔진 실행 상태 (재시작 시 마지막 ON/OFF 복원)
 CREATE TABLE engine_state (
   id          BIGINT PRIMARY KEY,
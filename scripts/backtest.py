@@ -2,7 +2,9 @@
 import argparse
 import json
 import math
+import mmap
 import os
+import struct
 import time
 import urllib.parse
 import urllib.request
@@ -10,6 +12,16 @@ from datetime import datetime, timezone
 
 UPBIT_MINUTE_URL = "https://api.upbit.com/v1/candles/minutes/{unit}"
 
+# Column files of the backend candle archive (CandleArchive.java): little-endian, 8 bytes per row.
+ARCHIVE_COLUMNS = [
+    ("time", "open_time.i64", "q"),
+    ("open", "open.f64", "d"),
+    ("high", "high.f64", "d"),
+    ("low", "low.f64", "d"),
+    ("close", "close.f64", "d"),
+    ("quote", "quote_volume.f64", "d"),
+]
+
 
 def fetch_candles(market, unit, count, to=None):
     params = {
@@ -24,9 +36,53 @@ def fetch_candles(market, unit, count, to=None):
         return json.loads(resp.read().decode("utf-8"))
 
 
-def load_candles(market, unit, days, cache_dir, sleep_s=0.12):
+def load_archived_candles(archive_dir, market, unit, total):
+    """Latest `total` candles of the archive's newest gap-free run, or None when it holds fewer."""
+    series_dir = os.path.join(archive_dir, market.upper(), f"{unit}m")
+    rows_path = os.path.join(series_dir, "rows")
+    if not os.path.exists(rows_path):
+        return None
+    with open(rows_path, "rb") as f:
+        header = f.read(8)
+    if len(header) < 8:
+        return None
+    rows = struct.unpack("<q", header)[0]
+    if rows < total:
+        return None
+
+    start = (rows - total) * 8
+    columns = {}
+    for key, file_name, fmt in ARCHIVE_COLUMNS:
+        with open(os.path.join(series_dir, file_name), "rb") as f:
+            with mmap.mmap(f.fileno(), 0, access=mmap.ACCESS_READ) as mapped:
+                if len(mapped) < start + total * 8:
+                    return None
+                columns[key] = struct.unpack_from(f"<{total}{fmt}", mapped, start)
+
+    run_start_path = os.path.join(series_dir, "run_start")
+    if total > 0 and os.path.exists(run_start_path):
+        with open(run_start_path, "rb") as f:
+            run_start = f.read(8)
+        if len(run_start) == 8 and columns["time"][0] < struct.unpack("<q", run_start)[0]:
+            return None
+
+    candles = []
+    for i in range(total):
+        candle = {key: columns[key][i] for key, _, _ in ARCHIVE_COLUMNS}
+        opened = datetime.fromtimestamp(candle["time"] / 1000, tz=timezone.utc)
+        candle["time"] = opened.strftime("%Y-%m-%dT%H:%M:%S")
+        candles.append(candle)
+    return candles
+
+
+def load_candles(market, unit, days, cache_dir, sleep_s=0.12, archive_dir=None):
     total = int(days * 24 * 60 / unit)
     total = max(10, total)
+    if archive_dir:
+        archived = load_archived_candles(archive_dir, market, unit, total)
+        if archived is not None:
+            print(f"Loaded {market} {unit}m from archive: {len(archived)}")
+            return archived
     cache_name = f"{market}_{unit}m_{days}d.json"
     cache_path = os.path.join(cache_dir, cache_name)
     if os.path.exists(cache_path):
@@ -515,6 +571,7 @@ def main():
     parser.add_argument("--days", type=int, default=30)
     parser.add_argument("--sleep", type=float, default=0.12)
     parser.add_argument("--cache-dir", default="data/backtest")
+    parser.add_argument("--archive-dir", default="data/candles")
     parser.add_argument("--short-unit", type=int, default=1)
     parser.add_argument("--mid-unit", type=int, default=15)
     args = parser.parse_args()
@@ -523,7 +580,14 @@ def main():
 
     results = []
     for label, unit in [("short", args.short_unit), ("mid", args.mid_unit)]:
-        candles = load_candles(args.market, unit, args.days, args.cache_dir, sleep_s=args.sleep)
+        candles = load_candles(
+            args.market,
+            unit,
+            args.days,
+            args.cache_dir,
+            sleep_s=args.sleep,
+            archive_dir=args.archive_dir,
+        )
         params = make_params(unit)
         result = backtest(candles, params)
         results.append(summarize(label, result, args.days, unit))